@@ -2,10 +2,12 @@ package com.management.school;
 
 import java.io.IOException;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import com.management.school.core.SchoolJavaFXApp;
 import javafx.application.Application;
 
 @SpringBootApplication
+@EnableScheduling
 public class SchoolApplication {
     
     public static String[] savedArgs;
@@ -3,8 +3,10 @@ package com.management.school.controller;
 import com.management.school.core.AdminSession;
 import com.management.school.model.Attendance;
 import com.management.school.model.Attendance.AttendanceStatus;
-import com.management.school.model.Student;
+import com.management.school.model.SchoolClass;
+import com.management.school.model.StudentSummary;
 import com.management.school.service.AttendanceService;
+import com.management.school.service.SchoolClassService;
 import com.management.school.service.StudentService;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -19,7 +21,7 @@ import org.springframework.stereotype.Controller;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @Controller
 public class AttendanceController {
@@ -32,6 +34,9 @@ public class AttendanceController {
     
     @Autowired
     private AdminSession adminSession;
+    
+    @Autowired
+    private SchoolClassService schoolClassService;
 
     // Filter controls
     @FXML
@@ -63,10 +68,6 @@ public class AttendanceController {
     @FXML
     private TableColumn<AttendanceRow, String> remarksColumn;
 
-    private final List<String> classLevels = List.of("Nursery", "KG", "I", "II", "III", "IV", "V", 
-                                                      "VI", "VII", "VIII", "IX", "X");
-    private final List<String> sections = List.of("A", "B");
-
     @FXML
     public void initialize() {
         setupTableColumns();
@@ -177,11 +178,14 @@ public class AttendanceController {
     }
 
     private void populateFilters() {
-        gradeComboBox.setItems(FXCollections.observableArrayList(classLevels));
-        gradeComboBox.setValue("X");
+        // Highest grade, first section
+        List<String> grades = schoolClassService.getGrades();
+        gradeComboBox.setItems(FXCollections.observableArrayList(grades));
+        gradeComboBox.setValue(grades.isEmpty() ? null : grades.get(grades.size() - 1));
         
+        List<String> sections = schoolClassService.getSections();
         sectionComboBox.setItems(FXCollections.observableArrayList(sections));
-        sectionComboBox.setValue("A");
+        sectionComboBox.setValue(sections.isEmpty() ? null : sections.get(0));
     }
 
     @FXML
@@ -197,7 +201,7 @@ public class AttendanceController {
 
         try {
             // Get students for the selected class
-            List<Student> students = attendanceService.getStudentsForAttendance(grade, section, date);
+            List<StudentSummary> students = attendanceService.getStudentsForAttendance(grade, section);
             
             if (students.isEmpty()) {
                 showAlert("No Students", "No active students found for " + grade + "-" + section, 
@@ -206,23 +210,22 @@ public class AttendanceController {
                 return;
             }
 
-            // Get existing attendance for this date
-            List<Attendance> existingAttendance = attendanceService.getAttendanceByDate(date);
+            // Get existing attendance for this date, by student
+            Map<Long, Attendance> existingAttendance = attendanceService.getAttendanceMarks(date);
             
             // Create attendance rows
             List<AttendanceRow> rows = new ArrayList<>();
-            for (Student student : students) {
-                AttendanceRow row = new AttendanceRow(student);
+            boolean hasExisting = false;
+            for (StudentSummary student : students) {
+                AttendanceRow row = new AttendanceRow(student, schoolClassService.findClass(student.classId()));
                 
                 // Check if attendance already exists
-                Optional<Attendance> existing = existingAttendance.stream()
-                        .filter(a -> a.getStudentId().equals(student.getId()))
-                        .findFirst();
-                
-                if (existing.isPresent()) {
-                    row.setStatus(existing.get().getStatus());
-                    row.setRemarks(existing.get().getRemarks());
-                    row.setAttendanceId(existing.get().getId());
+                Attendance existing = existingAttendance.get(student.id());
+                if (existing != null) {
+                    row.setStatus(existing.getStatus());
+                    row.setRemarks(existing.getRemarks());
+                    row.setAttendanceId(existing.getId());
+                    hasExisting = true;
                 } else {
                     row.setStatus(AttendanceStatus.PRESENT); // Default
                 }
@@ -233,9 +236,6 @@ public class AttendanceController {
             attendanceTable.setItems(FXCollections.observableArrayList(rows));
             
             // Update status label
-            boolean hasExisting = existingAttendance.stream()
-                    .anyMatch(a -> students.stream()
-                            .anyMatch(s -> s.getId().equals(a.getStudentId())));
             
             if (hasExisting) {
                 statusLabel.setText("✓ Attendance already marked for this date. You can update it.");
@@ -328,12 +328,12 @@ public class AttendanceController {
         private AttendanceStatus status;
         private String remarks;
 
-        public AttendanceRow(Student student) {
-            this.studentId = student.getId();
-            this.rollNumber = student.getRollNumber();
-            this.name = student.getName();
-            this.grade = student.getGrade();
-            this.section = student.getSection();
+        public AttendanceRow(StudentSummary student, SchoolClass schoolClass) {
+            this.studentId = student.id();
+            this.rollNumber = student.rollNumber();
+            this.name = student.name();
+            this.grade = schoolClass != null ? schoolClass.getGrade() : "";
+            this.section = schoolClass != null ? schoolClass.getSection() : "";
             this.status = AttendanceStatus.PRESENT;
             this.remarks = "";
         }
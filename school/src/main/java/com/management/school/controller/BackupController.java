@@ -4,29 +4,50 @@ import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
+import com.management.school.core.BackupLogSink;
+import com.management.school.service.BackupChunkStore;
+import com.management.school.service.BackupCodec;
+import com.management.school.service.BackupHistory;
+import com.management.school.service.BackupInspector;
+import com.management.school.service.BackupManifest;
+import com.management.school.service.BackupRestoreService;
+import com.management.school.service.BackupScheduler;
+import com.management.school.service.BackupService;
+import com.management.school.service.DocumentSnapshotService;
+import com.management.school.service.SelectiveRestoreService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.nio.file.attribute.PosixFilePermission;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.logging.Logger;
-import java.nio.file.StandardCopyOption;
 
 /**
  * Professional Database Backup & Restore Controller
  * 
  * Features:
- * - Encrypted, password-protected backups using WinRAR
- * - Automatic backup retention (keeps 4 most recent)
- * - Google Drive synchronization
+ * - Deduplicated, encrypted backups in a content-addressed chunk repository
+ * - Uploaded documents backed up with the database, incrementally (only new or changed files are read)
+ * - Selectable compression codec (deflate, LZ4, Zstandard)
+ * - Automatic backup retention with garbage collection of unreferenced chunks
+ * - Replication to any number of destinations (Google Drive, second disk, network share, object store):
+ *   parallel, resumable and checksum-verified, with per-destination retention
+ * - Scheduled backups in a quiet window with per-stage I/O throttling and run history
+ * - Online restore: load into a staging schema, verify row counts, atomic table swap
+ * - Selective restore of one table, a date range or one class, merged into the live data
+ * - Backup inspector: tables and row counts per backup, record lookup across all backups
+ * - Restore of legacy WinRAR (.rar) backups
  * - Secure credential handling via temp config files
- * - Comprehensive error handling and logging
+ * - Comprehensive error handling and logging (bounded on-screen log, rolling log file)
  * 
  * @author School Management System
  * @version 2.0.0
@@ -35,16 +56,20 @@ import java.nio.file.StandardCopyOption;
 public class BackupController {
 
     private static final Logger LOGGER = Logger.getLogger(BackupController.class.getName());
-    private static final int MAX_BACKUP_RETENTION = 4;
-    private static final String BACKUP_FILE_EXTENSION = ".rar";
+    private static final String LEGACY_BACKUP_FILE_EXTENSION = ".rar";
     private static final String SQL_FILE_EXTENSION = ".sql";
+    private static final DateTimeFormatter HISTORY_DATE_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
     
     @FXML private Button btnCreateBackup;
     @FXML private Button btnRestore;
+    @FXML private Button btnSelectiveRestore;
+    @FXML private Button btnInspect;
+    @FXML private Button btnFindRecord;
     @FXML private Button btnOpenFolder;
+    @FXML private Button btnHistory;
     @FXML private Label backupPathLabel;
     @FXML private ListView<File> backupListView;
-    @FXML private TextArea logArea;
+    @FXML private ListView<String> logView;
     @FXML private ProgressIndicator progressIndicator;
     @FXML private CheckBox cbAutoCleanup;
     @FXML private Spinner<Integer> retentionSpinner;
@@ -52,10 +77,33 @@ public class BackupController {
     @Autowired
     private Environment env;
 
+    @Autowired
+    private BackupLogSink logSink;
+
+    @Autowired
+    private BackupService backupService;
+
+    @Autowired
+    private BackupScheduler backupScheduler;
+
+    @Autowired
+    private BackupRestoreService restoreService;
+
+    @Autowired
+    private SelectiveRestoreService selectiveRestoreService;
+
+    @Autowired
+    private BackupInspector backupInspector;
+
+    @Autowired
+    private DocumentSnapshotService documentSnapshotService;
+
     private Path backupsDir;
     private final boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
     private String mysqlBinPath;
     private String winrarExePath;
+    private BackupCodec backupCodec;
+    private final Map<File, BackupManifest> snapshotManifests = new ConcurrentHashMap<>();
 
     @FXML
     public void initialize() {
@@ -70,8 +118,10 @@ public class BackupController {
      * Initialize UI components
      */
     private void initializeUI() {
+        logSink.attach(logView);
+        
         SpinnerValueFactory.IntegerSpinnerValueFactory factory =
-                new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 365, MAX_BACKUP_RETENTION);
+                new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 3650, BackupService.DEFAULT_BACKUP_RETENTION);
         retentionSpinner.setValueFactory(factory);
         
         // Hide manual cleanup controls as automatic cleanup is enabled
@@ -85,10 +135,15 @@ public class BackupController {
                 super.updateItem(item, empty);
                 if (empty || item == null) {
                     setText(null);
+                } else if (snapshotManifests.containsKey(item)) {
+                    BackupManifest manifest = snapshotManifests.get(item);
+                    String size = formatFileSize(manifest.getSize());
+                    String date = formatFileDate(item.lastModified());
+                    setText(String.format("%s  (%s) - %s", manifest.getName(), size, date));
                 } else {
                     String size = formatFileSize(item.length());
                     String date = formatFileDate(item.lastModified());
-                    setText(String.format("%s  (%s) - %s", item.getName(), size, date));
+                    setText(String.format("%s  (%s, legacy) - %s", item.getName(), size, date));
                 }
             }
         });
@@ -98,21 +153,14 @@ public class BackupController {
      * Load configuration from application properties
      */
     private void loadConfiguration() {
-        // Configure backup directory
-        String configuredBackupDir = env.getProperty("app.backups.dir");
-        if (configuredBackupDir != null && !configuredBackupDir.isBlank()) {
-            backupsDir = Paths.get(configuredBackupDir);
-        } else {
-            backupsDir = Paths.get(System.getProperty("user.home"), "SchoolApp", "backups");
-        }
+        backupsDir = backupService.getBackupsDir();
+        mysqlBinPath = backupService.getMysqlBinPath();
         
-        // Configure MySQL bin path
-        mysqlBinPath = env.getProperty("app.mysql.bin.path", 
-            isWindows ? "C:\\Program Files\\MySQL\\MySQL Server 8.0\\bin" : "/usr/bin");
-        
-        // Configure WinRAR path
+        // Configure WinRAR path (only needed to restore legacy .rar backups)
         winrarExePath = env.getProperty("app.winrar.path");
         
+        backupCodec = backupService.getCodec();
+        
         backupPathLabel.setText(backupsDir.toString());
     }
 
@@ -129,13 +177,13 @@ public class BackupController {
             logInfo("MySQL bin path validated: " + mysqlBinPath);
         }
 
-        // Validate WinRAR path
+        // Validate WinRAR path (optional, legacy restores only)
         if (winrarExePath == null || winrarExePath.isBlank()) {
-            logError("WinRAR path not configured. Please set 'app.winrar.path' in application.properties");
+            logInfo("WinRAR path not configured. Legacy .rar backups cannot be restored");
         } else {
             Path rarExe = Paths.get(winrarExePath, isWindows ? "Rar.exe" : "rar");
             if (!Files.exists(rarExe)) {
-                logError("WinRAR executable not found: " + rarExe);
+                logWarning("WinRAR executable not found: " + rarExe + " (needed only for legacy .rar backups)");
             } else {
                 logInfo("WinRAR path validated: " + winrarExePath);
             }
@@ -146,6 +194,12 @@ public class BackupController {
         if (backupPassword == null || backupPassword.isBlank()) {
             logError("Backup password not configured. Please set 'app.backups.password' in application.properties");
         }
+        
+        logInfo("Backup compression codec: " + backupCodec.name());
+        
+        String schedule = backupScheduler.getSchedule();
+        logInfo(schedule != null ? "Automatic backups scheduled: " + schedule
+                                 : "Automatic backups disabled (set 'app.backups.schedule.cron' to enable)");
     }
 
     /**
@@ -154,7 +208,11 @@ public class BackupController {
     private void setupEventHandlers() {
         btnCreateBackup.setOnAction(e -> createBackup());
         btnRestore.setOnAction(e -> restoreSelectedBackup());
+        btnSelectiveRestore.setOnAction(e -> restoreSelectedTable());
+        btnInspect.setOnAction(e -> inspectSelectedBackup());
+        btnFindRecord.setOnAction(e -> findRecordInBackups());
         btnOpenFolder.setOnAction(e -> openBackupsFolder());
+        btnHistory.setOnAction(e -> showBackupHistory());
     }
 
     /**
@@ -166,14 +224,33 @@ public class BackupController {
                 Files.createDirectories(backupsDir);
             }
 
-            List<File> files = Files.list(backupsDir)
-                    .filter(p -> Files.isRegularFile(p) && p.toString().endsWith(BACKUP_FILE_EXTENSION))
-                    .map(Path::toFile)
-                    .sorted(Comparator.comparingLong(File::lastModified).reversed())
-                    .collect(Collectors.toList());
+            List<File> files = new ArrayList<>();
+
+            Path snapshotsDir = getRepositoryDir().resolve("snapshots");
+            snapshotManifests.clear();
+            if (Files.isDirectory(snapshotsDir)) {
+                try (var stream = Files.list(snapshotsDir)) {
+                    for (Path p : stream.filter(p -> p.toString().endsWith(BackupManifest.FILE_EXTENSION))
+                                        .collect(Collectors.toList())) {
+                        try {
+                            snapshotManifests.put(p.toFile(), BackupManifest.read(p));
+                            files.add(p.toFile());
+                        } catch (IOException e) {
+                            logWarning("Skipping unreadable snapshot " + p.getFileName() + ": " + e.getMessage());
+                        }
+                    }
+                }
+            }
+
+            try (var stream = Files.list(backupsDir)) {
+                stream.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(LEGACY_BACKUP_FILE_EXTENSION))
+                      .map(Path::toFile)
+                      .forEach(files::add);
+            }
+            files.sort(Comparator.comparingLong(File::lastModified).reversed());
 
             Platform.runLater(() -> backupListView.getItems().setAll(files));
-            logInfo("Found " + files.size() + " backup file(s)");
+            logInfo("Found " + files.size() + " backup(s)");
 
         } catch (IOException e) {
             logException("Failed to refresh backup list", e);
@@ -185,9 +262,6 @@ public class BackupController {
      */
     private void createBackup() {
         Task<Void> task = new Task<>() {
-            Path tempConf = null;
-            Path tempSqlFile = null;
-
             @Override
             protected Void call() {
                 try {
@@ -196,54 +270,14 @@ public class BackupController {
                         btnCreateBackup.setDisable(true);
                     });
                     
-                    logInfo("========================================");
-                    logInfo("Starting backup process...");
-                    
-                    // Validate prerequisites
-                    if (!validateBackupPrerequisites()) {
-                        return null;
-                    }
-
-                    // Get database configuration
-                    DatabaseConfig dbConfig = getDatabaseConfig();
-                    
-                    // Create temporary config file for MySQL credentials
-                    tempConf = createSecureMySQLConfig(dbConfig, true);
-                    
-                    // Generate backup file paths
-                    String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
-                    String backupFileName = String.format("%s_backup_%s%s", 
-                        dbConfig.dbName, timestamp, BACKUP_FILE_EXTENSION);
-                    Path backupFile = backupsDir.resolve(backupFileName);
-                    tempSqlFile = Files.createTempFile("db_dump_", SQL_FILE_EXTENSION);
+                    backupService.runBackup("manual");
+                    refreshBackupList();
                     
-                    Files.createDirectories(backupsDir);
-
-                    // Step 1: Export database to SQL file
-                    exportDatabaseToSQL(dbConfig, tempConf, tempSqlFile);
-                    
-                    // Step 2: Encrypt and compress SQL file with WinRAR
-                    encryptSQLFileWithWinRAR(tempSqlFile, backupFile);
-                    
-                    logSuccess("Backup created successfully: " + backupFileName);
-                    
-                    // Step 3: Copy to Google Drive (if available)
-                    copyBackupToGoogleDrive(backupFile);
-
-                    // Step 4: Automatic cleanup of old backups
-                    cleanupOldBackups();
-                    
-                    logInfo("Backup process completed");
-                    logInfo("========================================");
-
-                } catch (Exception ex) {
-                    logException("Backup failed", ex);
                 } finally {
                     Platform.runLater(() -> {
                         progressIndicator.setVisible(false);
                         btnCreateBackup.setDisable(false);
                     });
-                    cleanupTempFiles(tempConf, tempSqlFile);
                 }
                 return null;
             }
@@ -253,7 +287,29 @@ public class BackupController {
     }
 
     /**
-     * Restore database from selected encrypted backup
+     * Log the most recent backup runs with their durations and sizes
+     */
+    private void showBackupHistory() {
+        try {
+            List<BackupHistory.Run> runs = backupService.getHistory().recent(20);
+            logInfo("========================================");
+            if (runs.isEmpty()) {
+                logInfo("No backup runs recorded yet");
+            }
+            for (BackupHistory.Run run : runs) {
+                logInfo(String.format("%s  %-9s %-7s %6.1f s  dump %s, stored %s, replicated %s  %s",
+                    run.started().format(HISTORY_DATE_FORMAT), run.trigger(),
+                    run.status(), run.durationMillis() / 1000.0, formatFileSize(run.dumpBytes()),
+                    formatFileSize(run.storedBytes()), formatFileSize(run.replicatedBytes()), run.message()));
+            }
+            logInfo("========================================");
+        } catch (IOException e) {
+            logException("Failed to read backup history", e);
+        }
+    }
+
+    /**
+     * Restore database from selected backup (repository snapshot or legacy .rar)
      */
     private void restoreSelectedBackup() {
         File selectedBackup = backupListView.getSelectionModel().getSelectedItem();
@@ -262,8 +318,15 @@ public class BackupController {
             return;
         }
         
-        if (!selectedBackup.getName().endsWith(BACKUP_FILE_EXTENSION)) {
-            showAlert("Invalid File", "Please select a valid encrypted backup file (.rar)", Alert.AlertType.ERROR);
+        if (backupService.isRunning()) {
+            showAlert("Backup Running", "Please wait for the running backup to finish before restoring.",
+                Alert.AlertType.WARNING);
+            return;
+        }
+        
+        BackupManifest manifest = snapshotManifests.get(selectedBackup);
+        if (manifest == null && !selectedBackup.getName().endsWith(LEGACY_BACKUP_FILE_EXTENSION)) {
+            showAlert("Invalid File", "Please select a valid backup", Alert.AlertType.ERROR);
             return;
         }
 
@@ -281,7 +344,6 @@ public class BackupController {
         }
 
         Task<Void> task = new Task<>() {
-            Path tempConf = null;
             Path tempSqlFile = null;
             Path tempDir = null;
 
@@ -293,22 +355,32 @@ public class BackupController {
                         btnRestore.setDisable(true);
                     });
                     
+                    String backupName = manifest != null ? manifest.getName() : selectedBackup.getName();
                     logInfo("========================================");
                     logInfo("Starting restore process...");
-                    logInfo("Backup file: " + selectedBackup.getName());
-
-                    // Get database configuration
-                    DatabaseConfig dbConfig = getDatabaseConfig();
-                    tempConf = createSecureMySQLConfig(dbConfig, false);
+                    logInfo("Backup: " + backupName);
 
-                    // Step 1: Extract encrypted backup
-                    tempDir = Files.createTempDirectory("restore_");
-                    tempSqlFile = extractEncryptedBackup(selectedBackup, password, tempDir);
-                    
-                    // Step 2: Restore database from SQL file
-                    restoreDatabaseFromSQL(dbConfig, tempConf, tempSqlFile);
+                    if (manifest != null) {
+                        // Reassemble the snapshot from the repository and stream it to mysql
+                        BackupChunkStore store = BackupChunkStore.open(getRepositoryDir(), password);
+                        try (InputStream sql = store.openSnapshot(manifest)) {
+                            restoreService.restore(sql, manifest.getRowCounts(), backupName);
+                        }
+                        if (!manifest.getFiles().isEmpty()) {
+                            logInfo("Restoring " + manifest.getFiles().size() + " document file(s)...");
+                            documentSnapshotService.restoreFiles(store, manifest);
+                        }
+                    } else {
+                        // Step 1: Extract legacy encrypted backup
+                        tempDir = Files.createTempDirectory("restore_");
+                        tempSqlFile = extractEncryptedBackup(selectedBackup, password, tempDir);
+                        
+                        // Step 2: Restore database from SQL file
+                        try (InputStream sql = Files.newInputStream(tempSqlFile)) {
+                            restoreService.restore(sql, Map.of(), backupName);
+                        }
+                    }
                     
-                    logSuccess("Database restored successfully from: " + selectedBackup.getName());
                     logInfo("Restore process completed");
                     logInfo("========================================");
                     
@@ -321,14 +393,15 @@ public class BackupController {
                     logException("Restore failed", ex);
                     Platform.runLater(() -> 
                         showAlert("Restore Failed", 
-                            "Failed to restore database: " + ex.getMessage(), 
+                            "Failed to restore database: " + ex.getMessage()
+                                + "\n\nThe current database has not been changed.", 
                             Alert.AlertType.ERROR));
                 } finally {
                     Platform.runLater(() -> {
                         progressIndicator.setVisible(false);
                         btnRestore.setDisable(false);
                     });
-                    cleanupTempFiles(tempConf, tempSqlFile);
+                    cleanupTempFiles(tempSqlFile);
                     cleanupTempDirectory(tempDir);
                 }
                 return null;
@@ -339,100 +412,264 @@ public class BackupController {
     }
 
     /**
-     * Export database to SQL file using mysqldump
+     * Restore some rows of one table from the selected snapshot and merge them
+     * into the live database, leaving all other data as it is
      */
-    private void exportDatabaseToSQL(DatabaseConfig dbConfig, Path configFile, Path outputFile) 
-            throws IOException, InterruptedException {
-        logInfo("Exporting database to SQL file...");
-        
-        String mysqldumpCmd = Paths.get(mysqlBinPath, 
-            isWindows ? "mysqldump.exe" : "mysqldump").toString();
-        
-        List<String> command = Arrays.asList(
-            mysqldumpCmd,
-            "--defaults-extra-file=" + configFile.toAbsolutePath(),
-            "--single-transaction",
-            "--routines",
-            "--triggers",
-            "--events",
-            "--hex-blob",
-            "--set-gtid-purged=OFF",
-            dbConfig.dbName
-        );
-        
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
+    private void restoreSelectedTable() {
+        File selectedBackup = backupListView.getSelectionModel().getSelectedItem();
+        BackupManifest manifest = selectedBackup == null ? null : snapshotManifests.get(selectedBackup);
+        if (manifest == null) {
+            showAlert("No Selection", "Please select a repository backup (legacy .rar backups can only be restored in full).",
+                Alert.AlertType.WARNING);
+            return;
+        }
 
-        // Write mysqldump output to file
-        try (InputStream in = process.getInputStream();
-             OutputStream out = Files.newOutputStream(outputFile)) {
-            in.transferTo(out);
+        if (backupService.isRunning()) {
+            showAlert("Backup Running", "Please wait for the running backup to finish before restoring.",
+                Alert.AlertType.WARNING);
+            return;
         }
 
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new RuntimeException("mysqldump failed with exit code: " + exitCode);
+        SelectiveRestoreService.Request request = promptForSelectiveRestore(manifest);
+        if (request == null) {
+            return;
         }
-        
-        logInfo("Database export completed: " + formatFileSize(Files.size(outputFile)));
+
+        String password = promptForPassword("Enter Backup Password", 
+            "Please enter the password to decrypt this backup:");
+        if (password == null || password.isEmpty()) {
+            logInfo("Restore cancelled: No password provided");
+            return;
+        }
+
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() {
+                try {
+                    Platform.runLater(() -> {
+                        progressIndicator.setVisible(true);
+                        btnSelectiveRestore.setDisable(true);
+                    });
+
+                    logInfo("========================================");
+                    logInfo("Selective restore from " + manifest.getName() + ": " + request);
+
+                    BackupChunkStore store = BackupChunkStore.open(getRepositoryDir(), password);
+                    SelectiveRestoreService.Extract extract = selectiveRestoreService.extract(store, manifest, request);
+                    if (extract.rows().isEmpty()) {
+                        showAlert("Nothing to Restore", "No rows in the backup match the selection.",
+                            Alert.AlertType.INFORMATION);
+                        return null;
+                    }
+
+                    CompletableFuture<Boolean> confirmed = new CompletableFuture<>();
+                    Platform.runLater(() -> confirmed.complete(confirmSelectiveRestore(extract)));
+                    if (!confirmed.join()) {
+                        logInfo("Selective restore cancelled");
+                        return null;
+                    }
+
+                    int merged = selectiveRestoreService.merge(extract);
+                    logInfo("========================================");
+                    showAlert("Restore Complete", merged + " row(s) of " + request.table() + " restored.",
+                        Alert.AlertType.INFORMATION);
+
+                } catch (Exception ex) {
+                    logException("Selective restore failed", ex);
+                    showAlert("Restore Failed", 
+                        "Failed to restore " + request.table() + ": " + ex.getMessage()
+                            + "\n\nThe current database has not been changed.", 
+                        Alert.AlertType.ERROR);
+                } finally {
+                    Platform.runLater(() -> {
+                        progressIndicator.setVisible(false);
+                        btnSelectiveRestore.setDisable(false);
+                    });
+                }
+                return null;
+            }
+        };
+
+        new Thread(task, "selective-restore-thread").start();
     }
 
     /**
-     * Encrypt SQL file using WinRAR with maximum security
+     * Ask which table, date range and class to restore
      */
-    private void encryptSQLFileWithWinRAR(Path sqlFile, Path outputFile) 
-            throws IOException, InterruptedException {
-        logInfo("Encrypting and compressing backup file...");
-        
-        String password = env.getProperty("app.backups.password");
-        String rarCmd = Paths.get(winrarExePath, isWindows ? "Rar.exe" : "rar").toString();
-        
-        // WinRAR command with maximum security options:
-        // a = add to archive
-        // -hp[password] = encrypt both file data and headers (hides file names)
-        // -p[password] = set password
-        // -m5 = maximum compression
-        // -ma5 = RAR5 format (more secure)
-        // -ep1 = exclude base folder from paths
-        // -df = delete source file after archiving
-        // -y = assume Yes on all queries
-        // -inul = disable all messages
-        List<String> command = Arrays.asList(
-            rarCmd,
-            "a",                                    // add to archive
-            "-hp" + password,                       // encrypt headers
-            "-p" + password,                        // set password
-            "-m5",                                  // maximum compression
-            "-ma5",                                 // use RAR5 format
-            "-ep1",                                 // exclude base folder
-            "-df",                                  // delete source after
-            "-y",                                   // assume yes
-            "-inul",                                // disable messages
-            outputFile.toAbsolutePath().toString(),
-            sqlFile.toAbsolutePath().toString()
+    private SelectiveRestoreService.Request promptForSelectiveRestore(BackupManifest manifest) {
+        ComboBox<String> tableBox = new ComboBox<>();
+        tableBox.getItems().setAll(manifest.getRowCounts().isEmpty()
+            ? List.of("attendance", "students") : new ArrayList<>(manifest.getRowCounts().keySet()));
+        tableBox.setValue(tableBox.getItems().contains("attendance") ? "attendance" : tableBox.getItems().get(0));
+        TextField dateColumnField = new TextField("attendance_date");
+        DatePicker fromPicker = new DatePicker();
+        DatePicker toPicker = new DatePicker();
+        TextField gradeField = new TextField();
+        gradeField.setPromptText("Any");
+        TextField sectionField = new TextField();
+        sectionField.setPromptText("Any");
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(8);
+        grid.addRow(0, new Label("Table:"), tableBox);
+        grid.addRow(1, new Label("Date column:"), dateColumnField);
+        grid.addRow(2, new Label("From:"), fromPicker);
+        grid.addRow(3, new Label("To:"), toPicker);
+        grid.addRow(4, new Label("Grade:"), gradeField);
+        grid.addRow(5, new Label("Section:"), sectionField);
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Restore Table");
+        dialog.setHeaderText("Restore rows from: " + manifest.getName()
+            + "\nLeave a field empty to not filter on it.");
+        dialog.getDialogPane().setContent(grid);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+        Optional<ButtonType> result = dialog.showAndWait();
+        if (result.isEmpty() || result.get() != ButtonType.OK) {
+            return null;
+        }
+        LocalDate from = fromPicker.getValue();
+        LocalDate to = toPicker.getValue();
+        return new SelectiveRestoreService.Request(tableBox.getValue(), dateColumnField.getText().trim(),
+            from, to, gradeField.getText().trim(), sectionField.getText().trim());
+    }
+
+    /**
+     * Confirm merging the extracted rows into the live database
+     */
+    private boolean confirmSelectiveRestore(SelectiveRestoreService.Extract extract) {
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+        confirm.setTitle("Confirm Selective Restore");
+        confirm.setHeaderText("Restore " + extract.rows().size() + " row(s): " + extract.request());
+        confirm.setContentText(
+            "• Rows that still exist are set back to their values from the backup\n" +
+            "• Deleted rows are re-created\n" +
+            "• Rows added since the backup and all other tables are not changed\n\n" +
+            "Do you want to proceed?"
         );
-        
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
 
-        // Log WinRAR output
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    logInfo("WinRAR: " + line);
-                }
-            }
+        Optional<ButtonType> result = confirm.showAndWait();
+        return result.isPresent() && result.get() == ButtonType.OK;
+    }
+
+    /**
+     * Log the tables of the selected backup from its index; nothing is decrypted
+     */
+    private void inspectSelectedBackup() {
+        File selectedBackup = backupListView.getSelectionModel().getSelectedItem();
+        BackupManifest manifest = selectedBackup == null ? null : snapshotManifests.get(selectedBackup);
+        if (manifest == null) {
+            showAlert("No Selection", "Please select a repository backup to inspect.", Alert.AlertType.WARNING);
+            return;
         }
-        
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new RuntimeException("WinRAR encryption failed with exit code: " + exitCode);
+
+        List<BackupInspector.TableSummary> tables = backupInspector.summarize(manifest);
+        logInfo("========================================");
+        logInfo("Backup: " + manifest.getName() + " (" + formatFileSize(manifest.getSize()) + ")");
+        if (tables.isEmpty()) {
+            logInfo("This backup has no table index (created before indexing was added)");
         }
-        
-        logInfo("Encryption completed: " + formatFileSize(Files.size(outputFile)));
+        for (BackupInspector.TableSummary table : tables) {
+            logInfo(String.format("%-24s %10d rows  ids %s..%s  %d statement(s), %s", table.table(), table.rows(),
+                table.minKey() != null ? table.minKey() : "?", table.maxKey() != null ? table.maxKey() : "?",
+                table.statements(), formatFileSize(table.bytes())));
+        }
+        logInfo("========================================");
+    }
+
+    /**
+     * Search every repository backup for one record by its id
+     */
+    private void findRecordInBackups() {
+        List<BackupManifest> manifests = new ArrayList<>(snapshotManifests.values());
+        if (manifests.isEmpty()) {
+            showAlert("No Backups", "There are no repository backups to search.", Alert.AlertType.WARNING);
+            return;
+        }
+        manifests.sort(Comparator.comparing(BackupManifest::getCreated).reversed());
+
+        Set<String> tableNames = new TreeSet<>();
+        manifests.forEach(m -> tableNames.addAll(m.getRowCounts().keySet()));
+        ComboBox<String> tableBox = new ComboBox<>();
+        tableBox.getItems().setAll(tableNames.isEmpty() ? List.of("students") : new ArrayList<>(tableNames));
+        tableBox.setValue(tableBox.getItems().contains("students") ? "students" : tableBox.getItems().get(0));
+        TextField idField = new TextField();
+        idField.setPromptText("Record id");
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(8);
+        grid.addRow(0, new Label("Table:"), tableBox);
+        grid.addRow(1, new Label("Id:"), idField);
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Find Record");
+        dialog.setHeaderText("Search all " + manifests.size() + " backup(s) for a record");
+        dialog.getDialogPane().setContent(grid);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        Optional<ButtonType> choice = dialog.showAndWait();
+        if (choice.isEmpty() || choice.get() != ButtonType.OK) {
+            return;
+        }
+
+        long id;
+        try {
+            id = Long.parseLong(idField.getText().trim());
+        } catch (NumberFormatException e) {
+            showAlert("Invalid Id", "Please enter a numeric record id.", Alert.AlertType.WARNING);
+            return;
+        }
+        String table = tableBox.getValue();
+
+        String password = promptForPassword("Enter Backup Password", 
+            "Please enter the password to decrypt the backups:");
+        if (password == null || password.isEmpty()) {
+            return;
+        }
+
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() {
+                try {
+                    Platform.runLater(() -> {
+                        progressIndicator.setVisible(true);
+                        btnFindRecord.setDisable(true);
+                    });
+
+                    logInfo("========================================");
+                    logInfo("Searching " + manifests.size() + " backup(s) for " + table + " #" + id + "...");
+                    long startNanos = System.nanoTime();
+                    BackupChunkStore store = BackupChunkStore.open(getRepositoryDir(), password);
+                    int found = 0;
+                    long bytesRead = 0;
+                    for (BackupInspector.RecordMatch match : backupInspector.findRecord(store, manifests, table, id)) {
+                        bytesRead += match.bytesRead();
+                        if (!match.indexed()) {
+                            logInfo(match.backupName() + ": not indexed (older backup), skipped");
+                        } else if (match.found()) {
+                            found++;
+                            logSuccess(match.backupName() + ": " + match.values());
+                        }
+                    }
+                    logInfo(String.format("Found in %d of %d backup(s); read %s in %d ms", found, manifests.size(),
+                        formatFileSize(bytesRead), (System.nanoTime() - startNanos) / 1_000_000));
+                    logInfo("========================================");
+
+                } catch (Exception ex) {
+                    logException("Record search failed", ex);
+                } finally {
+                    Platform.runLater(() -> {
+                        progressIndicator.setVisible(false);
+                        btnFindRecord.setDisable(false);
+                    });
+                }
+                return null;
+            }
+        };
+
+        new Thread(task, "record-search-thread").start();
     }
 
     /**
@@ -498,168 +735,6 @@ public class BackupController {
         }
     }
 
-    /**
-     * Restore database from SQL file using mysql client
-     */
-    private void restoreDatabaseFromSQL(DatabaseConfig dbConfig, Path configFile, Path sqlFile) 
-            throws IOException, InterruptedException {
-        logInfo("Restoring database from SQL file...");
-        
-        String mysqlCmd = Paths.get(mysqlBinPath, 
-            isWindows ? "mysql.exe" : "mysql").toString();
-        
-        List<String> command = Arrays.asList(
-            mysqlCmd,
-            "--defaults-extra-file=" + configFile.toAbsolutePath(),
-            dbConfig.dbName
-        );
-        
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
-
-        // Pipe SQL file to mysql process
-        try (OutputStream processIn = process.getOutputStream()) {
-            Files.copy(sqlFile, processIn);
-        }
-
-        // Log mysql output
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    logInfo("MySQL: " + line);
-                }
-            }
-        }
-
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new RuntimeException("Database restore failed with exit code: " + exitCode);
-        }
-        
-        logInfo("Database restore completed successfully");
-    }
-
-    /**
-     * Create a secure temporary MySQL configuration file
-     */
-    private Path createSecureMySQLConfig(DatabaseConfig config, boolean forDump) throws IOException {
-        Path tempConfig = Files.createTempFile("mysql_conf_", ".cnf");
-        
-        String section = forDump ? "[mysqldump]" : "[mysql]";
-        String content = String.format("%s%nuser=%s%npassword=%s%nhost=%s%n", 
-            section, config.username, config.password, config.host);
-        
-        Files.writeString(tempConfig, content, StandardCharsets.UTF_8);
-
-        // Set secure file permissions on Unix-like systems
-        if (!isWindows) {
-            try {
-                Set<PosixFilePermission> perms = EnumSet.of(
-                    PosixFilePermission.OWNER_READ,
-                    PosixFilePermission.OWNER_WRITE
-                );
-                Files.setPosixFilePermissions(tempConfig, perms);
-            } catch (UnsupportedOperationException e) {
-                logWarning("Unable to set POSIX permissions on temp config file");
-            }
-        }
-        
-        return tempConfig;
-    }
-
-    /**
-     * Copy backup to Google Drive if available
-     */
-    private void copyBackupToGoogleDrive(Path backupFile) {
-        logInfo("Attempting to sync backup to Google Drive...");
-        
-        try {
-            Path googleDriveRoot = Paths.get("G:", "My Drive");
-            
-            if (!Files.exists(googleDriveRoot)) {
-                logWarning("Google Drive not accessible. Skipping cloud sync.");
-                return;
-            }
-
-            Path googleBackupDir = googleDriveRoot.resolve("School Backup");
-            Files.createDirectories(googleBackupDir);
-
-            Path destination = googleBackupDir.resolve(backupFile.getFileName());
-            Files.copy(backupFile, destination, StandardCopyOption.REPLACE_EXISTING);
-            
-            logSuccess("Backup synced to Google Drive: " + destination);
-            
-            // Cleanup old cloud backups
-            cleanupOldBackupsFromGoogleDrive(googleBackupDir);
-
-        } catch (IOException e) {
-            logError("Failed to sync backup to Google Drive: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Cleanup old backups from local storage
-     */
-    private void cleanupOldBackups() {
-        cleanupOldBackupsFromDirectory(backupsDir, "local");
-        refreshBackupList();
-    }
-
-    /**
-     * Cleanup old backups from Google Drive
-     */
-    private void cleanupOldBackupsFromGoogleDrive(Path googleBackupDir) {
-        cleanupOldBackupsFromDirectory(googleBackupDir, "Google Drive");
-    }
-
-    /**
-     * Generic method to cleanup old backups from any directory
-     */
-    private void cleanupOldBackupsFromDirectory(Path directory, String location) {
-        try {
-            if (!Files.exists(directory)) {
-                return;
-            }
-
-            logInfo("Cleaning up old backups from " + location + "...");
-
-            List<Path> backupFiles = Files.list(directory)
-                    .filter(p -> Files.isRegularFile(p) && p.toString().endsWith(BACKUP_FILE_EXTENSION))
-                    .sorted(Comparator.comparingLong((Path p) -> {
-                        try {
-                            return Files.getLastModifiedTime(p).toMillis();
-                        } catch (IOException e) {
-                            return 0;
-                        }
-                    }).reversed())
-                    .collect(Collectors.toList());
-
-            if (backupFiles.size() > MAX_BACKUP_RETENTION) {
-                List<Path> filesToDelete = backupFiles.subList(MAX_BACKUP_RETENTION, backupFiles.size());
-                
-                logInfo(String.format("Keeping %d newest backups, deleting %d old backup(s) from %s", 
-                    MAX_BACKUP_RETENTION, filesToDelete.size(), location));
-
-                for (Path file : filesToDelete) {
-                    try {
-                        Files.deleteIfExists(file);
-                        logInfo("Deleted old backup: " + file.getFileName());
-                    } catch (IOException e) {
-                        logError("Failed to delete " + file.getFileName() + ": " + e.getMessage());
-                    }
-                }
-            } else {
-                logInfo(String.format("No cleanup needed in %s (%d backup(s) found)", 
-                    location, backupFiles.size()));
-            }
-
-        } catch (IOException e) {
-            logException("Cleanup error in " + location, e);
-        }
-    }
-
     /**
      * Open backups folder in system file explorer
      */
@@ -686,76 +761,13 @@ public class BackupController {
         }
     }
 
-    // ==================== Validation & Configuration Methods ====================
-
-    /**
-     * Validate all prerequisites for backup operation
-     */
-    private boolean validateBackupPrerequisites() {
-        String password = env.getProperty("app.backups.password");
-        if (password == null || password.isBlank()) {
-            logError("Backup password not configured in application.properties");
-            return false;
-        }
-        
-        if (winrarExePath == null || winrarExePath.isBlank()) {
-            logError("WinRAR path not configured in application.properties");
-            return false;
-        }
-        
-        return true;
-    }
+    // ==================== Configuration Methods ====================
 
     /**
-     * Get database configuration from properties
+     * Location of the deduplicated backup repository
      */
-    private DatabaseConfig getDatabaseConfig() {
-        String url = env.getProperty("spring.datasource.url", "");
-        return new DatabaseConfig(
-            extractHostFromUrl(url),
-            extractDbNameFromUrl(url),
-            env.getProperty("spring.datasource.username", "root"),
-            env.getProperty("spring.datasource.password", "")
-        );
-    }
-
-    /**
-     * Extract database name from JDBC URL
-     */
-    private String extractDbNameFromUrl(String url) {
-        try {
-            if (url.startsWith("jdbc:mysql:")) {
-                String after = url.substring("jdbc:mysql://".length());
-                int slashIndex = after.indexOf('/');
-                if (slashIndex > 0) {
-                    String dbAndParams = after.substring(slashIndex + 1);
-                    int questionIndex = dbAndParams.indexOf('?');
-                    return questionIndex > 0 ? dbAndParams.substring(0, questionIndex) : dbAndParams;
-                }
-            }
-        } catch (Exception e) {
-            logError("Failed to parse database name from URL: " + url);
-        }
-        return env.getProperty("app.db.name", "schooldb");
-    }
-
-    /**
-     * Extract host from JDBC URL
-     */
-    private String extractHostFromUrl(String url) {
-        try {
-            if (url.startsWith("jdbc:mysql:")) {
-                String after = url.substring("jdbc:mysql://".length());
-                int slashIndex = after.indexOf('/');
-                if (slashIndex > 0) {
-                    String hostPort = after.substring(0, slashIndex);
-                    return hostPort.contains(":") ? hostPort.split(":")[0] : hostPort;
-                }
-            }
-        } catch (Exception e) {
-            logError("Failed to parse host from URL: " + url);
-        }
-        return "127.0.0.1";
+    private Path getRepositoryDir() {
+        return backupService.getRepositoryDir();
     }
 
     // ==================== UI Helper Methods ====================
@@ -786,9 +798,11 @@ public class BackupController {
         confirm.setHeaderText("Restore from: " + backupName);
         confirm.setContentText(
             "⚠ WARNING: This will completely replace your current database!\n\n" +
-            "• All current data will be overwritten\n" +
-            "• This action cannot be undone\n" +
-            "• Make sure you have a recent backup if needed\n\n" +
+            "• The backup is loaded and checked in the background; the application\n" +
+            "  stays usable and switches to the restored data in a few seconds at the end\n" +
+            "• Changes made while the restore runs will be lost\n" +
+            "• The replaced data is kept in a separate schema until the next restore\n" +
+            "• Uploaded documents in the backup are put back; newer documents are kept\n\n" +
             "Do you want to proceed?"
         );
         
@@ -834,15 +848,7 @@ public class BackupController {
     }
 
     private void log(String level, String message) {
-        String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-        String formattedMessage = String.format("[%s] [%s] %s", timestamp, level, message);
-        
-        Platform.runLater(() -> {
-            logArea.appendText(formattedMessage + "\n");
-            logArea.setScrollTop(Double.MAX_VALUE);
-        });
-        
-        LOGGER.info(message);
+        logSink.log(level, message);
     }
 
     // ==================== Utility Methods ====================
@@ -883,14 +889,8 @@ public class BackupController {
         }
     }
 
-    /**
-     * Format file size in human-readable format
-     */
     private String formatFileSize(long size) {
-        if (size <= 0) return "0 B";
-        final String[] units = {"B", "KB", "MB", "GB", "TB"};
-        int digitGroups = (int) (Math.log10(size) / Math.log10(1024));
-        return String.format("%.2f %s", size / Math.pow(1024, digitGroups), units[digitGroups]);
+        return BackupService.formatFileSize(size);
     }
 
     /**
@@ -900,18 +900,4 @@ public class BackupController {
         return new SimpleDateFormat("MMM dd, yyyy HH:mm").format(new Date(timestamp));
     }
 
-  
-    private static class DatabaseConfig {
-        final String host;
-        final String dbName;
-        final String username;
-        final String password;
-
-        DatabaseConfig(String host, String dbName, String username, String password) {
-            this.host = host;
-            this.dbName = dbName;
-            this.username = username;
-            this.password = password;
-        }
-    }
-}
\ No newline at end of file
+}
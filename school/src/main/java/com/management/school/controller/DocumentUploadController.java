@@ -3,17 +3,23 @@ package com.management.school.controller;
 import com.management.school.model.Document;
 import com.management.school.model.Document.DocumentType;
 import com.management.school.model.Student;
+import com.management.school.service.BackupService;
 import com.management.school.service.DocumentService;
+import com.management.school.service.ThumbnailService;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
 import javafx.scene.layout.GridPane;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,9 +52,18 @@ public class DocumentUploadController {
     @FXML private Button parentAadharDeleteBtn;
     @FXML private Button parentVoterIdDeleteBtn;
     
+    @FXML private ImageView studentAadharThumb;
+    @FXML private ImageView studentBirthCertThumb;
+    @FXML private ImageView studentPhotoThumb;
+    @FXML private ImageView parentAadharThumb;
+    @FXML private ImageView parentVoterIdThumb;
+    
     @Autowired
     private DocumentService documentService;
     
+    @Autowired
+    private ThumbnailService thumbnailService;
+    
     private Student currentStudent;
     private Map<DocumentType, Document> documentMap = new HashMap<>();
     
@@ -77,24 +92,29 @@ public class DocumentUploadController {
     
     private void updateUI() {
         updateDocumentUI(DocumentType.STUDENT_AADHAR, studentAadharLabel, 
-                        studentAadharViewBtn, studentAadharDeleteBtn);
+                        studentAadharViewBtn, studentAadharDeleteBtn, studentAadharThumb);
         updateDocumentUI(DocumentType.STUDENT_BIRTH_CERTIFICATE, studentBirthCertLabel, 
-                        studentBirthCertViewBtn, studentBirthCertDeleteBtn);
+                        studentBirthCertViewBtn, studentBirthCertDeleteBtn, studentBirthCertThumb);
         updateDocumentUI(DocumentType.STUDENT_PHOTO, studentPhotoLabel, 
-                        studentPhotoViewBtn, studentPhotoDeleteBtn);
+                        studentPhotoViewBtn, studentPhotoDeleteBtn, studentPhotoThumb);
         updateDocumentUI(DocumentType.PARENT_AADHAR, parentAadharLabel, 
-                        parentAadharViewBtn, parentAadharDeleteBtn);
+                        parentAadharViewBtn, parentAadharDeleteBtn, parentAadharThumb);
         updateDocumentUI(DocumentType.PARENT_VOTER_ID, parentVoterIdLabel, 
-                        parentVoterIdViewBtn, parentVoterIdDeleteBtn);
+                        parentVoterIdViewBtn, parentVoterIdDeleteBtn, parentVoterIdThumb);
     }
     
-    private void updateDocumentUI(DocumentType type, Label label, Button viewBtn, Button deleteBtn) {
+    private void updateDocumentUI(DocumentType type, Label label, Button viewBtn, Button deleteBtn,
+                                  ImageView thumb) {
         Document doc = documentMap.get(type);
+        thumb.setImage(null);
+        thumb.setUserData(doc);
+        thumb.setOnMouseClicked(null);
         if (doc != null) {
             label.setText("✓ " + doc.getFileName());
             label.setStyle("-fx-text-fill: green;");
             viewBtn.setDisable(false);
             deleteBtn.setDisable(false);
+            loadThumbnail(doc, thumb);
         } else {
             label.setText("Not uploaded");
             label.setStyle("-fx-text-fill: gray;");
@@ -103,6 +123,34 @@ public class DocumentUploadController {
         }
     }
     
+    /**
+     * Show the thumbnail when it is ready; clicking it opens a larger preview
+     */
+    private void loadThumbnail(Document doc, ImageView thumb) {
+        thumbnailService.getImage(doc, ThumbnailService.Size.THUMBNAIL).thenAccept(bytes -> Platform.runLater(() -> {
+            // The dialog may show another document by now
+            if (thumb.getUserData() == doc) {
+                thumb.setImage(new Image(new ByteArrayInputStream(bytes)));
+                thumb.setOnMouseClicked(e -> showPreview(doc));
+            }
+        }));
+    }
+    
+    private void showPreview(Document doc) {
+        thumbnailService.getImage(doc, ThumbnailService.Size.PREVIEW).whenComplete((bytes, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                showAlert("Error", "Failed to create preview: " + error.getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
+            Dialog<Void> preview = new Dialog<>();
+            preview.setTitle(doc.getDocumentType().getDisplayName());
+            preview.setHeaderText(doc.getFileName());
+            preview.getDialogPane().setContent(new ImageView(new Image(new ByteArrayInputStream(bytes))));
+            preview.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+            preview.show();
+        }));
+    }
+    
     @FXML
     private void handleStudentAadharUpload() {
         uploadDocument(DocumentType.STUDENT_AADHAR);
@@ -147,22 +195,35 @@ public class DocumentUploadController {
         File selectedFile = fileChooser.showOpenDialog(stage);
         
         if (selectedFile != null) {
-            try {
-                Document document = documentService.uploadDocument(
-                    currentStudent.getId(), 
-                    documentType, 
-                    selectedFile, 
-                    selectedFile.getName()
-                );
-                
+            // Compressing a large photo or scan takes a moment; keep the dialog responsive
+            Long studentId = currentStudent.getId();
+            Task<Document> task = new Task<>() {
+                @Override
+                protected Document call() throws Exception {
+                    return documentService.uploadDocument(studentId, documentType, selectedFile, selectedFile.getName());
+                }
+            };
+            task.setOnSucceeded(event -> {
+                documentGrid.setDisable(false);
+                Document document = task.getValue();
                 documentMap.put(documentType, document);
                 updateUI();
                 
-                showAlert("Success", documentType.getDisplayName() + " uploaded successfully!", 
-                         Alert.AlertType.INFORMATION);
-            } catch (IOException e) {
-                showAlert("Upload Failed", e.getMessage(), Alert.AlertType.ERROR);
-            }
+                String message = documentType.getDisplayName() + " uploaded successfully!";
+                if (document.getOriginalFileSize() != null) {
+                    message += String.format("%n%nCompressed from %s to %s, saving %s.",
+                        BackupService.formatFileSize(document.getOriginalFileSize()),
+                        BackupService.formatFileSize(document.getFileSize()),
+                        BackupService.formatFileSize(document.getOriginalFileSize() - document.getFileSize()));
+                }
+                showAlert("Success", message, Alert.AlertType.INFORMATION);
+            });
+            task.setOnFailed(event -> {
+                documentGrid.setDisable(false);
+                showAlert("Upload Failed", task.getException().getMessage(), Alert.AlertType.ERROR);
+            });
+            documentGrid.setDisable(true);
+            new Thread(task, "document-upload-thread").start();
         }
     }
     
@@ -0,0 +1,182 @@
+package com.management.school.controller;
+
+import javafx.animation.PauseTransition;
+import javafx.concurrent.Task;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Search-as-you-type for a text field.
+ *
+ * Keystrokes are debounced: the term is only searched once the field has
+ * been quiet for {@link #DELAY}. The search runs on a background thread and
+ * its results are shown on the FX thread; a search overtaken by newer typing
+ * is cancelled and whatever it returns is dropped. Results are cached per
+ * term, and a term that extends a cached one whose results were complete
+ * (fewer than the limit) may be refined from those results without going
+ * back to the database - typing "priya s" after "priya" only narrows the
+ * list. That is only right when every match of the longer term also matches
+ * the shorter one, as with plain substring matching; a search that finds
+ * similar-sounding or misspelt words does not narrow like that, so its
+ * {@link #refine} declines and the longer term is searched again.
+ *
+ * Everything except {@link #search} runs on the FX thread.
+ */
+public abstract class IncrementalSearch<T> {
+
+    static final Duration DELAY = Duration.millis(250);
+    private static final int CACHE_SIZE = 32;
+
+    private final PauseTransition pause = new PauseTransition(DELAY);
+    private final String threadName;
+    private final int limit;
+
+    // Least recently used first
+    private final Map<String, List<T>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<T>> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private Task<List<T>> running;
+    // Term shown in the table or being searched for; null when unknown
+    private String current;
+
+    /**
+     * @param field the field to watch
+     * @param threadName name of the background search threads
+     * @param limit the most results {@link #search} returns
+     */
+    protected IncrementalSearch(TextField field, String threadName, int limit) {
+        this.threadName = threadName;
+        this.limit = limit;
+        pause.setOnFinished(e -> run(field.getText(), true));
+        field.textProperty().addListener((obs, oldText, newText) -> pause.playFromStart());
+    }
+
+    /**
+     * Search the database for a term; runs on a background thread
+     */
+    protected abstract List<T> search(String term);
+
+    /**
+     * The entries of earlier results that match a longer term, best first;
+     * null if that could miss matches, to search for the term instead
+     */
+    protected abstract List<T> refine(List<T> results, String term);
+
+    protected abstract void show(List<T> results);
+
+    /**
+     * The field was emptied
+     */
+    protected abstract void cleared();
+
+    protected abstract void failed(Throwable error);
+
+    /**
+     * Search right away, skipping the cache; for an explicit Search button
+     */
+    public void searchNow(String text) {
+        cache.clear();
+        current = null;
+        run(text, false);
+    }
+
+    /**
+     * Forget the cached results and drop any pending search; call after
+     * records are added, changed or deleted
+     */
+    public void reset() {
+        pause.stop();
+        cancelRunning();
+        cache.clear();
+        current = null;
+    }
+
+    private void run(String text, boolean useCache) {
+        pause.stop();
+        String term = text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+        if (term.equals(current)) {
+            // e.g. a character typed and deleted again
+            return;
+        }
+        cancelRunning();
+        current = term;
+
+        if (term.isEmpty()) {
+            cleared();
+            return;
+        }
+
+        if (useCache) {
+            List<T> cached = cache.get(term);
+            if (cached == null) {
+                List<T> shorter = completeResultsExtendedBy(term);
+                if (shorter != null) {
+                    cached = refine(shorter, term);
+                    if (cached != null) {
+                        cache.put(term, cached);
+                    }
+                }
+            }
+            if (cached != null) {
+                show(cached);
+                return;
+            }
+        }
+
+        Task<List<T>> task = new Task<>() {
+            @Override
+            protected List<T> call() {
+                return search(term);
+            }
+        };
+        task.setOnSucceeded(event -> {
+            if (task == running) {
+                running = null;
+                cache.put(term, task.getValue());
+                show(task.getValue());
+            }
+        });
+        task.setOnFailed(event -> {
+            if (task == running) {
+                running = null;
+                current = null;
+                failed(task.getException());
+            }
+        });
+        running = task;
+        new Thread(task, threadName).start();
+    }
+
+    /**
+     * Cached results for the longest term that the given one extends, if
+     * they were not cut off at the limit
+     */
+    private List<T> completeResultsExtendedBy(String term) {
+        List<T> best = null;
+        int bestLength = 0;
+        for (Map.Entry<String, List<T>> entry : cache.entrySet()) {
+            String key = entry.getKey();
+            if (key.length() > bestLength && term.startsWith(key) && entry.getValue().size() < limit) {
+                best = entry.getValue();
+                bestLength = key.length();
+            }
+        }
+        return best;
+    }
+
+    private void cancelRunning() {
+        if (running != null) {
+            running.cancel();
+            running = null;
+        }
+    }
+}
@@ -1,11 +1,20 @@
 package com.management.school.controller;
 
 import com.management.school.model.Attendance;
+import com.management.school.model.Document.DocumentType;
+import com.management.school.model.SchoolClass;
 import com.management.school.model.Student;
-import com.management.school.model.Teacher;
+import com.management.school.model.StudentSummary;
+import com.management.school.model.TeacherRow;
 import com.management.school.service.AttendanceService;
+import com.management.school.service.DocumentComplianceService;
+import com.management.school.service.DocumentComplianceService.ClassCompliance;
+import com.management.school.service.DocumentComplianceService.StudentCompliance;
 import com.management.school.service.ReportService;
+import com.management.school.service.SchoolClassService;
+import com.management.school.service.StudentFilter;
 import com.management.school.service.StudentService;
+import com.management.school.service.TeacherFilter;
 import com.management.school.service.TeacherService;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
@@ -13,17 +22,24 @@ import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 
 import java.io.File;
 import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 @Controller
 public class ReportController {
 
+    private static final Sort STUDENT_REPORT_ORDER =
+        Sort.by("schoolClass.displayOrder", "schoolClass.section", "rollNumber");
+
     @Autowired
     private ReportService reportService;
     
@@ -35,6 +51,12 @@ public class ReportController {
     
     @Autowired
     private AttendanceService attendanceService;
+    
+    @Autowired
+    private DocumentComplianceService documentComplianceService;
+    
+    @Autowired
+    private SchoolClassService schoolClassService;
 
     // Report Type Selection
     @FXML
@@ -100,12 +122,10 @@ public class ReportController {
         "Attendance Summary Report",
         "Class Strength Report",
         "Student Details Report",
-        "Absent Students Report"
+        "Absent Students Report",
+        "Document Compliance Report"
     );
     
-    private final List<String> classLevels = List.of("Nursery", "KG", "I", "II", "III", "IV", "V", 
-                                                      "VI", "VII", "VIII", "IX", "X");
-    private final List<String> sections = List.of("A", "B");
     private final List<String> subjects = List.of(
         "Mathematics", "Physics", "Chemistry", "Biology", 
         "English", "Hindi", "History", "Geography", 
@@ -132,8 +152,11 @@ public class ReportController {
     }
 
     private void populateFilters() {
+        List<String> grades = schoolClassService.getGrades();
+        List<String> sections = schoolClassService.getSections();
+        
         // Student filters
-        studentGradeComboBox.setItems(FXCollections.observableArrayList(classLevels));
+        studentGradeComboBox.setItems(FXCollections.observableArrayList(grades));
         studentSectionComboBox.setItems(FXCollections.observableArrayList(sections));
         
         int currentYear = LocalDate.now().getYear();
@@ -148,11 +171,11 @@ public class ReportController {
         teacherYearComboBox.setItems(FXCollections.observableArrayList(teacherYears));
         
         // Attendance filters
-        attendanceGradeComboBox.setItems(FXCollections.observableArrayList(classLevels));
+        attendanceGradeComboBox.setItems(FXCollections.observableArrayList(grades));
         attendanceSectionComboBox.setItems(FXCollections.observableArrayList(sections));
         
         // Class filters
-        classGradeComboBox.setItems(FXCollections.observableArrayList(classLevels));
+        classGradeComboBox.setItems(FXCollections.observableArrayList(grades));
         classSectionComboBox.setItems(FXCollections.observableArrayList(sections));
     }
 
@@ -182,6 +205,7 @@ public class ReportController {
                 break;
                 
             case "Class Strength Report":
+            case "Document Compliance Report":
                 classReportFilters.setVisible(true);
                 classReportFilters.setManaged(true);
                 break;
@@ -235,6 +259,10 @@ public class ReportController {
                 case "Absent Students Report":
                     reportContent = generateAbsentStudentsReport();
                     break;
+                    
+                case "Document Compliance Report":
+                    reportContent = generateDocumentComplianceReport();
+                    break;
             }
             
             reportPreview.setText(reportContent);
@@ -258,34 +286,23 @@ public class ReportController {
         Integer year = studentYearComboBox.getValue();
         boolean activeOnly = activeOnlyCheckBox.isSelected();
         
-        List<Student> students;
-        
-        if (grade != null && section != null && year != null) {
-            students = studentService.getStudentsByFilter(grade, section, year);
-            report.append("Filter: Grade ").append(grade).append("-").append(section)
-                  .append(", Year: ").append(year).append("\n\n");
-        } else {
-            students = studentService.getAllStudents();
-            report.append("Filter: All Students\n\n");
-        }
-        
-        if (activeOnly) {
-            students = students.stream().filter(Student::isActive).collect(Collectors.toList());
-        }
+        List<StudentSummary> students = studentService.findStudentSummaries(studentReportFilter(), STUDENT_REPORT_ORDER);
+        report.append("Filter: ").append(describeStudentFilter(grade, section, year))
+              .append(activeOnly ? ", active only" : "").append("\n\n");
         
         report.append("Total Students: ").append(students.size()).append("\n\n");
         report.append(String.format("%-10s %-15s %-25s %-15s %-25s %-15s%n", 
                                   "Roll No", "Grade", "Name", "Phone", "Email", "Status"));
         report.append("─".repeat(105)).append("\n");
         
-        for (Student student : students) {
+        for (StudentSummary student : students) {
             report.append(String.format("%-10s %-15s %-25s %-15s %-25s %-15s%n",
-                student.getRollNumber(),
-                student.getGrade() + "-" + student.getSection(),
-                truncate(student.getName(), 24),
-                truncate(student.getPhone(), 14),
-                truncate(student.getEmail(), 24),
-                student.isActive() ? "Active" : "Inactive"
+                student.rollNumber(),
+                schoolClassService.className(student.classId()),
+                truncate(student.name(), 24),
+                truncate(student.phone(), 14),
+                truncate(student.email(), 24),
+                student.active() ? "Active" : "Inactive"
             ));
         }
         
@@ -307,14 +324,14 @@ public class ReportController {
         String subject = teacherSubjectComboBox.getValue();
         Integer year = teacherYearComboBox.getValue();
         
-        List<Teacher> teachers;
-        
-        if (subject != null && year != null) {
-            teachers = teacherService.getTeachersByFilter(subject, year);
-            report.append("Filter: Subject - ").append(subject).append(", Year: ").append(year).append("\n\n");
-        } else {
-            teachers = teacherService.getAllTeachers();
+        List<TeacherRow> teachers = teacherService.findTeacherRows(new TeacherFilter(subject, year, year, null, true, null),
+                Sort.by("subject", "name"));
+        if (subject == null && year == null) {
             report.append("Filter: All Teachers\n\n");
+        } else {
+            report.append("Filter:")
+                  .append(subject != null ? " Subject - " + subject : "")
+                  .append(year != null ? " Year: " + year : "").append("\n\n");
         }
         
         report.append("Total Teachers: ").append(teachers.size()).append("\n\n");
@@ -322,13 +339,13 @@ public class ReportController {
                                   "Emp ID", "Name", "Subject", "Email", "Status"));
         report.append("─".repeat(97)).append("\n");
         
-        for (Teacher teacher : teachers) {
+        for (TeacherRow teacher : teachers) {
             report.append(String.format("%-12s %-25s %-20s %-25s %-15s%n",
-                teacher.getEmployeeId(),
-                truncate(teacher.getName(), 24),
-                truncate(teacher.getSubject(), 19),
-                truncate(teacher.getEmail(), 24),
-                teacher.isActive() ? "Active" : "Inactive"
+                teacher.employeeId(),
+                truncate(teacher.name(), 24),
+                truncate(teacher.subject(), 19),
+                truncate(teacher.email(), 24),
+                teacher.active() ? "Active" : "Inactive"
             ));
         }
         
@@ -414,49 +431,61 @@ public class ReportController {
         String selectedGrade = classGradeComboBox.getValue();
         String selectedSection = classSectionComboBox.getValue();
         
-        report.append(String.format("%-15s %-10s %-10s %-10s%n", 
+        report.append(String.format("%-20s %-10s %-10s %-10s%n", 
                                   "Class", "Boys", "Girls", "Total"));
-        report.append("─".repeat(45)).append("\n");
+        report.append("─".repeat(50)).append("\n");
         
         int totalBoys = 0;
         int totalGirls = 0;
         int grandTotal = 0;
 
-        // --- OPTIMIZATION: Fetch all students ONCE before the loop ---
-        List<Student> allStudents = studentService.getAllStudents();
-        
-        for (String grade : classLevels) {
-            for (String section : sections) {
-                if ((selectedGrade == null || selectedGrade.equals(grade)) &&
-                    (selectedSection == null || selectedSection.equals(section))) {
-                    
-                    // Filter the pre-fetched list in memory
-                    List<Student> students = allStudents.stream()
-                        .filter(s -> s.isActive() && grade.equals(s.getGrade()) && 
-                                       section.equals(s.getSection()))
-                        .collect(Collectors.toList());
-                    
-                    // --- FIX: Compare with enum Student.Gender.MALE/FEMALE ---
-                    long boys = students.stream()
-                        .filter(s -> s.getGender() == Student.Gender.MALE).count();
-                    long girls = students.stream()
-                        .filter(s -> s.getGender() == Student.Gender.FEMALE).count();
-                    int total = students.size();
+        // One grouped count for every class key, instead of loading the students
+        Map<Short, Map<Student.Gender, Long>> counts = new HashMap<>(studentService.countActiveStudentsByClass());
+        List<SchoolClass> classes = schoolClassService.getClasses(counts.keySet());
+        List<SchoolClass> listed = schoolClassService.getClasses();
+        String listedYear = listed.isEmpty() ? null : listed.get(0).getAcademicYear();
+        
+        for (SchoolClass schoolClass : classes) {
+            Map<Student.Gender, Long> byGender = counts.remove(schoolClass.getId());
+            if ((selectedGrade == null || selectedGrade.equals(schoolClass.getGrade())) &&
+                (selectedSection == null || selectedSection.equals(schoolClass.getSection()))) {
+                
+                long boys = byGender.getOrDefault(Student.Gender.MALE, 0L);
+                long girls = byGender.getOrDefault(Student.Gender.FEMALE, 0L);
+                long total = byGender.values().stream().mapToLong(Long::longValue).sum();
+                
+                if (total > 0) {
+                    // Classes of an earlier academic year are still counted, marked with their year
+                    String name = schoolClass.getAcademicYear().equals(listedYear)
+                            ? schoolClass.getName()
+                            : schoolClass.getName() + " (" + schoolClass.getAcademicYear() + ")";
+                    report.append(String.format("%-20s %-10d %-10d %-10d%n", name, boys, girls, total));
                     
-                    if (total > 0) {
-                        report.append(String.format("%-15s %-10d %-10d %-10d%n",
-                            grade + "-" + section, boys, girls, total));
-                        
-                        totalBoys += boys;
-                        totalGirls += girls;
-                        grandTotal += total;
-                    }
+                    totalBoys += boys;
+                    totalGirls += girls;
+                    grandTotal += total;
                 }
             }
         }
         
-        report.append("─".repeat(45)).append("\n");
-        report.append(String.format("%-15s %-10d %-10d %-10d%n",
+        // What is left has no class key yet, or one whose class no longer exists
+        if (selectedGrade == null && selectedSection == null && !counts.isEmpty()) {
+            long boys = 0;
+            long girls = 0;
+            long total = 0;
+            for (Map<Student.Gender, Long> byGender : counts.values()) {
+                boys += byGender.getOrDefault(Student.Gender.MALE, 0L);
+                girls += byGender.getOrDefault(Student.Gender.FEMALE, 0L);
+                total += byGender.values().stream().mapToLong(Long::longValue).sum();
+            }
+            report.append(String.format("%-20s %-10d %-10d %-10d%n", "Unassigned/other", boys, girls, total));
+            totalBoys += boys;
+            totalGirls += girls;
+            grandTotal += total;
+        }
+        
+        report.append("─".repeat(50)).append("\n");
+        report.append(String.format("%-20s %-10d %-10d %-10d%n",
             "TOTAL", totalBoys, totalGirls, grandTotal));
         
         report.append("\n═══════════════════════════════════════════════════════\n");
@@ -478,17 +507,7 @@ public class ReportController {
         String section = studentSectionComboBox.getValue();
         Integer year = studentYearComboBox.getValue();
         
-        List<Student> students;
-        
-        if (grade != null && section != null && year != null) {
-            students = studentService.getStudentsByFilter(grade, section, year);
-        } else {
-            students = studentService.getAllStudents();
-        }
-        
-        if (activeOnlyCheckBox.isSelected()) {
-            students = students.stream().filter(Student::isActive).collect(Collectors.toList());
-        }
+        List<Student> students = studentService.findStudents(studentReportFilter(), STUDENT_REPORT_ORDER);
         
         for (Student student : students) {
             report.append("Roll Number: ").append(student.getRollNumber()).append("\n");
@@ -558,6 +577,74 @@ public class ReportController {
         return report.toString();
     }
 
+    private String generateDocumentComplianceReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("═══════════════════════════════════════════════════════\n");
+        report.append("             DOCUMENT COMPLIANCE REPORT\n");
+        report.append("═══════════════════════════════════════════════════════\n");
+        report.append("Generated: ").append(LocalDate.now()).append("\n");
+        report.append("───────────────────────────────────────────────────────\n\n");
+        
+        String selectedGrade = classGradeComboBox.getValue();
+        String selectedSection = classSectionComboBox.getValue();
+        report.append("Filter: ")
+              .append(selectedGrade != null ? "Grade " + selectedGrade : "All Grades")
+              .append(selectedSection != null ? ", Section " + selectedSection : "")
+              .append("\n\n");
+        
+        // One query for every student's documents, instead of one per student
+        List<StudentCompliance> students = documentComplianceService.findStudentCompliance(selectedGrade, selectedSection)
+            .stream()
+            .sorted(Comparator.comparingInt((StudentCompliance s) -> schoolClassService.gradeOrder(s.grade()))
+                .thenComparing(StudentCompliance::grade)
+                .thenComparing(StudentCompliance::section)
+                .thenComparing(StudentCompliance::rollNumber))
+            .collect(Collectors.toList());
+        List<ClassCompliance> classes = DocumentComplianceService.summarizeByClass(students);
+        
+        report.append(String.format("%-12s %-10s %-10s %-10s%n", "Class", "Students", "Complete", "Percent"));
+        report.append("─".repeat(45)).append("\n");
+        int totalComplete = 0;
+        for (ClassCompliance compliance : classes) {
+            report.append(String.format("%-12s %-10d %-10d %.1f%%%n", compliance.getClassName(),
+                compliance.students(), compliance.complete(), compliance.completionPercent()));
+            totalComplete += compliance.complete();
+        }
+        report.append("─".repeat(45)).append("\n");
+        report.append(String.format("%-12s %-10d %-10d %.1f%%%n", "TOTAL", students.size(), totalComplete,
+            students.isEmpty() ? 0.0 : totalComplete * 100.0 / students.size()));
+        
+        report.append("\nDocuments Present:\n");
+        for (DocumentType type : DocumentType.values()) {
+            long present = students.stream().filter(s -> s.has(type)).count();
+            report.append(String.format("  %-28s %5d of %-5d (%.1f%%)%n", type.getDisplayName(), present,
+                students.size(), students.isEmpty() ? 0.0 : present * 100.0 / students.size()));
+        }
+        
+        List<StudentCompliance> incomplete = students.stream()
+            .filter(s -> !s.isComplete())
+            .collect(Collectors.toList());
+        report.append("\nStudents With Missing Documents: ").append(incomplete.size()).append("\n\n");
+        if (!incomplete.isEmpty()) {
+            report.append(String.format("%-10s %-10s %-25s %s%n", "Roll No", "Class", "Name", "Missing"));
+            report.append("─".repeat(100)).append("\n");
+            for (StudentCompliance student : incomplete) {
+                report.append(String.format("%-10s %-10s %-25s %s%n",
+                    student.rollNumber(),
+                    student.getClassName(),
+                    truncate(student.name(), 25),
+                    student.getMissing().stream().map(DocumentType::getDisplayName).collect(Collectors.joining(", "))
+                ));
+            }
+        }
+        
+        report.append("\n═══════════════════════════════════════════════════════\n");
+        report.append("                       END OF REPORT\n");
+        report.append("═══════════════════════════════════════════════════════\n");
+        
+        return report.toString();
+    }
+
     @FXML
     private void handleExportPdf() {
         if (reportPreview.getText().isEmpty()) {
@@ -612,6 +699,30 @@ public class ReportController {
         }
     }
 
+    /**
+     * The student report filters that are set; unset ones match everyone
+     */
+    private StudentFilter studentReportFilter() {
+        Integer year = studentYearComboBox.getValue();
+        return new StudentFilter(studentGradeComboBox.getValue(), studentSectionComboBox.getValue(), year, year,
+                null, activeOnlyCheckBox.isSelected() ? Boolean.TRUE : null, null);
+    }
+
+    private String describeStudentFilter(String grade, String section, Integer year) {
+        if (grade == null && section == null && year == null) {
+            return "All Students";
+        }
+        StringBuilder description = new StringBuilder();
+        if (grade != null || section != null) {
+            description.append("Grade ").append(grade != null ? grade : "any")
+                       .append("-").append(section != null ? section : "any");
+        }
+        if (year != null) {
+            description.append(description.length() > 0 ? ", " : "").append("Year: ").append(year);
+        }
+        return description.toString();
+    }
+
     private String truncate(String text, int maxLength) {
         if (text == null) return "";
         return text.length() > maxLength ? text.substring(0, maxLength - 3) + "..." : text;
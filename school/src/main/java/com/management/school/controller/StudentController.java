@@ -1,19 +1,43 @@
 package com.management.school.controller;
 
 import com.management.school.core.SchoolSpringFXMLLoader;
+import com.management.school.model.Document;
+import com.management.school.model.Document.DocumentType;
 import com.management.school.model.Student;
+import com.management.school.model.StudentSummary;
+import com.management.school.service.BackupService;
+import com.management.school.service.DocumentImportService;
+import com.management.school.service.DocumentService;
+import com.management.school.service.DossierService;
+import com.management.school.service.IdCardService;
+import com.management.school.service.SchoolClassService;
+import com.management.school.service.StudentFilter;
 import com.management.school.service.StudentService;
+import com.management.school.service.ThumbnailService;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -21,66 +45,101 @@ import java.util.stream.IntStream;
 @Component
 public class StudentController {
 
-    @FXML private TableView<Student> studentTable;
-    @FXML private TableColumn<Student, Long> idColumn;
-    @FXML private TableColumn<Student, String> rollNumberColumn;
-    @FXML private TableColumn<Student, String> nameColumn;
-    @FXML private TableColumn<Student, String> gradeColumn;
-    @FXML private TableColumn<Student, String> emailColumn;
-    @FXML private TableColumn<Student, String> phoneColumn;
-    @FXML private TableColumn<Student, String> activeColumn;
-    @FXML private TableColumn<Student, Void> actionsColumn;
+    @FXML private TableView<StudentSummary> studentTable;
+    @FXML private TableColumn<StudentSummary, Document> photoColumn;
+    @FXML private TableColumn<StudentSummary, Long> idColumn;
+    @FXML private TableColumn<StudentSummary, String> rollNumberColumn;
+    @FXML private TableColumn<StudentSummary, String> nameColumn;
+    @FXML private TableColumn<StudentSummary, String> gradeColumn;
+    @FXML private TableColumn<StudentSummary, String> emailColumn;
+    @FXML private TableColumn<StudentSummary, String> phoneColumn;
+    @FXML private TableColumn<StudentSummary, String> activeColumn;
+    @FXML private TableColumn<StudentSummary, Void> actionsColumn;
     
     @FXML private TextField searchField;
     @FXML private ComboBox<String> gradeComboBox;
     @FXML private ComboBox<String> sectionComboBox;
     @FXML private ComboBox<Integer> yearComboBox;
     @FXML private Button addButton;
+    @FXML private Button importButton;
+    @FXML private Button dossierButton;
+    @FXML private Button idCardButton;
+    @FXML private Button previousPageButton;
+    @FXML private Button nextPageButton;
+    @FXML private Label pageLabel;
 
     @Autowired
     private StudentService studentService;
     
     @Autowired
     private SchoolSpringFXMLLoader schoolSpringFXMLLoader;
-
-    private final List<String> classLevels = List.of(
-            "Nursery", "KG", "I", "II", "III", "IV", "V", "VI", "VII", "VIII", "IX", "X");
-    private final List<String> sections = List.of("A", "B");
+    
+    @Autowired
+    private DocumentService documentService;
+    
+    @Autowired
+    private ThumbnailService thumbnailService;
+    
+    @Autowired
+    private DocumentImportService documentImportService;
+    
+    @Autowired
+    private DossierService dossierService;
+    
+    @Autowired
+    private IdCardService idCardService;
+    
+    @Autowired
+    private SchoolClassService schoolClassService;
+    
+    // Photo document of each listed student, refreshed whenever the table is filled
+    private Map<Long, Document> studentPhotos = Map.of();
+    // Set while the filters are changed in code, so they reload the table once
+    private boolean resettingFilters;
+    
+    private IncrementalSearch<StudentSummary> studentSearch;
+    
+    private static final int PAGE_SIZE = 100;
+    
+    // Filter behind the listed page; the page is null while search results are listed
+    private StudentFilter currentFilter = StudentFilter.activeStudents();
+    private Page<StudentSummary> currentPage;
+    private boolean loadingPage;
 
     @FXML
     public void initialize() {
         setupTableColumns();
         setupFilterComboBoxes();
-        loadAllStudents();
+        setupSorting();
+        applyFilters();
         setupFilterListeners();
+        setupSearch();
     }
 
     private void setupTableColumns() {
         idColumn.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleLongProperty(cellData.getValue().getId()).asObject());
+            new javafx.beans.property.SimpleLongProperty(cellData.getValue().id()).asObject());
         
         rollNumberColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getRollNumber()));
+            new SimpleStringProperty(cellData.getValue().rollNumber()));
         
         nameColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getName()));
+            new SimpleStringProperty(cellData.getValue().name()));
         
-        gradeColumn.setCellValueFactory(cellData -> {
-            Student student = cellData.getValue();
-            return new SimpleStringProperty(student.getGrade() + "-" + student.getSection());
-        });
+        gradeColumn.setCellValueFactory(cellData -> 
+            new SimpleStringProperty(schoolClassService.className(cellData.getValue().classId())));
         
         emailColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getEmail()));
+            new SimpleStringProperty(cellData.getValue().email()));
         
         phoneColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getPhone()));
+            new SimpleStringProperty(cellData.getValue().phone()));
         
         activeColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().isActive() ? "Active" : "Inactive"));
+            new SimpleStringProperty(cellData.getValue().active() ? "Active" : "Inactive"));
         
         // Style the active column
-        activeColumn.setCellFactory(column -> new TableCell<Student, String>() {
+        activeColumn.setCellFactory(column -> new TableCell<StudentSummary, String>() {
             @Override
             protected void updateItem(String item, boolean empty) {
                 super.updateItem(item, empty);
@@ -98,9 +157,46 @@ public class StudentController {
             }
         });
         
+        setupPhotoColumn();
         setupActionsColumn();
     }
 
+    /**
+     * Photos are loaded in the background as rows scroll into view; a cell
+     * that has been reused for another student by then ignores the result.
+     */
+    private void setupPhotoColumn() {
+        photoColumn.setCellValueFactory(cellData ->
+            new SimpleObjectProperty<>(studentPhotos.get(cellData.getValue().id())));
+
+        photoColumn.setCellFactory(column -> new TableCell<StudentSummary, Document>() {
+            private final ImageView imageView = new ImageView();
+
+            {
+                imageView.setFitWidth(40);
+                imageView.setFitHeight(40);
+                imageView.setPreserveRatio(true);
+                setAlignment(Pos.CENTER);
+            }
+
+            @Override
+            protected void updateItem(Document photo, boolean empty) {
+                super.updateItem(photo, empty);
+                imageView.setImage(null);
+                if (empty || photo == null) {
+                    setGraphic(null);
+                    return;
+                }
+                setGraphic(imageView);
+                thumbnailService.getImage(photo, ThumbnailService.Size.THUMBNAIL).thenAccept(bytes -> Platform.runLater(() -> {
+                    if (getItem() == photo) {
+                        imageView.setImage(new Image(new ByteArrayInputStream(bytes)));
+                    }
+                }));
+            }
+        });
+    }
+
     private void setupActionsColumn() {
         actionsColumn.setCellFactory(param -> new TableCell<>() {
             private final Button editButton = new Button("Edit");
@@ -113,12 +209,12 @@ public class StudentController {
                 actionBox.setAlignment(Pos.CENTER);
 
                 editButton.setOnAction(event -> {
-                    Student student = getTableView().getItems().get(getIndex());
+                    StudentSummary student = getTableView().getItems().get(getIndex());
                     handleEdit(student);
                 });
 
                 deleteButton.setOnAction(event -> {
-                    Student student = getTableView().getItems().get(getIndex());
+                    StudentSummary student = getTableView().getItems().get(getIndex());
                     handleDelete(student);
                 });
             }
@@ -133,10 +229,10 @@ public class StudentController {
 
     private void setupFilterComboBoxes() {
         // Populate grade combo box
-        gradeComboBox.setItems(FXCollections.observableArrayList(classLevels));
+        gradeComboBox.setItems(FXCollections.observableArrayList(schoolClassService.getGrades()));
         
         // Populate section combo box
-        sectionComboBox.setItems(FXCollections.observableArrayList(sections));
+        sectionComboBox.setItems(FXCollections.observableArrayList(schoolClassService.getSections()));
         
         // Populate year combo box (last 10 years)
         int currentYear = LocalDate.now().getYear();
@@ -148,36 +244,152 @@ public class StudentController {
     }
 
     private void setupFilterListeners() {
-        gradeComboBox.setOnAction(event -> applyFilters());
-        sectionComboBox.setOnAction(event -> applyFilters());
-        yearComboBox.setOnAction(event -> applyFilters());
+        gradeComboBox.setOnAction(event -> filterChanged());
+        sectionComboBox.setOnAction(event -> filterChanged());
+        yearComboBox.setOnAction(event -> filterChanged());
+    }
+
+    private void filterChanged() {
+        if (!resettingFilters) {
+            applyFilters();
+        }
     }
 
+    /**
+     * List the first page of students matching whichever filters are set
+     */
     private void applyFilters() {
-        String selectedGrade = gradeComboBox.getValue();
-        String selectedSection = sectionComboBox.getValue();
         Integer selectedYear = yearComboBox.getValue();
+        currentFilter = new StudentFilter(gradeComboBox.getValue(), sectionComboBox.getValue(),
+                selectedYear, selectedYear, null, true, null);
+        loadPage(0);
+    }
 
-        if (selectedGrade != null && selectedSection != null && selectedYear != null) {
-            List<Student> filteredStudents = studentService.getStudentsByFilter(
-                    selectedGrade, selectedSection, selectedYear);
-            studentTable.setItems(FXCollections.observableArrayList(filteredStudents));
-        } else {
-            loadAllStudents();
+    /**
+     * Column sorts on a filtered list are done by the database, across all
+     * pages; search results are sorted in the table as before
+     */
+    private void setupSorting() {
+        studentTable.setSortPolicy(table -> {
+            if (currentPage == null) {
+                return TableView.DEFAULT_SORT_POLICY.call(table);
+            }
+            if (!loadingPage) {
+                loadPage(0);
+            }
+            return true;
+        });
+    }
+
+    private Sort currentSort() {
+        Sort sort = Sort.unsorted();
+        for (TableColumn<StudentSummary, ?> column : studentTable.getSortOrder()) {
+            String[] properties = sortProperties(column);
+            if (properties.length > 0) {
+                sort = sort.and(Sort.by(column.getSortType() == TableColumn.SortType.DESCENDING
+                        ? Sort.Direction.DESC : Sort.Direction.ASC, properties));
+            }
+        }
+        return sort.isSorted() ? sort : Sort.by("id");
+    }
+
+    private String[] sortProperties(TableColumn<StudentSummary, ?> column) {
+        if (column == idColumn) return new String[] {"id"};
+        if (column == rollNumberColumn) return new String[] {"rollNumber"};
+        if (column == nameColumn) return new String[] {"name"};
+        if (column == gradeColumn) return new String[] {"schoolClass.displayOrder", "schoolClass.section"};
+        if (column == emailColumn) return new String[] {"email"};
+        if (column == phoneColumn) return new String[] {"phone"};
+        if (column == activeColumn) return new String[] {"active"};
+        return new String[0];
+    }
+
+    private void loadPage(int pageNumber) {
+        loadingPage = true;
+        try {
+            currentPage = studentService.findStudentSummaries(currentFilter,
+                    PageRequest.of(pageNumber, PAGE_SIZE, currentSort()));
+            showStudents(currentPage.getContent());
+        } finally {
+            loadingPage = false;
         }
+        updatePageControls();
+    }
+
+    private void updatePageControls() {
+        if (currentPage == null) {
+            pageLabel.setText(studentTable.getItems().size() + " match(es)");
+            previousPageButton.setDisable(true);
+            nextPageButton.setDisable(true);
+            return;
+        }
+        pageLabel.setText(String.format("Page %d of %d  (%d students)", currentPage.getNumber() + 1,
+                Math.max(currentPage.getTotalPages(), 1), currentPage.getTotalElements()));
+        previousPageButton.setDisable(!currentPage.hasPrevious());
+        nextPageButton.setDisable(!currentPage.hasNext());
     }
 
     @FXML
-    private void handleSearch() {
-        String searchTerm = searchField.getText().trim();
-        if (!searchTerm.isEmpty()) {
-            List<Student> searchResults = studentService.searchStudents(searchTerm);
-            studentTable.setItems(FXCollections.observableArrayList(searchResults));
-        } else {
-            loadAllStudents();
+    private void handlePreviousPage() {
+        if (currentPage != null && currentPage.hasPrevious()) {
+            loadPage(currentPage.getNumber() - 1);
+        }
+    }
+
+    @FXML
+    private void handleNextPage() {
+        if (currentPage != null && currentPage.hasNext()) {
+            loadPage(currentPage.getNumber() + 1);
         }
     }
 
+    /**
+     * Every student listed: all pages of the current filter, or the search
+     * results
+     */
+    private List<StudentSummary> listedStudents() {
+        if (currentPage != null && currentPage.getTotalPages() > 1) {
+            return studentService.findStudentSummaries(currentFilter, currentSort());
+        }
+        return List.copyOf(studentTable.getItems());
+    }
+
+    private void setupSearch() {
+        studentSearch = new IncrementalSearch<>(searchField, "student-search-thread", StudentService.SEARCH_LIMIT) {
+            @Override
+            protected List<StudentSummary> search(String term) {
+                return studentService.searchStudents(term);
+            }
+
+            @Override
+            protected List<StudentSummary> refine(List<StudentSummary> results, String term) {
+                return studentService.refineSearch(results, term);
+            }
+
+            @Override
+            protected void show(List<StudentSummary> results) {
+                currentPage = null;
+                showStudents(results);
+                updatePageControls();
+            }
+
+            @Override
+            protected void cleared() {
+                applyFilters();
+            }
+
+            @Override
+            protected void failed(Throwable error) {
+                showAlert("Error", "Search failed: " + error.getMessage(), Alert.AlertType.ERROR);
+            }
+        };
+    }
+
+    @FXML
+    private void handleSearch() {
+        studentSearch.searchNow(searchField.getText());
+    }
+
     @FXML
     private void handleAdd() {
         try {
@@ -233,8 +445,271 @@ public class StudentController {
         }
     }
 
-    private void handleEdit(Student student) {
+    @FXML
+    private void handleImportDocuments() {
+        ButtonType folderButton = new ButtonType("Folder...");
+        ButtonType zipButton = new ButtonType("Zip File...");
+        Alert sourceChoice = new Alert(Alert.AlertType.CONFIRMATION, 
+            "Files are matched to students by name: <roll number>_<type>.<ext>, e.g. 2024-017_aadhar.pdf, " +
+            "2024-017_birth_certificate.jpg, 2024-017_photo.png, 2024-017_parent_aadhar.pdf, " +
+            "2024-017_voter_id.pdf - or <type>.<ext> inside a folder named after the roll number.",
+            folderButton, zipButton, ButtonType.CANCEL);
+        sourceChoice.setTitle("Import Documents");
+        sourceChoice.setHeaderText("Import scanned documents from a folder or zip file");
+        Optional<ButtonType> choice = sourceChoice.showAndWait();
+        if (choice.isEmpty() || choice.get() == ButtonType.CANCEL) {
+            return;
+        }
+        
+        File source;
+        if (choice.get() == folderButton) {
+            DirectoryChooser chooser = new DirectoryChooser();
+            chooser.setTitle("Select Folder of Scanned Documents");
+            source = chooser.showDialog(importButton.getScene().getWindow());
+        } else {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Select Zip of Scanned Documents");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Zip Files", "*.zip"));
+            source = chooser.showOpenDialog(importButton.getScene().getWindow());
+        }
+        if (source == null) {
+            return;
+        }
+        
+        ButtonType replaceButton = new ButtonType("Replace Existing");
+        ButtonType keepButton = new ButtonType("Keep Existing");
+        Alert replaceChoice = new Alert(Alert.AlertType.CONFIRMATION, 
+            "Some students may already have some of these documents. Replace them with the imported files, " +
+            "or keep the current ones and skip those files?", replaceButton, keepButton, ButtonType.CANCEL);
+        replaceChoice.setTitle("Import Documents");
+        replaceChoice.setHeaderText("Existing documents");
+        Optional<ButtonType> replace = replaceChoice.showAndWait();
+        if (replace.isEmpty() || replace.get() == ButtonType.CANCEL) {
+            return;
+        }
+        boolean replaceExisting = replace.get() == replaceButton;
+        
+        Task<DocumentImportService.ImportReport> task = new Task<>() {
+            @Override
+            protected DocumentImportService.ImportReport call() throws Exception {
+                return documentImportService.importDocuments(source.toPath(), replaceExisting);
+            }
+        };
+        task.setOnSucceeded(event -> {
+            importButton.setDisable(false);
+            importButton.setText("Import Documents");
+            showImportReport(task.getValue());
+            refreshTable();
+        });
+        task.setOnFailed(event -> {
+            importButton.setDisable(false);
+            importButton.setText("Import Documents");
+            showAlert("Error", "Failed to import documents: " + task.getException().getMessage(), Alert.AlertType.ERROR);
+        });
+        importButton.setDisable(true);
+        importButton.setText("Importing...");
+        new Thread(task, "document-import-thread").start();
+    }
+    
+    private void showImportReport(DocumentImportService.ImportReport report) {
+        StringBuilder details = new StringBuilder();
+        for (DocumentImportService.ImportEntry entry : report.entries()) {
+            if (entry.outcome() != DocumentImportService.Outcome.IMPORTED) {
+                details.append(entry.outcome()).append("  ").append(entry.fileName());
+                if (entry.message() != null) {
+                    details.append(" - ").append(entry.message());
+                }
+                details.append('\n');
+            }
+        }
+        
+        ButtonType saveButton = new ButtonType("Save Report...");
+        Alert alert = new Alert(Alert.AlertType.INFORMATION, String.format(
+            "%d file(s) in %.1f s%nImported: %d%nReplaced: %d%nDuplicates: %d%nRejected: %d%nStorage saved by compression: %s",
+            report.entries().size(), report.elapsedMillis() / 1000.0,
+            report.count(DocumentImportService.Outcome.IMPORTED), report.count(DocumentImportService.Outcome.REPLACED),
+            report.count(DocumentImportService.Outcome.DUPLICATE), report.count(DocumentImportService.Outcome.REJECTED),
+            BackupService.formatFileSize(report.savedBytes())),
+            saveButton, ButtonType.CLOSE);
+        alert.setTitle("Import Documents");
+        alert.setHeaderText("Import finished");
+        if (details.length() > 0) {
+            TextArea detailArea = new TextArea(details.toString());
+            detailArea.setEditable(false);
+            detailArea.setPrefRowCount(15);
+            alert.getDialogPane().setExpandableContent(detailArea);
+        }
+        
+        Optional<ButtonType> result = alert.showAndWait();
+        if (result.isPresent() && result.get() == saveButton) {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Save Import Report");
+            chooser.setInitialFileName("document-import-report.csv");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+            File target = chooser.showSaveDialog(importButton.getScene().getWindow());
+            if (target != null) {
+                try {
+                    report.writeCsv(target.toPath());
+                } catch (Exception e) {
+                    showAlert("Error", "Failed to save report: " + e.getMessage(), Alert.AlertType.ERROR);
+                }
+            }
+        }
+    }
+
+    /**
+     * Dossier PDFs for the selected student, or for every student listed -
+     * a whole class when the filters are set
+     */
+    @FXML
+    private void handleGenerateDossiers() {
+        StudentSummary selected = studentTable.getSelectionModel().getSelectedItem();
+        List<StudentSummary> listed = listedStudents();
+        if (listed.isEmpty()) {
+            showAlert("No Students", "There are no students listed to create dossiers for.", Alert.AlertType.WARNING);
+            return;
+        }
+        
+        List<StudentSummary> students = listed;
+        if (selected != null) {
+            ButtonType selectedButton = new ButtonType("Selected Student");
+            ButtonType allButton = new ButtonType("All Listed (" + listed.size() + ")");
+            Alert scopeChoice = new Alert(Alert.AlertType.CONFIRMATION,
+                "Create a dossier for " + selected.name() + " only, or for every student listed?",
+                selectedButton, allButton, ButtonType.CANCEL);
+            scopeChoice.setTitle("Student Dossiers");
+            scopeChoice.setHeaderText("Which students?");
+            Optional<ButtonType> scope = scopeChoice.showAndWait();
+            if (scope.isEmpty() || scope.get() == ButtonType.CANCEL) {
+                return;
+            }
+            if (scope.get() == selectedButton) {
+                students = List.of(selected);
+            }
+        }
+        
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Save Dossiers To");
+        File outputDir = chooser.showDialog(dossierButton.getScene().getWindow());
+        if (outputDir == null) {
+            return;
+        }
+        
+        List<Long> ids = students.stream().map(StudentSummary::id).toList();
+        Task<DossierService.BatchReport> task = new Task<>() {
+            @Override
+            protected DossierService.BatchReport call() throws Exception {
+                updateMessage("Loading...");
+                List<Student> batch = studentService.getStudentsByIds(ids);
+                return dossierService.generateDossiers(batch, outputDir.toPath(),
+                    done -> updateMessage("Creating " + done + "/" + batch.size() + "..."));
+            }
+        };
+        dossierButton.textProperty().bind(task.messageProperty());
+        task.setOnSucceeded(event -> {
+            resetDossierButton();
+            showDossierReport(task.getValue(), outputDir);
+        });
+        task.setOnFailed(event -> {
+            resetDossierButton();
+            showAlert("Error", "Failed to create dossiers: " + task.getException().getMessage(), Alert.AlertType.ERROR);
+        });
+        dossierButton.setDisable(true);
+        new Thread(task, "dossier-thread").start();
+    }
+    
+    private void resetDossierButton() {
+        dossierButton.textProperty().unbind();
+        dossierButton.setText("Dossiers");
+        dossierButton.setDisable(false);
+    }
+    
+    private void showDossierReport(DossierService.BatchReport report, File outputDir) {
+        StringBuilder details = new StringBuilder();
+        for (DossierService.DossierResult result : report.results()) {
+            if (!result.isSuccess()) {
+                details.append("FAILED  ").append(result.student().getRollNumber())
+                       .append(" - ").append(result.error()).append('\n');
+            }
+            for (String skipped : result.skipped()) {
+                details.append("SKIPPED ").append(result.student().getRollNumber())
+                       .append(" - ").append(skipped).append('\n');
+            }
+        }
+        
+        long failed = report.failed();
+        Alert alert = new Alert(failed == 0 ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING, String.format(
+            "%d dossier(s) created in %.1f s%nFailed: %d%nSaved to: %s",
+            report.results().size() - failed, report.elapsedMillis() / 1000.0, failed, outputDir.getAbsolutePath()));
+        alert.setTitle("Student Dossiers");
+        alert.setHeaderText("Dossiers finished");
+        if (details.length() > 0) {
+            TextArea detailArea = new TextArea(details.toString());
+            detailArea.setEditable(false);
+            detailArea.setPrefRowCount(10);
+            alert.getDialogPane().setExpandableContent(detailArea);
+        }
+        alert.showAndWait();
+    }
+
+    /**
+     * ID cards for every student listed, in the order the table shows them
+     */
+    @FXML
+    private void handlePrintIdCards() {
+        List<StudentSummary> listed = listedStudents();
+        if (listed.isEmpty()) {
+            showAlert("No Students", "There are no students listed to print ID cards for.", Alert.AlertType.WARNING);
+            return;
+        }
+        
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Save ID Cards");
+        chooser.setInitialFileName("id-cards_" + LocalDate.now() + ".pdf");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf"));
+        File target = chooser.showSaveDialog(idCardButton.getScene().getWindow());
+        if (target == null) {
+            return;
+        }
+        
+        List<Long> ids = listed.stream().map(StudentSummary::id).toList();
+        Task<IdCardService.Result> task = new Task<>() {
+            @Override
+            protected IdCardService.Result call() throws Exception {
+                updateMessage("Loading...");
+                List<Student> students = studentService.getStudentsByIds(ids);
+                return idCardService.renderCards(students, target.toPath(),
+                    done -> updateMessage("Printing " + done + "/" + students.size() + "..."));
+            }
+        };
+        idCardButton.textProperty().bind(task.messageProperty());
+        task.setOnSucceeded(event -> {
+            resetIdCardButton();
+            IdCardService.Result result = task.getValue();
+            showAlert("ID Cards", String.format("%d card(s) on %d page(s) in %.1f s%s%nSaved to: %s",
+                result.cards(), result.pages(), result.elapsedMillis() / 1000.0,
+                result.withoutPhoto() > 0 ? String.format("%n%d card(s) without a photo", result.withoutPhoto()) : "",
+                result.file().toAbsolutePath()), Alert.AlertType.INFORMATION);
+        });
+        task.setOnFailed(event -> {
+            resetIdCardButton();
+            showAlert("Error", "Failed to print ID cards: " + task.getException().getMessage(), Alert.AlertType.ERROR);
+        });
+        idCardButton.setDisable(true);
+        new Thread(task, "id-card-thread").start();
+    }
+    
+    private void resetIdCardButton() {
+        idCardButton.textProperty().unbind();
+        idCardButton.setText("ID Cards");
+        idCardButton.setDisable(false);
+    }
+
+    private void handleEdit(StudentSummary row) {
         try {
+            // The row only has the listed columns
+            Student student = studentService.getStudentById(row.id());
+
             Dialog<ButtonType> dialog = new Dialog<>();
             dialog.setTitle("Edit Student");
             dialog.setHeaderText("Edit Student Information");
@@ -283,16 +758,16 @@ public class StudentController {
         }
     }
 
-    private void handleDelete(Student student) {
+    private void handleDelete(StudentSummary student) {
         Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
         confirmation.setTitle("Delete Student");
-        confirmation.setHeaderText("Delete " + student.getName());
+        confirmation.setHeaderText("Delete " + student.name());
         confirmation.setContentText("Are you sure you want to delete this student? This action cannot be undone.");
 
         Optional<ButtonType> result = confirmation.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
             try {
-                studentService.deleteStudent(student.getId());
+                studentService.deleteStudent(student.id());
                 showAlert("Success", "Student deleted successfully!", Alert.AlertType.INFORMATION);
                 refreshTable();
             } catch (Exception e) {
@@ -301,20 +776,28 @@ public class StudentController {
         }
     }
 
-    private void loadAllStudents() {
-        List<Student> students = studentService.getAllStudents();
+    private void showStudents(List<StudentSummary> students) {
+        studentPhotos = documentService.getActiveDocumentsByStudent(
+                students.stream().map(StudentSummary::id).toList(), DocumentType.STUDENT_PHOTO);
         studentTable.setItems(FXCollections.observableArrayList(students));
     }
 
     private void refreshTable() {
-        // Clear filters
-        gradeComboBox.setValue(null);
-        sectionComboBox.setValue(null);
-        yearComboBox.setValue(null);
+        // Clear filters without each one reloading the table
+        resettingFilters = true;
+        try {
+            gradeComboBox.setValue(null);
+            sectionComboBox.setValue(null);
+            yearComboBox.setValue(null);
+        } finally {
+            resettingFilters = false;
+        }
         searchField.clear();
+        // Also drops the search the cleared field would start
+        studentSearch.reset();
         
         // Reload all students
-        loadAllStudents();
+        applyFilters();
     }
 
     private void showAlert(String title, String content, Alert.AlertType type) {
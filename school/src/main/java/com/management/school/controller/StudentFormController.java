@@ -2,16 +2,17 @@ package com.management.school.controller;
 
 import com.management.school.model.Address;
 import com.management.school.model.Student;
+import com.management.school.service.SchoolClassService;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.TextField;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
-import java.util.List;
 
 @Component
 public class StudentFormController {
@@ -34,15 +35,14 @@ public class StudentFormController {
     @FXML private TextField zipCodeField;
     @FXML private TextField countryField;
 
-    private final List<String> classLevels = List.of(
-            "Nursery", "KG", "I", "II", "III", "IV", "V", "VI", "VII", "VIII", "IX", "X");
-    private final List<String> sections = List.of("A", "B");
+    @Autowired
+    private SchoolClassService schoolClassService;
 
     @FXML
     public void initialize() {
         // Populate the dropdowns
-        gradeField.setItems(FXCollections.observableArrayList(classLevels));
-        sectionField.setItems(FXCollections.observableArrayList(sections));
+        gradeField.setItems(FXCollections.observableArrayList(schoolClassService.getGrades()));
+        sectionField.setItems(FXCollections.observableArrayList(schoolClassService.getSections()));
         genderComboBox.setItems(FXCollections.observableArrayList(Student.Gender.values()));
     }
 
@@ -2,16 +2,20 @@ package com.management.school.controller;
 
 import com.management.school.core.SchoolSpringFXMLLoader;
 import com.management.school.model.Teacher;
+import com.management.school.model.TeacherRow;
+import com.management.school.service.TeacherFilter;
 import com.management.school.service.TeacherService;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.util.Callback;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 
 import java.io.IOException;
@@ -38,23 +42,23 @@ public class TeacherController {
     @FXML
     private TextField searchField;
     @FXML
-    private TableView<Teacher> teacherTable;
+    private TableView<TeacherRow> teacherTable;
     @FXML
-    private TableColumn<Teacher, Long> idColumn;
+    private TableColumn<TeacherRow, Long> idColumn;
     @FXML
-    private TableColumn<Teacher, String> employeeIdColumn;
+    private TableColumn<TeacherRow, String> employeeIdColumn;
     @FXML
-    private TableColumn<Teacher, String> nameColumn;
+    private TableColumn<TeacherRow, String> nameColumn;
     @FXML
-    private TableColumn<Teacher, String> subjectColumn;
+    private TableColumn<TeacherRow, String> subjectColumn;
     @FXML
-    private TableColumn<Teacher, String> emailColumn;
+    private TableColumn<TeacherRow, String> emailColumn;
     @FXML
-    private TableColumn<Teacher, String> phoneColumn;
+    private TableColumn<TeacherRow, String> phoneColumn;
     @FXML
-    private TableColumn<Teacher, Boolean> activeColumn;
+    private TableColumn<TeacherRow, Boolean> activeColumn;
     @FXML
-    private TableColumn<Teacher, Void> actionsColumn;
+    private TableColumn<TeacherRow, Void> actionsColumn;
 
     // Subject definitions
     private final List<String> subjects = List.of(
@@ -63,6 +67,8 @@ public class TeacherController {
         "Computer Science", "Physical Education", "Art", "Music"
     );
 
+    private IncrementalSearch<TeacherRow> teacherSearch;
+
     @FXML
     public void initialize() {
         setupTableColumns();
@@ -77,19 +83,21 @@ public class TeacherController {
         
         // Load initial data
         loadTeachersByFilter();
+        setupSearch();
     }
 
     private void setupTableColumns() {
-        idColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
-        employeeIdColumn.setCellValueFactory(new PropertyValueFactory<>("employeeId"));
-        nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
-        subjectColumn.setCellValueFactory(new PropertyValueFactory<>("subject"));
-        emailColumn.setCellValueFactory(new PropertyValueFactory<>("email"));
-        phoneColumn.setCellValueFactory(new PropertyValueFactory<>("phone"));
+        // Rows are records, which PropertyValueFactory cannot read
+        idColumn.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().id()));
+        employeeIdColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().employeeId()));
+        nameColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().name()));
+        subjectColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().subject()));
+        emailColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().email()));
+        phoneColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().phone()));
 
         // Custom cell for active status with badge styling
-        activeColumn.setCellValueFactory(new PropertyValueFactory<>("active"));
-        activeColumn.setCellFactory(column -> new TableCell<Teacher, Boolean>() {
+        activeColumn.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().active()));
+        activeColumn.setCellFactory(column -> new TableCell<TeacherRow, Boolean>() {
             @Override
             protected void updateItem(Boolean active, boolean empty) {
                 super.updateItem(active, empty);
@@ -106,10 +114,10 @@ public class TeacherController {
     }
 
     private void setupActionsColumn() {
-        actionsColumn.setCellFactory(new Callback<TableColumn<Teacher, Void>, TableCell<Teacher, Void>>() {
+        actionsColumn.setCellFactory(new Callback<TableColumn<TeacherRow, Void>, TableCell<TeacherRow, Void>>() {
             @Override
-            public TableCell<Teacher, Void> call(TableColumn<Teacher, Void> param) {
-                return new TableCell<Teacher, Void>() {
+            public TableCell<TeacherRow, Void> call(TableColumn<TeacherRow, Void> param) {
+                return new TableCell<TeacherRow, Void>() {
                     private final Button editBtn = new Button("Edit");
                     private final Button deleteBtn = new Button("Delete");
                     private final HBox actionBox = new HBox(8, editBtn, deleteBtn);
@@ -120,12 +128,13 @@ public class TeacherController {
                         actionBox.setAlignment(Pos.CENTER);
 
                         editBtn.setOnAction(event -> {
-                            Teacher teacher = getTableView().getItems().get(getIndex());
-                            showTeacherDialog(teacher);
+                            TeacherRow row = getTableView().getItems().get(getIndex());
+                            // The row only has the listed columns
+                            showTeacherDialog(teacherService.getTeacherById(row.id()));
                         });
 
                         deleteBtn.setOnAction(event -> {
-                            Teacher teacher = getTableView().getItems().get(getIndex());
+                            TeacherRow teacher = getTableView().getItems().get(getIndex());
                             handleDeleteTeacher(teacher);
                         });
                     }
@@ -155,13 +164,11 @@ public class TeacherController {
         String subject = subjectComboBox.getValue();
         Integer year = yearComboBox.getValue();
 
-        if (subject == null || year == null) {
-            return;
-        }
-
         System.out.println("Filtering for: Subject=" + subject + ", Year=" + year);
 
-        List<Teacher> filteredTeachers = teacherService.getTeachersByFilter(subject, year);
+        // Either filter may be unset
+        TeacherFilter filter = new TeacherFilter(subject, year, year, null, true, null);
+        List<TeacherRow> filteredTeachers = teacherService.findTeacherRows(filter, Sort.by("name"));
         teacherTable.setItems(FXCollections.observableArrayList(filteredTeachers));
     }
 
@@ -170,15 +177,38 @@ public class TeacherController {
         showTeacherDialog(null);
     }
 
+    private void setupSearch() {
+        teacherSearch = new IncrementalSearch<>(searchField, "teacher-search-thread", TeacherService.SEARCH_LIMIT) {
+            @Override
+            protected List<TeacherRow> search(String term) {
+                return teacherService.searchTeachers(term);
+            }
+
+            @Override
+            protected List<TeacherRow> refine(List<TeacherRow> results, String term) {
+                return teacherService.refineSearch(results, term);
+            }
+
+            @Override
+            protected void show(List<TeacherRow> results) {
+                teacherTable.setItems(FXCollections.observableArrayList(results));
+            }
+
+            @Override
+            protected void cleared() {
+                loadTeachersByFilter();
+            }
+
+            @Override
+            protected void failed(Throwable error) {
+                showAlert("Error", "Search failed: " + error.getMessage(), Alert.AlertType.ERROR);
+            }
+        };
+    }
+
     @FXML
     private void handleSearch() {
-        String searchTerm = searchField.getText();
-        if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            loadTeachersByFilter();
-        } else {
-            List<Teacher> results = teacherService.searchTeachers(searchTerm.trim());
-            teacherTable.setItems(FXCollections.observableArrayList(results));
-        }
+        teacherSearch.searchNow(searchField.getText());
     }
 
     private void showTeacherDialog(Teacher teacher) {
@@ -249,6 +279,7 @@ public class TeacherController {
                     }
                     
                     // Refresh the table
+                    teacherSearch.reset();
                     loadTeachersByFilter(); 
                     
                 } catch (IllegalArgumentException e) {
@@ -268,17 +299,18 @@ public class TeacherController {
         }
     }
 
-    private void handleDeleteTeacher(Teacher teacher) {
+    private void handleDeleteTeacher(TeacherRow teacher) {
         Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
         confirmation.setTitle("Confirm Deletion");
         confirmation.setHeaderText("Deactivate Teacher");
-        confirmation.setContentText("Are you sure you want to deactivate " + teacher.getName() + "?");
+        confirmation.setContentText("Are you sure you want to deactivate " + teacher.name() + "?");
 
         confirmation.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
                 try {
-                    teacherService.deleteTeacher(teacher.getId());
+                    teacherService.deleteTeacher(teacher.id());
                     showAlert("Success", "Teacher deactivated successfully!", Alert.AlertType.INFORMATION);
+                    teacherSearch.reset();
                     loadTeachersByFilter();
                 } catch (Exception e) {
                     showAlert("Error", "Failed to deactivate teacher: " + e.getMessage(), Alert.AlertType.ERROR);
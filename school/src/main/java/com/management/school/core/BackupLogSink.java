@@ -0,0 +1,158 @@
+package com.management.school.core;
+
+import javafx.animation.AnimationTimer;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.ListView;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Log console for backup and restore operations.
+ *
+ * Worker threads only enqueue lines (lock-free); once per JavaFX pulse the
+ * queue is drained in a single batch into a bounded list shown by a
+ * virtualised {@link ListView}, so a restore that prints thousands of lines
+ * costs one UI update per frame instead of one per line. Only the newest
+ * {@link #MAX_LINES} lines are kept on screen; the complete log goes to a
+ * rolling file under {@code ${app.backups.dir}/logs}.
+ */
+@Component
+public class BackupLogSink {
+
+    public static final int MAX_LINES = 5000;
+
+    private static final Logger LOGGER = Logger.getLogger(BackupLogSink.class.getName());
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int LOG_FILE_LIMIT = 5 * 1024 * 1024;
+    private static final int LOG_FILE_COUNT = 5;
+
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ObservableList<String> lines = FXCollections.observableArrayList();
+    private final Logger fileLogger = Logger.getLogger(BackupLogSink.class.getName() + ".file");
+
+    private ListView<String> view;
+    private AnimationTimer drainTimer;
+
+    public BackupLogSink(@Value("${app.backups.dir:${user.home}/SchoolApp/backups}") String backupsDir) {
+        fileLogger.setUseParentHandlers(false);
+        try {
+            Path logDir = Paths.get(backupsDir, "logs");
+            Files.createDirectories(logDir);
+            FileHandler handler = new FileHandler(
+                logDir.resolve("backup-%g.log").toString(), LOG_FILE_LIMIT, LOG_FILE_COUNT, true);
+            handler.setEncoding("UTF-8");
+            handler.setFormatter(new Formatter() {
+                @Override
+                public String format(LogRecord record) {
+                    return record.getMessage() + System.lineSeparator();
+                }
+            });
+            fileLogger.addHandler(handler);
+        } catch (IOException e) {
+            LOGGER.warning("Backup log file unavailable, logging to console only: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Show the log in the given list view. Must be called on the FX thread;
+     * the most recently attached view wins.
+     */
+    public void attach(ListView<String> listView) {
+        view = listView;
+        listView.setItems(lines);
+        if (!lines.isEmpty()) {
+            listView.scrollTo(lines.size() - 1);
+        }
+
+        if (drainTimer == null) {
+            drainTimer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    drain();
+                }
+            };
+            drainTimer.start();
+        }
+    }
+
+    /**
+     * Queue a line from any thread. While no view is draining the queue
+     * (e.g. the Backups tab was never opened) the oldest lines are dropped.
+     */
+    public void log(String level, String message) {
+        String formatted = String.format("[%s] [%s] %s", LocalDateTime.now().format(TIMESTAMP), level, message);
+        pending.add(formatted);
+        if (pendingCount.incrementAndGet() > MAX_LINES && pending.poll() != null) {
+            pendingCount.decrementAndGet();
+        }
+        fileLogger.info(formatted);
+    }
+
+    public void info(String message) {
+        log("INFO", message);
+    }
+
+    public void success(String message) {
+        log("SUCCESS", "✓ " + message);
+    }
+
+    public void warning(String message) {
+        log("WARNING", "⚠ " + message);
+    }
+
+    public void error(String message) {
+        log("ERROR", "✗ " + message);
+    }
+
+    private void drain() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<String> batch = new ArrayList<>();
+        String line;
+        while ((line = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(line);
+        }
+        if (batch.size() > MAX_LINES) {
+            batch = batch.subList(batch.size() - MAX_LINES, batch.size());
+        }
+
+        int overflow = lines.size() + batch.size() - MAX_LINES;
+        if (overflow > 0) {
+            lines.remove(0, overflow);
+        }
+        lines.addAll(batch);
+
+        if (view != null) {
+            view.scrollTo(lines.size() - 1);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (var handler : fileLogger.getHandlers()) {
+            handler.close();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.management.school.core;
+
+import com.management.school.service.DocumentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Runs once at startup and moves documents uploaded before the content store
+ * existed (flat files in the upload directory) into it. Each document is
+ * moved in its own transaction, so an interrupted run simply continues on the
+ * next start. Identity documents stored before encryption was turned on are
+ * encrypted afterwards.
+ */
+@Component
+public class DocumentStoreMigration implements ApplicationRunner {
+
+    private final DocumentService documentService;
+
+    @Autowired
+    public DocumentStoreMigration(DocumentService documentService) {
+        this.documentService = documentService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        moveIntoContentStore();
+        try {
+            int encrypted = documentService.encryptIdentityDocuments();
+            if (encrypted > 0) {
+                System.out.println("Encrypted " + encrypted + " stored identity document(s)");
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to encrypt stored identity documents: " + e.getMessage());
+        }
+    }
+
+    private void moveIntoContentStore() {
+        List<Long> documentIds = documentService.findDocumentsOutsideContentStore();
+        if (documentIds.isEmpty()) {
+            return;
+        }
+
+        System.out.println("Moving " + documentIds.size() + " document(s) into the content store...");
+        int moved = 0;
+        int missing = 0;
+        for (Long documentId : documentIds) {
+            try {
+                if (documentService.moveToContentStore(documentId)) {
+                    moved++;
+                } else {
+                    missing++;
+                }
+            } catch (Exception e) {
+                System.err.println("Failed to move document " + documentId + " into the content store: " + e.getMessage());
+            }
+        }
+        System.out.println("Document store migration: " + moved + " moved, " + missing + " without a file");
+    }
+}
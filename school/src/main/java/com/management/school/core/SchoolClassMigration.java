@@ -0,0 +1,118 @@
+package com.management.school.core;
+
+import com.management.school.service.DatabaseRestoredEvent;
+import com.management.school.service.SchoolClassService;
+import com.management.school.service.TableMergedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Links students saved before the school_classes table existed (grade and
+ * section only) to their class, creating the classes from the distinct grade
+ * and section pairs found. Students already linked are left alone.
+ * Afterwards the index on the old grade and section columns, which
+ * idx_students_class_id replaces, is dropped.
+ *
+ * Runs at startup and again after a database restore: a backup taken before
+ * the change brings back a students table without the class_id column or its
+ * index, and no school_classes table, which are then created here as
+ * Hibernate would at startup.
+ */
+@Component
+public class SchoolClassMigration implements ApplicationRunner {
+
+    private static final String OLD_INDEX = "idx_students_class";
+    private static final String NEW_INDEX = "idx_students_class_id";
+
+    private final SchoolClassService schoolClassService;
+    private final DataSource dataSource;
+
+    @Autowired
+    public SchoolClassMigration(SchoolClassService schoolClassService, DataSource dataSource) {
+        this.schoolClassService = schoolClassService;
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        migrate();
+    }
+
+    @EventListener
+    public void onDatabaseRestored(DatabaseRestoredEvent event) {
+        schoolClassService.reload();
+        migrate();
+    }
+
+    /**
+     * Merged students come back without a class key, whether or not the
+     * backup had one (see SelectiveRestoreService); link them by their grade
+     * and section. The schema itself is not touched by a merge.
+     */
+    @EventListener
+    public void onTableMerged(TableMergedEvent event) {
+        if (!"students".equals(event.getTable())) {
+            return;
+        }
+        try {
+            int assigned = schoolClassService.assignStudentClasses();
+            if (assigned > 0) {
+                System.out.println("Linked " + assigned + " merged student(s) to their class");
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to link merged students to their class: " + e.getMessage());
+        }
+    }
+
+    private void migrate() {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        try {
+            jdbc.execute("CREATE TABLE IF NOT EXISTS school_classes (id SMALLINT NOT NULL AUTO_INCREMENT,"
+                + " academic_year VARCHAR(9) NOT NULL, display_order INT NOT NULL, grade VARCHAR(20) NOT NULL,"
+                + " section VARCHAR(10) NOT NULL, PRIMARY KEY (id),"
+                + " CONSTRAINT uk_school_classes_class UNIQUE (academic_year, grade, section))");
+            if (!exists(jdbc, "columns", "column_name", "class_id")) {
+                jdbc.execute("ALTER TABLE students ADD COLUMN class_id SMALLINT");
+                System.out.println("Added students.class_id");
+            }
+            // A restore adds the column to an older backup's students table, but not the index
+            if (!exists(jdbc, "statistics", "index_name", NEW_INDEX)) {
+                jdbc.execute("ALTER TABLE students ADD INDEX " + NEW_INDEX + " (class_id, active, admission_date)");
+                System.out.println("Added index " + NEW_INDEX);
+            }
+            int assigned = schoolClassService.assignStudentClasses();
+            if (assigned > 0) {
+                System.out.println("Linked " + assigned + " student(s) to their class");
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to link students to their class: " + e.getMessage());
+            return;
+        }
+
+        try {
+            if (exists(jdbc, "statistics", "index_name", OLD_INDEX)) {
+                jdbc.execute("ALTER TABLE students DROP INDEX " + OLD_INDEX);
+                System.out.println("Dropped index " + OLD_INDEX + ", replaced by " + NEW_INDEX);
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to drop index " + OLD_INDEX + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the students table has the named column or index, from the
+     * information_schema view given
+     */
+    private static boolean exists(JdbcTemplate jdbc, String view, String nameColumn, String name) {
+        Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM information_schema." + view
+            + " WHERE table_schema = DATABASE() AND table_name = 'students' AND " + nameColumn + " = ?",
+            Integer.class, name);
+        return count != null && count > 0;
+    }
+}
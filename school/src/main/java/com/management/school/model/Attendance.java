@@ -5,7 +5,8 @@ import java.time.LocalDate;
 
 @Entity
 @Table(name = "attendance", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "attendance_date"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "attendance_date"}),
+       indexes = @Index(name = "idx_attendance_date_status", columnList = "attendance_date, status"))
 public class Attendance {
     
     @Id
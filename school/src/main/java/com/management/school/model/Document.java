@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents",
+       indexes = @Index(name = "idx_documents_student_type", columnList = "student_id, document_type, active"))
 public class Document {
     
     @Id
@@ -24,11 +25,18 @@ public class Document {
     @Column(nullable = false)
     private String filePath;
     
+    // SHA-256 of the content in the document store; null for files uploaded before it existed
+    @Column(length = 64)
+    private String contentKey;
+    
     @Column(nullable = false)
     private String fileExtension;
     
     private Long fileSize; // in bytes
     
+    // Size of the file as uploaded, before it was compressed; null if it was stored as uploaded
+    private Long originalFileSize;
+    
     @Column(nullable = false)
     private LocalDateTime uploadedAt;
     
@@ -87,12 +95,18 @@ public class Document {
     public String getFilePath() { return filePath; }
     public void setFilePath(String filePath) { this.filePath = filePath; }
     
+    public String getContentKey() { return contentKey; }
+    public void setContentKey(String contentKey) { this.contentKey = contentKey; }
+    
     public String getFileExtension() { return fileExtension; }
     public void setFileExtension(String fileExtension) { this.fileExtension = fileExtension; }
     
     public Long getFileSize() { return fileSize; }
     public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
     
+    public Long getOriginalFileSize() { return originalFileSize; }
+    public void setOriginalFileSize(Long originalFileSize) { this.originalFileSize = originalFileSize; }
+    
     public LocalDateTime getUploadedAt() { return uploadedAt; }
     public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
     
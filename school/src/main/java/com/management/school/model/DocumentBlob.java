@@ -0,0 +1,60 @@
+package com.management.school.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One stored document file, identified by the SHA-256 of its content.
+ * Identical uploads share a blob; {@code referenceCount} is the number of
+ * documents pointing at it; when it drops to zero the blob is removed and
+ * its file tombstoned for the background sweeper.
+ */
+@Entity
+@Table(name = "document_blobs")
+public class DocumentBlob {
+    
+    @Id
+    @Column(length = 64)
+    private String contentKey;
+    
+    @Column(nullable = false)
+    private long size;
+    
+    @Column(nullable = false)
+    private String fileExtension;
+    
+    @Column(nullable = false)
+    private int referenceCount;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public DocumentBlob() {
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public DocumentBlob(String contentKey, long size, String fileExtension) {
+        this();
+        this.contentKey = contentKey;
+        this.size = size;
+        this.fileExtension = fileExtension;
+        this.referenceCount = 1;
+    }
+    
+    // Getters and Setters
+    public String getContentKey() { return contentKey; }
+    public void setContentKey(String contentKey) { this.contentKey = contentKey; }
+    
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+    
+    public String getFileExtension() { return fileExtension; }
+    public void setFileExtension(String fileExtension) { this.fileExtension = fileExtension; }
+    
+    public int getReferenceCount() { return referenceCount; }
+    public void setReferenceCount(int referenceCount) { this.referenceCount = referenceCount; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,66 @@
+package com.management.school.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A document file waiting to be deleted by the background sweeper. Saved in
+ * the same transaction that stops using the file, so the file goes if and
+ * only if that transaction commits.
+ */
+@Entity
+@Table(name = "document_tombstones")
+public class DocumentTombstone {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 1024)
+    private String filePath;
+    
+    // Content key of a file in the content store; null for files outside it
+    @Column(length = 64)
+    private String contentKey;
+    
+    @Column(nullable = false)
+    private String reason;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Failed deletion attempts so far
+    @Column(nullable = false)
+    private int attempts;
+    
+    // Constructors
+    public DocumentTombstone() {
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public DocumentTombstone(String filePath, String contentKey, String reason) {
+        this();
+        this.filePath = filePath;
+        this.contentKey = contentKey;
+        this.reason = reason;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+    
+    public String getContentKey() { return contentKey; }
+    public void setContentKey(String contentKey) { this.contentKey = contentKey; }
+    
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+}
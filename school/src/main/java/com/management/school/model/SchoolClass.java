@@ -0,0 +1,65 @@
+package com.management.school.model;
+
+import jakarta.persistence.*;
+
+/**
+ * A class students are in: a grade and section in an academic year.
+ * Students refer to it by its small integer id ({@link Student#getClassId()}).
+ */
+@Entity
+@Table(name = "school_classes",
+       uniqueConstraints = @UniqueConstraint(name = "uk_school_classes_class",
+                                             columnNames = {"academic_year", "grade", "section"}))
+public class SchoolClass {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Short id;
+
+    @Column(nullable = false, length = 20)
+    private String grade;
+
+    @Column(nullable = false, length = 10)
+    private String section;
+
+    // Position of the grade in lists, lowest first; the same for every section of a grade
+    @Column(name = "display_order", nullable = false)
+    private int displayOrder;
+
+    // e.g. 2025-26
+    @Column(name = "academic_year", nullable = false, length = 9)
+    private String academicYear;
+
+    // Constructors
+    public SchoolClass() {}
+
+    public SchoolClass(String grade, String section, int displayOrder, String academicYear) {
+        this.grade = grade;
+        this.section = section;
+        this.displayOrder = displayOrder;
+        this.academicYear = academicYear;
+    }
+
+    // Getters and Setters
+    public Short getId() { return id; }
+    public void setId(Short id) { this.id = id; }
+
+    public String getGrade() { return grade; }
+    public void setGrade(String grade) { this.grade = grade; }
+
+    public String getSection() { return section; }
+    public void setSection(String section) { this.section = section; }
+
+    public int getDisplayOrder() { return displayOrder; }
+    public void setDisplayOrder(int displayOrder) { this.displayOrder = displayOrder; }
+
+    public String getAcademicYear() { return academicYear; }
+    public void setAcademicYear(String academicYear) { this.academicYear = academicYear; }
+
+    /**
+     * The class as shown in lists, e.g. "VIII-A"
+     */
+    public String getName() {
+        return grade + "-" + section;
+    }
+}
@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "students")
+@Table(name = "students",
+       indexes = @Index(name = "idx_students_class_id", columnList = "class_id, active, admission_date"))
 public class Student {
     
 	@Id
@@ -31,6 +32,20 @@ public class Student {
     @Column(nullable = false)
     private String section;
     
+    // The SchoolClass for grade and section, which filters, groups and reports use.
+    // grade and section are authoritative: every save derives this key from them,
+    // and rows brought back from a backup are relinked from them, because class
+    // ids are not stable across restores
+    @Column(name = "class_id")
+    private Short classId;
+    
+    // The same key as a join, read-only and without a foreign key, only so queries
+    // can sort by the class's display order; never loaded, use classId
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "class_id", insertable = false, updatable = false,
+                foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private SchoolClass schoolClass;
+    
     // --- FIX START ---
     // Changed type from String to Gender
     @Enumerated(EnumType.STRING)
@@ -102,6 +117,9 @@ public class Student {
     public String getSection() { return section; }
     public void setSection(String section) { this.section = section; }
     
+    public Short getClassId() { return classId; }
+    public void setClassId(Short classId) { this.classId = classId; }
+    
     // --- FIX START ---
     // Changed getter and setter to use the Gender enum
     public Gender getGender() { return gender; }
@@ -0,0 +1,80 @@
+package com.management.school.model;
+
+import java.util.Objects;
+
+/**
+ * The columns of a student that list screens, search results and reports
+ * show; loaded with a constructor query instead of as a managed
+ * {@link Student}, and immutable.
+ *
+ * Summaries are kept in table models and search caches by the thousand, so
+ * they are stored compactly: the id as a primitive, the class as its small
+ * integer key ({@link SchoolClass#getId()}), whose grade and section
+ * {@code SchoolClassService} looks up, and the gender as its enum constant.
+ */
+public final class StudentSummary {
+
+    // Class ids are positive; a student not linked to a class yet has this
+    private static final short NO_CLASS = -1;
+
+    private final long id;
+    private final String rollNumber;
+    private final String name;
+    private final String email;
+    private final String phone;
+    private final Student.Gender gender;
+    private final short classId;
+    private final boolean active;
+
+    public StudentSummary(Long id, String rollNumber, String name, Short classId,
+                          String email, String phone, Student.Gender gender, boolean active) {
+        this.id = id;
+        this.rollNumber = rollNumber;
+        this.name = name;
+        this.classId = classId != null ? classId : NO_CLASS;
+        this.email = email;
+        this.phone = phone;
+        this.gender = gender;
+        this.active = active;
+    }
+
+    public long id() { return id; }
+
+    public String rollNumber() { return rollNumber; }
+
+    public String name() { return name; }
+
+    /**
+     * The id of the student's class, or null if they are not linked to one yet
+     */
+    public Short classId() { return classId != NO_CLASS ? classId : null; }
+
+    public String email() { return email; }
+
+    public String phone() { return phone; }
+
+    public Student.Gender gender() { return gender; }
+
+    public boolean active() { return active; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StudentSummary other)) return false;
+        return id == other.id && classId == other.classId && active == other.active
+            && gender == other.gender && Objects.equals(rollNumber, other.rollNumber)
+            && Objects.equals(name, other.name) && Objects.equals(email, other.email)
+            && Objects.equals(phone, other.phone);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "StudentSummary[id=" + id + ", rollNumber=" + rollNumber + ", name=" + name
+            + ", classId=" + classId() + ", active=" + active + "]";
+    }
+}
@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "teachers")
+@Table(name = "teachers",
+       indexes = @Index(name = "idx_teachers_subject", columnList = "subject, active, joining_date"))
 public class Teacher {
     
     @Id
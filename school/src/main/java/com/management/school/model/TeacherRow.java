@@ -0,0 +1,9 @@
+package com.management.school.model;
+
+/**
+ * The columns of a teacher that list screens and reports show; loaded with
+ * a constructor query instead of as a managed {@link Teacher}
+ */
+public record TeacherRow(Long id, String employeeId, String name, String subject, String email, String phone,
+                         boolean active) {
+}
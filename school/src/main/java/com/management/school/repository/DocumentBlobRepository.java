@@ -0,0 +1,48 @@
+package com.management.school.repository;
+
+import com.management.school.model.DocumentBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DocumentBlobRepository extends JpaRepository<DocumentBlob, String> {
+    
+    /**
+     * Atomic in the database, so concurrent uploads never lose a reference
+     *
+     * @return number of rows updated (0 when the blob does not exist yet)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE DocumentBlob b SET b.referenceCount = b.referenceCount + :delta WHERE b.contentKey = :contentKey")
+    int adjustReferenceCount(@Param("contentKey") String contentKey, @Param("delta") int delta);
+    
+    /**
+     * Locks the row, so no upload can take a reference until the transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM DocumentBlob b WHERE b.contentKey = :contentKey")
+    Optional<DocumentBlob> lockByContentKey(@Param("contentKey") String contentKey);
+    
+    @Query("SELECT b.contentKey FROM DocumentBlob b WHERE b.contentKey IN :keys")
+    List<String> findExistingContentKeys(@Param("keys") Collection<String> keys);
+    
+    @Query("SELECT b.contentKey FROM DocumentBlob b WHERE b.createdAt < :before")
+    List<String> findContentKeysCreatedBefore(@Param("before") LocalDateTime before);
+    
+    /**
+     * Blobs no active document refers to, whatever their reference count says
+     */
+    @Query("SELECT b.contentKey FROM DocumentBlob b WHERE b.createdAt < :before AND NOT EXISTS "
+        + "(SELECT d.id FROM Document d WHERE d.contentKey = b.contentKey AND d.active = true)")
+    List<String> findUnreferencedContentKeysCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -3,8 +3,12 @@ package com.management.school.repository;
 import com.management.school.model.Document;
 import com.management.school.model.Document.DocumentType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,5 +21,21 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     
     List<Document> findByDocumentTypeAndActiveTrue(DocumentType documentType);
     
+    List<Document> findByStudentIdInAndActiveTrue(Collection<Long> studentIds);
+    
+    List<Document> findByStudentIdInAndDocumentTypeAndActiveTrue(Collection<Long> studentIds, DocumentType documentType);
+    
+    boolean existsByContentKeyAndActiveTrue(String contentKey);
+    
     boolean existsByStudentIdAndDocumentTypeAndActiveTrue(Long studentId, DocumentType documentType);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Document d SET d.active = false WHERE d.id IN :ids AND d.active = true")
+    int deactivateAll(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT DISTINCT d.contentKey FROM Document d WHERE d.contentKey IS NOT NULL AND d.active = true AND d.documentType IN :types")
+    List<String> findContentKeysByDocumentTypeIn(@Param("types") Collection<DocumentType> types);
+    
+    @Query("SELECT d.id FROM Document d WHERE d.contentKey IS NULL AND d.active = true")
+    List<Long> findIdsByContentKeyIsNullAndActiveTrue();
 }
\ No newline at end of file
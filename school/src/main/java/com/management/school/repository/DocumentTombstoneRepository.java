@@ -0,0 +1,13 @@
+package com.management.school.repository;
+
+import com.management.school.model.DocumentTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DocumentTombstoneRepository extends JpaRepository<DocumentTombstone, Long> {
+    
+    List<DocumentTombstone> findTop200ByIdGreaterThanOrderByIdAsc(Long id);
+}
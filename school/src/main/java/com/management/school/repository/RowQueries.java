@@ -0,0 +1,88 @@
+package com.management.school.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+/**
+ * Runs a {@link Specification} as a constructor query: only the given
+ * columns are selected and each result row becomes a row object, so nothing
+ * is managed or dirty-checked. Used by the row query fragments of the
+ * repositories.
+ */
+final class RowQueries<E, R> {
+
+    private final EntityManager entityManager;
+    private final Class<E> entityClass;
+    private final Class<R> rowClass;
+    private final Function<Root<E>, Selection<?>[]> columns;
+
+    /**
+     * @param columns the row constructor's arguments, in order
+     */
+    RowQueries(EntityManager entityManager, Class<E> entityClass, Class<R> rowClass,
+               Function<Root<E>, Selection<?>[]> columns) {
+        this.entityManager = entityManager;
+        this.entityClass = entityClass;
+        this.rowClass = rowClass;
+        this.columns = columns;
+    }
+
+    List<R> list(Specification<E> spec, Sort sort) {
+        return query(spec, sort).getResultList();
+    }
+
+    /**
+     * One page, counting the total only when the page does not already
+     * tell it
+     */
+    Page<R> page(Specification<E> spec, Pageable pageable) {
+        TypedQuery<R> query = query(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    private TypedQuery<R> query(Specification<E> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = cb.createQuery(rowClass);
+        Root<E> root = query.from(entityClass);
+        query.select(cb.construct(rowClass, columns.apply(root)));
+        Predicate where = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<E> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<E> root = query.from(entityClass);
+        query.select(cb.count(root));
+        Predicate where = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
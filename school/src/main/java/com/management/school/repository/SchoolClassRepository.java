@@ -0,0 +1,17 @@
+package com.management.school.repository;
+
+import com.management.school.model.SchoolClass;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SchoolClassRepository extends JpaRepository<SchoolClass, Short> {
+    
+    List<SchoolClass> findByAcademicYearOrderByDisplayOrderAscSectionAsc(String academicYear);
+    
+    @Query("SELECT MAX(c.academicYear) FROM SchoolClass c")
+    String findLatestAcademicYear();
+}
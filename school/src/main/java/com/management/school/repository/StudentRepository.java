@@ -2,31 +2,41 @@ package com.management.school.repository;
 
 import com.management.school.model.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface StudentRepository extends JpaRepository<Student, Long> {
+public interface StudentRepository extends JpaRepository<Student, Long>, JpaSpecificationExecutor<Student>,
+        StudentSummaryQueries {
     Optional<Student> findByEmail(String email);
     Optional<Student> findByRollNumber(String rollNumber);
+    List<Student> findByRollNumberIn(Collection<String> rollNumbers);
     List<Student> findByGradeAndSection(String grade, String section);
     List<Student> findByActive(boolean active);
     List<Student> findByNameContaining(String name);
     
-    // ----- NEW METHOD -----
-    /**
-     * Finds active students by grade, section, and the year of their admission.
-     */
-    @Query("SELECT s FROM Student s WHERE s.grade = :grade AND s.section = :section AND YEAR(s.admissionDate) = :year AND s.active = true")
-    List<Student> findByGradeSectionAndAdmissionYear(
-            @Param("grade") String grade, 
-            @Param("section") String section, 
-            @Param("year") String year
-    );
-
     // --- (Optional) A better search method that only finds active students ---
     List<Student> findByNameContainingAndActiveTrue(String name);
+    
+    /**
+     * Active students per class key and gender: class id, gender, count
+     */
+    @Query("SELECT s.classId, s.gender, COUNT(s) FROM Student s WHERE s.active = true GROUP BY s.classId, s.gender")
+    List<Object[]> countActiveByClassAndGender();
+    
+    /**
+     * Grade and section pairs of students not yet linked to their class
+     */
+    @Query("SELECT DISTINCT s.grade, s.section FROM Student s WHERE s.classId IS NULL")
+    List<Object[]> findUnassignedClasses();
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Student s SET s.classId = :classId WHERE s.classId IS NULL AND s.grade = :grade AND s.section = :section")
+    int assignClass(@Param("classId") Short classId, @Param("grade") String grade, @Param("section") String section);
 }
\ No newline at end of file
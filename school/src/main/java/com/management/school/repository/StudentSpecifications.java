@@ -0,0 +1,106 @@
+package com.management.school.repository;
+
+import com.management.school.model.SchoolClass;
+import com.management.school.model.Student;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Building blocks for {@link StudentRepository#findAll(Specification)}.
+ * Each returns null for a null value, which {@link Specification#and}
+ * skips, so a filter can combine whichever conditions are set.
+ */
+public final class StudentSpecifications {
+
+    private StudentSpecifications() {
+    }
+
+    public static Specification<Student> hasIdIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    /**
+     * In a class of the grade and section; either may be null for all. Matched
+     * on the small class_id key, through the classes with those names, so it
+     * can use idx_students_class_id.
+     */
+    public static Specification<Student> inClass(String grade, String section) {
+        if (grade == null && section == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Subquery<Short> classIds = query.subquery(Short.class);
+            Root<SchoolClass> schoolClass = classIds.from(SchoolClass.class);
+            List<Predicate> names = new ArrayList<>(2);
+            if (grade != null) {
+                names.add(cb.equal(schoolClass.get("grade"), grade));
+            }
+            if (section != null) {
+                names.add(cb.equal(schoolClass.get("section"), section));
+            }
+            classIds.select(schoolClass.get("id")).where(names.toArray(new Predicate[0]));
+            return root.get("classId").in(classIds);
+        };
+    }
+
+    public static Specification<Student> isActive(Boolean active) {
+        return active == null ? null : (root, query, cb) -> cb.equal(root.get("active"), active);
+    }
+
+    /**
+     * Admitted on or after {@code from} and before {@code to}; either end may
+     * be null. A plain range on the column, so it can use idx_students_class_id.
+     */
+    public static Specification<Student> admittedBetween(LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (from == null) {
+                return cb.lessThan(root.get("admissionDate"), to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(root.get("admissionDate"), from);
+            }
+            return cb.and(cb.greaterThanOrEqualTo(root.get("admissionDate"), from),
+                          cb.lessThan(root.get("admissionDate"), to));
+        };
+    }
+
+    public static Specification<Student> hasGender(Student.Gender gender) {
+        return gender == null ? null : (root, query, cb) -> cb.equal(root.get("gender"), gender);
+    }
+
+    /**
+     * Name, roll number or phone containing the text, ignoring case
+     */
+    public static Specification<Student> containsText(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        String pattern = likePattern(text);
+        return (root, query, cb) -> cb.or(
+            cb.like(cb.lower(root.get("name")), pattern, '\\'),
+            cb.like(cb.lower(root.get("rollNumber")), pattern, '\\'),
+            cb.like(root.get("phone"), pattern, '\\')
+        );
+    }
+
+    /**
+     * %text% in lower case, with LIKE wildcards in the text escaped
+     */
+    static String likePattern(String text) {
+        String escaped = text.trim().toLowerCase()
+            .replace("\\", "\\\\")
+            .replace("%", "\\%")
+            .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
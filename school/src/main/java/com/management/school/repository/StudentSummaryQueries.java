@@ -0,0 +1,20 @@
+package com.management.school.repository;
+
+import com.management.school.model.Student;
+import com.management.school.model.StudentSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * {@link StudentSummary}s for a specification, selecting only the summary's columns
+ */
+public interface StudentSummaryQueries {
+
+    Page<StudentSummary> findSummaries(Specification<Student> spec, Pageable pageable);
+
+    List<StudentSummary> findSummaries(Specification<Student> spec, Sort sort);
+}
@@ -0,0 +1,34 @@
+package com.management.school.repository;
+
+import com.management.school.model.Student;
+import com.management.school.model.StudentSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public class StudentSummaryQueriesImpl implements StudentSummaryQueries {
+
+    private final RowQueries<Student, StudentSummary> rows;
+
+    public StudentSummaryQueriesImpl(EntityManager entityManager) {
+        rows = new RowQueries<>(entityManager, Student.class, StudentSummary.class, student -> new Selection<?>[] {
+            student.get("id"), student.get("rollNumber"), student.get("name"), student.get("classId"),
+            student.get("email"), student.get("phone"), student.get("gender"), student.get("active")
+        });
+    }
+
+    @Override
+    public Page<StudentSummary> findSummaries(Specification<Student> spec, Pageable pageable) {
+        return rows.page(spec, pageable);
+    }
+
+    @Override
+    public List<StudentSummary> findSummaries(Specification<Student> spec, Sort sort) {
+        return rows.list(spec, sort);
+    }
+}
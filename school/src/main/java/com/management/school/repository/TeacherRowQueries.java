@@ -0,0 +1,20 @@
+package com.management.school.repository;
+
+import com.management.school.model.Teacher;
+import com.management.school.model.TeacherRow;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * {@link TeacherRow}s for a specification, selecting only the row's columns
+ */
+public interface TeacherRowQueries {
+
+    Page<TeacherRow> findRows(Specification<Teacher> spec, Pageable pageable);
+
+    List<TeacherRow> findRows(Specification<Teacher> spec, Sort sort);
+}
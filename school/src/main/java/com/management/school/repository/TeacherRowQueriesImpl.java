@@ -0,0 +1,34 @@
+package com.management.school.repository;
+
+import com.management.school.model.Teacher;
+import com.management.school.model.TeacherRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public class TeacherRowQueriesImpl implements TeacherRowQueries {
+
+    private final RowQueries<Teacher, TeacherRow> rows;
+
+    public TeacherRowQueriesImpl(EntityManager entityManager) {
+        rows = new RowQueries<>(entityManager, Teacher.class, TeacherRow.class, teacher -> new Selection<?>[] {
+            teacher.get("id"), teacher.get("employeeId"), teacher.get("name"), teacher.get("subject"),
+            teacher.get("email"), teacher.get("phone"), teacher.get("active")
+        });
+    }
+
+    @Override
+    public Page<TeacherRow> findRows(Specification<Teacher> spec, Pageable pageable) {
+        return rows.page(spec, pageable);
+    }
+
+    @Override
+    public List<TeacherRow> findRows(Specification<Teacher> spec, Sort sort) {
+        return rows.list(spec, sort);
+    }
+}
@@ -0,0 +1,68 @@
+package com.management.school.repository;
+
+import com.management.school.model.Teacher;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Building blocks for {@link TeacherRepository#findAll(Specification)};
+ * like {@link StudentSpecifications}, each returns null for a null value.
+ */
+public final class TeacherSpecifications {
+
+    private TeacherSpecifications() {
+    }
+
+    public static Specification<Teacher> hasIdIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    public static Specification<Teacher> teachesSubject(String subject) {
+        return subject == null ? null : (root, query, cb) -> cb.equal(root.get("subject"), subject);
+    }
+
+    public static Specification<Teacher> isActive(Boolean active) {
+        return active == null ? null : (root, query, cb) -> cb.equal(root.get("active"), active);
+    }
+
+    /**
+     * Joined on or after {@code from} and before {@code to}; either end may
+     * be null. A plain range on the column, so it can use idx_teachers_subject.
+     */
+    public static Specification<Teacher> joinedBetween(LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (from == null) {
+                return cb.lessThan(root.get("joiningDate"), to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(root.get("joiningDate"), from);
+            }
+            return cb.and(cb.greaterThanOrEqualTo(root.get("joiningDate"), from),
+                          cb.lessThan(root.get("joiningDate"), to));
+        };
+    }
+
+    public static Specification<Teacher> hasGender(String gender) {
+        return gender == null ? null : (root, query, cb) -> cb.equal(root.get("gender"), gender);
+    }
+
+    /**
+     * Name, employee ID or phone containing the text, ignoring case
+     */
+    public static Specification<Teacher> containsText(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        String pattern = StudentSpecifications.likePattern(text);
+        return (root, query, cb) -> cb.or(
+            cb.like(cb.lower(root.get("name")), pattern, '\\'),
+            cb.like(cb.lower(root.get("employeeId")), pattern, '\\'),
+            cb.like(root.get("phone"), pattern, '\\')
+        );
+    }
+}
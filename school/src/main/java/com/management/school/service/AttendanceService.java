@@ -3,9 +3,11 @@ package com.management.school.service;
 import com.management.school.model.Attendance;
 import com.management.school.model.Attendance.AttendanceStatus;
 import com.management.school.model.Student;
+import com.management.school.model.StudentSummary;
 import com.management.school.repository.AttendanceRepository;
 import com.management.school.repository.StudentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -154,30 +156,26 @@ public class AttendanceService {
     }
     
     /**
-     * Get students who need attendance for a specific date and class
+     * Roster of the active students of a class, by roll number, to mark
+     * attendance for
      */
     @Transactional(readOnly = true)
-    public List<Student> getStudentsForAttendance(String grade, String section, LocalDate date) {
-        // Get all active students in the grade/section
-        List<Student> students = studentRepository.findByGradeAndSection(grade, section);
-        students = students.stream().filter(Student::isActive).toList();
-        
-        // Get existing attendance for this date
-        List<Attendance> existingAttendance = attendanceRepository.findByAttendanceDate(date);
-        Map<Long, Attendance> attendanceMap = new HashMap<>();
-        for (Attendance att : existingAttendance) {
-            attendanceMap.put(att.getStudentId(), att);
-        }
-        
-        // Attach attendance to students (if exists)
-        for (Student student : students) {
-            // This is just for reference, not persisted
-            if (attendanceMap.containsKey(student.getId())) {
-                // You can store this in a transient field if needed
-            }
+    public List<StudentSummary> getStudentsForAttendance(String grade, String section) {
+        StudentFilter filter = new StudentFilter(grade, section, null, null, null, true, null);
+        return studentRepository.findSummaries(filter.toSpecification(), Sort.by("rollNumber"));
+    }
+    
+    /**
+     * Attendance already marked on a date, by student id; without loading
+     * the students
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Attendance> getAttendanceMarks(LocalDate date) {
+        Map<Long, Attendance> marks = new HashMap<>();
+        for (Attendance attendance : attendanceRepository.findByAttendanceDate(date)) {
+            marks.put(attendance.getStudentId(), attendance);
         }
-        
-        return students;
+        return marks;
     }
     
     // Helper method to load student details
@@ -0,0 +1,620 @@
+package com.management.school.service;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed, deduplicated backup repository.
+ *
+ * Layout under the repository root:
+ * <pre>
+ * repository.properties          key derivation salt + password check
+ * chunks/ab/ab12...ef.chunk      compressed, encrypted chunk named by SHA-256 of its plain bytes
+ *                                (header: magic, format version, {@link BackupCodec} id, flags)
+ * snapshots/*.snapshot           one {@link BackupManifest} per backup
+ * </pre>
+ *
+ * Uploaded documents are stored as chunks in the same repository and listed
+ * in the manifest of the backup they were taken with, so an unchanged file is
+ * never stored twice however many backups include it.
+ *
+ * Consecutive database dumps are mostly identical, so each new backup only
+ * writes the handful of chunks that changed. Old backups are removed by
+ * deleting their manifest; {@link #collectGarbage()} then deletes chunks no
+ * remaining manifest references.
+ */
+public class BackupChunkStore {
+
+    private static final byte[] CHUNK_MAGIC = {'S', 'C', 'H', 'K'};
+    private static final byte CHUNK_FORMAT_VERSION = 1;
+    private static final byte FLAG_ENCRYPTED = 1;
+    private static final int CHUNK_HEADER_LENGTH = 7;
+
+    private static final String CONFIG_FILE = "repository.properties";
+    private static final String CHUNK_EXTENSION = ".chunk";
+    private static final int KDF_ITERATIONS = 210_000;
+    private static final int GCM_NONCE_LENGTH = 12;
+    private static final int GCM_TAG_BITS = 128;
+    private static final byte[] KEY_CHECK_PLAINTEXT = "school-backup-key-check".getBytes(StandardCharsets.UTF_8);
+
+    // Snapshot writers share the lock, garbage collection takes it exclusively so it
+    // never deletes a chunk that a manifest still being written is about to reference.
+    private static final Map<Path, ReadWriteLock> LOCKS = new ConcurrentHashMap<>();
+
+    private final Path root;
+    private final Path chunksDir;
+    private final Path snapshotsDir;
+    private final SecretKey key;
+    private final BackupCodec codec;
+    private final SecureRandom random = new SecureRandom();
+    private final ContentDefinedChunker chunker = new ContentDefinedChunker();
+    private IoThrottle throttle = IoThrottle.UNLIMITED;
+
+    private BackupChunkStore(Path root, SecretKey key, BackupCodec codec) {
+        this.root = root;
+        this.chunksDir = root.resolve("chunks");
+        this.snapshotsDir = root.resolve("snapshots");
+        this.key = key;
+        this.codec = codec;
+    }
+
+    /**
+     * Open a repository for reading, or for writing with the default codec.
+     */
+    public static BackupChunkStore open(Path root, String password) throws IOException {
+        return open(root, password, BackupCodec.forName(BackupCodec.DEFAULT_NAME));
+    }
+
+    /**
+     * Open (or initialise) a repository. The password is verified against the
+     * check value stored when the repository was created. New chunks are
+     * compressed with {@code codec}; existing chunks are read with whatever
+     * codec their header names.
+     */
+    public static BackupChunkStore open(Path root, String password, BackupCodec codec) throws IOException {
+        if (password == null || password.isBlank()) {
+            throw new IllegalArgumentException("A backup password is required to open the backup repository");
+        }
+
+        Files.createDirectories(root.resolve("chunks"));
+        Files.createDirectories(root.resolve("snapshots"));
+
+        Path configFile = root.resolve(CONFIG_FILE);
+        Properties config = new Properties();
+
+        try {
+            if (Files.exists(configFile)) {
+                try (InputStream in = Files.newInputStream(configFile)) {
+                    config.load(in);
+                }
+                byte[] salt = Base64.getDecoder().decode(config.getProperty("kdf.salt"));
+                int iterations = Integer.parseInt(config.getProperty("kdf.iterations"));
+                SecretKey key = deriveKey(password, salt, iterations);
+
+                byte[] check = Base64.getDecoder().decode(config.getProperty("key.check"));
+                try {
+                    byte[] plain = decrypt(key, check, null);
+                    if (!Arrays.equals(plain, KEY_CHECK_PLAINTEXT)) {
+                        throw new GeneralSecurityException("key check mismatch");
+                    }
+                } catch (GeneralSecurityException e) {
+                    throw new IOException("Invalid password for backup repository: " + root);
+                }
+                return new BackupChunkStore(root, key, codec);
+            }
+
+            byte[] salt = new byte[16];
+            new SecureRandom().nextBytes(salt);
+            SecretKey key = deriveKey(password, salt, KDF_ITERATIONS);
+
+            config.setProperty("format.version", String.valueOf(CHUNK_FORMAT_VERSION));
+            config.setProperty("kdf.algorithm", "PBKDF2WithHmacSHA256");
+            config.setProperty("kdf.iterations", String.valueOf(KDF_ITERATIONS));
+            config.setProperty("kdf.salt", Base64.getEncoder().encodeToString(salt));
+            config.setProperty("key.check", Base64.getEncoder().encodeToString(
+                    encrypt(key, KEY_CHECK_PLAINTEXT, null, new SecureRandom())));
+
+            try (OutputStream out = Files.newOutputStream(configFile)) {
+                config.store(out, "School backup repository - do not edit");
+            }
+            return new BackupChunkStore(root, key, codec);
+
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to initialise backup encryption: " + e.getMessage(), e);
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Limit how fast snapshots are chunked, compressed and written
+     * (measured in plain bytes), to keep the disk and CPU usable for others.
+     */
+    public void setThrottle(IoThrottle throttle) {
+        this.throttle = throttle;
+    }
+
+    // ==================== Writing ====================
+
+    /**
+     * Chunk, deduplicate and store a stream, then write its manifest.
+     * Only chunks not already present in the repository are written.
+     */
+    public BackupManifest writeSnapshot(String name, InputStream data, Map<String, String> properties)
+            throws IOException {
+        ReadWriteLock lock = lockFor(root);
+        lock.readLock().lock();
+        try {
+            BackupManifest manifest = new BackupManifest();
+            manifest.setName(name);
+            manifest.setCreated(LocalDateTime.now());
+            manifest.setProperty("codec", codec.name());
+            properties.forEach(manifest::setProperty);
+
+            SnapshotWriter writer = new SnapshotWriter(manifest::addChunk);
+            chunker.split(data, writer);
+
+            manifest.setSize(writer.size);
+            manifest.setSha256(HexFormat.of().formatHex(writer.streamDigest.digest()));
+            manifest.setNewChunks(writer.newChunks);
+            manifest.setStoredBytes(writer.storedBytes);
+            manifest.write(snapshotsDir.resolve(name + BackupManifest.FILE_EXTENSION));
+            return manifest;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Chunk and store one file. The chunks are only protected from garbage
+     * collection once a manifest listing the returned entry has been written.
+     *
+     * @param path     name to record, relative to the backed-up directory
+     * @param modified last-modified time to record, in epoch millis
+     */
+    public StoredFile writeFile(String path, Path file, long modified) throws IOException {
+        ReadWriteLock lock = lockFor(root);
+        lock.readLock().lock();
+        try (InputStream in = Files.newInputStream(file)) {
+            List<BackupManifest.ChunkRef> refs = new ArrayList<>();
+            SnapshotWriter writer = new SnapshotWriter((hash, length) -> refs.add(new BackupManifest.ChunkRef(hash, length)));
+            chunker.split(in, writer);
+            BackupManifest.FileEntry entry = new BackupManifest.FileEntry(path, writer.size, modified,
+                HexFormat.of().formatHex(writer.streamDigest.digest()), refs);
+            return new StoredFile(entry, writer.newChunks, writer.storedBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public record StoredFile(BackupManifest.FileEntry entry, int newChunks, long storedBytes) {
+    }
+
+    private class SnapshotWriter implements ContentDefinedChunker.ChunkSink {
+        private final BiConsumer<String, Integer> target;
+        private final MessageDigest streamDigest = sha256();
+        private final MessageDigest chunkDigest = sha256();
+        private long size;
+        private long storedBytes;
+        private int newChunks;
+
+        SnapshotWriter(BiConsumer<String, Integer> target) {
+            this.target = target;
+        }
+
+        @Override
+        public void accept(byte[] buffer, int length) throws IOException {
+            throttle.acquire(length);
+            streamDigest.update(buffer, 0, length);
+            chunkDigest.update(buffer, 0, length);
+            String hash = HexFormat.of().formatHex(chunkDigest.digest());
+
+            long written = storeChunk(hash, buffer, length);
+            if (written > 0) {
+                newChunks++;
+                storedBytes += written;
+            }
+            target.accept(hash, length);
+            size += length;
+        }
+    }
+
+    /**
+     * @return bytes written, or 0 when an identical chunk is already stored
+     */
+    private long storeChunk(String hash, byte[] buffer, int length) throws IOException {
+        Path chunkFile = chunkPath(hash);
+        if (Files.exists(chunkFile)) {
+            return 0;
+        }
+
+        byte[] encoded = encodeChunk(hash, buffer, length);
+        Files.createDirectories(chunkFile.getParent());
+        Path temp = chunkFile.resolveSibling(chunkFile.getFileName() + ".tmp");
+        Files.write(temp, encoded);
+        Files.move(temp, chunkFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return encoded.length;
+    }
+
+    private byte[] encodeChunk(String hash, byte[] buffer, int length) throws IOException {
+        byte[] compressed = codec.compress(buffer, length);
+        byte[] payload;
+        try {
+            payload = encrypt(key, compressed, HexFormat.of().parseHex(hash), random);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to encrypt chunk " + hash, e);
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(CHUNK_HEADER_LENGTH + payload.length);
+        out.put(CHUNK_MAGIC);
+        out.put(CHUNK_FORMAT_VERSION);
+        out.put(codec.id());
+        out.put(FLAG_ENCRYPTED);
+        out.put(payload);
+        return out.array();
+    }
+
+    // ==================== Reading ====================
+
+    /**
+     * Stream the original bytes of a snapshot back, verifying every chunk hash
+     * and the whole-stream checksum recorded in the manifest.
+     */
+    public InputStream openSnapshot(BackupManifest manifest) {
+        return new SnapshotInputStream(manifest);
+    }
+
+    /**
+     * Stream only the bytes [start, end) of a snapshot. Chunks outside the
+     * range are never read or decompressed; the chunks that are read are
+     * still verified against their hashes.
+     */
+    public InputStream openSnapshotRange(BackupManifest manifest, long start, long end) {
+        return new RangeInputStream(manifest.getChunks(), start, end);
+    }
+
+    /**
+     * Stream the contents of a backed-up document, verifying every chunk hash.
+     */
+    public InputStream openFile(BackupManifest.FileEntry file) {
+        return new RangeInputStream(file.chunks(), 0, file.size());
+    }
+
+    private byte[] readChunk(BackupManifest.ChunkRef ref) throws IOException {
+        Path chunkFile = chunkPath(ref.hash());
+        if (!Files.exists(chunkFile)) {
+            throw new IOException("Missing chunk " + ref.hash() + " - backup repository is incomplete");
+        }
+
+        byte[] data = Files.readAllBytes(chunkFile);
+        if (data.length < CHUNK_HEADER_LENGTH
+                || !Arrays.equals(Arrays.copyOf(data, CHUNK_MAGIC.length), CHUNK_MAGIC)
+                || data[4] != CHUNK_FORMAT_VERSION) {
+            throw new IOException("Unrecognised chunk format: " + chunkFile.getFileName());
+        }
+        BackupCodec chunkCodec = BackupCodec.forId(data[5]);
+
+        byte[] payload = Arrays.copyOfRange(data, CHUNK_HEADER_LENGTH, data.length);
+        byte[] compressed;
+        if ((data[6] & FLAG_ENCRYPTED) != 0) {
+            try {
+                compressed = decrypt(key, payload, HexFormat.of().parseHex(ref.hash()));
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Chunk " + ref.hash() + " failed authentication (wrong password or corrupted)");
+            }
+        } else {
+            compressed = payload;
+        }
+
+        byte[] plain = chunkCodec.decompress(compressed, ref.length());
+        String actual = HexFormat.of().formatHex(sha256().digest(plain));
+        if (!actual.equals(ref.hash())) {
+            throw new IOException("Chunk " + ref.hash() + " is corrupted (hash mismatch)");
+        }
+        return plain;
+    }
+
+    private class SnapshotInputStream extends InputStream {
+        private final BackupManifest manifest;
+        private final Iterator<BackupManifest.ChunkRef> chunks;
+        private final MessageDigest digest = sha256();
+        private InputStream current = InputStream.nullInputStream();
+        private boolean finished;
+
+        SnapshotInputStream(BackupManifest manifest) {
+            this.manifest = manifest;
+            this.chunks = manifest.getChunks().iterator();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                int n = current.read(b, off, len);
+                if (n > 0) {
+                    return n;
+                }
+                if (!chunks.hasNext()) {
+                    verifyStream();
+                    return -1;
+                }
+                byte[] plain = readChunk(chunks.next());
+                digest.update(plain);
+                current = new ByteArrayInputStream(plain);
+            }
+        }
+
+        private void verifyStream() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            String actual = HexFormat.of().formatHex(digest.digest());
+            if (manifest.getSha256() != null && !manifest.getSha256().equals(actual)) {
+                throw new IOException("Snapshot " + manifest.getName() + " failed checksum verification");
+            }
+        }
+    }
+
+    private class RangeInputStream extends InputStream {
+        private final Iterator<BackupManifest.ChunkRef> chunks;
+        private final long start;
+        private final long end;
+        private long chunkOffset;
+        private InputStream current = InputStream.nullInputStream();
+
+        RangeInputStream(List<BackupManifest.ChunkRef> chunks, long start, long end) {
+            this.chunks = chunks.iterator();
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                int n = current.read(b, off, len);
+                if (n > 0) {
+                    return n;
+                }
+                if (!nextChunkInRange()) {
+                    return -1;
+                }
+            }
+        }
+
+        private boolean nextChunkInRange() throws IOException {
+            while (chunks.hasNext() && chunkOffset < end) {
+                BackupManifest.ChunkRef ref = chunks.next();
+                long chunkStart = chunkOffset;
+                chunkOffset += ref.length();
+                if (chunkOffset <= start) {
+                    continue;
+                }
+                byte[] plain = readChunk(ref);
+                int from = (int) Math.max(0, start - chunkStart);
+                int to = (int) Math.min(ref.length(), end - chunkStart);
+                current = new ByteArrayInputStream(plain, from, to - from);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // ==================== Listing, retention & garbage collection ====================
+
+    /**
+     * All snapshots in the repository, newest first.
+     */
+    public List<BackupManifest> listSnapshots() throws IOException {
+        List<BackupManifest> manifests = new ArrayList<>();
+        try (Stream<Path> files = Files.list(snapshotsDir)) {
+            for (Path file : files.filter(p -> p.toString().endsWith(BackupManifest.FILE_EXTENSION))
+                                  .collect(Collectors.toList())) {
+                try {
+                    manifests.add(BackupManifest.read(file));
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Skipping unreadable backup manifest " + file + ": " + e.getMessage());
+                }
+            }
+        }
+        manifests.sort(Comparator.comparing(BackupManifest::getCreated).reversed());
+        return manifests;
+    }
+
+    /**
+     * Keep the newest {@code retention} snapshots, delete the rest and then
+     * collect the chunks that are no longer referenced.
+     */
+    public PruneResult prune(int retention) throws IOException {
+        List<BackupManifest> snapshots = listSnapshots();
+        int deletedSnapshots = 0;
+        if (snapshots.size() > retention) {
+            for (BackupManifest old : snapshots.subList(retention, snapshots.size())) {
+                Files.deleteIfExists(old.getFile());
+                deletedSnapshots++;
+            }
+        }
+        GcResult gc = collectGarbage();
+        return new PruneResult(deletedSnapshots, gc.deletedChunks(), gc.freedBytes());
+    }
+
+    /**
+     * Mark every chunk referenced by a remaining manifest, sweep the rest.
+     */
+    public GcResult collectGarbage() throws IOException {
+        ReadWriteLock lock = lockFor(root);
+        lock.writeLock().lock();
+        try {
+            Set<String> live = new HashSet<>();
+            for (BackupManifest manifest : listSnapshots()) {
+                live.addAll(manifest.getReferencedChunks());
+            }
+
+            int deleted = 0;
+            long freed = 0;
+            try (Stream<Path> files = Files.walk(chunksDir)) {
+                for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                    String fileName = file.getFileName().toString();
+                    boolean orphanTemp = fileName.endsWith(".tmp");
+                    boolean unreferenced = fileName.endsWith(CHUNK_EXTENSION)
+                            && !live.contains(fileName.substring(0, fileName.length() - CHUNK_EXTENSION.length()));
+                    if (orphanTemp || unreferenced) {
+                        long size = Files.size(file);
+                        Files.deleteIfExists(file);
+                        deleted++;
+                        freed += size;
+                    }
+                }
+            }
+            return new GcResult(live.size(), deleted, freed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Files that make up one snapshot, as keys relative to the repository root,
+     * in the order a copy must publish them: the repository config first, then
+     * every chunk, and the manifest last so a copy never references absent chunks.
+     */
+    public List<String> snapshotFileKeys(BackupManifest manifest) {
+        List<String> keys = new ArrayList<>();
+        keys.add(CONFIG_FILE);
+        for (String hash : manifest.getReferencedChunks()) {
+            keys.add(toKey(chunkPath(hash)));
+        }
+        keys.add(toKey(manifest.getFile()));
+        return keys;
+    }
+
+    /**
+     * Resolve a key returned by {@link #snapshotFileKeys(BackupManifest)}.
+     */
+    public Path resolve(String key) {
+        return root.resolve(key);
+    }
+
+    public record PruneResult(int deletedSnapshots, int deletedChunks, long freedBytes) {
+    }
+
+    public record GcResult(int liveChunks, int deletedChunks, long freedBytes) {
+    }
+
+    // ==================== Helpers ====================
+
+    private String toKey(Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private Path chunkPath(String hash) {
+        return chunksDir.resolve(hash.substring(0, 2)).resolve(hash + CHUNK_EXTENSION);
+    }
+
+    private static ReadWriteLock lockFor(Path root) {
+        return LOCKS.computeIfAbsent(root.toAbsolutePath().normalize(), p -> new ReentrantReadWriteLock());
+    }
+
+    private static SecretKey deriveKey(String password, byte[] salt, int iterations)
+            throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, 256);
+        try {
+            byte[] keyBytes = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            return new SecretKeySpec(keyBytes, "AES");
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * AES-GCM; output is nonce followed by ciphertext+tag.
+     */
+    private static byte[] encrypt(SecretKey key, byte[] plain, byte[] aad, SecureRandom random)
+            throws GeneralSecurityException {
+        byte[] nonce = new byte[GCM_NONCE_LENGTH];
+        random.nextBytes(nonce);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, nonce));
+        if (aad != null) {
+            cipher.updateAAD(aad);
+        }
+        byte[] sealed = cipher.doFinal(plain);
+
+        byte[] out = new byte[nonce.length + sealed.length];
+        System.arraycopy(nonce, 0, out, 0, nonce.length);
+        System.arraycopy(sealed, 0, out, nonce.length, sealed.length);
+        return out;
+    }
+
+    private static byte[] decrypt(SecretKey key, byte[] data, byte[] aad) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, data, 0, GCM_NONCE_LENGTH));
+        if (aad != null) {
+            cipher.updateAAD(aad);
+        }
+        return cipher.doFinal(data, GCM_NONCE_LENGTH, data.length - GCM_NONCE_LENGTH);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
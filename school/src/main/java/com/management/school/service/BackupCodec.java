@@ -0,0 +1,253 @@
+package com.management.school.service;
+
+import com.github.luben.zstd.Zstd;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compression codec for backup chunks.
+ *
+ * The codec id is written into every chunk header, so a repository can mix
+ * chunks compressed with different codecs and still restore all of them;
+ * changing {@code app.backups.codec} only affects chunks written afterwards.
+ *
+ * Names accepted by {@link #forName(String)}:
+ * {@code none}, {@code deflate-1} .. {@code deflate-9}, {@code lz4}, {@code lz4-hc},
+ * {@code zstd-1} .. {@code zstd-19}.
+ */
+public interface BackupCodec {
+
+    byte ID_NONE = 0;
+    byte ID_DEFLATE = 1;
+    byte ID_LZ4 = 2;
+    byte ID_ZSTD = 3;
+
+    String DEFAULT_NAME = "zstd-3";
+
+    /** Identifier stored in the chunk header. */
+    byte id();
+
+    /** Configuration name including the level, e.g. {@code zstd-3}. */
+    String name();
+
+    byte[] compress(byte[] buffer, int length);
+
+    byte[] decompress(byte[] compressed, int originalLength) throws IOException;
+
+    /**
+     * Resolve a configured codec name.
+     */
+    static BackupCodec forName(String name) {
+        String normalized = name == null || name.isBlank() ? DEFAULT_NAME : name.trim().toLowerCase();
+
+        if (normalized.equals("none")) {
+            return new NoCompression();
+        }
+        if (normalized.equals("lz4")) {
+            return new Lz4Codec(false);
+        }
+        if (normalized.equals("lz4-hc")) {
+            return new Lz4Codec(true);
+        }
+        if (normalized.startsWith("deflate")) {
+            int level = parseLevel(normalized, "deflate", 6);
+            if (level < 1 || level > 9) {
+                throw new IllegalArgumentException("Deflate level must be 1-9: " + name);
+            }
+            return new DeflateCodec(level);
+        }
+        if (normalized.startsWith("zstd")) {
+            int level = parseLevel(normalized, "zstd", 3);
+            if (level < 1 || level > 19) {
+                throw new IllegalArgumentException("Zstandard level must be 1-19: " + name);
+            }
+            return new ZstdCodec(level);
+        }
+        throw new IllegalArgumentException("Unknown backup codec: " + name);
+    }
+
+    /**
+     * Resolve the codec needed to decompress a chunk from its header id.
+     * The level does not matter for decompression.
+     */
+    static BackupCodec forId(byte id) throws IOException {
+        return switch (id) {
+            case ID_NONE -> new NoCompression();
+            case ID_DEFLATE -> new DeflateCodec(6);
+            case ID_LZ4 -> new Lz4Codec(false);
+            case ID_ZSTD -> new ZstdCodec(3);
+            default -> throw new IOException("Unsupported chunk codec id: " + id);
+        };
+    }
+
+    /**
+     * The settings worth comparing in a benchmark.
+     */
+    static List<BackupCodec> benchmarkCandidates() {
+        return List.of(
+            forName("none"),
+            forName("deflate-1"), forName("deflate-6"), forName("deflate-9"),
+            forName("lz4"), forName("lz4-hc"),
+            forName("zstd-1"), forName("zstd-3"), forName("zstd-9"), forName("zstd-19")
+        );
+    }
+
+    private static int parseLevel(String name, String prefix, int defaultLevel) {
+        if (name.equals(prefix)) {
+            return defaultLevel;
+        }
+        try {
+            return Integer.parseInt(name.substring(prefix.length() + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid codec level in: " + name);
+        }
+    }
+
+    // ==================== Implementations ====================
+
+    final class NoCompression implements BackupCodec {
+        @Override public byte id() { return ID_NONE; }
+        @Override public String name() { return "none"; }
+
+        @Override
+        public byte[] compress(byte[] buffer, int length) {
+            return Arrays.copyOf(buffer, length);
+        }
+
+        @Override
+        public byte[] decompress(byte[] compressed, int originalLength) throws IOException {
+            if (compressed.length != originalLength) {
+                throw new IOException("Stored chunk is " + compressed.length + " bytes, expected " + originalLength);
+            }
+            return compressed;
+        }
+    }
+
+    final class DeflateCodec implements BackupCodec {
+        private final int level;
+
+        DeflateCodec(int level) {
+            this.level = level;
+        }
+
+        @Override public byte id() { return ID_DEFLATE; }
+        @Override public String name() { return "deflate-" + level; }
+
+        @Override
+        public byte[] compress(byte[] buffer, int length) {
+            Deflater deflater = new Deflater(level);
+            try {
+                deflater.setInput(buffer, 0, length);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 64);
+                byte[] block = new byte[16 * 1024];
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(block);
+                    out.write(block, 0, n);
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        public byte[] decompress(byte[] compressed, int originalLength) throws IOException {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                byte[] plain = new byte[originalLength];
+                int offset = 0;
+                while (offset < originalLength && !inflater.finished()) {
+                    int n = inflater.inflate(plain, offset, originalLength - offset);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    offset += n;
+                }
+                if (offset != originalLength) {
+                    throw new IOException("Chunk decompressed to " + offset + " bytes, expected " + originalLength);
+                }
+                return plain;
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupted chunk data: " + e.getMessage(), e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    final class Lz4Codec implements BackupCodec {
+        private final boolean high;
+
+        Lz4Codec(boolean high) {
+            this.high = high;
+        }
+
+        @Override public byte id() { return ID_LZ4; }
+        @Override public String name() { return high ? "lz4-hc" : "lz4"; }
+
+        @Override
+        public byte[] compress(byte[] buffer, int length) {
+            LZ4Factory factory = LZ4Factory.fastestInstance();
+            LZ4Compressor compressor = high ? factory.highCompressor() : factory.fastCompressor();
+            byte[] out = new byte[compressor.maxCompressedLength(length)];
+            int n = compressor.compress(buffer, 0, length, out, 0, out.length);
+            return Arrays.copyOf(out, n);
+        }
+
+        @Override
+        public byte[] decompress(byte[] compressed, int originalLength) throws IOException {
+            LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+            byte[] plain = new byte[originalLength];
+            try {
+                int read = decompressor.decompress(compressed, 0, plain, 0, originalLength);
+                if (read != compressed.length) {
+                    throw new IOException("Corrupted LZ4 chunk: trailing data");
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupted LZ4 chunk: " + e.getMessage(), e);
+            }
+            return plain;
+        }
+    }
+
+    final class ZstdCodec implements BackupCodec {
+        private final int level;
+
+        ZstdCodec(int level) {
+            this.level = level;
+        }
+
+        @Override public byte id() { return ID_ZSTD; }
+        @Override public String name() { return "zstd-" + level; }
+
+        @Override
+        public byte[] compress(byte[] buffer, int length) {
+            byte[] input = length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+            return Zstd.compress(input, level);
+        }
+
+        @Override
+        public byte[] decompress(byte[] compressed, int originalLength) throws IOException {
+            try {
+                byte[] plain = Zstd.decompress(compressed, originalLength);
+                if (plain.length != originalLength) {
+                    throw new IOException("Chunk decompressed to " + plain.length + " bytes, expected " + originalLength);
+                }
+                return plain;
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupted Zstandard chunk: " + e.getMessage(), e);
+            }
+        }
+    }
+}
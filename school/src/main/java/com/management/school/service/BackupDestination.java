@@ -0,0 +1,346 @@
+package com.management.school.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A place backup repository files are replicated to.
+ *
+ * Files are addressed by their path relative to the repository root
+ * ({@code chunks/ab/ab12...ef.chunk}, {@code snapshots/x.snapshot},
+ * {@code repository.properties}). Writes go to a partial object first, which
+ * survives interruptions so the next run can append to it; only a verified
+ * partial is committed under its real key.
+ *
+ * Types accepted by {@link #create(String, String, Path, int)}:
+ * {@code folder} (local folder, second disk, network share or sync folder such
+ * as Google Drive) and {@code object} (a local stand-in for object storage:
+ * flat keys with a checksum recorded as object metadata).
+ */
+public interface BackupDestination {
+
+    String name();
+
+    /** Number of snapshots to keep at this destination. */
+    int retention();
+
+    /** False when the drive, share or mount is not reachable right now. */
+    boolean isAvailable();
+
+    /** Whether a committed object exists with the given size. */
+    boolean exists(String key, long size) throws IOException;
+
+    /** Bytes already written to the partial object, or 0. */
+    long partialLength(String key) throws IOException;
+
+    OutputStream appendPartial(String key) throws IOException;
+
+    InputStream openPartial(String key) throws IOException;
+
+    void discardPartial(String key) throws IOException;
+
+    /** Publish a verified partial object under its key. */
+    void commit(String key, String sha256) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    /** Keys of committed objects starting with the prefix. */
+    List<String> list(String prefix) throws IOException;
+
+    /** Delete a committed object; returns the bytes freed. */
+    long delete(String key) throws IOException;
+
+    /** Remove partial objects left behind by earlier runs. */
+    void discardAllPartials() throws IOException;
+
+    static BackupDestination create(String name, String type, Path root, int retention) {
+        String normalized = type == null || type.isBlank() ? "folder" : type.trim().toLowerCase();
+        return switch (normalized) {
+            case "folder" -> new FolderDestination(name, root, retention);
+            case "object" -> new ObjectStoreDestination(name, root, retention);
+            default -> throw new IllegalArgumentException("Unknown backup destination type '" + type + "' for " + name);
+        };
+    }
+
+    /**
+     * The repository folder and its parent are created on first use; the
+     * folder above them (the drive, share, mount point or sync folder such as
+     * {@code G:\\My Drive}) has to exist already, otherwise a missing drive
+     * would silently be replaced by a folder on the system disk.
+     */
+    private static boolean isReachable(Path root) {
+        Path path = root.toAbsolutePath();
+        for (int level = 0; level < 3 && path != null; level++, path = path.getParent()) {
+            if (Files.isDirectory(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ==================== Implementations ====================
+
+    /**
+     * Mirrors the repository layout; partial files sit next to their target
+     * as {@code .part} and are committed with an atomic rename.
+     */
+    final class FolderDestination implements BackupDestination {
+        private static final String PART_SUFFIX = ".part";
+
+        private final String name;
+        private final Path root;
+        private final int retention;
+
+        FolderDestination(String name, Path root, int retention) {
+            this.name = name;
+            this.root = root;
+            this.retention = retention;
+        }
+
+        @Override public String name() { return name; }
+        @Override public int retention() { return retention; }
+
+        @Override
+        public boolean isAvailable() {
+            return isReachable(root);
+        }
+
+        @Override
+        public boolean exists(String key, long size) throws IOException {
+            Path file = root.resolve(key);
+            return Files.exists(file) && Files.size(file) == size;
+        }
+
+        @Override
+        public long partialLength(String key) throws IOException {
+            Path part = partPath(key);
+            return Files.exists(part) ? Files.size(part) : 0;
+        }
+
+        @Override
+        public OutputStream appendPartial(String key) throws IOException {
+            Path part = partPath(key);
+            Files.createDirectories(part.getParent());
+            return Files.newOutputStream(part, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public InputStream openPartial(String key) throws IOException {
+            return Files.newInputStream(partPath(key));
+        }
+
+        @Override
+        public void discardPartial(String key) throws IOException {
+            Files.deleteIfExists(partPath(key));
+        }
+
+        @Override
+        public void commit(String key, String sha256) throws IOException {
+            Files.move(partPath(key), root.resolve(key),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public InputStream open(String key) throws IOException {
+            return Files.newInputStream(root.resolve(key));
+        }
+
+        @Override
+        public List<String> list(String prefix) throws IOException {
+            Path dir = root.resolve(prefix);
+            if (Files.isRegularFile(dir)) {
+                return new ArrayList<>(List.of(prefix));
+            }
+            if (!Files.isDirectory(dir)) {
+                return new ArrayList<>();
+            }
+            try (Stream<Path> files = Files.walk(dir)) {
+                return files.filter(Files::isRegularFile)
+                            .filter(p -> !p.getFileName().toString().endsWith(PART_SUFFIX))
+                            .map(p -> root.relativize(p).toString().replace('\\', '/'))
+                            .collect(Collectors.toList());
+            }
+        }
+
+        @Override
+        public long delete(String key) throws IOException {
+            Path file = root.resolve(key);
+            long size = Files.exists(file) ? Files.size(file) : 0;
+            Files.deleteIfExists(file);
+            return size;
+        }
+
+        @Override
+        public void discardAllPartials() throws IOException {
+            if (!Files.isDirectory(root)) {
+                return;
+            }
+            try (Stream<Path> files = Files.walk(root)) {
+                for (Path part : files.filter(p -> p.getFileName().toString().endsWith(PART_SUFFIX))
+                                      .collect(Collectors.toList())) {
+                    Files.deleteIfExists(part);
+                }
+            }
+        }
+
+        private Path partPath(String key) {
+            Path target = root.resolve(key);
+            return target.resolveSibling(target.getFileName() + PART_SUFFIX);
+        }
+    }
+
+    /**
+     * Behaves like a bucket: keys are flat object names under {@code objects/},
+     * each with a {@code .meta} sidecar holding its size and SHA-256 (the
+     * equivalent of an ETag), and in-progress writes are kept under
+     * {@code uploads/} like an unfinished multipart upload. An object only
+     * "exists" once its metadata has been written.
+     */
+    final class ObjectStoreDestination implements BackupDestination {
+        private static final String META_SUFFIX = ".meta";
+
+        private final String name;
+        private final Path objectsDir;
+        private final Path uploadsDir;
+        private final Path root;
+        private final int retention;
+
+        ObjectStoreDestination(String name, Path root, int retention) {
+            this.name = name;
+            this.root = root;
+            this.objectsDir = root.resolve("objects");
+            this.uploadsDir = root.resolve("uploads");
+            this.retention = retention;
+        }
+
+        @Override public String name() { return name; }
+        @Override public int retention() { return retention; }
+
+        @Override
+        public boolean isAvailable() {
+            return isReachable(root);
+        }
+
+        @Override
+        public boolean exists(String key, long size) throws IOException {
+            Path meta = metaPath(key);
+            if (!Files.exists(meta)) {
+                return false;
+            }
+            return String.valueOf(size).equals(readMeta(meta).getProperty("size"));
+        }
+
+        @Override
+        public long partialLength(String key) throws IOException {
+            Path upload = uploadsDir.resolve(objectName(key));
+            return Files.exists(upload) ? Files.size(upload) : 0;
+        }
+
+        @Override
+        public OutputStream appendPartial(String key) throws IOException {
+            Files.createDirectories(uploadsDir);
+            return Files.newOutputStream(uploadsDir.resolve(objectName(key)),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public InputStream openPartial(String key) throws IOException {
+            return Files.newInputStream(uploadsDir.resolve(objectName(key)));
+        }
+
+        @Override
+        public void discardPartial(String key) throws IOException {
+            Files.deleteIfExists(uploadsDir.resolve(objectName(key)));
+        }
+
+        @Override
+        public void commit(String key, String sha256) throws IOException {
+            Files.createDirectories(objectsDir);
+            Path object = objectsDir.resolve(objectName(key));
+            Files.move(uploadsDir.resolve(objectName(key)), object,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            Properties meta = new Properties();
+            meta.setProperty("key", key);
+            meta.setProperty("size", String.valueOf(Files.size(object)));
+            meta.setProperty("sha256", sha256);
+            Path metaFile = metaPath(key);
+            Path temp = metaFile.resolveSibling(metaFile.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                meta.store(out, null);
+            }
+            Files.move(temp, metaFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public InputStream open(String key) throws IOException {
+            return Files.newInputStream(objectsDir.resolve(objectName(key)));
+        }
+
+        @Override
+        public List<String> list(String prefix) throws IOException {
+            List<String> keys = new ArrayList<>();
+            if (!Files.isDirectory(objectsDir)) {
+                return keys;
+            }
+            try (Stream<Path> files = Files.list(objectsDir)) {
+                for (Path meta : files.filter(p -> p.getFileName().toString().endsWith(META_SUFFIX))
+                                      .collect(Collectors.toList())) {
+                    String key = readMeta(meta).getProperty("key");
+                    if (key != null && key.startsWith(prefix)) {
+                        keys.add(key);
+                    }
+                }
+            }
+            return keys;
+        }
+
+        @Override
+        public long delete(String key) throws IOException {
+            // Metadata goes first so a half-deleted object is simply absent
+            Files.deleteIfExists(metaPath(key));
+            Path object = objectsDir.resolve(objectName(key));
+            long size = Files.exists(object) ? Files.size(object) : 0;
+            Files.deleteIfExists(object);
+            return size;
+        }
+
+        @Override
+        public void discardAllPartials() throws IOException {
+            if (!Files.isDirectory(uploadsDir)) {
+                return;
+            }
+            try (Stream<Path> files = Files.list(uploadsDir)) {
+                for (Path upload : files.collect(Collectors.toList())) {
+                    Files.deleteIfExists(upload);
+                }
+            }
+        }
+
+        private Path metaPath(String key) {
+            return objectsDir.resolve(objectName(key) + META_SUFFIX);
+        }
+
+        private static String objectName(String key) {
+            return key.replace("/", "~");
+        }
+
+        private static Properties readMeta(Path meta) throws IOException {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(meta)) {
+                properties.load(in);
+            }
+            return properties;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.management.school.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only record of backup runs (manual, scheduled and skipped), one
+ * tab-separated line per run. Kept as a file next to the repository rather
+ * than in the database, so restoring an older backup does not rewrite it.
+ */
+public class BackupHistory {
+
+    private static final int MAX_ENTRIES = 1000;
+
+    private final Path file;
+
+    public enum Status { SUCCESS, FAILED, SKIPPED }
+
+    public record Run(LocalDateTime started, String trigger, Status status, long durationMillis,
+                      long dumpBytes, long storedBytes, long replicatedBytes, String message) {
+
+        String toLine() {
+            return String.join("\t", started.toString(), trigger, status.name(), String.valueOf(durationMillis),
+                String.valueOf(dumpBytes), String.valueOf(storedBytes), String.valueOf(replicatedBytes),
+                message == null ? "" : message.replaceAll("[\\t\\r\\n]+", " "));
+        }
+
+        static Run fromLine(String line) {
+            String[] fields = line.split("\t", 8);
+            return new Run(LocalDateTime.parse(fields[0]), fields[1], Status.valueOf(fields[2]),
+                Long.parseLong(fields[3]), Long.parseLong(fields[4]), Long.parseLong(fields[5]),
+                Long.parseLong(fields[6]), fields.length > 7 ? fields[7] : "");
+        }
+    }
+
+    public BackupHistory(Path file) {
+        this.file = file;
+    }
+
+    public synchronized void append(Run run) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, run.toLine() + System.lineSeparator(), StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.size() > MAX_ENTRIES * 2) {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, lines.subList(lines.size() - MAX_ENTRIES, lines.size()), StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * The most recent runs, newest first.
+     */
+    public synchronized List<Run> recent(int limit) throws IOException {
+        if (!Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        List<Run> runs = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                runs.add(Run.fromLine(line));
+            } catch (RuntimeException e) {
+                System.err.println("Skipping malformed backup history line: " + line);
+            }
+        }
+        Collections.reverse(runs);
+        return runs.size() > limit ? new ArrayList<>(runs.subList(0, limit)) : runs;
+    }
+}
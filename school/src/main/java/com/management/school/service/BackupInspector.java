@@ -0,0 +1,130 @@
+package com.management.school.service;
+
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Looks inside backups without restoring them.
+ *
+ * Table summaries come straight from the statement index in the manifest,
+ * so listing what a backup holds reads nothing from the repository. Finding
+ * a record by primary key reads only the INSERT statements whose key range
+ * covers it - typically one or two chunks per backup - which makes searching
+ * every backup for a deleted student a sub-second operation.
+ */
+@Service
+public class BackupInspector {
+
+    /**
+     * What a backup holds for one table. Keys are null when the index does
+     * not know them (older backup, or keys that are not integers).
+     */
+    public record TableSummary(String table, long rows, Long minKey, Long maxKey, int statements, long bytes) {
+    }
+
+    /**
+     * Result of looking for a record in one backup; {@code values} is null
+     * when the backup does not contain it.
+     */
+    public record RecordMatch(String backupName, LocalDateTime created, Map<String, String> values,
+                              boolean indexed, long bytesRead, long elapsedMillis) {
+
+        public boolean found() {
+            return values != null;
+        }
+    }
+
+    public List<TableSummary> summarize(BackupManifest manifest) {
+        Map<String, TableSummary> summaries = new LinkedHashMap<>();
+        manifest.getRowCounts().forEach((table, rows) ->
+            summaries.put(table, new TableSummary(table, rows, null, null, 0, 0)));
+
+        for (BackupManifest.Segment segment : manifest.getSegments()) {
+            TableSummary previous = summaries.getOrDefault(segment.table(),
+                new TableSummary(segment.table(), 0, null, null, 0, 0));
+            boolean first = previous.statements() == 0;
+            summaries.put(segment.table(), new TableSummary(segment.table(),
+                manifest.getRowCounts().getOrDefault(segment.table(), previous.rows() + segment.rows()),
+                first ? segment.minKey() : min(previous.minKey(), segment.minKey()),
+                first ? segment.maxKey() : max(previous.maxKey(), segment.maxKey()),
+                previous.statements() + 1, previous.bytes() + segment.end() - segment.start()));
+        }
+        return new ArrayList<>(summaries.values());
+    }
+
+    /**
+     * Look for the row of a table with the given primary key in each backup.
+     * Backups without a statement index are reported as not indexed rather
+     * than read in full.
+     */
+    public List<RecordMatch> findRecord(BackupChunkStore store, List<BackupManifest> manifests, String table, long key)
+            throws IOException {
+        List<RecordMatch> matches = new ArrayList<>();
+        for (BackupManifest manifest : manifests) {
+            long startNanos = System.nanoTime();
+            if (manifest.getSegments().isEmpty()) {
+                matches.add(new RecordMatch(manifest.getName(), manifest.getCreated(), null, false, 0, 0));
+                continue;
+            }
+            long[] bytesRead = {0};
+            Map<String, String> values = findInBackup(store, manifest, table, key, bytesRead);
+            matches.add(new RecordMatch(manifest.getName(), manifest.getCreated(), values, true, bytesRead[0],
+                (System.nanoTime() - startNanos) / 1_000_000));
+        }
+        return matches;
+    }
+
+    private Map<String, String> findInBackup(BackupChunkStore store, BackupManifest manifest, String table, long key,
+                                             long[] bytesRead) throws IOException {
+        BackupManifest.TableRange range = manifest.getTableRanges().get(table);
+        List<BackupManifest.Segment> segments = manifest.getSegments().stream()
+            .filter(segment -> segment.table().equals(table))
+            .toList();
+        if (range == null || segments.isEmpty()) {
+            return null;
+        }
+
+        // The CREATE TABLE statement in front of the first INSERT names the columns
+        long createEnd = segments.get(0).start();
+        String wanted = String.valueOf(key);
+        for (BackupManifest.Segment segment : segments) {
+            if (!segment.mayContain(key)) {
+                continue;
+            }
+            bytesRead[0] += (createEnd - range.start()) + (segment.end() - segment.start());
+            Map<String, String> found = new LinkedHashMap<>();
+            try (InputStream in = new SequenceInputStream(
+                    store.openSnapshotRange(manifest, range.start(), createEnd),
+                    store.openSnapshotRange(manifest, segment.start(), segment.end()))) {
+                new SqlDumpReader().read(in, List.of(table), (name, columns, literals) -> {
+                    if (found.isEmpty() && wanted.equals(literals.get(0))) {
+                        for (int i = 0; i < literals.size(); i++) {
+                            found.put(i < columns.size() ? columns.get(i) : "column " + (i + 1),
+                                SqlDumpReader.decode(literals.get(i)));
+                        }
+                    }
+                });
+            }
+            if (!found.isEmpty()) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private static Long min(Long a, Long b) {
+        return a == null || b == null ? null : Math.min(a, b);
+    }
+
+    private static Long max(Long a, Long b) {
+        return a == null || b == null ? null : Math.max(a, b);
+    }
+}
@@ -0,0 +1,319 @@
+package com.management.school.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-backup index of a chunked snapshot: some descriptive properties plus the
+ * ordered list of chunks that reassemble the original stream.
+ *
+ * Stored as a small text file so it can be inspected with any editor:
+ * <pre>
+ * SCHOOL-BACKUP-MANIFEST 1
+ * name=schooldb_backup_2025-11-06_10-15-00
+ * created=2025-11-06T10:15:00
+ * ...
+ * [index]
+ * &lt;table&gt; &lt;start&gt; &lt;end&gt; &lt;rows&gt; &lt;min key&gt; &lt;max key&gt;
+ * [files]
+ * &lt;size&gt; &lt;modified millis&gt; &lt;sha256&gt; &lt;hash:length,...&gt; &lt;path&gt;
+ * [chunks]
+ * &lt;sha256&gt; &lt;length&gt;
+ * </pre>
+ * The optional index has one line per INSERT statement of the dump, so
+ * a record can be looked up by reading only the chunks of its statement.
+ * The optional files section lists the uploaded documents backed up with
+ * the dump; their contents are chunks in the same repository. Readers that
+ * predate these sections skip their lines like any line without '='.
+ */
+public class BackupManifest {
+
+    public static final String FILE_EXTENSION = ".snapshot";
+
+    private static final String HEADER = "SCHOOL-BACKUP-MANIFEST 1";
+    private static final String INDEX_SECTION = "[index]";
+    private static final String FILES_SECTION = "[files]";
+    private static final String CHUNKS_SECTION = "[chunks]";
+    private static final String NO_KEY = "-";
+    private static final String ROW_COUNT_PREFIX = "rows.";
+    private static final String RANGE_PREFIX = "range.";
+
+    private final Map<String, String> properties = new LinkedHashMap<>();
+    private final List<Segment> segments = new ArrayList<>();
+    private final List<FileEntry> files = new ArrayList<>();
+    private final List<ChunkRef> chunks = new ArrayList<>();
+    private Path file;
+
+    public record ChunkRef(String hash, int length) {
+    }
+
+    /** Byte range [start, end) of one table's statements in the dump stream. */
+    public record TableRange(long start, long end) {
+    }
+
+    /**
+     * One INSERT statement of the dump: where it is, how many rows it holds
+     * and the range of their primary keys (null when the keys are not integers).
+     */
+    public record Segment(String table, long start, long end, long rows, Long minKey, Long maxKey) {
+
+        /** Whether the statement may hold the row with this key. */
+        public boolean mayContain(long key) {
+            return minKey == null || (key >= minKey && key <= maxKey);
+        }
+    }
+
+    /**
+     * One document file in the backup; {@code path} is relative to the
+     * document directory and always uses '/'.
+     */
+    public record FileEntry(String path, long size, long modified, String sha256, List<ChunkRef> chunks) {
+    }
+
+    public String getName() { return properties.get("name"); }
+    public void setName(String name) { properties.put("name", name); }
+
+    public LocalDateTime getCreated() {
+        String created = properties.get("created");
+        return created != null ? LocalDateTime.parse(created) : LocalDateTime.MIN;
+    }
+    public void setCreated(LocalDateTime created) { properties.put("created", created.toString()); }
+
+    public long getSize() { return getLong("size"); }
+    public void setSize(long size) { properties.put("size", String.valueOf(size)); }
+
+    public String getSha256() { return properties.get("sha256"); }
+    public void setSha256(String sha256) { properties.put("sha256", sha256); }
+
+    /** Bytes actually written to the chunk store by this backup (new chunks only). */
+    public long getStoredBytes() { return getLong("storedBytes"); }
+    public void setStoredBytes(long storedBytes) { properties.put("storedBytes", String.valueOf(storedBytes)); }
+
+    public int getNewChunks() { return (int) getLong("newChunks"); }
+    public void setNewChunks(int newChunks) { properties.put("newChunks", String.valueOf(newChunks)); }
+
+    /**
+     * Rows per table as counted while the dump was taken, in dump order;
+     * empty for backups made before row counts were recorded.
+     */
+    public Map<String, Long> getRowCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        properties.forEach((key, value) -> {
+            if (key.startsWith(ROW_COUNT_PREFIX)) {
+                counts.put(key.substring(ROW_COUNT_PREFIX.length()), Long.parseLong(value));
+            }
+        });
+        return counts;
+    }
+    public void setRowCounts(Map<String, Long> counts) {
+        counts.forEach((table, rows) -> properties.put(ROW_COUNT_PREFIX + table, String.valueOf(rows)));
+    }
+
+    /**
+     * Where each table's statements are in the dump; empty for older backups.
+     */
+    public Map<String, TableRange> getTableRanges() {
+        Map<String, TableRange> ranges = new LinkedHashMap<>();
+        properties.forEach((key, value) -> {
+            if (key.startsWith(RANGE_PREFIX)) {
+                int dash = value.indexOf('-');
+                ranges.put(key.substring(RANGE_PREFIX.length()), new TableRange(
+                    Long.parseLong(value.substring(0, dash)), Long.parseLong(value.substring(dash + 1))));
+            }
+        });
+        return ranges;
+    }
+    public void setTableRanges(Map<String, TableRange> ranges) {
+        ranges.forEach((table, range) -> properties.put(RANGE_PREFIX + table, range.start() + "-" + range.end()));
+    }
+
+    /**
+     * Number of chunks that have to be read to get the bytes [start, end).
+     */
+    public int countChunksInRange(long start, long end) {
+        int count = 0;
+        long offset = 0;
+        for (ChunkRef chunk : chunks) {
+            long chunkEnd = offset + chunk.length();
+            if (chunkEnd > start && offset < end) {
+                count++;
+            }
+            offset = chunkEnd;
+        }
+        return count;
+    }
+
+    public String getProperty(String key) { return properties.get(key); }
+    public void setProperty(String key, String value) { properties.put(key, value); }
+
+    /** INSERT statements of the dump in order; empty for older backups. */
+    public List<Segment> getSegments() { return Collections.unmodifiableList(segments); }
+    public void setSegments(List<Segment> segments) {
+        this.segments.clear();
+        this.segments.addAll(segments);
+    }
+
+    /** Document files backed up with the dump; empty for older backups. */
+    public List<FileEntry> getFiles() { return Collections.unmodifiableList(files); }
+    public void setFiles(List<FileEntry> files) {
+        this.files.clear();
+        this.files.addAll(files);
+    }
+
+    public List<ChunkRef> getChunks() { return Collections.unmodifiableList(chunks); }
+
+    /**
+     * Every chunk the backup needs, dump and documents, each once.
+     */
+    public Set<String> getReferencedChunks() {
+        Set<String> hashes = new LinkedHashSet<>();
+        chunks.forEach(chunk -> hashes.add(chunk.hash()));
+        files.forEach(file -> file.chunks().forEach(chunk -> hashes.add(chunk.hash())));
+        return hashes;
+    }
+    public void addChunk(String hash, int length) { chunks.add(new ChunkRef(hash, length)); }
+
+    /** The file this manifest was read from or last written to, if any. */
+    public Path getFile() { return file; }
+
+    private long getLong(String key) {
+        String value = properties.get(key);
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    /**
+     * Write the manifest atomically: a half-written manifest would reference
+     * chunks that garbage collection no longer protects.
+     */
+    public void write(Path target) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, String> entry : properties.entrySet()) {
+                writer.write(entry.getKey() + "=" + entry.getValue());
+                writer.newLine();
+            }
+            if (!segments.isEmpty()) {
+                writer.write(INDEX_SECTION);
+                writer.newLine();
+                for (Segment segment : segments) {
+                    writer.write(segment.table() + " " + segment.start() + " " + segment.end() + " " + segment.rows()
+                        + " " + keyText(segment.minKey()) + " " + keyText(segment.maxKey()));
+                    writer.newLine();
+                }
+            }
+            if (!files.isEmpty()) {
+                writer.write(FILES_SECTION);
+                writer.newLine();
+                for (FileEntry file : files) {
+                    StringBuilder refs = new StringBuilder();
+                    for (ChunkRef chunk : file.chunks()) {
+                        refs.append(refs.length() == 0 ? "" : ",").append(chunk.hash()).append(':').append(chunk.length());
+                    }
+                    writer.write(file.size() + " " + file.modified() + " " + file.sha256() + " "
+                        + (refs.length() == 0 ? NO_KEY : refs) + " " + file.path());
+                    writer.newLine();
+                }
+            }
+            writer.write(CHUNKS_SECTION);
+            writer.newLine();
+            for (ChunkRef chunk : chunks) {
+                writer.write(chunk.hash() + " " + chunk.length());
+                writer.newLine();
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.file = target;
+    }
+
+    private static String keyText(Long key) {
+        return key != null ? key.toString() : NO_KEY;
+    }
+
+    private static Long parseKey(String text) {
+        return NO_KEY.equals(text) ? null : Long.valueOf(text);
+    }
+
+    public static BackupManifest read(Path source) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            BackupManifest manifest = read(reader, source.getFileName().toString());
+            manifest.file = source;
+            return manifest;
+        }
+    }
+
+    /**
+     * Read a manifest that is not a local file, e.g. one held by a replica destination.
+     */
+    public static BackupManifest read(InputStream source, String description) throws IOException {
+        return read(new BufferedReader(new InputStreamReader(source, StandardCharsets.UTF_8)), description);
+    }
+
+    private static BackupManifest read(BufferedReader reader, String description) throws IOException {
+        BackupManifest manifest = new BackupManifest();
+        String header = reader.readLine();
+        if (!HEADER.equals(header)) {
+            throw new IOException("Not a backup manifest: " + description);
+        }
+
+        boolean inIndex = false;
+        boolean inFiles = false;
+        boolean inChunks = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (line.equals(INDEX_SECTION)) {
+                inIndex = true;
+            } else if (line.equals(FILES_SECTION)) {
+                inIndex = false;
+                inFiles = true;
+            } else if (line.equals(CHUNKS_SECTION)) {
+                inIndex = false;
+                inFiles = false;
+                inChunks = true;
+            } else if (inFiles) {
+                String[] fields = line.split(" ", 5);
+                List<ChunkRef> refs = new ArrayList<>();
+                if (!NO_KEY.equals(fields[3])) {
+                    for (String ref : fields[3].split(",")) {
+                        int colon = ref.indexOf(':');
+                        refs.add(new ChunkRef(ref.substring(0, colon), Integer.parseInt(ref.substring(colon + 1))));
+                    }
+                }
+                manifest.files.add(new FileEntry(fields[4], Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                    fields[2], refs));
+            } else if (inIndex) {
+                String[] fields = line.split(" ");
+                manifest.segments.add(new Segment(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                    Long.parseLong(fields[3]), parseKey(fields[4]), parseKey(fields[5])));
+            } else if (inChunks) {
+                int space = line.indexOf(' ');
+                manifest.addChunk(line.substring(0, space), Integer.parseInt(line.substring(space + 1)));
+            } else {
+                int equals = line.indexOf('=');
+                if (equals > 0) {
+                    manifest.properties.put(line.substring(0, equals), line.substring(equals + 1));
+                }
+            }
+        }
+        return manifest;
+    }
+}
@@ -0,0 +1,352 @@
+package com.management.school.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copies finished backups from the local repository to every configured
+ * destination.
+ *
+ * All destinations are served in parallel from one bounded copy pool. Each
+ * file is appended to a partial object (resuming whatever an interrupted run
+ * left behind), re-read and checked against the SHA-256 of the source before
+ * it is committed, and retried with back-off when the target is busy (sync
+ * clients such as Google Drive briefly lock files). The snapshot manifest is
+ * published only after all of its chunks, then retention is applied per
+ * destination.
+ *
+ * Configuration:
+ * <pre>
+ * app.backups.replicas=google-drive,usb
+ * app.backups.replica.google-drive.type=folder      # folder | object
+ * app.backups.replica.google-drive.path=G:\\My Drive\\School Backup\\repository
+ * app.backups.replica.google-drive.retention=120    # defaults to app.backups.retention
+ * app.backups.replication.threads=4
+ * </pre>
+ */
+@Service
+public class BackupReplicationService {
+
+    private static final int DEFAULT_THREADS = 4;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long RETRY_DELAY_MILLIS = 2_000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String REPOSITORY_CONFIG_KEY = "repository.properties";
+
+    @Autowired
+    private Environment env;
+
+    private ExecutorService copyPool;
+
+    public record ReplicationResult(String destination, boolean skipped, String message,
+                                    int filesCopied, int filesResumed, long bytesCopied,
+                                    int deletedSnapshots, int deletedChunks, long freedBytes) {
+    }
+
+    /**
+     * Destinations from {@code app.backups.replicas}, in configuration order.
+     */
+    public List<BackupDestination> getDestinations() {
+        List<BackupDestination> destinations = new ArrayList<>();
+        String ids = env.getProperty("app.backups.replicas", "");
+        int defaultRetention = env.getProperty("app.backups.retention", Integer.class, 120);
+
+        for (String id : ids.split(",")) {
+            String name = id.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            String prefix = "app.backups.replica." + name + ".";
+            if (!env.getProperty(prefix + "enabled", Boolean.class, true)) {
+                continue;
+            }
+            String path = env.getProperty(prefix + "path");
+            if (path == null || path.isBlank()) {
+                throw new IllegalArgumentException("No path configured for backup destination '" + name
+                    + "' (" + prefix + "path)");
+            }
+            destinations.add(BackupDestination.create(name, env.getProperty(prefix + "type"),
+                Paths.get(path), env.getProperty(prefix + "retention", Integer.class, defaultRetention)));
+        }
+        return destinations;
+    }
+
+    /**
+     * Replicate one snapshot to every configured destination and apply each
+     * destination's retention. A failing destination does not affect the others.
+     */
+    public List<ReplicationResult> replicate(BackupChunkStore store, BackupManifest manifest) {
+        return replicate(store, manifest, IoThrottle.UNLIMITED);
+    }
+
+    /**
+     * Replicate with the total read bandwidth of all copies (including the
+     * verification reads) limited by {@code throttle}.
+     */
+    public List<ReplicationResult> replicate(BackupChunkStore store, BackupManifest manifest, IoThrottle throttle) {
+        List<String> keys = store.snapshotFileKeys(manifest);
+        String manifestKey = keys.get(keys.size() - 1);
+        List<String> dataKeys = keys.subList(0, keys.size() - 1);
+
+        List<CompletableFuture<ReplicationResult>> futures = new ArrayList<>();
+        for (BackupDestination destination : getDestinations()) {
+            if (!destination.isAvailable()) {
+                futures.add(CompletableFuture.completedFuture(new ReplicationResult(destination.name(), true,
+                    "not reachable, skipped", 0, 0, 0, 0, 0, 0)));
+                continue;
+            }
+
+            CopyStats stats = new CopyStats();
+            CompletableFuture<?>[] copies = dataKeys.stream()
+                .map(key -> CompletableFuture.runAsync(() -> copyVerified(store, destination, key, stats, throttle), pool()))
+                .toArray(CompletableFuture[]::new);
+
+            futures.add(CompletableFuture.allOf(copies)
+                .thenApplyAsync(done -> {
+                    copyVerified(store, destination, manifestKey, stats, throttle);
+                    return finish(destination, stats);
+                }, pool())
+                .exceptionally(e -> new ReplicationResult(destination.name(), false,
+                    "failed: " + rootMessage(e), stats.copied.get(), stats.resumed.get(), stats.bytes.get(), 0, 0, 0)));
+        }
+
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private ReplicationResult finish(BackupDestination destination, CopyStats stats) {
+        try {
+            destination.discardAllPartials();
+            PruneStats pruned = prune(destination);
+            return new ReplicationResult(destination.name(), false, "verified", stats.copied.get(),
+                stats.resumed.get(), stats.bytes.get(), pruned.snapshots, pruned.chunks, pruned.bytes);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    // ==================== Copy ====================
+
+    private void copyVerified(BackupChunkStore store, BackupDestination destination, String key, CopyStats stats,
+                              IoThrottle throttle) {
+        IOException last = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                copyOnce(store.resolve(key), destination, key, stats, throttle);
+                return;
+            } catch (IOException e) {
+                last = e;
+                if (attempt < MAX_ATTEMPTS) {
+                    sleep(RETRY_DELAY_MILLIS * attempt);
+                }
+            }
+        }
+        throw new CompletionException(new IOException(
+            "Could not copy " + key + " after " + MAX_ATTEMPTS + " attempts: " + last.getMessage(), last));
+    }
+
+    private void copyOnce(Path source, BackupDestination destination, String key, CopyStats stats,
+                          IoThrottle throttle) throws IOException {
+        long size = Files.size(source);
+        // Chunks are immutable (named by content); the config and manifest are always refreshed
+        boolean immutable = key.startsWith("chunks/");
+        if (immutable && destination.exists(key, size)) {
+            return;
+        }
+
+        if (key.equals(REPOSITORY_CONFIG_KEY) && !destination.list(REPOSITORY_CONFIG_KEY).isEmpty()) {
+            // Chunks are encrypted with a key derived from this file; never mix two repositories
+            try (InputStream local = Files.newInputStream(source); InputStream remote = destination.open(key)) {
+                if (!sha256Hex(local).equals(sha256Hex(remote))) {
+                    throw new IllegalStateException(destination.name()
+                        + " already holds a different backup repository; use an empty folder");
+                }
+            }
+            return;
+        }
+
+        long offset = destination.partialLength(key);
+        if (offset > size) {
+            destination.discardPartial(key);
+            offset = 0;
+        }
+
+        MessageDigest sourceDigest = sha256();
+        try (InputStream in = new DigestInputStream(throttle.wrap(Files.newInputStream(source)), sourceDigest)) {
+            // Hash the part the destination already has, then append the rest
+            readThrough(in, offset);
+            try (OutputStream out = destination.appendPartial(key)) {
+                long written = in.transferTo(out);
+                stats.bytes.addAndGet(written);
+            }
+        }
+        String expected = HexFormat.of().formatHex(sourceDigest.digest());
+
+        String actual;
+        try (InputStream in = throttle.wrap(destination.openPartial(key))) {
+            actual = sha256Hex(in);
+        }
+        if (!expected.equals(actual)) {
+            // Most likely a stale partial from a different version of the file
+            destination.discardPartial(key);
+            throw new IOException("Checksum mismatch for " + key + " at " + destination.name());
+        }
+
+        destination.commit(key, expected);
+        stats.copied.incrementAndGet();
+        if (offset > 0) {
+            stats.resumed.incrementAndGet();
+        }
+    }
+
+    // ==================== Retention ====================
+
+    private record PruneStats(int snapshots, int chunks, long bytes) {
+    }
+
+    /**
+     * Keep the newest snapshots at the destination and delete chunks that no
+     * remaining snapshot there references.
+     */
+    private PruneStats prune(BackupDestination destination) throws IOException {
+        List<String> manifestKeys = destination.list("snapshots/").stream()
+            .filter(key -> key.endsWith(BackupManifest.FILE_EXTENSION))
+            .toList();
+
+        record Entry(String key, BackupManifest manifest) {
+        }
+        List<Entry> snapshots = new ArrayList<>();
+        for (String key : manifestKeys) {
+            try (InputStream in = destination.open(key)) {
+                snapshots.add(new Entry(key, BackupManifest.read(in, key)));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Skipping unreadable manifest " + key + " at " + destination.name() + ": " + e.getMessage());
+            }
+        }
+        if (snapshots.size() != manifestKeys.size()) {
+            // Never sweep chunks when we cannot tell which ones are still referenced
+            return new PruneStats(0, 0, 0);
+        }
+        snapshots.sort(Comparator.comparing((Entry e) -> e.manifest().getCreated()).reversed());
+
+        int deletedSnapshots = 0;
+        long freed = 0;
+        for (Entry old : snapshots.subList(Math.min(destination.retention(), snapshots.size()), snapshots.size())) {
+            freed += destination.delete(old.key());
+            deletedSnapshots++;
+        }
+
+        Set<String> live = new HashSet<>();
+        for (Entry kept : snapshots.subList(0, Math.min(destination.retention(), snapshots.size()))) {
+            live.addAll(kept.manifest().getReferencedChunks());
+        }
+
+        int deletedChunks = 0;
+        for (String key : destination.list("chunks/")) {
+            String fileName = key.substring(key.lastIndexOf('/') + 1);
+            String hash = fileName.contains(".") ? fileName.substring(0, fileName.indexOf('.')) : fileName;
+            if (!live.contains(hash)) {
+                freed += destination.delete(key);
+                deletedChunks++;
+            }
+        }
+        return new PruneStats(deletedSnapshots, deletedChunks, freed);
+    }
+
+    // ==================== Helpers ====================
+
+    private static final class CopyStats {
+        final AtomicInteger copied = new AtomicInteger();
+        final AtomicInteger resumed = new AtomicInteger();
+        final AtomicLong bytes = new AtomicLong();
+    }
+
+    private synchronized ExecutorService pool() {
+        if (copyPool == null) {
+            int threads = Math.max(1, env.getProperty("app.backups.replication.threads", Integer.class, DEFAULT_THREADS));
+            AtomicInteger counter = new AtomicInteger();
+            copyPool = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "backup-replication-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return copyPool;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (copyPool != null) {
+            copyPool.shutdownNow();
+        }
+    }
+
+    private static void readThrough(InputStream in, long bytes) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = bytes;
+        while (remaining > 0) {
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (n == -1) {
+                throw new IOException("Source is shorter than the partial copy");
+            }
+            remaining -= n;
+        }
+    }
+
+    private static String sha256Hex(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, n);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+}
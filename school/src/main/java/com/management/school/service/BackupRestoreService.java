@@ -0,0 +1,312 @@
+package com.management.school.service;
+
+import com.management.school.core.BackupLogSink;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Restores a backup without taking the application offline.
+ *
+ * The dump is loaded into a separate staging schema while the application
+ * keeps working on the live one. Once loaded, every table's row count is
+ * checked against the counts recorded in the backup manifest. Only then are
+ * the tables swapped in with a single {@code RENAME TABLE} statement, which
+ * MySQL performs atomically, and the application's caches are reset. If
+ * anything fails before the swap, the live schema has not been touched.
+ *
+ * The replaced tables are kept in {@code <db>_restore_previous} until the next
+ * restore, so a mistaken restore can be undone by hand. Live tables the backup
+ * does not have are left in place, and columns added since the backup was
+ * taken are added to the restored tables before the swap.
+ */
+@Service
+public class BackupRestoreService {
+
+    public static final String STAGING_SUFFIX = "_restore_staging";
+    public static final String PREVIOUS_SUFFIX = "_restore_previous";
+
+    @Autowired
+    private BackupService backupService;
+
+    @Autowired
+    private BackupLogSink log;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Restore a dump into the live database.
+     *
+     * @param sql               the mysqldump output
+     * @param expectedRowCounts rows per table recorded at backup time; empty skips validation
+     * @param backupName        shown in the log and passed on in {@link DatabaseRestoredEvent}
+     */
+    public void restore(InputStream sql, Map<String, Long> expectedRowCounts, String backupName)
+            throws IOException, InterruptedException {
+        BackupService.DatabaseConfig dbConfig = backupService.getDatabaseConfig();
+        String live = dbConfig.dbName();
+        String staging = live + STAGING_SUFFIX;
+        String previous = live + PREVIOUS_SUFFIX;
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        long startNanos = System.nanoTime();
+        boolean swapped = false;
+        try {
+            // Step 1: Load into an empty staging schema; the application keeps using the live one
+            log.info("Preparing staging schema " + staging + "...");
+            jdbc.execute("DROP DATABASE IF EXISTS " + quote(staging));
+            jdbc.execute("CREATE DATABASE " + quote(staging));
+            loadIntoSchema(dbConfig, staging, sql);
+
+            // Step 2: Validate before anything visible changes
+            List<String> stagedTables = baseTables(jdbc, staging);
+            validateRowCounts(jdbc, staging, stagedTables, expectedRowCounts);
+            checkMovable(jdbc, staging, live);
+            Set<String> liveTables = new LinkedHashSet<>(baseTables(jdbc, live));
+            warnAboutKeptTables(liveTables, stagedTables);
+            addMissingColumns(jdbc, staging, live, stagedTables, liveTables);
+
+            // Step 3: Swap the restored tables in with one atomic RENAME
+            log.info("Swapping restored tables into " + live + "...");
+            jdbc.execute("DROP DATABASE IF EXISTS " + quote(previous));
+            jdbc.execute("CREATE DATABASE " + quote(previous));
+
+            List<String> renames = new ArrayList<>();
+            for (String table : stagedTables) {
+                if (liveTables.contains(table)) {
+                    renames.add(quote(live) + "." + quote(table) + " TO " + quote(previous) + "." + quote(table));
+                }
+            }
+            for (String table : stagedTables) {
+                renames.add(quote(staging) + "." + quote(table) + " TO " + quote(live) + "." + quote(table));
+            }
+            long swapStart = System.nanoTime();
+            jdbc.execute("RENAME TABLE " + String.join(", ", renames));
+            swapped = true;
+            log.info(String.format("Tables swapped in %d ms", (System.nanoTime() - swapStart) / 1_000_000));
+
+            // Step 4: Make the application forget what it read from the old tables
+            resetCaches();
+            eventPublisher.publishEvent(new DatabaseRestoredEvent(this, backupName));
+
+            log.success(String.format("Database restored from %s in %.1f s", backupName,
+                (System.nanoTime() - startNanos) / 1e9));
+            log.info("Previous data kept in schema " + previous + " until the next restore");
+        } finally {
+            try {
+                jdbc.execute("DROP DATABASE IF EXISTS " + quote(staging));
+            } catch (RuntimeException e) {
+                log.warning("Could not drop staging schema " + staging + ": " + e.getMessage());
+            }
+            if (!swapped) {
+                log.info("Live database " + live + " was not modified");
+            }
+        }
+    }
+
+    /**
+     * Pipe the dump into the mysql client connected to the given schema
+     */
+    private void loadIntoSchema(BackupService.DatabaseConfig dbConfig, String schema, InputStream sql)
+            throws IOException, InterruptedException {
+        log.info("Loading backup into " + schema + " (the application stays available)...");
+        Path configFile = backupService.createSecureMySQLConfig(dbConfig, false);
+        try {
+            List<String> command = Arrays.asList(
+                backupService.getMysqlExecutable("mysql"),
+                "--defaults-extra-file=" + configFile.toAbsolutePath(),
+                schema
+            );
+
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.redirectErrorStream(true);
+            Process process = pb.start();
+
+            // Log mysql output while the SQL is still being piped in, so a chatty
+            // client can never fill its output pipe and stall the restore
+            Thread outputReader = new Thread(() -> {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.trim().isEmpty()) {
+                            log.info("MySQL: " + line);
+                        }
+                    }
+                } catch (IOException e) {
+                    log.warning("Could not read MySQL output: " + e.getMessage());
+                }
+            }, "mysql-output-reader");
+            outputReader.setDaemon(true);
+            outputReader.start();
+
+            try (OutputStream processIn = process.getOutputStream()) {
+                sql.transferTo(processIn);
+            }
+
+            int exitCode = process.waitFor();
+            outputReader.join();
+            if (exitCode != 0) {
+                throw new RuntimeException("Loading the backup failed with exit code: " + exitCode);
+            }
+        } finally {
+            Files.deleteIfExists(configFile);
+        }
+    }
+
+    private void validateRowCounts(JdbcTemplate jdbc, String schema, List<String> tables,
+                                   Map<String, Long> expected) {
+        if (expected.isEmpty()) {
+            log.warning("Backup has no recorded row counts (older backup); skipping row count validation");
+            if (tables.isEmpty()) {
+                throw new IllegalStateException("The backup did not create any tables");
+            }
+            return;
+        }
+
+        List<String> problems = new ArrayList<>();
+        long total = 0;
+        for (Map.Entry<String, Long> entry : expected.entrySet()) {
+            if (!tables.contains(entry.getKey())) {
+                problems.add(entry.getKey() + " missing");
+                continue;
+            }
+            Long actual = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM " + quote(schema) + "." + quote(entry.getKey()), Long.class);
+            total += actual == null ? 0 : actual;
+            if (actual == null || actual.longValue() != entry.getValue()) {
+                problems.add(entry.getKey() + " has " + actual + " rows, backup has " + entry.getValue());
+            }
+        }
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Restored data does not match the backup: " + String.join("; ", problems));
+        }
+        log.info(String.format("Row counts verified: %d tables, %d rows", expected.size(), total));
+    }
+
+    /**
+     * MySQL refuses to move tables with triggers between schemas; find out
+     * before the swap rather than half way through it.
+     */
+    private void checkMovable(JdbcTemplate jdbc, String staging, String live) {
+        Integer triggers = jdbc.queryForObject(
+            "SELECT COUNT(*) FROM information_schema.TRIGGERS WHERE TRIGGER_SCHEMA IN (?, ?)",
+            Integer.class, staging, live);
+        if (triggers != null && triggers > 0) {
+            throw new IllegalStateException("Tables with triggers cannot be swapped between schemas; "
+                + "drop the triggers or restore the dump manually with the mysql client");
+        }
+        Integer views = jdbc.queryForObject(
+            "SELECT COUNT(*) FROM information_schema.VIEWS WHERE TABLE_SCHEMA = ?", Integer.class, staging);
+        if (views != null && views > 0) {
+            log.warning(views + " view(s) in the backup are not swapped in; the live schema keeps its own views");
+        }
+    }
+
+    /**
+     * Tables the backup does not have, because it was taken before they
+     * existed, stay in the live schema as they are: the application needs
+     * them, and an empty replacement created at the next start would make
+     * e.g. the document sweeper treat every stored file as unreferenced.
+     */
+    private void warnAboutKeptTables(Set<String> liveTables, List<String> stagedTables) {
+        List<String> kept = new ArrayList<>();
+        for (String table : liveTables) {
+            if (!stagedTables.contains(table)) {
+                kept.add(table);
+            }
+        }
+        if (!kept.isEmpty()) {
+            log.warning("The backup has no " + String.join(", ", kept) + "; "
+                + (kept.size() == 1 ? "this table is" : "these tables are") + " kept from the live database. "
+                + "Check that their data still fits the restored tables.");
+        }
+    }
+
+    /**
+     * A backup taken before columns were added to a table restores it without
+     * them, and the application cannot read it until the next start updates
+     * the schema. Add each missing column to the staged table now, with the
+     * live column's type and nullability; existing rows get the type's
+     * implicit default.
+     */
+    private void addMissingColumns(JdbcTemplate jdbc, String staging, String live, List<String> stagedTables,
+                                   Set<String> liveTables) {
+        String columnsSql = "SELECT COLUMN_NAME, COLUMN_TYPE, IS_NULLABLE FROM information_schema.COLUMNS "
+            + "WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? ORDER BY ORDINAL_POSITION";
+        for (String table : stagedTables) {
+            if (!liveTables.contains(table)) {
+                continue;
+            }
+            Set<String> stagedColumns = new HashSet<>();
+            jdbc.query(columnsSql, rs -> {
+                stagedColumns.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }, staging, table);
+
+            List<String> added = new ArrayList<>();
+            List<String> definitions = new ArrayList<>();
+            jdbc.query(columnsSql, rs -> {
+                String column = rs.getString("COLUMN_NAME");
+                if (stagedColumns.contains(column.toLowerCase(Locale.ROOT))) {
+                    return;
+                }
+                String definition = "ADD COLUMN " + quote(column) + " " + rs.getString("COLUMN_TYPE");
+                if ("NO".equals(rs.getString("IS_NULLABLE"))) {
+                    definition += " NOT NULL";
+                }
+                definitions.add(definition);
+                added.add(column);
+            }, live, table);
+
+            if (!definitions.isEmpty()) {
+                jdbc.execute("ALTER TABLE " + quote(staging) + "." + quote(table) + " " + String.join(", ", definitions));
+                log.warning("The backup's " + table + " table predates column(s) " + String.join(", ", added)
+                    + "; added them to the restored table");
+            }
+        }
+    }
+
+    private List<String> baseTables(JdbcTemplate jdbc, String schema) {
+        return jdbc.queryForList(
+            "SELECT TABLE_NAME FROM information_schema.TABLES WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'BASE TABLE' "
+                + "ORDER BY TABLE_NAME", String.class, schema);
+    }
+
+    private void resetCaches() {
+        entityManagerFactory.getCache().evictAll();
+        // Pooled connections may hold session state from before the swap
+        if (dataSource instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+            hikari.getHikariPoolMXBean().softEvictConnections();
+        }
+    }
+
+    private static String quote(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+}
@@ -0,0 +1,34 @@
+package com.management.school.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs backups automatically on the cron schedule in
+ * {@code app.backups.schedule.cron} (Spring cron format, seconds first).
+ * The default "-" disables automatic backups.
+ */
+@Component
+public class BackupScheduler {
+
+    @Autowired
+    private BackupService backupService;
+
+    @Autowired
+    private Environment env;
+
+    @Scheduled(cron = "${app.backups.schedule.cron:-}")
+    public void runScheduledBackup() {
+        backupService.runBackup("scheduled");
+    }
+
+    /**
+     * The configured schedule, or null when automatic backups are off
+     */
+    public String getSchedule() {
+        String cron = env.getProperty("app.backups.schedule.cron", Scheduled.CRON_DISABLED);
+        return cron.isBlank() || Scheduled.CRON_DISABLED.equals(cron) ? null : cron;
+    }
+}
@@ -0,0 +1,483 @@
+package com.management.school.service;
+
+import com.management.school.core.BackupLogSink;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Backup pipeline shared by the Backups tab and the scheduler:
+ * mysqldump and uploaded documents → chunk/compress/encrypt into the local
+ * repository → replicate → retention. Only one run can be active at a time; a run that finds another
+ * one in progress is skipped and recorded as such. Every run is appended to
+ * the backup history.
+ */
+@Service
+public class BackupService {
+
+    public static final String REPOSITORY_DIR_NAME = "repository";
+    public static final int DEFAULT_BACKUP_RETENTION = 120;
+
+    private static final String HISTORY_FILE_NAME = "backup-history.log";
+    private static final DateTimeFormatter SNAPSHOT_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+
+    @Autowired
+    private Environment env;
+
+    @Autowired
+    private BackupLogSink log;
+
+    @Autowired
+    private BackupReplicationService replicationService;
+
+    @Autowired
+    private DocumentSnapshotService documentSnapshotService;
+
+    private final boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public record DatabaseConfig(String host, String dbName, String username, String password) {
+    }
+
+    // ==================== Configuration ====================
+
+    public Path getBackupsDir() {
+        String configuredBackupDir = env.getProperty("app.backups.dir");
+        if (configuredBackupDir != null && !configuredBackupDir.isBlank()) {
+            return Paths.get(configuredBackupDir);
+        }
+        return Paths.get(System.getProperty("user.home"), "SchoolApp", "backups");
+    }
+
+    /**
+     * Location of the deduplicated backup repository
+     */
+    public Path getRepositoryDir() {
+        return getBackupsDir().resolve(REPOSITORY_DIR_NAME);
+    }
+
+    public String getMysqlBinPath() {
+        return env.getProperty("app.mysql.bin.path",
+            isWindows ? "C:\\Program Files\\MySQL\\MySQL Server 8.0\\bin" : "/usr/bin");
+    }
+
+    /**
+     * Full path of a MySQL client tool ("mysql", "mysqldump")
+     */
+    public String getMysqlExecutable(String tool) {
+        return Paths.get(getMysqlBinPath(), isWindows ? tool + ".exe" : tool).toString();
+    }
+
+    public int getRetention() {
+        return env.getProperty("app.backups.retention", Integer.class, DEFAULT_BACKUP_RETENTION);
+    }
+
+    /**
+     * Codec for new chunks; an invalid setting falls back to the default
+     */
+    public BackupCodec getCodec() {
+        String codecName = env.getProperty("app.backups.codec", BackupCodec.DEFAULT_NAME);
+        try {
+            return BackupCodec.forName(codecName);
+        } catch (IllegalArgumentException e) {
+            log.warning(e.getMessage() + ". Falling back to " + BackupCodec.DEFAULT_NAME);
+            return BackupCodec.forName(BackupCodec.DEFAULT_NAME);
+        }
+    }
+
+    /**
+     * Bandwidth limit of one pipeline stage ("dump", "compression", "replication")
+     */
+    public IoThrottle getThrottle(String stage) {
+        return IoThrottle.ofKilobytesPerSecond(
+            env.getProperty("app.backups.throttle." + stage + "-kb-per-sec", Long.class, 0L));
+    }
+
+    public BackupHistory getHistory() {
+        return new BackupHistory(getBackupsDir().resolve(HISTORY_FILE_NAME));
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Get database configuration from properties
+     */
+    public DatabaseConfig getDatabaseConfig() {
+        String url = env.getProperty("spring.datasource.url", "");
+        return new DatabaseConfig(
+            extractHostFromUrl(url),
+            extractDbNameFromUrl(url),
+            env.getProperty("spring.datasource.username", "root"),
+            env.getProperty("spring.datasource.password", "")
+        );
+    }
+
+    // ==================== Backup ====================
+
+    /**
+     * Run the whole backup pipeline on the calling thread.
+     *
+     * @param trigger who started the run ("manual", "scheduled"), kept in the history
+     */
+    public BackupHistory.Run runBackup(String trigger) {
+        LocalDateTime started = LocalDateTime.now();
+        if (!running.compareAndSet(false, true)) {
+            log.warning("Another backup is still running; " + trigger + " backup skipped");
+            return record(new BackupHistory.Run(started, trigger, BackupHistory.Status.SKIPPED,
+                0, 0, 0, 0, "another backup was running"));
+        }
+
+        long startNanos = System.nanoTime();
+        Path tempConf = null;
+        try {
+            log.info("========================================");
+            log.info("Starting " + trigger + " backup...");
+
+            String password = env.getProperty("app.backups.password");
+            if (password == null || password.isBlank()) {
+                throw new IllegalStateException("Backup password not configured in application.properties");
+            }
+
+            DatabaseConfig dbConfig = getDatabaseConfig();
+            tempConf = createSecureMySQLConfig(dbConfig, true);
+            String snapshotName = String.format("%s_backup_%s", dbConfig.dbName(),
+                started.format(SNAPSHOT_TIMESTAMP));
+
+            IoThrottle dumpThrottle = getThrottle("dump");
+            IoThrottle compressionThrottle = getThrottle("compression");
+            IoThrottle replicationThrottle = getThrottle("replication");
+            if (!dumpThrottle.isUnlimited() || !compressionThrottle.isUnlimited() || !replicationThrottle.isUnlimited()) {
+                log.info("I/O limits: dump " + dumpThrottle + ", compression " + compressionThrottle
+                    + ", replication " + replicationThrottle);
+            }
+
+            Files.createDirectories(getBackupsDir());
+            BackupChunkStore store = BackupChunkStore.open(getRepositoryDir(), password, getCodec());
+            store.setThrottle(compressionThrottle);
+
+            // Step 1: Sync documents before the dump, so nearly all of them are stored by the time it starts
+            boolean withDocuments = isDocumentBackupEnabled();
+            DocumentSnapshotService.SyncResult documentsBefore = withDocuments
+                ? syncDocuments(store, previousDocuments(store), "Backing up documents") : null;
+
+            // Step 2: Stream mysqldump output straight into the deduplicated repository
+            BackupManifest manifest = exportDatabaseToRepository(dbConfig, tempConf, store, snapshotName, dumpThrottle);
+
+            // Step 3: Pick up documents uploaded while the dump ran and add the files to the manifest
+            if (withDocuments) {
+                DocumentSnapshotService.SyncResult documentsAfter =
+                    syncDocuments(store, documentsBefore.files(), "Picking up documents changed during the dump");
+                manifest.setFiles(documentSnapshotService.union(documentsBefore.files(), documentsAfter.files()));
+                manifest.write(manifest.getFile());
+                checkDocumentConsistency(store, manifest);
+            }
+            log.success("Backup created successfully: " + snapshotName);
+
+            // Step 4: Replicate to the configured destinations (parallel, verified)
+            long replicated = replicateBackup(store, manifest, replicationThrottle);
+
+            // Step 5: Retention + garbage collection of unreferenced chunks
+            pruneOldBackups(store);
+
+            long duration = (System.nanoTime() - startNanos) / 1_000_000;
+            log.info(String.format("Backup process completed in %.1f s", duration / 1000.0));
+            log.info("========================================");
+            return record(new BackupHistory.Run(started, trigger, BackupHistory.Status.SUCCESS, duration,
+                manifest.getSize(), manifest.getStoredBytes(), replicated, snapshotName));
+
+        } catch (Exception ex) {
+            log.error("Backup failed: " + ex.getMessage());
+            ex.printStackTrace();
+            return record(new BackupHistory.Run(started, trigger, BackupHistory.Status.FAILED,
+                (System.nanoTime() - startNanos) / 1_000_000, 0, 0, 0, String.valueOf(ex.getMessage())));
+        } finally {
+            if (tempConf != null) {
+                try {
+                    Files.deleteIfExists(tempConf);
+                } catch (IOException e) {
+                    log.warning("Failed to delete temp file: " + tempConf);
+                }
+            }
+            running.set(false);
+        }
+    }
+
+    private BackupHistory.Run record(BackupHistory.Run run) {
+        try {
+            getHistory().append(run);
+        } catch (IOException e) {
+            log.warning("Could not update backup history: " + e.getMessage());
+        }
+        return run;
+    }
+
+    /**
+     * Export database with mysqldump, chunking the output into the backup repository
+     */
+    private BackupManifest exportDatabaseToRepository(DatabaseConfig dbConfig, Path configFile,
+                                                      BackupChunkStore store, String snapshotName,
+                                                      IoThrottle throttle)
+            throws IOException, InterruptedException {
+        log.info("Exporting database into backup repository...");
+
+        List<String> command = Arrays.asList(
+            getMysqlExecutable("mysqldump"),
+            "--defaults-extra-file=" + configFile.toAbsolutePath(),
+            "--single-transaction",
+            "--routines",
+            "--triggers",
+            "--events",
+            "--hex-blob",
+            "--set-gtid-purged=OFF",
+            dbConfig.dbName()
+        );
+
+        // Keep stderr out of the dump itself; it is only needed for diagnostics
+        Path errorLog = Files.createTempFile("mysqldump_", ".log");
+        try {
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.redirectError(errorLog.toFile());
+            Process process = pb.start();
+
+            // Reading the dump slowly back-pressures mysqldump and with it the server's disk reads
+            SqlDumpScanner scanner = new SqlDumpScanner();
+            BackupManifest manifest;
+            try (InputStream in = scanner.wrap(throttle.wrap(process.getInputStream()))) {
+                manifest = store.writeSnapshot(snapshotName, in, Map.of("database", dbConfig.dbName()));
+            }
+
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                // Never keep a snapshot of a failed dump
+                Files.deleteIfExists(manifest.getFile());
+                String errors = Files.readString(errorLog, StandardCharsets.UTF_8).trim();
+                throw new RuntimeException("mysqldump failed with exit code: " + exitCode
+                    + (errors.isEmpty() ? "" : " - " + errors));
+            }
+
+            // Row counts let a restore verify that every table arrived complete;
+            // table ranges and the statement index let one table or record be read on its own
+            manifest.setRowCounts(scanner.getRowCounts());
+            manifest.setTableRanges(scanner.getTableRanges());
+            manifest.setSegments(scanner.getSegments());
+            manifest.write(manifest.getFile());
+
+            log.info(String.format("Database export completed: %s dumped (%d tables, %d rows), %d new chunk(s), %s stored",
+                formatFileSize(manifest.getSize()), scanner.getRowCounts().size(),
+                scanner.getRowCounts().values().stream().mapToLong(Long::longValue).sum(),
+                manifest.getNewChunks(), formatFileSize(manifest.getStoredBytes())));
+            return manifest;
+        } finally {
+            Files.deleteIfExists(errorLog);
+        }
+    }
+
+    /**
+     * Documents of the newest backup that has any, to compare the directory against
+     */
+    private List<BackupManifest.FileEntry> previousDocuments(BackupChunkStore store) throws IOException {
+        for (BackupManifest previous : store.listSnapshots()) {
+            if (!previous.getFiles().isEmpty()) {
+                return previous.getFiles();
+            }
+        }
+        return List.of();
+    }
+
+    private DocumentSnapshotService.SyncResult syncDocuments(BackupChunkStore store,
+                                                             List<BackupManifest.FileEntry> previous,
+                                                             String description) throws IOException {
+        log.info(description + " from " + documentSnapshotService.getDocumentsDir().toAbsolutePath() + "...");
+        long startNanos = System.nanoTime();
+        DocumentSnapshotService.SyncResult result = documentSnapshotService.sync(store, previous);
+        log.info(String.format("%d document(s), %s: %d new, %d changed, %d unchanged; read %s, %d new chunk(s), "
+                + "%s stored in %.1f s", result.files().size(), formatFileSize(result.totalBytes()), result.added(),
+            result.changed(), result.unchanged(), formatFileSize(result.bytesRead()), result.newChunks(),
+            formatFileSize(result.storedBytes()), (System.nanoTime() - startNanos) / 1e9));
+        return result;
+    }
+
+    /**
+     * Warn about active documents in the dump whose file is not in the backup
+     * (typically a file deleted or moved by hand on the server)
+     */
+    private void checkDocumentConsistency(BackupChunkStore store, BackupManifest manifest) {
+        try {
+            List<String> missing = documentSnapshotService.findMissingFiles(store, manifest);
+            if (!missing.isEmpty()) {
+                log.warning(missing.size() + " document(s) in the database have no file to back up, e.g. "
+                    + missing.get(0));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warning("Could not check documents against the database: " + e.getMessage());
+        }
+    }
+
+    public boolean isDocumentBackupEnabled() {
+        return env.getProperty("app.backups.documents.enabled", Boolean.class, true);
+    }
+
+    /**
+     * Replicate the new backup to every configured destination
+     * (see 'app.backups.replicas'); each destination applies its own retention.
+     *
+     * @return bytes transferred to all destinations
+     */
+    private long replicateBackup(BackupChunkStore store, BackupManifest manifest, IoThrottle throttle) {
+        List<BackupDestination> destinations;
+        try {
+            destinations = replicationService.getDestinations();
+        } catch (IllegalArgumentException e) {
+            log.error("Backup replication misconfigured: " + e.getMessage());
+            return 0;
+        }
+        if (destinations.isEmpty()) {
+            log.info("No replication destinations configured");
+            return 0;
+        }
+
+        log.info("Replicating backup to " + destinations.stream().map(BackupDestination::name)
+            .collect(Collectors.joining(", ")) + "...");
+
+        long transferred = 0;
+        for (BackupReplicationService.ReplicationResult result : replicationService.replicate(store, manifest, throttle)) {
+            transferred += result.bytesCopied();
+            if (result.skipped()) {
+                log.warning(result.destination() + ": " + result.message());
+            } else if (result.message().startsWith("failed")) {
+                log.error(result.destination() + ": " + result.message()
+                    + " (partial copies are kept and resumed next time)");
+            } else {
+                log.success(String.format("%s: %d file(s) copied%s, %s transferred, checksums verified",
+                    result.destination(), result.filesCopied(),
+                    result.filesResumed() > 0 ? " (" + result.filesResumed() + " resumed)" : "",
+                    formatFileSize(result.bytesCopied())));
+                if (result.deletedSnapshots() > 0 || result.deletedChunks() > 0) {
+                    log.info(String.format("%s: deleted %d old backup(s) and %d unreferenced chunk(s), freed %s",
+                        result.destination(), result.deletedSnapshots(), result.deletedChunks(),
+                        formatFileSize(result.freedBytes())));
+                }
+            }
+        }
+        return transferred;
+    }
+
+    /**
+     * Delete snapshots beyond the retention limit, then garbage-collect chunks
+     * that no remaining snapshot references
+     */
+    private void pruneOldBackups(BackupChunkStore store) {
+        int retention = getRetention();
+        try {
+            log.info("Applying retention (" + retention + " backups) to local repository...");
+            BackupChunkStore.PruneResult result = store.prune(retention);
+
+            if (result.deletedSnapshots() > 0 || result.deletedChunks() > 0) {
+                log.info(String.format("Deleted %d old backup(s) and %d unreferenced chunk(s), freed %s",
+                    result.deletedSnapshots(), result.deletedChunks(), formatFileSize(result.freedBytes())));
+            } else {
+                log.info("No cleanup needed in local repository");
+            }
+        } catch (IOException e) {
+            log.error("Cleanup error in local repository: " + e.getMessage());
+        }
+    }
+
+    // ==================== MySQL Helpers ====================
+
+    /**
+     * Create a secure temporary MySQL configuration file
+     */
+    public Path createSecureMySQLConfig(DatabaseConfig config, boolean forDump) throws IOException {
+        Path tempConfig = Files.createTempFile("mysql_conf_", ".cnf");
+
+        String section = forDump ? "[mysqldump]" : "[mysql]";
+        String content = String.format("%s%nuser=%s%npassword=%s%nhost=%s%n",
+            section, config.username(), config.password(), config.host());
+
+        Files.writeString(tempConfig, content, StandardCharsets.UTF_8);
+
+        // Set secure file permissions on Unix-like systems
+        if (!isWindows) {
+            try {
+                Set<PosixFilePermission> perms = EnumSet.of(
+                    PosixFilePermission.OWNER_READ,
+                    PosixFilePermission.OWNER_WRITE
+                );
+                Files.setPosixFilePermissions(tempConfig, perms);
+            } catch (UnsupportedOperationException e) {
+                log.warning("Unable to set POSIX permissions on temp config file");
+            }
+        }
+
+        return tempConfig;
+    }
+
+    /**
+     * Extract database name from JDBC URL
+     */
+    private String extractDbNameFromUrl(String url) {
+        try {
+            if (url.startsWith("jdbc:mysql:")) {
+                String after = url.substring("jdbc:mysql://".length());
+                int slashIndex = after.indexOf('/');
+                if (slashIndex > 0) {
+                    String dbAndParams = after.substring(slashIndex + 1);
+                    int questionIndex = dbAndParams.indexOf('?');
+                    return questionIndex > 0 ? dbAndParams.substring(0, questionIndex) : dbAndParams;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to parse database name from URL: " + url);
+        }
+        return env.getProperty("app.db.name", "schooldb");
+    }
+
+    /**
+     * Extract host from JDBC URL
+     */
+    private String extractHostFromUrl(String url) {
+        try {
+            if (url.startsWith("jdbc:mysql:")) {
+                String after = url.substring("jdbc:mysql://".length());
+                int slashIndex = after.indexOf('/');
+                if (slashIndex > 0) {
+                    String hostPort = after.substring(0, slashIndex);
+                    return hostPort.contains(":") ? hostPort.split(":")[0] : hostPort;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to parse host from URL: " + url);
+        }
+        return "127.0.0.1";
+    }
+
+    /**
+     * Format file size in human-readable format
+     */
+    public static String formatFileSize(long size) {
+        if (size <= 0) return "0 B";
+        final String[] units = {"B", "KB", "MB", "GB", "TB"};
+        int digitGroups = (int) (Math.log10(size) / Math.log10(1024));
+        return String.format("%.2f %s", size / Math.pow(1024, digitGroups), units[digitGroups]);
+    }
+}
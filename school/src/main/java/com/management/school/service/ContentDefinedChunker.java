@@ -0,0 +1,81 @@
+package com.management.school.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.SplittableRandom;
+
+/**
+ * Splits a byte stream into variable-sized chunks whose boundaries depend on
+ * the content itself (Gear rolling hash with normalised chunking).
+ *
+ * Because boundaries move with the data, inserting or deleting a few rows in a
+ * dump only changes the chunks around the edit; everything else hashes to the
+ * same chunks as the previous backup and is stored once.
+ */
+public class ContentDefinedChunker {
+
+    public static final int MIN_CHUNK_SIZE = 16 * 1024;
+    public static final int AVG_CHUNK_SIZE = 64 * 1024;
+    public static final int MAX_CHUNK_SIZE = 256 * 1024;
+
+    // Stricter mask before the average size, looser after it (normalised chunking)
+    private static final long MASK_SMALL = topBits(18);
+    private static final long MASK_LARGE = topBits(14);
+
+    // Fixed seed: the gear table must be identical on every run and every machine,
+    // otherwise identical data would chunk differently and never deduplicate.
+    private static final long[] GEAR = new long[256];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5C400L);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    @FunctionalInterface
+    public interface ChunkSink {
+        /**
+         * Receives one chunk. The buffer is reused after the call returns,
+         * so implementations must copy anything they keep.
+         */
+        void accept(byte[] buffer, int length) throws IOException;
+    }
+
+    /**
+     * Read the stream to the end, handing every chunk to the sink in order.
+     */
+    public void split(InputStream in, ChunkSink sink) throws IOException {
+        byte[] chunk = new byte[MAX_CHUNK_SIZE];
+        byte[] readBuffer = new byte[64 * 1024];
+        int length = 0;
+        long hash = 0;
+
+        int read;
+        while ((read = in.read(readBuffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                byte b = readBuffer[i];
+                chunk[length++] = b;
+                hash = (hash << 1) + GEAR[b & 0xFF];
+
+                if (length < MIN_CHUNK_SIZE) {
+                    continue;
+                }
+                long mask = length < AVG_CHUNK_SIZE ? MASK_SMALL : MASK_LARGE;
+                if ((hash & mask) == 0 || length == MAX_CHUNK_SIZE) {
+                    sink.accept(chunk, length);
+                    length = 0;
+                    hash = 0;
+                }
+            }
+        }
+
+        if (length > 0) {
+            sink.accept(chunk, length);
+        }
+    }
+
+    private static long topBits(int bits) {
+        return ((1L << bits) - 1) << (64 - bits);
+    }
+}
@@ -0,0 +1,21 @@
+package com.management.school.service;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published after a restore has swapped the restored tables into the live
+ * schema. Anything that caches database content should reload on it.
+ */
+public class DatabaseRestoredEvent extends ApplicationEvent {
+
+    private final String backupName;
+
+    public DatabaseRestoredEvent(Object source, String backupName) {
+        super(source);
+        this.backupName = backupName;
+    }
+
+    public String getBackupName() {
+        return backupName;
+    }
+}
@@ -0,0 +1,324 @@
+package com.management.school.service;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Streaming AES-GCM encryption of stored documents.
+ *
+ * Every file gets its own random 256-bit key, stored in the file's header
+ * wrapped (AES-GCM encrypted) by the master key. The content follows as
+ * segments of {@value #SEGMENT_SIZE} bytes, each encrypted and authenticated
+ * separately, so files of any size are encrypted and decrypted with a fixed
+ * 64 KB buffer instead of being held in memory whole.
+ *
+ * A segment's nonce is the file's random nonce prefix, the segment number
+ * and a flag marking the last segment; the header is authenticated with every
+ * segment. Reordered, dropped, truncated or appended segments therefore all
+ * fail to decrypt.
+ *
+ * <pre>
+ * "SDOC" version(1) segmentSize(4) wrappedKeyLength(2) wrappedKey noncePrefix(7)
+ * segment*   (ciphertext + 16 byte tag)
+ * </pre>
+ */
+public class DocumentCipher {
+
+    static final int SEGMENT_SIZE = 64 * 1024;
+
+    private static final byte[] MAGIC = {'S', 'D', 'O', 'C'};
+    private static final byte FORMAT_VERSION = 1;
+    private static final int KEY_LENGTH = 32;
+    private static final int GCM_NONCE_LENGTH = 12;
+    private static final int GCM_TAG_LENGTH = 16;
+    private static final int NONCE_PREFIX_LENGTH = 7;
+    private static final byte[] KEY_WRAP_AAD = "school-document-key".getBytes(StandardCharsets.UTF_8);
+
+    private final SecretKey masterKey;
+    private final SecureRandom random = new SecureRandom();
+
+    public DocumentCipher(byte[] masterKey) {
+        if (masterKey.length != KEY_LENGTH) {
+            throw new IllegalArgumentException("Master key must be " + KEY_LENGTH + " bytes");
+        }
+        this.masterKey = new SecretKeySpec(masterKey, "AES");
+    }
+
+    /**
+     * Whether a stored file was written by this class
+     */
+    public static boolean isEncrypted(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        }
+    }
+
+    /**
+     * Stream that encrypts everything written to it into {@code out}. Closing
+     * it writes the last segment and closes {@code out}.
+     */
+    public OutputStream encrypt(OutputStream out) throws IOException {
+        byte[] fileKey = new byte[KEY_LENGTH];
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        random.nextBytes(fileKey);
+        random.nextBytes(noncePrefix);
+
+        byte[] header;
+        try {
+            header = header(wrapKey(fileKey), noncePrefix);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Could not wrap document key", e);
+        }
+        out.write(header);
+        return new EncryptingOutputStream(out, new SecretKeySpec(fileKey, "AES"), noncePrefix, header);
+    }
+
+    /**
+     * Stream of the decrypted content of an encrypted file. Fails with an
+     * IOException when the file has been tampered with or the master key is
+     * not the one it was encrypted with.
+     */
+    public InputStream decrypt(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] magic = data.readNBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not an encrypted document");
+        }
+        byte version = data.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported encrypted document version " + version);
+        }
+        int segmentSize = data.readInt();
+        if (segmentSize <= 0 || segmentSize > 16 * 1024 * 1024) {
+            throw new IOException("Corrupt encrypted document header");
+        }
+        byte[] wrappedKey = new byte[data.readUnsignedShort()];
+        data.readFully(wrappedKey);
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        data.readFully(noncePrefix);
+
+        byte[] fileKey;
+        try {
+            fileKey = unwrapKey(wrappedKey);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Document key could not be unwrapped; wrong master key?", e);
+        }
+        byte[] header = header(wrappedKey, noncePrefix);
+        return new DecryptingInputStream(in, new SecretKeySpec(fileKey, "AES"), noncePrefix, header, segmentSize);
+    }
+
+    private byte[] wrapKey(byte[] fileKey) throws GeneralSecurityException {
+        byte[] nonce = new byte[GCM_NONCE_LENGTH];
+        random.nextBytes(nonce);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, masterKey, new GCMParameterSpec(GCM_TAG_LENGTH * 8, nonce));
+        cipher.updateAAD(KEY_WRAP_AAD);
+        byte[] encrypted = cipher.doFinal(fileKey);
+        return ByteBuffer.allocate(nonce.length + encrypted.length).put(nonce).put(encrypted).array();
+    }
+
+    private byte[] unwrapKey(byte[] wrapped) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, masterKey, new GCMParameterSpec(GCM_TAG_LENGTH * 8, wrapped, 0, GCM_NONCE_LENGTH));
+        cipher.updateAAD(KEY_WRAP_AAD);
+        return cipher.doFinal(wrapped, GCM_NONCE_LENGTH, wrapped.length - GCM_NONCE_LENGTH);
+    }
+
+    private static byte[] header(byte[] wrappedKey, byte[] noncePrefix) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.write(MAGIC);
+        header.writeByte(FORMAT_VERSION);
+        header.writeInt(SEGMENT_SIZE);
+        header.writeShort(wrappedKey.length);
+        header.write(wrappedKey);
+        header.write(noncePrefix);
+        return bytes.toByteArray();
+    }
+
+    private static GCMParameterSpec segmentNonce(byte[] noncePrefix, int segment, boolean last) {
+        byte[] nonce = ByteBuffer.allocate(GCM_NONCE_LENGTH)
+            .put(noncePrefix)
+            .putInt(segment)
+            .put((byte) (last ? 1 : 0))
+            .array();
+        return new GCMParameterSpec(GCM_TAG_LENGTH * 8, nonce);
+    }
+
+    private static Cipher newCipher() throws IOException {
+        try {
+            return Cipher.getInstance("AES/GCM/NoPadding");
+        } catch (GeneralSecurityException e) {
+            throw new IOException("AES-GCM not available", e);
+        }
+    }
+
+    /**
+     * Holds back one full segment, since whether it is the last one is only
+     * known once more data arrives or the stream is closed.
+     */
+    private static final class EncryptingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final SecretKey key;
+        private final byte[] noncePrefix;
+        private final byte[] header;
+        private final Cipher cipher;
+        private final byte[] plain = new byte[SEGMENT_SIZE];
+        private final byte[] encrypted = new byte[SEGMENT_SIZE + GCM_TAG_LENGTH];
+        private int buffered;
+        private int segment;
+        private boolean closed;
+
+        EncryptingOutputStream(OutputStream out, SecretKey key, byte[] noncePrefix, byte[] header) throws IOException {
+            this.out = out;
+            this.key = key;
+            this.noncePrefix = noncePrefix;
+            this.header = header;
+            this.cipher = newCipher();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (buffered == SEGMENT_SIZE) {
+                    writeSegment(false);
+                }
+                int n = Math.min(len, SEGMENT_SIZE - buffered);
+                System.arraycopy(b, off, plain, buffered, n);
+                buffered += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void writeSegment(boolean last) throws IOException {
+            if (segment == Integer.MAX_VALUE) {
+                throw new IOException("Document too large to encrypt");
+            }
+            try {
+                cipher.init(Cipher.ENCRYPT_MODE, key, segmentNonce(noncePrefix, segment++, last));
+                cipher.updateAAD(header);
+                int length = cipher.doFinal(plain, 0, buffered, encrypted, 0);
+                out.write(encrypted, 0, length);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Could not encrypt document", e);
+            }
+            buffered = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writeSegment(true);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Reads one byte past each segment to tell whether it is the last one.
+     */
+    private static final class DecryptingInputStream extends InputStream {
+        private final InputStream in;
+        private final SecretKey key;
+        private final byte[] noncePrefix;
+        private final byte[] header;
+        private final Cipher cipher;
+        private final byte[] encrypted;
+        private final byte[] plain;
+        private int encryptedLength;
+        private int position;
+        private int available;
+        private int segment;
+        private boolean finished;
+
+        DecryptingInputStream(InputStream in, SecretKey key, byte[] noncePrefix, byte[] header, int segmentSize)
+                throws IOException {
+            this.in = in;
+            this.key = key;
+            this.noncePrefix = noncePrefix;
+            this.header = header;
+            this.cipher = newCipher();
+            this.encrypted = new byte[segmentSize + GCM_TAG_LENGTH + 1];
+            this.plain = new byte[segmentSize + GCM_TAG_LENGTH];
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position == available) {
+                if (finished) {
+                    return -1;
+                }
+                readSegment();
+            }
+            int n = Math.min(len, available - position);
+            System.arraycopy(plain, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        private void readSegment() throws IOException {
+            // The look-ahead byte of the previous segment starts this one
+            int full = encrypted.length - 1;
+            int read = encryptedLength > full ? 1 : 0;
+            if (read == 1) {
+                encrypted[0] = encrypted[full];
+            }
+            read += in.readNBytes(encrypted, read, encrypted.length - read);
+            boolean last = read <= full;
+            int length = last ? read : full;
+            if (length < GCM_TAG_LENGTH) {
+                throw new IOException("Encrypted document is truncated");
+            }
+            try {
+                cipher.init(Cipher.DECRYPT_MODE, key, segmentNonce(noncePrefix, segment++, last));
+                cipher.updateAAD(header);
+                available = cipher.doFinal(encrypted, 0, length, plain, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Encrypted document failed authentication", e);
+            }
+            encryptedLength = read;
+            position = 0;
+            finished = last;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.management.school.service;
+
+import com.management.school.model.Document.DocumentType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which active students are missing which documents, for the whole school
+ * in one query.
+ *
+ * Each document type is one bit of a mask ({@code 1 << ordinal}); the query
+ * left-joins the active documents to the active students and adds up the
+ * distinct bits per student, so a student's row carries every type present
+ * - and a student with no documents at all still gets a row, with mask 0.
+ * Students are reported in their class; one not yet linked to a class (see
+ * {@code SchoolClassMigration}) is reported by its own grade and section.
+ * Summing distinct powers of two is a bitwise OR that every database
+ * understands.
+ */
+@Service
+public class DocumentComplianceService {
+
+    private static final int ALL_TYPES = (1 << DocumentType.values().length) - 1;
+
+    // The student's class, or their own grade and section until they are linked to one
+    private static final String GRADE = "COALESCE(c.grade, s.grade)";
+    private static final String SECTION = "COALESCE(c.section, s.section)";
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * The documents one student has, as a bitmask of {@link DocumentType}s
+     */
+    public record StudentCompliance(Long studentId, String rollNumber, String name, String grade, String section,
+                                    int presentTypes) {
+
+        public boolean has(DocumentType type) {
+            return (presentTypes & bit(type)) != 0;
+        }
+
+        public boolean isComplete() {
+            return presentTypes == ALL_TYPES;
+        }
+
+        public List<DocumentType> getMissing() {
+            List<DocumentType> missing = new ArrayList<>();
+            for (DocumentType type : DocumentType.values()) {
+                if (!has(type)) {
+                    missing.add(type);
+                }
+            }
+            return missing;
+        }
+
+        public String getClassName() {
+            return grade + "-" + section;
+        }
+    }
+
+    /**
+     * Totals for one class (grade and section)
+     */
+    public record ClassCompliance(String grade, String section, int students, int complete,
+                                  Map<DocumentType, Integer> present) {
+
+        public double completionPercent() {
+            return students == 0 ? 0 : complete * 100.0 / students;
+        }
+
+        public double presentPercent(DocumentType type) {
+            return students == 0 ? 0 : present.getOrDefault(type, 0) * 100.0 / students;
+        }
+
+        public String getClassName() {
+            return grade + "-" + section;
+        }
+    }
+
+    /**
+     * Every active student with the document types they have
+     *
+     * @param grade only this grade, or all when null
+     * @param section only this section, or all when null
+     */
+    public List<StudentCompliance> findStudentCompliance(String grade, String section) {
+        StringBuilder sql = new StringBuilder()
+            .append("SELECT s.id, s.roll_number, s.name, ").append(GRADE).append(" AS grade, ").append(SECTION)
+            .append(" AS section, COALESCE(SUM(DISTINCT CASE d.document_type");
+        for (DocumentType type : DocumentType.values()) {
+            // Enum names are fixed identifiers, safe to inline
+            sql.append(" WHEN '").append(type.name()).append("' THEN ").append(bit(type));
+        }
+        sql.append(" END), 0) AS present_types")
+            .append(" FROM students s")
+            .append(" LEFT JOIN school_classes c ON c.id = s.class_id")
+            .append(" LEFT JOIN documents d ON d.student_id = s.id AND d.active = TRUE")
+            .append(" WHERE s.active = TRUE");
+
+        List<Object> params = new ArrayList<>();
+        if (grade != null) {
+            sql.append(" AND ").append(GRADE).append(" = ?");
+            params.add(grade);
+        }
+        if (section != null) {
+            sql.append(" AND ").append(SECTION).append(" = ?");
+            params.add(section);
+        }
+        sql.append(" GROUP BY s.id, s.roll_number, s.name, s.grade, s.section, c.id, c.grade, c.section, c.display_order")
+            // Students not linked to a class yet come last
+            .append(" ORDER BY c.display_order IS NULL, c.display_order, ").append(GRADE).append(", ").append(SECTION)
+            .append(", s.roll_number");
+
+        return new JdbcTemplate(dataSource).query(sql.toString(), (rs, row) -> new StudentCompliance(
+            rs.getLong("id"),
+            rs.getString("roll_number"),
+            rs.getString("name"),
+            rs.getString("grade"),
+            rs.getString("section"),
+            rs.getInt("present_types")
+        ), params.toArray());
+    }
+
+    /**
+     * Per-class totals, in the order the classes first appear
+     */
+    public static List<ClassCompliance> summarizeByClass(List<StudentCompliance> students) {
+        Map<String, List<StudentCompliance>> byClass = new LinkedHashMap<>();
+        for (StudentCompliance student : students) {
+            byClass.computeIfAbsent(student.getClassName(), k -> new ArrayList<>()).add(student);
+        }
+
+        List<ClassCompliance> classes = new ArrayList<>(byClass.size());
+        for (List<StudentCompliance> members : byClass.values()) {
+            int complete = 0;
+            Map<DocumentType, Integer> present = new EnumMap<>(DocumentType.class);
+            for (StudentCompliance student : members) {
+                if (student.isComplete()) {
+                    complete++;
+                }
+                for (DocumentType type : DocumentType.values()) {
+                    if (student.has(type)) {
+                        present.merge(type, 1, Integer::sum);
+                    }
+                }
+            }
+            StudentCompliance first = members.get(0);
+            classes.add(new ClassCompliance(first.grade(), first.section(), members.size(), complete,
+                Collections.unmodifiableMap(present)));
+        }
+        return classes;
+    }
+
+    private static int bit(DocumentType type) {
+        return 1 << type.ordinal();
+    }
+}
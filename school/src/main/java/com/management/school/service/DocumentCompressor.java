@@ -0,0 +1,251 @@
+package com.management.school.service;
+
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Shrinks uploaded documents before they are stored.
+ *
+ * Images are decoded, turned upright according to their EXIF orientation,
+ * scaled to fit {@code app.documents.image.max-dimension} and re-encoded as
+ * JPEG at {@code app.documents.image.quality}. Re-encoding drops all metadata,
+ * camera details and GPS position included. Opaque PNGs become JPEGs; PNGs
+ * with transparency are kept as they are. In PDFs, page images larger than
+ * the maximum dimension - the pages of a scan, usually - are downsampled the
+ * same way when {@code app.documents.compress.pdf} is on.
+ *
+ * The compressed version is only used when it is smaller than the original.
+ * Anything that cannot be decoded is stored unchanged.
+ */
+@Service
+public class DocumentCompressor {
+
+    @Value("${app.documents.compress.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.documents.compress.pdf:true}")
+    private boolean compressPdf;
+
+    @Value("${app.documents.image.max-dimension:2000}")
+    private int maxDimension;
+
+    @Value("${app.documents.image.quality:0.8}")
+    private float quality;
+
+    @Autowired
+    private DocumentStorage documentStorage;
+
+    /**
+     * The file to store and its extension. When nothing was gained
+     * {@code file} is the original file.
+     */
+    public record Result(Path file, String extension, long originalSize, long size, boolean compressed) {
+
+        public long savedBytes() {
+            return originalSize - size;
+        }
+    }
+
+    public Result compress(Path source, String extension) throws IOException {
+        long originalSize = Files.size(source);
+        Result original = new Result(source, extension, originalSize, originalSize, false);
+        if (!enabled) {
+            return original;
+        }
+
+        Path target = Files.createTempFile(stagingDir(), "compress-", ".tmp");
+        String targetExtension;
+        try {
+            targetExtension = switch (extension.toLowerCase(Locale.ROOT)) {
+                case ".jpg", ".jpeg", ".png" -> compressImage(source, target) ? ".jpg" : null;
+                case ".pdf" -> compressPdf && compressPdf(source, target) ? ".pdf" : null;
+                default -> null;
+            };
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not compress " + source.getFileName() + ", storing it unchanged: " + e.getMessage());
+            targetExtension = null;
+        }
+
+        long size = Files.size(target);
+        if (targetExtension == null || size == 0 || size >= originalSize) {
+            Files.deleteIfExists(target);
+            return original;
+        }
+        return new Result(target, targetExtension, originalSize, size, true);
+    }
+
+    /**
+     * Delete the compressed copy once it has been stored
+     */
+    public void discard(Result result) throws IOException {
+        if (result.compressed()) {
+            Files.deleteIfExists(result.file());
+        }
+    }
+
+    // ==================== Images ====================
+
+    private boolean compressImage(Path source, Path target) throws IOException {
+        BufferedImage image = ImageIO.read(source.toFile());
+        if (image == null || image.getColorModel().hasAlpha()) {
+            return false;
+        }
+        image = orient(image, readExifOrientation(source));
+        Files.write(target, ThumbnailService.encodeJpeg(ThumbnailService.scale(image, maxDimension), quality));
+        return true;
+    }
+
+    /**
+     * Turn the image the way the camera meant it to be shown. Mirrored
+     * orientations (2, 4, 5, 7) are not written by cameras and are ignored.
+     */
+    private static BufferedImage orient(BufferedImage image, int orientation) {
+        int quarterTurns = switch (orientation) {
+            case 6 -> 1;
+            case 3 -> 2;
+            case 8 -> 3;
+            default -> 0;
+        };
+        if (quarterTurns == 0) {
+            return image;
+        }
+        boolean swap = quarterTurns % 2 == 1;
+        int width = swap ? image.getHeight() : image.getWidth();
+        int height = swap ? image.getWidth() : image.getHeight();
+        BufferedImage rotated = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rotated.createGraphics();
+        try {
+            AffineTransform transform = new AffineTransform();
+            transform.translate(width / 2.0, height / 2.0);
+            transform.quadrantRotate(quarterTurns);
+            transform.translate(-image.getWidth() / 2.0, -image.getHeight() / 2.0);
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return rotated;
+    }
+
+    /**
+     * The EXIF orientation tag of a JPEG, or 1 (upright) when there is none
+     */
+    static int readExifOrientation(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readUnsignedShort() != 0xFFD8) {
+                return 1;
+            }
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA) {
+                    // Image data starts; no EXIF segment before it
+                    return 1;
+                }
+                int length = in.readUnsignedShort() - 2;
+                byte[] segment = new byte[length];
+                in.readFully(segment);
+                if (marker == 0xFFE1 && length > 14 && new String(segment, 0, 6, StandardCharsets.ISO_8859_1).equals("Exif\0\0")) {
+                    return orientationFromTiff(segment, 6);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Truncated or malformed segment
+            return 1;
+        }
+    }
+
+    private static int orientationFromTiff(byte[] data, int tiff) {
+        boolean littleEndian = data[tiff] == 'I';
+        int ifd = tiff + readInt(data, tiff + 4, littleEndian);
+        int entries = readShort(data, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (readShort(data, entry, littleEndian) == 0x0112) {
+                return readShort(data, entry + 8, littleEndian);
+            }
+        }
+        return 1;
+    }
+
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int a = data[offset] & 0xFF;
+        int b = data[offset + 1] & 0xFF;
+        return littleEndian ? (b << 8) | a : (a << 8) | b;
+    }
+
+    private static int readInt(byte[] data, int offset, boolean littleEndian) {
+        int high = readShort(data, offset + (littleEndian ? 2 : 0), littleEndian);
+        int low = readShort(data, offset + (littleEndian ? 0 : 2), littleEndian);
+        return (high << 16) | low;
+    }
+
+    // ==================== PDFs ====================
+
+    /**
+     * Downsample oversized page images; images shared by several pages are
+     * converted once.
+     *
+     * @return whether any image was replaced
+     */
+    private boolean compressPdf(Path source, Path target) throws IOException {
+        try (PDDocument pdf = PDDocument.load(source.toFile())) {
+            if (pdf.isEncrypted()) {
+                return false;
+            }
+            Map<COSBase, PDImageXObject> replaced = new HashMap<>();
+            for (PDPage page : pdf.getPages()) {
+                PDResources resources = page.getResources();
+                if (resources == null) {
+                    continue;
+                }
+                for (COSName name : resources.getXObjectNames()) {
+                    PDXObject object = resources.getXObject(name);
+                    if (!(object instanceof PDImageXObject image) || image.isStencil() || image.getSoftMask() != null
+                            || Math.max(image.getWidth(), image.getHeight()) <= maxDimension) {
+                        continue;
+                    }
+                    PDImageXObject smaller = replaced.get(image.getCOSObject());
+                    if (smaller == null) {
+                        BufferedImage scaled = ThumbnailService.scale(image.getImage(), maxDimension);
+                        smaller = JPEGFactory.createFromImage(pdf, scaled, quality);
+                        replaced.put(image.getCOSObject(), smaller);
+                    }
+                    resources.put(name, smaller);
+                }
+            }
+            if (replaced.isEmpty()) {
+                return false;
+            }
+            pdf.save(target.toFile());
+            return true;
+        }
+    }
+
+    private Path stagingDir() throws IOException {
+        Path stagingDir = documentStorage.getUploadDir().resolve(DocumentStorage.STAGING_DIR);
+        Files.createDirectories(stagingDir);
+        return stagingDir;
+    }
+}
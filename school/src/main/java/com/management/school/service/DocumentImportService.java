@@ -0,0 +1,508 @@
+package com.management.school.service;
+
+import com.management.school.model.Document;
+import com.management.school.model.Document.DocumentType;
+import com.management.school.model.Student;
+import com.management.school.repository.DocumentRepository;
+import com.management.school.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Imports scanned documents in bulk from a folder or a zip file.
+ *
+ * Files are named {@code <roll number>_<type>.<ext>}, e.g.
+ * {@code 2024-017_aadhar.pdf} or {@code 2024-017 birth certificate.jpg}, or
+ * just {@code <type>.<ext>} inside a folder named after the roll number. The
+ * import looks up all roll numbers and existing documents in a few batched
+ * queries, copies, hashes and compresses the files into the document store
+ * in parallel, and then writes the documents in batches of {@value #BATCH_SIZE}, one
+ * transaction per batch. Every file ends up in the report as imported,
+ * duplicate or rejected.
+ */
+@Service
+public class DocumentImportService {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int LOOKUP_SIZE = 500;
+
+    // Longest first, so that "parent_aadhar" is not read as a student's "aadhar"
+    private static final List<Map.Entry<String, DocumentType>> TYPE_NAMES = typeNames();
+
+    @Value("${app.documents.import.threads:4}")
+    private int threads;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private DocumentStorage documentStorage;
+
+    @Autowired
+    private DocumentCompressor documentCompressor;
+
+    public enum Outcome {
+        IMPORTED,
+        REPLACED,
+        DUPLICATE,
+        REJECTED
+    }
+
+    /**
+     * What happened to one file of the import. Roll number and type are null
+     * when the file name could not be read; sizes are 0 unless it was stored.
+     */
+    public record ImportEntry(String fileName, String rollNumber, DocumentType documentType,
+                              Outcome outcome, String message, long originalSize, long storedSize) {
+    }
+
+    public record ImportReport(Path source, List<ImportEntry> entries, long elapsedMillis) {
+
+        public long count(Outcome outcome) {
+            return entries.stream().filter(entry -> entry.outcome() == outcome).count();
+        }
+
+        /**
+         * Storage saved by compressing the imported files
+         */
+        public long savedBytes() {
+            return entries.stream().mapToLong(entry -> entry.originalSize() - entry.storedSize()).sum();
+        }
+
+        /**
+         * Write the report as CSV, one line per file
+         */
+        public void writeCsv(Path target) throws IOException {
+            try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+                writer.write("file,roll_number,document_type,outcome,message,original_size,stored_size");
+                writer.newLine();
+                for (ImportEntry entry : entries) {
+                    writer.write(String.join(",", csv(entry.fileName()), csv(entry.rollNumber()),
+                        csv(entry.documentType() != null ? entry.documentType().name() : null),
+                        entry.outcome().name(), csv(entry.message()),
+                        String.valueOf(entry.originalSize()), String.valueOf(entry.storedSize())));
+                    writer.newLine();
+                }
+            }
+        }
+
+        private static String csv(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+                return "\"" + value.replace("\"", "\"\"") + "\"";
+            }
+            return value;
+        }
+    }
+
+    /**
+     * A file found in the source, and what the import decided about it
+     */
+    private static final class Candidate {
+        final String name;
+        final long size;
+        final InputStreamSource source;
+        String rollNumber;
+        DocumentType documentType;
+        Student student;
+        Document existing;
+        DocumentStorage.StagedFile staged;
+        String extension;
+        long originalSize;
+        ImportEntry result;
+
+        Candidate(String name, long size, InputStreamSource source) {
+            this.name = name;
+            this.size = size;
+            this.source = source;
+        }
+
+        void finish(Outcome outcome, String message) {
+            boolean stored = outcome == Outcome.IMPORTED || outcome == Outcome.REPLACED;
+            result = new ImportEntry(name, rollNumber, documentType, outcome, message,
+                stored ? originalSize : 0, stored ? staged.size() : 0);
+        }
+    }
+
+    @FunctionalInterface
+    private interface InputStreamSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Import every document in a folder (searched recursively) or zip file.
+     *
+     * @param replaceExisting replace a student's current document of the same
+     *                        type; otherwise such files are reported as duplicates
+     */
+    public ImportReport importDocuments(Path source, boolean replaceExisting) throws IOException {
+        long startNanos = System.nanoTime();
+        boolean zip = Files.isRegularFile(source) && source.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".zip");
+        if (!zip && !Files.isDirectory(source)) {
+            throw new IOException("Not a folder or zip file: " + source);
+        }
+
+        List<Candidate> candidates;
+        if (zip) {
+            try (ZipFile zipFile = new ZipFile(source.toFile())) {
+                candidates = listZip(zipFile);
+                importCandidates(candidates, replaceExisting);
+            }
+        } else {
+            candidates = listFolder(source);
+            importCandidates(candidates, replaceExisting);
+        }
+
+        List<ImportEntry> entries = new ArrayList<>(candidates.size());
+        candidates.forEach(candidate -> entries.add(candidate.result));
+        return new ImportReport(source, entries, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private void importCandidates(List<Candidate> candidates, boolean replaceExisting) throws IOException {
+        validate(candidates);
+        rejectAmbiguous(candidates);
+        findStudents(candidates);
+        findExistingDocuments(candidates, replaceExisting);
+
+        List<Candidate> accepted = pending(candidates);
+        try {
+            stageAll(accepted);
+            List<Candidate> staged = pending(accepted);
+            for (int from = 0; from < staged.size(); from += BATCH_SIZE) {
+                save(staged.subList(from, Math.min(staged.size(), from + BATCH_SIZE)));
+            }
+        } finally {
+            for (Candidate candidate : accepted) {
+                if (candidate.staged != null) {
+                    documentStorage.discard(candidate.staged);
+                }
+            }
+        }
+    }
+
+    // ==================== Sources ====================
+
+    private static List<Candidate> listFolder(Path folder) throws IOException {
+        List<Candidate> candidates = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(folder)) {
+            for (Path file : walk.filter(Files::isRegularFile).sorted().toList()) {
+                String name = folder.relativize(file).toString().replace('\\', '/');
+                if (!isHidden(name)) {
+                    candidates.add(new Candidate(name, Files.size(file), () -> Files.newInputStream(file)));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Entries are read straight out of the zip; nothing is extracted first
+     */
+    private static List<Candidate> listZip(ZipFile zipFile) {
+        List<Candidate> candidates = new ArrayList<>();
+        List<? extends ZipEntry> entries = Collections.list(zipFile.entries());
+        entries.sort(Comparator.comparing(ZipEntry::getName));
+        for (ZipEntry entry : entries) {
+            if (!entry.isDirectory() && !isHidden(entry.getName())) {
+                candidates.add(new Candidate(entry.getName(), entry.getSize(), () -> zipFile.getInputStream(entry)));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Dot files and the resource forks macOS adds to zips are not documents
+     */
+    private static boolean isHidden(String name) {
+        return name.startsWith("__MACOSX/") || fileName(name).startsWith(".") || fileName(name).equalsIgnoreCase("Thumbs.db");
+    }
+
+    // ==================== Checks ====================
+
+    private static void validate(List<Candidate> candidates) {
+        for (Candidate candidate : candidates) {
+            String extension = DocumentService.getFileExtension(fileName(candidate.name));
+            if (!DocumentService.isAllowedExtension(extension)) {
+                candidate.finish(Outcome.REJECTED, "File type not allowed. Allowed types: PDF, JPG, JPEG, PNG");
+            } else if (candidate.size > DocumentService.MAX_UPLOAD_SIZE) {
+                candidate.finish(Outcome.REJECTED, "File size exceeds maximum upload limit of 25MB");
+            } else if (!parseName(candidate)) {
+                candidate.finish(Outcome.REJECTED, "File name does not say which student and document it is");
+            }
+        }
+    }
+
+    /**
+     * Several files for the same student and document type: none of them is
+     * imported, since there is no telling which one is right.
+     */
+    private static void rejectAmbiguous(List<Candidate> candidates) {
+        Map<String, List<Candidate>> byDocument = new HashMap<>();
+        for (Candidate candidate : pending(candidates)) {
+            byDocument.computeIfAbsent(rollKey(candidate.rollNumber) + "/" + candidate.documentType,
+                key -> new ArrayList<>()).add(candidate);
+        }
+        for (List<Candidate> group : byDocument.values()) {
+            if (group.size() > 1) {
+                group.forEach(candidate -> candidate.finish(Outcome.DUPLICATE,
+                    group.size() + " files in the import for this student's " + candidate.documentType.getDisplayName()));
+            }
+        }
+    }
+
+    private void findStudents(List<Candidate> candidates) {
+        Map<String, String> distinct = new LinkedHashMap<>();
+        pending(candidates).forEach(c -> distinct.putIfAbsent(rollKey(c.rollNumber), c.rollNumber));
+        List<String> rollNumbers = new ArrayList<>(distinct.values());
+        Map<String, Student> students = new HashMap<>();
+        for (int from = 0; from < rollNumbers.size(); from += LOOKUP_SIZE) {
+            List<String> batch = rollNumbers.subList(from, Math.min(rollNumbers.size(), from + LOOKUP_SIZE));
+            // Keyed case-insensitively, as the database compares them
+            studentRepository.findByRollNumberIn(batch).forEach(student -> students.put(rollKey(student.getRollNumber()), student));
+        }
+        for (Candidate candidate : pending(candidates)) {
+            candidate.student = students.get(rollKey(candidate.rollNumber));
+            if (candidate.student == null) {
+                candidate.finish(Outcome.REJECTED, "No student with roll number " + candidate.rollNumber);
+            }
+        }
+    }
+
+    private void findExistingDocuments(List<Candidate> candidates, boolean replaceExisting) {
+        List<Long> studentIds = pending(candidates).stream().map(c -> c.student.getId()).distinct().toList();
+        Map<String, Document> existing = new HashMap<>();
+        for (int from = 0; from < studentIds.size(); from += LOOKUP_SIZE) {
+            List<Long> batch = studentIds.subList(from, Math.min(studentIds.size(), from + LOOKUP_SIZE));
+            documentRepository.findByStudentIdInAndActiveTrue(batch)
+                .forEach(document -> existing.put(document.getStudentId() + "/" + document.getDocumentType(), document));
+        }
+        for (Candidate candidate : pending(candidates)) {
+            candidate.existing = existing.get(candidate.student.getId() + "/" + candidate.documentType);
+            if (candidate.existing != null && !replaceExisting) {
+                candidate.finish(Outcome.DUPLICATE, "Student already has a " + candidate.documentType.getDisplayName());
+            }
+        }
+    }
+
+    // ==================== Copying and saving ====================
+
+    /**
+     * Copy and hash the files into the staging directory in parallel, and
+     * check that their content is what the extension claims.
+     */
+    private void stageAll(List<Candidate> candidates) {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "document-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            CompletableFuture.allOf(candidates.stream()
+                .map(candidate -> CompletableFuture.runAsync(() -> stage(candidate), pool))
+                .toArray(CompletableFuture[]::new)).join();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void stage(Candidate candidate) {
+        String extension = DocumentService.getFileExtension(candidate.name);
+        try (InputStream in = candidate.source.open()) {
+            candidate.staged = documentStorage.stage(in);
+        } catch (IOException e) {
+            candidate.finish(Outcome.REJECTED, "Could not read file: " + e.getMessage());
+            return;
+        }
+        try {
+            if (candidate.staged.size() > DocumentService.MAX_UPLOAD_SIZE) {
+                candidate.finish(Outcome.REJECTED, "File size exceeds maximum upload limit of 25MB");
+            } else if (!hasExpectedSignature(candidate.staged.path(), extension)) {
+                candidate.finish(Outcome.REJECTED, "File content does not match its " + extension + " extension");
+            } else if (isExistingContent(candidate)) {
+                candidate.finish(Outcome.DUPLICATE, "Same file is already uploaded");
+            } else {
+                compress(candidate, extension);
+            }
+        } catch (IOException e) {
+            candidate.finish(Outcome.REJECTED, "Could not check file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the staged file with its compressed version, if that is smaller
+     */
+    private void compress(Candidate candidate, String extension) throws IOException {
+        candidate.extension = extension;
+        candidate.originalSize = candidate.staged.size();
+        DocumentCompressor.Result compressed = documentCompressor.compress(candidate.staged.path(), extension);
+        try {
+            if (compressed.compressed()) {
+                DocumentStorage.StagedFile original = candidate.staged;
+                candidate.staged = documentStorage.stage(compressed.file());
+                candidate.extension = compressed.extension();
+                documentStorage.discard(original);
+            }
+        } finally {
+            documentCompressor.discard(compressed);
+        }
+
+        if (candidate.staged.size() > DocumentService.MAX_FILE_SIZE) {
+            candidate.finish(Outcome.REJECTED, "File size exceeds maximum limit of 5MB"
+                + (compressed.compressed() ? " even after compression" : ""));
+        } else if (compressed.compressed() && isExistingContent(candidate)) {
+            candidate.finish(Outcome.DUPLICATE, "Same file is already uploaded");
+        }
+    }
+
+    private static boolean isExistingContent(Candidate candidate) {
+        return candidate.existing != null && candidate.staged.contentKey().equals(candidate.existing.getContentKey());
+    }
+
+    private void save(List<Candidate> batch) {
+        List<DocumentService.StagedDocument> documents = new ArrayList<>(batch.size());
+        for (Candidate candidate : batch) {
+            documents.add(new DocumentService.StagedDocument(candidate.student.getId(), candidate.documentType,
+                fileName(candidate.name), candidate.staged, candidate.extension,
+                candidate.staged.size() < candidate.originalSize ? candidate.originalSize : null, candidate.existing));
+        }
+        try {
+            documentService.saveStagedDocuments(documents);
+            for (Candidate candidate : batch) {
+                if (candidate.existing != null) {
+                    candidate.finish(Outcome.REPLACED, "Replaced " + candidate.existing.getFileName());
+                } else {
+                    candidate.finish(Outcome.IMPORTED, null);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // The batch was rolled back as a whole
+            System.err.println("Failed to save imported documents: " + e.getMessage());
+            batch.forEach(candidate -> candidate.finish(Outcome.REJECTED, "Could not be saved: " + e.getMessage()));
+        }
+    }
+
+    private static boolean hasExpectedSignature(Path file, String extension) throws IOException {
+        byte[] header = new byte[4];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(header, 0, header.length);
+        }
+        if (read < header.length) {
+            return false;
+        }
+        return switch (extension.toLowerCase(Locale.ROOT)) {
+            case ".pdf" -> Arrays.equals(header, new byte[] {'%', 'P', 'D', 'F'});
+            case ".jpg", ".jpeg" -> (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF;
+            case ".png" -> Arrays.equals(header, new byte[] {(byte) 0x89, 'P', 'N', 'G'});
+            default -> false;
+        };
+    }
+
+    // ==================== File names ====================
+
+    /**
+     * Read roll number and document type from the name, or from the folder
+     * when the file name is just the document type.
+     */
+    private static boolean parseName(Candidate candidate) {
+        String name = fileName(candidate.name);
+        String base = name.substring(0, name.length() - DocumentService.getFileExtension(name).length());
+        String normalized = normalize(base);
+        for (Map.Entry<String, DocumentType> type : TYPE_NAMES) {
+            String rollNumber = null;
+            if (normalized.equals(type.getKey())) {
+                int slash = candidate.name.lastIndexOf('/');
+                rollNumber = slash > 0 ? fileName(candidate.name.substring(0, slash)) : null;
+            } else if (normalized.endsWith("_" + type.getKey())) {
+                rollNumber = base.substring(0, base.length() - type.getKey().length() - 1);
+            }
+            if (rollNumber != null) {
+                rollNumber = rollNumber.strip().replaceAll("[ _.-]+$", "");
+                if (!rollNumber.isEmpty()) {
+                    candidate.rollNumber = rollNumber;
+                    candidate.documentType = type.getValue();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lower case with every separator turned into '_'; keeps the length, so
+     * positions in the result are positions in the original name
+     */
+    private static String normalize(String name) {
+        StringBuilder normalized = new StringBuilder(name.length());
+        for (char c : name.toCharArray()) {
+            normalized.append(Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : '_');
+        }
+        return normalized.toString();
+    }
+
+    private static List<Map.Entry<String, DocumentType>> typeNames() {
+        Map<String, DocumentType> names = new LinkedHashMap<>();
+        for (DocumentType type : DocumentType.values()) {
+            names.put(type.name().toLowerCase(Locale.ROOT), type);
+            names.put(normalize(type.getDisplayName()), type);
+        }
+        names.put("aadhar", DocumentType.STUDENT_AADHAR);
+        names.put("aadhaar", DocumentType.STUDENT_AADHAR);
+        names.put("student_aadhaar", DocumentType.STUDENT_AADHAR);
+        names.put("birth", DocumentType.STUDENT_BIRTH_CERTIFICATE);
+        names.put("birth_cert", DocumentType.STUDENT_BIRTH_CERTIFICATE);
+        names.put("birth_certificate", DocumentType.STUDENT_BIRTH_CERTIFICATE);
+        names.put("photo", DocumentType.STUDENT_PHOTO);
+        names.put("parent_aadhaar", DocumentType.PARENT_AADHAR);
+        names.put("voter", DocumentType.PARENT_VOTER_ID);
+        names.put("voter_id", DocumentType.PARENT_VOTER_ID);
+        names.put("parent_voter", DocumentType.PARENT_VOTER_ID);
+
+        List<Map.Entry<String, DocumentType>> sorted = new ArrayList<>(names.entrySet());
+        sorted.sort(Comparator.comparingInt((Map.Entry<String, DocumentType> e) -> e.getKey().length()).reversed());
+        return List.copyOf(sorted);
+    }
+
+    private static String fileName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static String rollKey(String rollNumber) {
+        return rollNumber.toUpperCase(Locale.ROOT);
+    }
+
+    private static List<Candidate> pending(List<Candidate> candidates) {
+        return candidates.stream().filter(candidate -> candidate.result == null).toList();
+    }
+}
@@ -2,21 +2,29 @@ package com.management.school.service;
 
 import com.management.school.model.Document;
 import com.management.school.model.Document.DocumentType;
+import com.management.school.model.DocumentBlob;
+import com.management.school.repository.DocumentBlobRepository;
 import com.management.school.repository.DocumentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 @Service
@@ -25,62 +33,174 @@ public class DocumentService {
     @Autowired
     private DocumentRepository documentRepository;
     
-    @Value("${document.upload.path:uploads/documents}")
-    private String uploadPath;
+    @Autowired
+    private DocumentStorage documentStorage;
     
-    private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
-    private static final String[] ALLOWED_EXTENSIONS = {".pdf", ".jpg", ".jpeg", ".png"};
+    @Autowired
+    private DocumentBlobRepository blobRepository;
     
-    @Transactional
+    @Autowired
+    private ThumbnailService thumbnailService;
+    
+    @Autowired
+    private DocumentCompressor documentCompressor;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB, as stored
+    static final long MAX_UPLOAD_SIZE = 25 * 1024 * 1024; // 25MB before compression
+    static final String[] ALLOWED_EXTENSIONS = {".pdf", ".jpg", ".jpeg", ".png"};
+    private static final int LOOKUP_SIZE = 500; // student ids per IN list
+    
+    /**
+     * A file staged for storing, and the document it replaces if any
+     *
+     * @param originalSize size as uploaded, when the staged file is a compressed version
+     */
+    public record StagedDocument(Long studentId, DocumentType documentType, String fileName,
+                                 DocumentStorage.StagedFile file, String fileExtension, Long originalSize,
+                                 Document replaces) {
+    }
+    
+    /**
+     * Compress, stage and save an uploaded file. Compressing happens before
+     * the transaction starts, so no database connection is held meanwhile.
+     */
     public Document uploadDocument(Long studentId, DocumentType documentType, 
                                    File sourceFile, String originalFileName) throws IOException {
         
         // Validate file
         validateFile(sourceFile, originalFileName);
         
+        DocumentCompressor.Result compressed = documentCompressor.compress(sourceFile.toPath(),
+            getFileExtension(originalFileName));
+        DocumentStorage.StagedFile staged = null;
+        try {
+            if (compressed.size() > MAX_FILE_SIZE) {
+                throw new IOException("File size exceeds maximum limit of 5MB"
+                    + (compressed.compressed() ? " even after compression" : ""));
+            }
+            staged = documentStorage.stage(compressed.file());
+            StagedDocument document = new StagedDocument(studentId, documentType, originalFileName, staged,
+                compressed.extension(), compressed.compressed() ? compressed.originalSize() : null, null);
+            return new TransactionTemplate(transactionManager).execute(status -> saveUploaded(document));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (staged != null) {
+                documentStorage.discard(staged);
+            }
+            documentCompressor.discard(compressed);
+        }
+    }
+    
+    private Document saveUploaded(StagedDocument staged) {
         // Check if document already exists for this student and type
-        documentRepository.findByStudentIdAndDocumentTypeAndActiveTrue(studentId, documentType)
+        documentRepository.findByStudentIdAndDocumentTypeAndActiveTrue(staged.studentId(), staged.documentType())
             .ifPresent(existingDoc -> {
                 // Mark old document as inactive
                 existingDoc.setActive(false);
                 documentRepository.save(existingDoc);
                 
-                // Delete old file
-                try {
-                    Files.deleteIfExists(Paths.get(existingDoc.getFilePath()));
-                } catch (IOException e) {
-                    // Log but don't fail
-                    System.err.println("Failed to delete old file: " + e.getMessage());
-                }
+                // Release the old file (swept once nothing else refers to it)
+                releaseFile(existingDoc);
             });
         
-        // Generate unique filename
-        String fileExtension = getFileExtension(originalFileName);
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String fileName = String.format("%s_%d_%s%s", 
-            documentType.name(), studentId, timestamp, fileExtension);
-        
-        // Create upload directory if it doesn't exist
-        Path uploadDir = Paths.get(uploadPath);
-        if (!Files.exists(uploadDir)) {
-            Files.createDirectories(uploadDir);
+        Document saved;
+        try {
+            saved = documentRepository.save(createDocument(staged));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
         
-        // Copy file to upload directory
-        Path destinationPath = uploadDir.resolve(fileName);
-        Files.copy(sourceFile.toPath(), destinationPath, StandardCopyOption.REPLACE_EXISTING);
+        // Render the thumbnail in the background once the upload is committed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                thumbnailService.prepare(saved);
+            }
+        });
+        return saved;
+    }
+    
+    /**
+     * Store the content once, however many documents share it, and create
+     * the document record for it
+     */
+    private Document createDocument(StagedDocument staged) throws IOException {
+        String fileExtension = staged.fileExtension().toLowerCase();
+        DocumentBlob blob = documentStorage.acquire(staged.file(), fileExtension,
+            documentStorage.requiresEncryption(staged.documentType()));
         
-        // Create document record
-        Document document = new Document();
-        document.setStudentId(studentId);
-        document.setDocumentType(documentType);
-        document.setFileName(originalFileName);
-        document.setFilePath(destinationPath.toString());
-        document.setFileExtension(fileExtension);
-        document.setFileSize(sourceFile.length());
+        Document document = new Document(staged.studentId(), staged.documentType(), staged.fileName(),
+            documentStorage.resolve(blob).toString(), fileExtension, blob.getSize());
+        document.setContentKey(blob.getContentKey());
+        document.setOriginalFileSize(staged.originalSize());
         document.setActive(true);
+        return document;
+    }
+    
+    /**
+     * Save a batch of imported files as documents in one transaction. The
+     * documents they replace are deactivated with a single update.
+     */
+    @Transactional
+    public List<Document> saveStagedDocuments(List<StagedDocument> batch) throws IOException {
+        List<Long> replacedIds = new ArrayList<>();
+        for (StagedDocument staged : batch) {
+            if (staged.replaces() != null) {
+                replacedIds.add(staged.replaces().getId());
+            }
+        }
+        if (!replacedIds.isEmpty()) {
+            documentRepository.deactivateAll(replacedIds);
+        }
+        
+        List<Document> documents = new ArrayList<>(batch.size());
+        for (StagedDocument staged : batch) {
+            if (staged.replaces() != null) {
+                releaseFile(staged.replaces());
+            }
+            documents.add(createDocument(staged));
+        }
+        
+        List<Document> saved = documentRepository.saveAll(documents);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                saved.forEach(thumbnailService::prepare);
+            }
+        });
+        return saved;
+    }
+    
+    /**
+     * Move a document uploaded before the content store existed into it.
+     * The old file is left to the {@link DocumentSweeper}.
+     *
+     * @return false when the document's file no longer exists
+     */
+    @Transactional
+    public boolean moveToContentStore(Long documentId) throws IOException {
+        Document document = getDocument(documentId);
+        Path legacyFile = Paths.get(document.getFilePath());
+        if (document.getContentKey() != null || !Files.isRegularFile(legacyFile)) {
+            return false;
+        }
         
-        return documentRepository.save(document);
+        DocumentBlob blob = documentStorage.acquire(legacyFile, document.getFileExtension(),
+            documentStorage.requiresEncryption(document.getDocumentType()));
+        document.setFilePath(documentStorage.resolve(blob).toString());
+        document.setContentKey(blob.getContentKey());
+        documentRepository.save(document);
+        documentStorage.tombstone(legacyFile, "moved into content store");
+        return true;
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Long> findDocumentsOutsideContentStore() {
+        return documentRepository.findIdsByContentKeyIsNullAndActiveTrue();
     }
     
     @Transactional(readOnly = true)
@@ -94,6 +214,23 @@ public class DocumentService {
             .orElseThrow(() -> new NoSuchElementException("Document not found with id: " + documentId));
     }
     
+    /**
+     * Active documents of one type for the given students, keyed by student
+     * id; looked up {@value #LOOKUP_SIZE} students per query
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Document> getActiveDocumentsByStudent(Collection<Long> studentIds, DocumentType documentType) {
+        Map<Long, Document> documents = new HashMap<>();
+        List<Long> ids = List.copyOf(studentIds);
+        for (int from = 0; from < ids.size(); from += LOOKUP_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + LOOKUP_SIZE));
+            for (Document document : documentRepository.findByStudentIdInAndDocumentTypeAndActiveTrue(batch, documentType)) {
+                documents.put(document.getStudentId(), document);
+            }
+        }
+        return documents;
+    }
+    
     @Transactional(readOnly = true)
     public Document getStudentDocument(Long studentId, DocumentType documentType) {
         return documentRepository.findByStudentIdAndDocumentTypeAndActiveTrue(studentId, documentType)
@@ -109,17 +246,67 @@ public class DocumentService {
         document.setActive(false);
         documentRepository.save(document);
         
-        // Delete physical file
-        Files.deleteIfExists(Paths.get(document.getFilePath()));
+        // Release the physical file
+        releaseFile(document);
     }
     
-    public File getDocumentFile(Long documentId) {
+    /**
+     * The document's file for opening in an external viewer. Encrypted
+     * documents are decrypted into a private temporary file, deleted when
+     * the application exits.
+     */
+    public File getDocumentFile(Long documentId) throws IOException {
         Document document = getDocument(documentId);
         File file = new File(document.getFilePath());
         if (!file.exists()) {
             throw new NoSuchElementException("Document file not found: " + document.getFilePath());
         }
-        return file;
+        if (!DocumentCipher.isEncrypted(file.toPath())) {
+            return file;
+        }
+        
+        Path viewDir = Files.createTempDirectory("school-document-");
+        viewDir.toFile().deleteOnExit();
+        // Keep the original name so the right viewer opens it
+        Path decrypted = viewDir.resolve(Paths.get(document.getFileName()).getFileName().toString());
+        decrypted.toFile().deleteOnExit();
+        try (InputStream in = documentStorage.open(file.toPath())) {
+            Files.copy(in, decrypted);
+        }
+        return decrypted.toFile();
+    }
+    
+    /**
+     * Encrypt the stored files of identity documents uploaded before
+     * encryption was turned on for their type.
+     *
+     * @return number of files encrypted
+     */
+    public int encryptIdentityDocuments() throws IOException {
+        List<DocumentType> types = new ArrayList<>();
+        for (DocumentType type : DocumentType.values()) {
+            if (documentStorage.requiresEncryption(type)) {
+                types.add(type);
+            }
+        }
+        if (types.isEmpty()) {
+            return 0;
+        }
+        int encrypted = 0;
+        for (DocumentBlob blob : blobRepository.findAllById(documentRepository.findContentKeysByDocumentTypeIn(types))) {
+            if (documentStorage.encryptStored(blob)) {
+                encrypted++;
+            }
+        }
+        return encrypted;
+    }
+    
+    private void releaseFile(Document document) {
+        if (document.getContentKey() != null) {
+            documentStorage.release(document.getContentKey());
+        } else {
+            documentStorage.tombstone(Paths.get(document.getFilePath()), "document replaced or deleted");
+        }
     }
     
     private void validateFile(File file, String fileName) throws IOException {
@@ -127,25 +314,26 @@ public class DocumentService {
             throw new IOException("File does not exist");
         }
         
-        if (file.length() > MAX_FILE_SIZE) {
-            throw new IOException("File size exceeds maximum limit of 5MB");
+        // Checked against MAX_FILE_SIZE again once compressed
+        if (file.length() > MAX_UPLOAD_SIZE) {
+            throw new IOException("File size exceeds maximum upload limit of 25MB");
         }
         
-        String extension = getFileExtension(fileName).toLowerCase();
-        boolean validExtension = false;
+        if (!isAllowedExtension(getFileExtension(fileName))) {
+            throw new IOException("File type not allowed. Allowed types: PDF, JPG, JPEG, PNG");
+        }
+    }
+    
+    static boolean isAllowedExtension(String extension) {
         for (String allowedExt : ALLOWED_EXTENSIONS) {
             if (allowedExt.equalsIgnoreCase(extension)) {
-                validExtension = true;
-                break;
+                return true;
             }
         }
-        
-        if (!validExtension) {
-            throw new IOException("File type not allowed. Allowed types: PDF, JPG, JPEG, PNG");
-        }
+        return false;
     }
     
-    private String getFileExtension(String fileName) {
+    static String getFileExtension(String fileName) {
         int lastDotIndex = fileName.lastIndexOf('.');
         if (lastDotIndex == -1) {
             return "";
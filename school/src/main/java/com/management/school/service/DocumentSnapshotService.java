@@ -0,0 +1,246 @@
+package com.management.school.service;
+
+import com.management.school.core.BackupLogSink;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Backs up the uploaded documents in {@code document.upload.path} together
+ * with the database dump.
+ *
+ * The sync is incremental: a file whose size and modification time match the
+ * previous backup is not read again, its chunks are simply listed once more.
+ * Changed and new files are chunked into the repository, where content that
+ * is already stored (a file touched but not changed, or a copy of another
+ * file) costs nothing but the hashing. A daily backup therefore only reads
+ * the documents uploaded since the last one.
+ */
+@Service
+public class DocumentSnapshotService {
+
+    private static final String DOCUMENTS_TABLE = "documents";
+
+    @Value("${document.upload.path:uploads/documents}")
+    private String uploadPath;
+
+    @Autowired
+    private BackupLogSink log;
+
+    /**
+     * What one pass over the document directory did.
+     */
+    public record SyncResult(List<BackupManifest.FileEntry> files, int unchanged, int changed, int added,
+                             long bytesRead, int newChunks, long storedBytes) {
+
+        public long totalBytes() {
+            return files.stream().mapToLong(BackupManifest.FileEntry::size).sum();
+        }
+    }
+
+    public Path getDocumentsDir() {
+        return Paths.get(uploadPath);
+    }
+
+    /**
+     * Store every document that is new or changed compared to {@code previous}.
+     *
+     * @param previous files of the last backup, or of an earlier pass of this one
+     */
+    public SyncResult sync(BackupChunkStore store, List<BackupManifest.FileEntry> previous) throws IOException {
+        Path documentsDir = getDocumentsDir();
+        List<BackupManifest.FileEntry> files = new ArrayList<>();
+        int unchanged = 0;
+        int changed = 0;
+        int added = 0;
+        long bytesRead = 0;
+        int newChunks = 0;
+        long storedBytes = 0;
+        if (!Files.isDirectory(documentsDir)) {
+            return new SyncResult(files, 0, 0, 0, 0, 0, 0);
+        }
+
+        Map<String, BackupManifest.FileEntry> known = new HashMap<>();
+        previous.forEach(file -> known.put(file.path(), file));
+
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(documentsDir)) {
+            // Uploads still being copied in are not documents yet
+            Path stagingDir = documentsDir.resolve(DocumentStorage.STAGING_DIR);
+            paths = walk.filter(path -> !path.startsWith(stagingDir) && Files.isRegularFile(path)).sorted().toList();
+        }
+        for (Path file : paths) {
+            String path = documentsDir.relativize(file).toString().replace('\\', '/');
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // Deleted while we were walking the directory
+                continue;
+            }
+            long modified = attributes.lastModifiedTime().toMillis();
+
+            BackupManifest.FileEntry last = known.get(path);
+            if (last != null && last.size() == attributes.size() && last.modified() == modified) {
+                files.add(last);
+                unchanged++;
+                continue;
+            }
+
+            BackupChunkStore.StoredFile stored;
+            try {
+                stored = store.writeFile(path, file, modified);
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            files.add(stored.entry());
+            bytesRead += stored.entry().size();
+            newChunks += stored.newChunks();
+            storedBytes += stored.storedBytes();
+            if (last == null) {
+                added++;
+            } else if (last.sha256().equals(stored.entry().sha256())) {
+                // Only touched; the content was already in the repository
+                unchanged++;
+            } else {
+                changed++;
+            }
+        }
+        return new SyncResult(files, unchanged, changed, added, bytesRead, newChunks, storedBytes);
+    }
+
+    /**
+     * Combine two passes of one backup. A file present in either pass is kept,
+     * with the later pass winning, so a document deleted while the dump ran is
+     * still in the backup the dump's rows expect it in.
+     */
+    public List<BackupManifest.FileEntry> union(List<BackupManifest.FileEntry> before,
+                                                 List<BackupManifest.FileEntry> after) {
+        Map<String, BackupManifest.FileEntry> files = new LinkedHashMap<>();
+        before.forEach(file -> files.put(file.path(), file));
+        after.forEach(file -> files.put(file.path(), file));
+        List<BackupManifest.FileEntry> merged = new ArrayList<>(files.values());
+        merged.sort((a, b) -> a.path().compareTo(b.path()));
+        return merged;
+    }
+
+    /**
+     * Check the backed-up files against the {@code documents} rows of the
+     * backed-up dump.
+     *
+     * @return file paths of active documents that the backup has no file for
+     */
+    public List<String> findMissingFiles(BackupChunkStore store, BackupManifest manifest) throws IOException {
+        BackupManifest.TableRange range = manifest.getTableRanges().get(DOCUMENTS_TABLE);
+        if (range == null) {
+            return List.of();
+        }
+        Set<String> backedUp = new HashSet<>();
+        manifest.getFiles().forEach(file -> backedUp.add(file.path()));
+
+        Path documentsDir = getDocumentsDir().toAbsolutePath().normalize();
+        List<String> missing = new ArrayList<>();
+        try (InputStream in = store.openSnapshotRange(manifest, range.start(), range.end())) {
+            new SqlDumpReader().read(in, List.of(DOCUMENTS_TABLE), (table, columns, literals) -> {
+                int pathColumn = columns.indexOf("file_path");
+                int activeColumn = columns.indexOf("active");
+                if (pathColumn < 0) {
+                    return;
+                }
+                if (activeColumn >= 0 && !SqlDumpReader.isTrue(literals.get(activeColumn))) {
+                    // Inactive documents have had their files deleted
+                    return;
+                }
+                String filePath = SqlDumpReader.decode(literals.get(pathColumn));
+                if (filePath != null && !backedUp.contains(relativePath(documentsDir, filePath))) {
+                    missing.add(filePath);
+                }
+            });
+        }
+        return missing;
+    }
+
+    /**
+     * Put the documents of a backup back into the document directory. Files
+     * that are already there with the same size and modification time are
+     * left alone; other files in the directory are not touched.
+     *
+     * @return number of files written
+     */
+    public int restoreFiles(BackupChunkStore store, BackupManifest manifest) throws IOException {
+        Path documentsDir = getDocumentsDir();
+        int written = 0;
+        for (BackupManifest.FileEntry file : manifest.getFiles()) {
+            Path target = documentsDir.resolve(file.path()).normalize();
+            if (!target.startsWith(documentsDir.normalize())) {
+                throw new IOException("Backup lists a document outside the document directory: " + file.path());
+            }
+            if (Files.isRegularFile(target) && Files.size(target) == file.size()
+                    && Files.getLastModifiedTime(target).toMillis() == file.modified()) {
+                continue;
+            }
+
+            Files.createDirectories(target.getParent());
+            Path temp = target.resolveSibling(target.getFileName() + ".restore.tmp");
+            MessageDigest digest = sha256();
+            try (InputStream in = store.openFile(file);
+                 OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                in.transferTo(out);
+            }
+            if (!HexFormat.of().formatHex(digest.digest()).equals(file.sha256())) {
+                Files.deleteIfExists(temp);
+                throw new IOException("Document " + file.path() + " failed checksum verification");
+            }
+            Files.setLastModifiedTime(temp, FileTime.fromMillis(file.modified()));
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            written++;
+        }
+        if (written > 0) {
+            log.info("Restored " + written + " document file(s) to " + documentsDir);
+        }
+        return written;
+    }
+
+    /**
+     * Documents record where they were stored when uploaded, relative to the
+     * working directory or absolute; the backup keys them relative to the
+     * document directory.
+     */
+    private static String relativePath(Path documentsDir, String filePath) {
+        Path file = Paths.get(filePath).toAbsolutePath().normalize();
+        return file.startsWith(documentsDir)
+            ? documentsDir.relativize(file).toString().replace('\\', '/')
+            : file.getFileName().toString();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.management.school.service;
+
+import com.management.school.model.Document.DocumentType;
+import com.management.school.model.DocumentBlob;
+import com.management.school.model.DocumentTombstone;
+import com.management.school.repository.DocumentBlobRepository;
+import com.management.school.repository.DocumentTombstoneRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Content-addressed store for uploaded documents.
+ *
+ * A file is copied into a staging directory while its SHA-256 is computed in
+ * the same pass, then - once the transaction that refers to it commits -
+ * moved to {@code objects/ab/cd/<sha256><ext>} under the upload directory.
+ * The two-level fan-out keeps every directory small however many documents
+ * there are. Identical uploads share one file: each {@link DocumentBlob}
+ * counts the documents referring to it. When the last one lets go, a
+ * tombstone is recorded and the {@link DocumentSweeper} deletes the file in
+ * the background.
+ *
+ * Identity documents ({@code app.documents.encryption.types}) are encrypted
+ * with a {@link DocumentCipher} as they are copied from staging into the
+ * store. The master key lives in {@code app.documents.encryption.key-file},
+ * created on first use; it is needed to read those documents - also after
+ * restoring a backup - so keep a copy of it somewhere safe, apart from the
+ * backups.
+ */
+@Service
+public class DocumentStorage {
+
+    public static final String OBJECTS_DIR = "objects";
+    public static final String STAGING_DIR = ".staging";
+
+    @Value("${document.upload.path:uploads/documents}")
+    private String uploadPath;
+
+    @Value("${app.documents.encryption.enabled:true}")
+    private boolean encryptionEnabled;
+
+    @Value("${app.documents.encryption.types:STUDENT_AADHAR,PARENT_AADHAR,PARENT_VOTER_ID}")
+    private Set<DocumentType> encryptedTypes;
+
+    @Value("${app.documents.encryption.key-file:${user.home}/SchoolApp/keys/documents.key}")
+    private String keyFile;
+
+    @Autowired
+    private DocumentBlobRepository blobRepository;
+
+    @Autowired
+    private DocumentTombstoneRepository tombstoneRepository;
+
+    // Promotions and the sweeper's deletions never interleave
+    private final Object fileLock = new Object();
+
+    private DocumentCipher cipher;
+
+    /**
+     * A file copied into the staging directory, with the SHA-256 of its content
+     */
+    public record StagedFile(Path path, String contentKey, long size) {
+    }
+
+    /**
+     * Store a file and take a reference to its content.
+     *
+     * @param extension extension (with dot) used when the content is new
+     * @param encrypt whether the content must be stored encrypted
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public DocumentBlob acquire(Path source, String extension, boolean encrypt) throws IOException {
+        StagedFile staged = stage(source);
+        // The staged file is promoted after commit; only then can it go
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    discard(staged);
+                } catch (IOException e) {
+                    System.err.println("Failed to delete staged document " + staged.path() + ": " + e.getMessage());
+                }
+            }
+        });
+        return acquire(staged, extension, encrypt);
+    }
+
+    /**
+     * Copy a file into the staging directory, hashing it in the same pass.
+     * Needs no transaction, so many files can be staged in parallel before
+     * they are acquired; the caller {@link #discard}s what it does not use.
+     */
+    public StagedFile stage(Path source) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            return stage(in);
+        }
+    }
+
+    /**
+     * Stage the content of a stream, e.g. an entry of an imported zip
+     */
+    public StagedFile stage(InputStream source) throws IOException {
+        Path stagingDir = getUploadDir().resolve(STAGING_DIR);
+        Files.createDirectories(stagingDir);
+        Path staged = Files.createTempFile(stagingDir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(source, digest);
+                 OutputStream out = Files.newOutputStream(staged)) {
+                size = in.transferTo(out);
+            }
+            return new StagedFile(staged, HexFormat.of().formatHex(digest.digest()), size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(staged);
+            throw e;
+        }
+    }
+
+    /**
+     * Take a reference to the content of a staged file. The file is promoted
+     * into the store only once the transaction commits, so a rollback leaves
+     * nothing behind but the staged file, which the caller discards.
+     * Content already stored unencrypted is replaced by an encrypted copy
+     * when {@code encrypt} is set.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public DocumentBlob acquire(StagedFile staged, String extension, boolean encrypt) throws IOException {
+        String contentKey = staged.contentKey();
+        boolean stored = blobRepository.adjustReferenceCount(contentKey, 1) > 0;
+        DocumentBlob blob = stored
+            ? blobRepository.findById(contentKey).orElseThrow()
+            : blobRepository.save(new DocumentBlob(contentKey, staged.size(), extension.toLowerCase(Locale.ROOT)));
+
+        Path target = resolve(blob);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    promote(staged, target, encrypt, !stored);
+                } catch (IOException e) {
+                    System.err.println("Failed to store document " + target.getFileName() + ": " + e.getMessage());
+                }
+            }
+        });
+        return blob;
+    }
+
+    /**
+     * Move a staged file into place, or encrypt it into place in one
+     * streaming pass. New content always replaces whatever file is there,
+     * since the sweeper may be about to delete it; existing content is only
+     * written when its file is missing or has to be encrypted.
+     */
+    private void promote(StagedFile staged, Path target, boolean encrypt, boolean replace) throws IOException {
+        synchronized (fileLock) {
+            if (!replace && Files.exists(target) && (!encrypt || DocumentCipher.isEncrypted(target))) {
+                return;
+            }
+            Files.createDirectories(target.getParent());
+            if (!encrypt) {
+                Files.move(staged.path(), target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return;
+            }
+            Path temp = Files.createTempFile(target.getParent(), "encrypt-", ".tmp");
+            try {
+                try (InputStream in = Files.newInputStream(staged.path());
+                     OutputStream out = cipher().encrypt(Files.newOutputStream(temp))) {
+                    in.transferTo(out);
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Drop one reference to a blob. When nothing refers to it any more the
+     * blob goes, and a tombstone left in the same transaction tells the
+     * {@link DocumentSweeper} to delete its file.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(String contentKey) {
+        if (blobRepository.adjustReferenceCount(contentKey, -1) == 0) {
+            return;
+        }
+        DocumentBlob blob = blobRepository.findById(contentKey).orElse(null);
+        if (blob == null || blob.getReferenceCount() > 0) {
+            return;
+        }
+        blobRepository.delete(blob);
+        tombstoneRepository.save(new DocumentTombstone(resolve(blob).toString(), contentKey, "unreferenced"));
+    }
+
+    /**
+     * Have the sweeper delete a file outside the content store, such as a
+     * document uploaded before it existed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void tombstone(Path file, String reason) {
+        tombstoneRepository.save(new DocumentTombstone(file.toString(), null, reason));
+    }
+
+    /**
+     * Delete a file unless its content is back in use: the same content may
+     * have been uploaded again since it was tombstoned.
+     *
+     * @return false when the file was kept
+     */
+    public boolean deleteUnlessInUse(Path file, String contentKey) throws IOException {
+        synchronized (fileLock) {
+            if (contentKey != null && blobRepository.existsById(contentKey)) {
+                return false;
+            }
+            Files.deleteIfExists(file);
+            return true;
+        }
+    }
+
+    /**
+     * Encrypt a stored blob that was written before encryption was turned
+     * on for its documents.
+     *
+     * @return false if it already was encrypted or its file is missing
+     */
+    public boolean encryptStored(DocumentBlob blob) throws IOException {
+        Path file = resolve(blob);
+        if (!Files.isRegularFile(file) || DocumentCipher.isEncrypted(file)) {
+            return false;
+        }
+        StagedFile staged = stage(file);
+        try {
+            if (!staged.contentKey().equals(blob.getContentKey())) {
+                throw new IOException("Stored document " + file.getFileName() + " does not match its content key");
+            }
+            promote(staged, file, true, true);
+            return true;
+        } finally {
+            discard(staged);
+        }
+    }
+
+    /**
+     * Whether documents of this type are stored encrypted
+     */
+    public boolean requiresEncryption(DocumentType documentType) {
+        return encryptionEnabled && encryptedTypes.contains(documentType);
+    }
+
+    /**
+     * Read a stored document, decrypting it on the fly if it is encrypted
+     */
+    public InputStream open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        if (!DocumentCipher.isEncrypted(file)) {
+            return in;
+        }
+        try {
+            return cipher().decrypt(in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The master key is read - or created - the first time it is needed
+     */
+    private synchronized DocumentCipher cipher() throws IOException {
+        if (cipher == null) {
+            Path path = Paths.get(keyFile);
+            if (!Files.exists(path)) {
+                createKeyFile(path);
+            }
+            byte[] key = Base64.getDecoder().decode(Files.readString(path, StandardCharsets.US_ASCII).trim());
+            cipher = new DocumentCipher(key);
+        }
+        return cipher;
+    }
+
+    private static void createKeyFile(Path path) throws IOException {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "key-", ".tmp");
+        try {
+            if (Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class)) {
+                Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+            }
+            Files.writeString(temp, Base64.getEncoder().encodeToString(key), StandardCharsets.US_ASCII);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Another instance has just written one; never replace it
+            return;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        System.out.println("Created document encryption key " + path.toAbsolutePath() + " - keep a copy of it safe");
+    }
+
+    /**
+     * Delete a staged file if it is still in the staging directory
+     */
+    public void discard(StagedFile staged) throws IOException {
+        Files.deleteIfExists(staged.path());
+    }
+
+    /**
+     * Where the content of a blob is stored
+     */
+    public Path resolve(DocumentBlob blob) {
+        String key = blob.getContentKey();
+        return getUploadDir().resolve(OBJECTS_DIR)
+            .resolve(key.substring(0, 2))
+            .resolve(key.substring(2, 4))
+            .resolve(key + blob.getFileExtension());
+    }
+
+    public Path getUploadDir() {
+        return Paths.get(uploadPath);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.management.school.service;
+
+import com.management.school.model.DocumentBlob;
+import com.management.school.model.DocumentTombstone;
+import com.management.school.repository.DocumentBlobRepository;
+import com.management.school.repository.DocumentRepository;
+import com.management.school.repository.DocumentTombstoneRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Deletes document files in the background, so nothing is ever deleted
+ * inside a transaction that might still roll back.
+ *
+ * Every {@code app.documents.sweep.interval-ms} it
+ * <ul>
+ *   <li>deletes the files of tombstones left by {@link DocumentStorage},
+ *       keeping those whose content has been uploaded again meanwhile;</li>
+ *   <li>releases blobs that no active document refers to, whatever their
+ *       reference count says;</li>
+ *   <li>deletes files in the content store without a blob - left behind by
+ *       a crash, or by restoring an older database - and abandoned staging
+ *       files;</li>
+ *   <li>reports blobs whose file is missing.</li>
+ * </ul>
+ * Only blobs and files older than {@code app.documents.sweep.grace-hours}
+ * are considered, so uploads and imports in progress are never touched.
+ */
+@Component
+public class DocumentSweeper {
+
+    private static final int MAX_ATTEMPTS = 10;
+    private static final int LOOKUP_BATCH_SIZE = 500;
+    private static final int MAX_REPORTED = 10;
+    private static final Pattern CONTENT_KEY = Pattern.compile("[0-9a-f]{64}");
+
+    @Value("${app.documents.sweep.grace-hours:24}")
+    private long graceHours;
+
+    @Autowired
+    private DocumentStorage documentStorage;
+
+    @Autowired
+    private DocumentBlobRepository blobRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * What one sweep did
+     */
+    public record Result(int filesDeleted, int filesKept, int blobsReleased, int orphansDeleted,
+                         int stagingDeleted, List<String> missing, long bytesFreed) {
+
+        public boolean isEmpty() {
+            return filesDeleted + filesKept + blobsReleased + orphansDeleted + stagingDeleted == 0 && missing.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return filesDeleted + " file(s) deleted, " + filesKept + " kept (in use again), "
+                + blobsReleased + " unreferenced blob(s) released, " + orphansDeleted + " orphaned file(s) and "
+                + stagingDeleted + " staging file(s) deleted, " + BackupService.formatFileSize(bytesFreed) + " freed"
+                + (missing.isEmpty() ? "" : "; " + missing.size() + " stored document(s) missing their file");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.documents.sweep.interval-ms:300000}",
+               initialDelayString = "${app.documents.sweep.initial-delay-ms:600000}")
+    public void runScheduledSweep() {
+        try {
+            Result result = sweep();
+            if (!result.isEmpty()) {
+                System.out.println("Document sweep: " + result);
+            }
+            if (!result.missing().isEmpty()) {
+                System.err.println("Stored documents without a file: "
+                    + String.join(", ", result.missing().subList(0, Math.min(MAX_REPORTED, result.missing().size())))
+                    + (result.missing().size() > MAX_REPORTED ? ", ..." : ""));
+            }
+        } catch (Exception e) {
+            System.err.println("Document sweep failed: " + e.getMessage());
+        }
+    }
+
+    public synchronized Result sweep() throws IOException {
+        Counts counts = new Counts();
+        // Released first, so their files go with this sweep's tombstones
+        releaseUnreferencedBlobs(counts);
+        deleteTombstoned(counts);
+        List<String> missing = sweepContentStore(counts);
+        sweepStaging(counts);
+        return new Result(counts.filesDeleted, counts.filesKept, counts.blobsReleased, counts.orphansDeleted,
+            counts.stagingDeleted, missing, counts.bytesFreed);
+    }
+
+    private static final class Counts {
+        int filesDeleted;
+        int filesKept;
+        int blobsReleased;
+        int orphansDeleted;
+        int stagingDeleted;
+        long bytesFreed;
+    }
+
+    // ==================== Tombstones ====================
+
+    private void deleteTombstoned(Counts counts) {
+        long lastId = 0;
+        List<DocumentTombstone> tombstones;
+        while (!(tombstones = tombstoneRepository.findTop200ByIdGreaterThanOrderByIdAsc(lastId)).isEmpty()) {
+            for (DocumentTombstone tombstone : tombstones) {
+                lastId = tombstone.getId();
+                Path file = Paths.get(tombstone.getFilePath());
+                try {
+                    long size = Files.exists(file) ? Files.size(file) : 0;
+                    if (documentStorage.deleteUnlessInUse(file, tombstone.getContentKey())) {
+                        counts.filesDeleted++;
+                        counts.bytesFreed += size;
+                    } else {
+                        counts.filesKept++;
+                    }
+                    tombstoneRepository.delete(tombstone);
+                } catch (IOException e) {
+                    retryLater(tombstone, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * A file that cannot be deleted now - open in a viewer on Windows,
+     * usually - is tried again by the next sweeps, up to a limit
+     */
+    private void retryLater(DocumentTombstone tombstone, IOException e) {
+        tombstone.setAttempts(tombstone.getAttempts() + 1);
+        if (tombstone.getAttempts() >= MAX_ATTEMPTS) {
+            System.err.println("Giving up deleting " + tombstone.getFilePath() + " after "
+                + MAX_ATTEMPTS + " attempts: " + e.getMessage());
+            tombstoneRepository.delete(tombstone);
+        } else {
+            tombstoneRepository.save(tombstone);
+        }
+    }
+
+    // ==================== Blobs ====================
+
+    private void releaseUnreferencedBlobs(Counts counts) {
+        LocalDateTime before = LocalDateTime.now().minusHours(graceHours);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (String contentKey : blobRepository.findUnreferencedContentKeysCreatedBefore(before)) {
+            Boolean released = transaction.execute(status -> releaseIfUnreferenced(contentKey));
+            if (Boolean.TRUE.equals(released)) {
+                counts.blobsReleased++;
+            }
+        }
+    }
+
+    /**
+     * Locking the blob first keeps an upload of the same content from taking
+     * a reference between the check and the delete
+     */
+    private boolean releaseIfUnreferenced(String contentKey) {
+        DocumentBlob blob = blobRepository.lockByContentKey(contentKey).orElse(null);
+        if (blob == null || documentRepository.existsByContentKeyAndActiveTrue(contentKey)) {
+            return false;
+        }
+        blobRepository.delete(blob);
+        tombstoneRepository.save(new DocumentTombstone(documentStorage.resolve(blob).toString(), contentKey,
+            "no active document"));
+        return true;
+    }
+
+    // ==================== Files ====================
+
+    /**
+     * Delete old files without a blob and find blobs without a file
+     *
+     * @return content keys of blobs whose file is missing
+     */
+    private List<String> sweepContentStore(Counts counts) throws IOException {
+        Path objectsDir = documentStorage.getUploadDir().resolve(DocumentStorage.OBJECTS_DIR);
+        // Blobs created after this may not have been promoted yet
+        LocalDateTime started = LocalDateTime.now().minusMinutes(5);
+        Instant cutoff = Instant.now().minus(Duration.ofHours(graceHours));
+
+        Set<String> present = new HashSet<>();
+        List<Path> batch = new ArrayList<>();
+        if (Files.isDirectory(objectsDir)) {
+            try (Stream<Path> files = Files.walk(objectsDir)) {
+                for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                    String contentKey = contentKey(file);
+                    if (contentKey != null) {
+                        present.add(contentKey);
+                    }
+                    if (isOlderThan(file, cutoff)) {
+                        batch.add(file);
+                        if (batch.size() == LOOKUP_BATCH_SIZE) {
+                            deleteOrphans(batch, counts);
+                            batch.clear();
+                        }
+                    }
+                }
+            }
+            deleteOrphans(batch, counts);
+        }
+
+        List<String> missing = new ArrayList<>();
+        for (String contentKey : blobRepository.findContentKeysCreatedBefore(started)) {
+            if (!present.contains(contentKey)) {
+                missing.add(contentKey);
+            }
+        }
+        return missing;
+    }
+
+    private void deleteOrphans(List<Path> files, Counts counts) throws IOException {
+        Set<String> keys = new HashSet<>();
+        for (Path file : files) {
+            String contentKey = contentKey(file);
+            if (contentKey != null) {
+                keys.add(contentKey);
+            }
+        }
+        Set<String> existing = keys.isEmpty() ? Set.of() : new HashSet<>(blobRepository.findExistingContentKeys(keys));
+        for (Path file : files) {
+            String contentKey = contentKey(file);
+            if (contentKey != null && existing.contains(contentKey)) {
+                continue;
+            }
+            // Leftover temporary files have no content key and are simply deleted
+            long size = Files.size(file);
+            if (documentStorage.deleteUnlessInUse(file, contentKey)) {
+                counts.orphansDeleted++;
+                counts.bytesFreed += size;
+            }
+        }
+    }
+
+    private void sweepStaging(Counts counts) throws IOException {
+        Path stagingDir = documentStorage.getUploadDir().resolve(DocumentStorage.STAGING_DIR);
+        if (!Files.isDirectory(stagingDir)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(Duration.ofHours(graceHours));
+        try (Stream<Path> files = Files.list(stagingDir)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                if (isOlderThan(file, cutoff)) {
+                    long size = Files.size(file);
+                    if (Files.deleteIfExists(file)) {
+                        counts.stagingDeleted++;
+                        counts.bytesFreed += size;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The content key a stored file is named after, or null for anything else
+     */
+    private static String contentKey(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.indexOf('.');
+        String key = dot < 0 ? name : name.substring(0, dot);
+        return CONTENT_KEY.matcher(key).matches() ? key : null;
+    }
+
+    private static boolean isOlderThan(Path file, Instant cutoff) throws IOException {
+        return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+    }
+}
@@ -0,0 +1,368 @@
+package com.management.school.service;
+
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.FontFactory;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfImportedPage;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfWriter;
+import com.management.school.model.Address;
+import com.management.school.model.Document;
+import com.management.school.model.Document.DocumentType;
+import com.management.school.model.Student;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Builds a student's dossier: a profile page followed by every uploaded
+ * document, in one PDF - for transfer certificates and inspections.
+ *
+ * Pages are written to the output as they are made, and documents are read
+ * one at a time: images are scaled onto an A4 page, PDFs have their pages
+ * imported at their own size and are released again right after. Plain
+ * PDFs are read on demand rather than loaded whole; encrypted documents are
+ * decrypted into memory, which the upload limit keeps small. A whole class
+ * is generated on {@code app.dossiers.threads} threads, so memory stays
+ * bounded by that many documents however large the class is.
+ */
+@Service
+public class DossierService {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final float MARGIN = 36;
+
+    @Value("${app.dossiers.threads:2}")
+    private int threads;
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private DocumentStorage documentStorage;
+
+    /**
+     * The dossier written for one student, or why it could not be. Documents
+     * that could not be included are listed in {@code skipped}.
+     */
+    public record DossierResult(Student student, Path file, List<String> skipped, String error) {
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    public record BatchReport(List<DossierResult> results, long elapsedMillis) {
+
+        public long failed() {
+            return results.stream().filter(r -> !r.isSuccess()).count();
+        }
+    }
+
+    /**
+     * Write the dossiers of several students into a folder, a few at a time
+     *
+     * @param progress called with the number of dossiers finished so far
+     */
+    public BatchReport generateDossiers(List<Student> students, Path outputDir, IntConsumer progress)
+            throws InterruptedException {
+        long startNanos = System.nanoTime();
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, students.size())), runnable -> {
+            Thread thread = new Thread(runnable, "dossier-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicInteger finished = new AtomicInteger();
+        try {
+            List<Future<DossierResult>> futures = new ArrayList<>(students.size());
+            for (Student student : students) {
+                futures.add(pool.submit(() -> {
+                    DossierResult result = generateDossier(student, outputDir);
+                    progress.accept(finished.incrementAndGet());
+                    return result;
+                }));
+            }
+
+            List<DossierResult> results = new ArrayList<>(students.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new DossierResult(students.get(i), null, List.of(), e.getCause().getMessage()));
+                }
+            }
+            return new BatchReport(results, (System.nanoTime() - startNanos) / 1_000_000);
+        } finally {
+            // Also stops the remaining students when the caller is cancelled
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Write one student's dossier into a folder. Written to a temporary file
+     * first, so a failed run never leaves half a dossier behind.
+     */
+    public DossierResult generateDossier(Student student, Path outputDir) {
+        Path target = outputDir.resolve(fileName(student));
+        Path temp = null;
+        try {
+            Files.createDirectories(outputDir);
+            temp = Files.createTempFile(outputDir, "dossier-", ".tmp");
+            List<String> skipped;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                skipped = writeDossier(student, out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            return new DossierResult(student, target, skipped, null);
+        } catch (Exception e) {
+            System.err.println("Failed to create dossier for " + student.getRollNumber() + ": " + e.getMessage());
+            return new DossierResult(student, null, List.of(), e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Already moved, or left for the OS to clean up
+                }
+            }
+        }
+    }
+
+    /**
+     * Stream the dossier to {@code out}
+     *
+     * @return descriptions of documents that could not be included
+     */
+    public List<String> writeDossier(Student student, OutputStream out) throws DocumentException, IOException {
+        List<Document> documents = new ArrayList<>(documentService.getStudentDocuments(student.getId()));
+        documents.sort(Comparator.comparing(Document::getDocumentType));
+        Map<DocumentType, Document> byType = new EnumMap<>(DocumentType.class);
+        documents.forEach(document -> byType.put(document.getDocumentType(), document));
+
+        com.itextpdf.text.Document pdf = new com.itextpdf.text.Document(PageSize.A4, MARGIN, MARGIN, MARGIN, MARGIN);
+        PdfWriter writer = PdfWriter.getInstance(pdf, out);
+        writer.setCloseStream(false);
+        writer.setFullCompression();
+        pdf.addTitle("Student Dossier - " + student.getName());
+        pdf.addCreator("School Management System");
+        pdf.addCreationDate();
+        pdf.open();
+
+        List<String> skipped = new ArrayList<>();
+        try {
+            writeProfilePage(pdf, student, byType);
+            for (Document document : documents) {
+                try {
+                    if (".pdf".equalsIgnoreCase(document.getFileExtension())) {
+                        appendPdf(pdf, writer, document);
+                    } else {
+                        appendImage(pdf, document);
+                    }
+                } catch (Exception e) {
+                    String reason = document.getDocumentType().getDisplayName() + ": " + e.getMessage();
+                    skipped.add(reason);
+                    pdf.setPageSize(PageSize.A4);
+                    pdf.newPage();
+                    pdf.add(new Paragraph("Could not include " + reason, font(FontFactory.HELVETICA, 11, BaseColor.RED)));
+                }
+            }
+        } finally {
+            pdf.close();
+        }
+        return skipped;
+    }
+
+    // ==================== Pages ====================
+
+    private void writeProfilePage(com.itextpdf.text.Document pdf, Student student, Map<DocumentType, Document> documents)
+            throws DocumentException {
+        Paragraph title = new Paragraph("STUDENT DOSSIER", font(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK));
+        title.setAlignment(Element.ALIGN_CENTER);
+        title.setSpacingAfter(4);
+        pdf.add(title);
+        Paragraph generated = new Paragraph("Generated " + LocalDateTime.now().format(TIMESTAMP),
+            font(FontFactory.HELVETICA, 9, BaseColor.GRAY));
+        generated.setAlignment(Element.ALIGN_CENTER);
+        generated.setSpacingAfter(16);
+        pdf.add(generated);
+
+        Image photo = loadPhoto(documents.get(DocumentType.STUDENT_PHOTO));
+        if (photo != null) {
+            photo.scaleToFit(120, 150);
+            photo.setAlignment(Element.ALIGN_RIGHT);
+            pdf.add(photo);
+        }
+
+        PdfPTable fields = new PdfPTable(new float[] {1, 2.5f});
+        fields.setWidthPercentage(100);
+        fields.setSpacingBefore(8);
+        addField(fields, "Name", student.getName());
+        addField(fields, "Roll Number", student.getRollNumber());
+        addField(fields, "Class", student.getGrade() + "-" + student.getSection());
+        addField(fields, "Gender", student.getGender());
+        addField(fields, "Date of Birth", student.getDateOfBirth());
+        addField(fields, "Admission Date", student.getAdmissionDate());
+        addField(fields, "Email", student.getEmail());
+        addField(fields, "Phone", student.getPhone());
+        addField(fields, "Guardian", student.getGuardianName());
+        addField(fields, "Guardian Phone", student.getGuardianPhone());
+        addField(fields, "Guardian Email", student.getGuardianEmail());
+        addField(fields, "Address", formatAddress(student.getAddress()));
+        addField(fields, "Status", student.isActive() ? "Active" : "Inactive");
+        pdf.add(fields);
+
+        Paragraph heading = new Paragraph("Documents", font(FontFactory.HELVETICA_BOLD, 13, BaseColor.BLACK));
+        heading.setSpacingBefore(18);
+        heading.setSpacingAfter(6);
+        pdf.add(heading);
+        PdfPTable checklist = new PdfPTable(new float[] {2.5f, 1});
+        checklist.setWidthPercentage(100);
+        for (DocumentType type : DocumentType.values()) {
+            Document document = documents.get(type);
+            addField(checklist, type.getDisplayName(), document != null ? "Attached" : "Not uploaded");
+        }
+        pdf.add(checklist);
+    }
+
+    private void appendImage(com.itextpdf.text.Document pdf, Document document) throws IOException, DocumentException {
+        Image image = Image.getInstance(readDocument(document));
+        pdf.setPageSize(PageSize.A4);
+        pdf.newPage();
+        Paragraph caption = new Paragraph(document.getDocumentType().getDisplayName(),
+            font(FontFactory.HELVETICA_BOLD, 12, BaseColor.BLACK));
+        caption.setSpacingAfter(8);
+        pdf.add(caption);
+        // Leave room for the caption; never enlarge small images
+        float width = PageSize.A4.getWidth() - 2 * MARGIN;
+        float height = PageSize.A4.getHeight() - 2 * MARGIN - 40;
+        if (image.getScaledWidth() > width || image.getScaledHeight() > height) {
+            image.scaleToFit(width, height);
+        }
+        image.setAlignment(Element.ALIGN_CENTER);
+        pdf.add(image);
+    }
+
+    /**
+     * Import every page at its own size and orientation
+     */
+    private void appendPdf(com.itextpdf.text.Document pdf, PdfWriter writer, Document document) throws IOException {
+        Path file = Paths.get(document.getFilePath());
+        PdfReader reader = DocumentCipher.isEncrypted(file)
+            ? new PdfReader(readDocument(document))
+            // Partial reading keeps only the objects of the current page in memory
+            : new PdfReader(file.toString(), null, true);
+        try {
+            for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                Rectangle size = reader.getPageSizeWithRotation(page);
+                // Upright page of the rotated size; the rotation goes into the transform
+                pdf.setPageSize(new Rectangle(size.getWidth(), size.getHeight()));
+                pdf.newPage();
+                PdfImportedPage imported = writer.getImportedPage(reader, page);
+                PdfContentByte canvas = writer.getDirectContent();
+                switch (reader.getPageRotation(page)) {
+                    case 90 -> canvas.addTemplate(imported, 0, -1f, 1f, 0, 0, size.getHeight());
+                    case 180 -> canvas.addTemplate(imported, -1f, 0, 0, -1f, size.getWidth(), size.getHeight());
+                    case 270 -> canvas.addTemplate(imported, 0, 1f, -1f, 0, size.getWidth(), 0);
+                    default -> canvas.addTemplate(imported, 0, 0);
+                }
+            }
+            // Write out what was imported so the reader can be let go
+            writer.freeReader(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    // ==================== Helpers ====================
+
+    private Image loadPhoto(Document photo) {
+        if (photo == null || ".pdf".equalsIgnoreCase(photo.getFileExtension())) {
+            return null;
+        }
+        try {
+            return Image.getInstance(readDocument(photo));
+        } catch (Exception e) {
+            System.err.println("Could not read photo of student " + photo.getStudentId() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The content of a stored document, decrypted if need be
+     */
+    private byte[] readDocument(Document document) throws IOException {
+        try (InputStream in = documentStorage.open(Paths.get(document.getFilePath()))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static void addField(PdfPTable table, String label, Object value) {
+        PdfPCell labelCell = new PdfPCell(new Phrase(label, font(FontFactory.HELVETICA_BOLD, 10, BaseColor.DARK_GRAY)));
+        PdfPCell valueCell = new PdfPCell(new Phrase(value != null ? value.toString() : "-",
+            font(FontFactory.HELVETICA, 10, BaseColor.BLACK)));
+        for (PdfPCell cell : new PdfPCell[] {labelCell, valueCell}) {
+            cell.setPadding(5);
+            cell.setBorderColor(BaseColor.LIGHT_GRAY);
+            table.addCell(cell);
+        }
+    }
+
+    private static String formatAddress(Address address) {
+        if (address == null) {
+            return null;
+        }
+        List<String> parts = new ArrayList<>();
+        for (String part : new String[] {address.getStreet(), address.getCity(), address.getState(),
+                address.getPinCode(), address.getCountry()}) {
+            if (part != null && !part.isBlank()) {
+                parts.add(part.trim());
+            }
+        }
+        return parts.isEmpty() ? null : String.join(", ", parts);
+    }
+
+    private static com.itextpdf.text.Font font(String name, float size, BaseColor color) {
+        return FontFactory.getFont(name, size, color);
+    }
+
+    /**
+     * e.g. {@code dossier_R-101_Asha_Khan.pdf}
+     */
+    static String fileName(Student student) {
+        String name = (student.getRollNumber() + "_" + student.getName()).replaceAll("[^A-Za-z0-9.-]+", "_");
+        return "dossier_" + name + ".pdf";
+    }
+}
@@ -0,0 +1,280 @@
+package com.management.school.service;
+
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.FontFactory;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.ColumnText;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfWriter;
+import com.management.school.model.Document;
+import com.management.school.model.Document.DocumentType;
+import com.management.school.model.Student;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntConsumer;
+
+/**
+ * Prints student ID cards, ten to an A4 page (credit card size, 85.6 x 54
+ * mm, two across and five down), ready to cut out.
+ *
+ * Photos come from the {@link ThumbnailService} at {@link ThumbnailService.Size#ID_CARD}
+ * size: decoded and scaled once on its background pool, and cached on disk
+ * and in memory like the thumbnails, so printing again next time hardly
+ * touches the originals. Pages are written to the output one by one in
+ * order while the photos of the next {@value #LOOKAHEAD_PAGES} pages are
+ * prepared in parallel; the PDF itself is written by a single thread, as
+ * iText requires.
+ */
+@Service
+public class IdCardService {
+
+    // ISO/IEC 7810 ID-1 in points
+    static final float CARD_WIDTH = 242.65f;
+    static final float CARD_HEIGHT = 153.07f;
+    static final int COLUMNS = 2;
+    static final int ROWS = 5;
+    static final int CARDS_PER_PAGE = COLUMNS * ROWS;
+
+    private static final float GAP = 8;
+    private static final int LOOKAHEAD_PAGES = 4;
+    private static final float HEADER_HEIGHT = 30;
+    private static final float PHOTO_WIDTH = 62;
+    private static final float PHOTO_HEIGHT = 80;
+    private static final BaseColor HEADER_COLOR = new BaseColor(0x1F, 0x4E, 0x79);
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    @Value("${app.id-cards.school-name:School Management System}")
+    private String schoolName;
+
+    // e.g. 2025-26; empty means the academic year (April to March) of today
+    @Value("${app.id-cards.session:}")
+    private String session;
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    public record Result(Path file, int cards, int pages, int withoutPhoto, long elapsedMillis) {
+    }
+
+    /**
+     * One page of cards with their photos on the way
+     */
+    private record PendingPage(List<Student> students, List<CompletableFuture<byte[]>> photos) {
+    }
+
+    /**
+     * Write the cards of all students to one PDF, in the order given
+     *
+     * @param progress called with the number of cards written so far
+     */
+    public Result renderCards(List<Student> students, Path output, IntConsumer progress)
+            throws IOException, DocumentException, InterruptedException {
+        long startNanos = System.nanoTime();
+        // The photos of just these students, a few queries for all of them
+        Map<Long, Document> photos = documentService.getActiveDocumentsByStudent(
+            students.stream().map(Student::getId).toList(), DocumentType.STUDENT_PHOTO);
+        String sessionLabel = session.isBlank() ? SchoolClassService.currentAcademicYear() : session;
+
+        Path temp = Files.createTempFile(output.toAbsolutePath().getParent(), "id-cards-", ".tmp");
+        int written = 0;
+        int withoutPhoto = 0;
+        int pages = 0;
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                com.itextpdf.text.Document pdf = new com.itextpdf.text.Document(PageSize.A4, 0, 0, 0, 0);
+                PdfWriter writer = PdfWriter.getInstance(pdf, out);
+                writer.setCloseStream(false);
+                pdf.addTitle("Student ID Cards");
+                pdf.addCreator("School Management System");
+                pdf.open();
+                try {
+                    Deque<PendingPage> window = new ArrayDeque<>();
+                    for (int from = 0; from < students.size() || !window.isEmpty(); from += CARDS_PER_PAGE) {
+                        if (from < students.size()) {
+                            window.add(prepare(students.subList(from, Math.min(students.size(), from + CARDS_PER_PAGE)), photos));
+                        }
+                        if (window.size() > LOOKAHEAD_PAGES || from >= students.size()) {
+                            PendingPage page = window.poll();
+                            if (pages > 0) {
+                                pdf.newPage();
+                            }
+                            withoutPhoto += writePage(writer.getDirectContent(), page, sessionLabel);
+                            pages++;
+                            written += page.students().size();
+                            progress.accept(written);
+                        }
+                        if (Thread.interrupted()) {
+                            throw new InterruptedException("ID card printing cancelled");
+                        }
+                    }
+                    if (pages == 0) {
+                        // iText refuses to write a document without pages
+                        writer.setPageEmpty(false);
+                    }
+                } finally {
+                    pdf.close();
+                }
+            }
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return new Result(output, written, pages, withoutPhoto, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private PendingPage prepare(List<Student> students, Map<Long, Document> photos) {
+        List<CompletableFuture<byte[]>> pending = new ArrayList<>(students.size());
+        for (Student student : students) {
+            Document photo = photos.get(student.getId());
+            pending.add(photo != null
+                ? thumbnailService.getImage(photo, ThumbnailService.Size.ID_CARD)
+                : CompletableFuture.completedFuture(null));
+        }
+        return new PendingPage(students, pending);
+    }
+
+    /**
+     * @return number of cards printed without a photo
+     */
+    private int writePage(PdfContentByte canvas, PendingPage page, String sessionLabel)
+            throws DocumentException, IOException, InterruptedException {
+        float gridWidth = COLUMNS * CARD_WIDTH + (COLUMNS - 1) * GAP;
+        float gridHeight = ROWS * CARD_HEIGHT + (ROWS - 1) * GAP;
+        float left = (PageSize.A4.getWidth() - gridWidth) / 2;
+        float top = (PageSize.A4.getHeight() + gridHeight) / 2;
+
+        int withoutPhoto = 0;
+        for (int i = 0; i < page.students().size(); i++) {
+            float x = left + (i % COLUMNS) * (CARD_WIDTH + GAP);
+            float y = top - (i / COLUMNS + 1) * CARD_HEIGHT - (i / COLUMNS) * GAP;
+            Image photo = loadPhoto(page.students().get(i), page.photos().get(i));
+            if (photo == null) {
+                withoutPhoto++;
+            }
+            drawCard(canvas, x, y, page.students().get(i), photo, sessionLabel);
+        }
+        return withoutPhoto;
+    }
+
+    private static Image loadPhoto(Student student, CompletableFuture<byte[]> pending) throws InterruptedException {
+        try {
+            byte[] bytes = pending.get();
+            return bytes != null ? Image.getInstance(bytes) : null;
+        } catch (ExecutionException | IOException | DocumentException e) {
+            System.err.println("Printing ID card of " + student.getRollNumber() + " without photo: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // ==================== Card ====================
+
+    private void drawCard(PdfContentByte canvas, float x, float y, Student student, Image photo, String sessionLabel)
+            throws DocumentException {
+        // Outline doubles as the cutting line
+        canvas.saveState();
+        canvas.setColorStroke(BaseColor.LIGHT_GRAY);
+        canvas.setLineWidth(0.5f);
+        canvas.roundRectangle(x, y, CARD_WIDTH, CARD_HEIGHT, 6);
+        canvas.stroke();
+
+        canvas.setColorFill(HEADER_COLOR);
+        canvas.rectangle(x, y + CARD_HEIGHT - HEADER_HEIGHT, CARD_WIDTH, HEADER_HEIGHT);
+        canvas.fill();
+        canvas.restoreState();
+
+        Font schoolFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, BaseColor.WHITE);
+        Font titleFont = FontFactory.getFont(FontFactory.HELVETICA, 6.5f, BaseColor.WHITE);
+        float center = x + CARD_WIDTH / 2;
+        showText(canvas, Element.ALIGN_CENTER, fit(schoolName, schoolFont, CARD_WIDTH - 12), schoolFont,
+            center, y + CARD_HEIGHT - 14);
+        showText(canvas, Element.ALIGN_CENTER, "STUDENT IDENTITY CARD", titleFont, center, y + CARD_HEIGHT - 25);
+
+        float photoX = x + 10;
+        float photoY = y + CARD_HEIGHT - HEADER_HEIGHT - 8 - PHOTO_HEIGHT;
+        if (photo != null) {
+            photo.scaleToFit(PHOTO_WIDTH, PHOTO_HEIGHT);
+            photo.setAbsolutePosition(photoX + (PHOTO_WIDTH - photo.getScaledWidth()) / 2,
+                photoY + (PHOTO_HEIGHT - photo.getScaledHeight()) / 2);
+            canvas.addImage(photo);
+        } else {
+            canvas.saveState();
+            canvas.setColorStroke(BaseColor.GRAY);
+            canvas.setLineWidth(0.5f);
+            canvas.rectangle(photoX, photoY, PHOTO_WIDTH, PHOTO_HEIGHT);
+            canvas.stroke();
+            canvas.restoreState();
+            showText(canvas, Element.ALIGN_CENTER, "PHOTO",
+                FontFactory.getFont(FontFactory.HELVETICA, 7, BaseColor.GRAY),
+                photoX + PHOTO_WIDTH / 2, photoY + PHOTO_HEIGHT / 2 - 2);
+        }
+
+        Font nameFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 9, BaseColor.BLACK);
+        Font labelFont = FontFactory.getFont(FontFactory.HELVETICA, 6.5f, BaseColor.GRAY);
+        Font valueFont = FontFactory.getFont(FontFactory.HELVETICA, 7.5f, BaseColor.BLACK);
+        float textX = photoX + PHOTO_WIDTH + 10;
+        float textWidth = x + CARD_WIDTH - 8 - textX;
+        float line = y + CARD_HEIGHT - HEADER_HEIGHT - 17;
+        showText(canvas, Element.ALIGN_LEFT, fit(student.getName(), nameFont, textWidth), nameFont, textX, line);
+
+        String[][] fields = {
+            {"Roll No", student.getRollNumber()},
+            {"Class", student.getGrade() + "-" + student.getSection()},
+            {"Date of Birth", student.getDateOfBirth() != null ? student.getDateOfBirth().format(DATE) : null},
+            {"Guardian", student.getGuardianName()},
+            {"Phone", student.getGuardianPhone() != null ? student.getGuardianPhone() : student.getPhone()},
+        };
+        float labelWidth = 42;
+        for (String[] field : fields) {
+            line -= 13;
+            showText(canvas, Element.ALIGN_LEFT, field[0], labelFont, textX, line);
+            showText(canvas, Element.ALIGN_LEFT, fit(field[1] != null ? field[1] : "-", valueFont, textWidth - labelWidth),
+                valueFont, textX + labelWidth, line);
+        }
+
+        showText(canvas, Element.ALIGN_RIGHT, "Session " + sessionLabel, labelFont, x + CARD_WIDTH - 8, y + 7);
+    }
+
+    private static void showText(PdfContentByte canvas, int alignment, String text, Font font, float x, float y) {
+        ColumnText.showTextAligned(canvas, alignment, new Phrase(text, font), x, y, 0);
+    }
+
+    /**
+     * Shorten text with an ellipsis until it fits the width
+     */
+    static String fit(String text, Font font, float width) {
+        BaseFont baseFont = font.getCalculatedBaseFont(false);
+        if (text == null || baseFont.getWidthPoint(text, font.getSize()) <= width) {
+            return text;
+        }
+        String shortened = text;
+        while (shortened.length() > 1 && baseFont.getWidthPoint(shortened + "...", font.getSize()) > width) {
+            shortened = shortened.substring(0, shortened.length() - 1);
+        }
+        return shortened.stripTrailing() + "...";
+    }
+}
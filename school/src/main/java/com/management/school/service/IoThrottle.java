@@ -0,0 +1,105 @@
+package com.management.school.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Token-bucket bandwidth limiter shared by every thread of one backup stage.
+ *
+ * Tokens are bytes; the bucket refills at the configured rate and holds at
+ * most one second's worth, so short bursts pass but the average stays at the
+ * limit. A rate of 0 means unlimited.
+ */
+public class IoThrottle {
+
+    public static final IoThrottle UNLIMITED = new IoThrottle(0);
+
+    private final long bytesPerSecond;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+
+    public IoThrottle(long bytesPerSecond) {
+        this.bytesPerSecond = Math.max(0, bytesPerSecond);
+        this.tokens = this.bytesPerSecond;
+    }
+
+    /**
+     * Throttle for a rate given in KB/s, as used in application.properties.
+     */
+    public static IoThrottle ofKilobytesPerSecond(long kilobytesPerSecond) {
+        return kilobytesPerSecond > 0 ? new IoThrottle(kilobytesPerSecond * 1024) : UNLIMITED;
+    }
+
+    public boolean isUnlimited() {
+        return bytesPerSecond == 0;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Block until {@code bytes} may be transferred.
+     */
+    public void acquire(long bytes) throws IOException {
+        if (isUnlimited() || bytes <= 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            // Going into debt lets requests larger than the bucket through;
+            // the caller then waits for the debt to be paid back
+            tokens -= bytes;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens * 1_000_000_000.0 / bytesPerSecond);
+        }
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while throttling backup I/O", e);
+            }
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(bytesPerSecond, tokens + (now - lastRefill) * bytesPerSecond / 1_000_000_000.0);
+        lastRefill = now;
+    }
+
+    /**
+     * Wrap a stream so that reading from it is limited by this throttle.
+     */
+    public InputStream wrap(InputStream in) {
+        if (isUnlimited()) {
+            return in;
+        }
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    acquire(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    acquire(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return isUnlimited() ? "unlimited" : (bytesPerSecond / 1024) + " KB/s";
+    }
+}
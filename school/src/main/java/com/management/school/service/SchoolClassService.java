@@ -0,0 +1,266 @@
+package com.management.school.service;
+
+import com.management.school.model.SchoolClass;
+import com.management.school.repository.SchoolClassRepository;
+import com.management.school.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The classes of the school: loaded once, cached, and shared by every screen
+ * that offers a grade or section to pick.
+ *
+ * The classes listed are those of the latest academic year set up. On first
+ * use, when there are none yet, the standard classes are created for the
+ * current academic year. A student saved in a class that is not listed, e.g.
+ * one from an older backup, gets that class added. After a database restore
+ * {@code SchoolClassMigration} reloads the cache and links the restored
+ * students to their classes.
+ *
+ * A student's grade and section are the authoritative record of their class.
+ * The class id is derived from them whenever the student is saved, and again
+ * for students restored or merged from a backup, since ids handed out in one
+ * database can name a different class in another.
+ */
+@Service
+public class SchoolClassService {
+
+    static final List<String> DEFAULT_GRADES = List.of(
+        "Nursery", "KG", "I", "II", "III", "IV", "V", "VI", "VII", "VIII", "IX", "X");
+    static final List<String> DEFAULT_SECTIONS = List.of("A", "B");
+
+    @Autowired
+    private SchoolClassRepository schoolClassRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Listed classes in display order; null until first used
+    private volatile List<SchoolClass> classes;
+    // Classes of earlier academic years looked up by id so far
+    private final Map<Short, SchoolClass> otherClasses = new ConcurrentHashMap<>();
+
+    // ==================== Class list ====================
+
+    /**
+     * Forget the cached classes, e.g. after a database restore replaced them
+     */
+    public synchronized void reload() {
+        classes = null;
+        otherClasses.clear();
+    }
+
+    /**
+     * Every listed class, by grade order and then section
+     */
+    public List<SchoolClass> getClasses() {
+        List<SchoolClass> current = classes;
+        return current != null ? current : load();
+    }
+
+    /**
+     * The class with this id, whether listed or of an earlier academic year;
+     * null for a null id or one with no class
+     */
+    public SchoolClass findClass(Short id) {
+        if (id == null) {
+            return null;
+        }
+        for (SchoolClass schoolClass : getClasses()) {
+            if (schoolClass.getId().equals(id)) {
+                return schoolClass;
+            }
+        }
+        SchoolClass other = otherClasses.get(id);
+        if (other == null) {
+            other = schoolClassRepository.findById(id).orElse(null);
+            if (other != null) {
+                otherClasses.put(id, other);
+            }
+        }
+        return other;
+    }
+
+    /**
+     * The class with this id as shown in lists, e.g. "VIII-A"; empty for a
+     * student not linked to a class
+     */
+    public String className(Short id) {
+        SchoolClass schoolClass = findClass(id);
+        return schoolClass != null ? schoolClass.getName() : "";
+    }
+
+    /**
+     * The classes with these ids, whether listed or of an earlier academic
+     * year: the listed ones in list order, then the others, latest year
+     * first. Ids of classes that do not exist, and null, are left out.
+     */
+    public List<SchoolClass> getClasses(Collection<Short> ids) {
+        Set<Short> wanted = new HashSet<>(ids);
+        wanted.remove(null);
+        List<SchoolClass> found = new ArrayList<>();
+        for (SchoolClass schoolClass : getClasses()) {
+            if (wanted.remove(schoolClass.getId())) {
+                found.add(schoolClass);
+            }
+        }
+        if (!wanted.isEmpty()) {
+            List<SchoolClass> others = new ArrayList<>(schoolClassRepository.findAllById(wanted));
+            others.sort(Comparator.comparing(SchoolClass::getAcademicYear).reversed()
+                .thenComparingInt(SchoolClass::getDisplayOrder)
+                .thenComparing(SchoolClass::getSection));
+            found.addAll(others);
+        }
+        return found;
+    }
+
+    /**
+     * The grades, lowest first
+     */
+    public List<String> getGrades() {
+        List<String> grades = new ArrayList<>();
+        for (SchoolClass schoolClass : getClasses()) {
+            if (!grades.contains(schoolClass.getGrade())) {
+                grades.add(schoolClass.getGrade());
+            }
+        }
+        return grades;
+    }
+
+    /**
+     * The sections of any grade, alphabetically
+     */
+    public List<String> getSections() {
+        TreeSet<String> sections = new TreeSet<>();
+        for (SchoolClass schoolClass : getClasses()) {
+            sections.add(schoolClass.getSection());
+        }
+        return new ArrayList<>(sections);
+    }
+
+    /**
+     * Position of a grade when sorting, lowest first; unknown grades last
+     */
+    public int gradeOrder(String grade) {
+        for (SchoolClass schoolClass : getClasses()) {
+            if (schoolClass.getGrade().equals(grade)) {
+                return schoolClass.getDisplayOrder();
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * The academic year running today; years run from April, e.g. 2025-26
+     */
+    public static String currentAcademicYear() {
+        LocalDate today = LocalDate.now();
+        int start = today.getMonthValue() >= 4 ? today.getYear() : today.getYear() - 1;
+        return start + "-" + String.format("%02d", (start + 1) % 100);
+    }
+
+    // ==================== Class keys ====================
+
+    /**
+     * The id of the listed class with this grade and section, adding the
+     * class if there is none. The class is saved in a transaction of its
+     * own, so it is there for the student even if the caller's transaction
+     * rolls back afterwards.
+     */
+    public Short classIdFor(String grade, String section) {
+        if (grade == null || grade.isBlank() || section == null || section.isBlank()) {
+            throw new IllegalArgumentException("Grade and section are required");
+        }
+        SchoolClass existing = find(getClasses(), grade, section);
+        return existing != null ? existing.getId() : add(grade, section).getId();
+    }
+
+    /**
+     * Link every student without a class key to the class of their grade and
+     * section, adding classes as needed; returns the students linked
+     */
+    public int assignStudentClasses() {
+        int assigned = 0;
+        for (Object[] unassigned : studentRepository.findUnassignedClasses()) {
+            String grade = (String) unassigned[0];
+            String section = (String) unassigned[1];
+            Short classId = classIdFor(grade, section);
+            assigned += transaction().execute(status -> studentRepository.assignClass(classId, grade, section));
+        }
+        return assigned;
+    }
+
+    private synchronized List<SchoolClass> load() {
+        if (classes != null) {
+            return classes;
+        }
+        String academicYear = schoolClassRepository.findLatestAcademicYear();
+        if (academicYear == null) {
+            academicYear = currentAcademicYear();
+            List<SchoolClass> defaults = new ArrayList<>();
+            for (int i = 0; i < DEFAULT_GRADES.size(); i++) {
+                for (String section : DEFAULT_SECTIONS) {
+                    defaults.add(new SchoolClass(DEFAULT_GRADES.get(i), section, i, academicYear));
+                }
+            }
+            transaction().executeWithoutResult(status -> schoolClassRepository.saveAll(defaults));
+            System.out.println("Created " + defaults.size() + " classes for " + academicYear);
+        }
+        classes = List.copyOf(schoolClassRepository.findByAcademicYearOrderByDisplayOrderAscSectionAsc(academicYear));
+        return classes;
+    }
+
+    private synchronized SchoolClass add(String grade, String section) {
+        List<SchoolClass> current = getClasses();
+        SchoolClass existing = find(current, grade, section);
+        if (existing != null) {
+            return existing;
+        }
+
+        // Next to the other sections of the grade, or after every grade for a new one
+        int displayOrder = gradeOrder(grade);
+        if (displayOrder == Integer.MAX_VALUE) {
+            displayOrder = current.stream().mapToInt(SchoolClass::getDisplayOrder).max().orElse(-1) + 1;
+        }
+        String academicYear = current.isEmpty() ? currentAcademicYear() : current.get(0).getAcademicYear();
+        SchoolClass schoolClass = new SchoolClass(grade, section, displayOrder, academicYear);
+        SchoolClass saved = transaction().execute(status -> schoolClassRepository.save(schoolClass));
+        System.out.println("Added class " + saved.getName() + " for " + academicYear);
+
+        classes = null;
+        load();
+        return saved;
+    }
+
+    private static SchoolClass find(List<SchoolClass> classes, String grade, String section) {
+        for (SchoolClass schoolClass : classes) {
+            if (schoolClass.getGrade().equals(grade) && schoolClass.getSection().equals(section)) {
+                return schoolClass;
+            }
+        }
+        return null;
+    }
+
+    private TransactionTemplate transaction() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transaction;
+    }
+}
@@ -0,0 +1,394 @@
+package com.management.school.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index for finding people by any of their fields.
+ *
+ * Every field value is split into lower-case words, and each word points at
+ * the entries containing it with the field's weight. A query word matches
+ * <ul>
+ *   <li>the same word (full weight),</li>
+ *   <li>words it is the beginning of, so typing can stop early,</li>
+ *   <li>in name fields, words that sound the same ({@link #phoneticKey}),</li>
+ *   <li>and words one or two typing mistakes away, found through a trigram
+ *       index of the distinct words.</li>
+ * </ul>
+ * Numbers such as phone numbers can also be found by their last four or
+ * more digits, and identifiers like "R-101" by their letters and digits run
+ * together. Every query word has to match; entries are ranked by the sum of
+ * their best match for each word.
+ */
+public class SearchIndex {
+
+    private static final float PREFIX_FACTOR = 0.7f;
+    private static final float PHONETIC_FACTOR = 0.6f;
+    private static final float FUZZY_FACTOR = 0.5f;
+    private static final float SUFFIX_FACTOR = 0.8f;
+    private static final int MIN_SUFFIX_LENGTH = 4;
+    private static final int MAX_PREFIX_WORDS = 500;
+
+    /**
+     * One field of an entry
+     *
+     * @param name whether the value is a person's name, matched by sound too
+     * @param identifier whether the value is also indexed with its words run together
+     */
+    public record Field(String value, float weight, boolean name, boolean identifier) {
+
+        public static Field name(String value, float weight) {
+            return new Field(value, weight, true, false);
+        }
+
+        public static Field identifier(String value, float weight) {
+            return new Field(value, weight, false, true);
+        }
+
+        public static Field text(String value, float weight) {
+            return new Field(value, weight, false, false);
+        }
+    }
+
+    /**
+     * What an entry put into the index, so it can be taken out again
+     */
+    private record Entry(String label, Map<String, Float> words, Map<String, Float> sounds) {
+    }
+
+    private final NavigableMap<String, Map<Long, Float>> words = new TreeMap<>();
+    private final Map<String, Map<Long, Float>> sounds = new HashMap<>();
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Add an entry, or replace it
+     *
+     * @param label sorts entries that score the same
+     */
+    public void put(Long id, String label, List<Field> fields) {
+        Map<String, Float> entryWords = new HashMap<>();
+        Map<String, Float> entrySounds = new HashMap<>();
+        for (Field field : fields) {
+            if (field.value() == null) {
+                continue;
+            }
+            List<String> valueWords = tokenize(field.value());
+            for (String word : valueWords) {
+                entryWords.merge(word, field.weight(), Math::max);
+                if (field.name()) {
+                    String key = phoneticKey(word);
+                    if (!key.isEmpty()) {
+                        entrySounds.merge(key, field.weight(), Math::max);
+                    }
+                }
+                if (isDigits(word)) {
+                    for (int start = 1; word.length() - start >= MIN_SUFFIX_LENGTH; start++) {
+                        entryWords.merge(word.substring(start), field.weight() * SUFFIX_FACTOR, Math::max);
+                    }
+                }
+            }
+            if (field.identifier() && valueWords.size() > 1) {
+                entryWords.merge(String.join("", valueWords), field.weight(), Math::max);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+            Entry entry = new Entry(label != null ? label.toLowerCase(Locale.ROOT) : "", entryWords, entrySounds);
+            entries.put(id, entry);
+            entryWords.forEach((word, weight) -> {
+                Map<Long, Float> postings = words.get(word);
+                if (postings == null) {
+                    postings = new HashMap<>();
+                    words.put(word, postings);
+                    for (String trigram : trigrams(word)) {
+                        trigrams.computeIfAbsent(trigram, k -> new HashSet<>()).add(word);
+                    }
+                }
+                postings.put(id, weight);
+            });
+            entrySounds.forEach((key, weight) -> sounds.computeIfAbsent(key, k -> new HashMap<>()).put(id, weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeEntry(Long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String word : entry.words().keySet()) {
+            Map<Long, Float> postings = words.get(word);
+            postings.remove(id);
+            if (postings.isEmpty()) {
+                words.remove(word);
+                for (String trigram : trigrams(word)) {
+                    Set<String> containing = trigrams.get(trigram);
+                    containing.remove(word);
+                    if (containing.isEmpty()) {
+                        trigrams.remove(trigram);
+                    }
+                }
+            }
+        }
+        for (String key : entry.sounds().keySet()) {
+            Map<Long, Float> postings = sounds.get(key);
+            postings.remove(id);
+            if (postings.isEmpty()) {
+                sounds.remove(key);
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the best matching entries, best first
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> total = null;
+            for (String term : terms) {
+                Map<Long, Float> scores = score(term);
+                if (total == null) {
+                    total = scores;
+                } else {
+                    total.keySet().retainAll(scores.keySet());
+                    total.replaceAll((id, score) -> score + scores.get(id));
+                }
+                if (total.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            Map<Long, Float> ranked = total;
+            List<Long> ids = new ArrayList<>(ranked.keySet());
+            ids.sort((a, b) -> {
+                int byScore = Float.compare(ranked.get(b), ranked.get(a));
+                return byScore != 0 ? byScore : entries.get(a).label().compareTo(entries.get(b).label());
+            });
+            return ids.size() > limit ? new ArrayList<>(ids.subList(0, limit)) : ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best score of every entry matching one query word
+     */
+    private Map<Long, Float> score(String term) {
+        Map<Long, Float> scores = new HashMap<>();
+        addScores(scores, words.get(term), 1f);
+
+        int expanded = 0;
+        for (Map.Entry<String, Map<Long, Float>> prefixed
+                : words.subMap(term, false, term + Character.MAX_VALUE, false).entrySet()) {
+            if (++expanded > MAX_PREFIX_WORDS) {
+                break;
+            }
+            addScores(scores, prefixed.getValue(), PREFIX_FACTOR);
+        }
+
+        if (!isDigits(term)) {
+            String key = phoneticKey(term);
+            if (key.length() > 1) {
+                addScores(scores, sounds.get(key), PHONETIC_FACTOR);
+            }
+            for (String similar : similarWords(term)) {
+                addScores(scores, words.get(similar), FUZZY_FACTOR);
+            }
+        }
+        return scores;
+    }
+
+    private static void addScores(Map<Long, Float> scores, Map<Long, Float> postings, float factor) {
+        if (postings != null) {
+            postings.forEach((id, weight) -> scores.merge(id, weight * factor, Math::max));
+        }
+    }
+
+    /**
+     * Indexed words within one edit (two for long words) of the term. Each
+     * edit changes at most three of a word's trigrams, so only words sharing
+     * enough trigrams with the term need to be compared.
+     */
+    private List<String> similarWords(String term) {
+        int maxEdits = term.length() >= 8 ? 2 : term.length() >= 4 ? 1 : 0;
+        if (maxEdits == 0) {
+            return List.of();
+        }
+        Set<String> termTrigrams = trigrams(term);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : termTrigrams) {
+            Set<String> containing = trigrams.get(trigram);
+            if (containing != null) {
+                for (String word : containing) {
+                    shared.merge(word, 1, Integer::sum);
+                }
+            }
+        }
+
+        int required = Math.max(1, termTrigrams.size() - 3 * maxEdits);
+        List<String> similar = new ArrayList<>();
+        shared.forEach((word, count) -> {
+            if (count >= required && !word.equals(term) && Math.abs(word.length() - term.length()) <= maxEdits
+                    && editDistance(term, word, maxEdits) <= maxEdits) {
+                similar.add(word);
+            }
+        });
+        return similar;
+    }
+
+    // ==================== Text ====================
+
+    /**
+     * Lower-case words without accents; anything but letters and digits separates words
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String plain = Normalizer.normalize(text, Normalizer.Form.NFD)
+            .replaceAll("\\p{M}+", "")
+            .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : plain.split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Key under which differently spelt romanisations of the same Indian name
+     * meet: Mohammad and Muhammed, Lakshmi and Laxmi, Chaudhary and
+     * Chowdhury, Vikash and Bikash, Rizwan and Rijwan.
+     *
+     * Spelling variants of one sound are folded together (aspirated
+     * consonants lose their h, sh becomes s, x becomes ks, z becomes j, v and
+     * w become b), then the vowels and h after the first letter are dropped
+     * and doubled consonants collapsed.
+     */
+    static String phoneticKey(String word) {
+        String s = word.toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "");
+        if (s.isEmpty()) {
+            return "";
+        }
+        s = s.replaceAll("c(?!h)", "k")
+            .replace("chh", "c").replace("ch", "c")
+            .replace("ph", "f").replace("bh", "b").replace("dh", "d").replace("th", "t")
+            .replace("kh", "k").replace("gh", "g").replace("sh", "s").replace("jh", "j")
+            .replace("x", "ks").replace("q", "k").replace("z", "j")
+            // w before a consonant is part of the vowel: Chowdhury, Chaudhury
+            .replaceAll("w(?![aeiou])", "")
+            .replace("w", "b").replace("v", "b");
+        if (s.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder key = new StringBuilder();
+        char first = s.charAt(0);
+        key.append("aeiou".indexOf(first) >= 0 ? 'a' : first);
+        char previous = first;
+        for (int i = 1; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == 'h') {
+                continue;
+            }
+            if ("aeiouy".indexOf(c) < 0 && c != previous) {
+                key.append(c);
+            }
+            previous = c;
+        }
+        return key.toString();
+    }
+
+    /**
+     * Trigrams of the word with its ends marked, so that short words and
+     * word beginnings get trigrams of their own
+     */
+    private static Set<String> trigrams(String word) {
+        String padded = "^" + word + "$";
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    /**
+     * Optimal string alignment distance (a swap of neighbours counts as one
+     * edit), giving up once it must exceed max
+     */
+    static int editDistance(String a, String b, int max) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int rowMin = Integer.MAX_VALUE;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, d[i][j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static boolean isDigits(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isDigit(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
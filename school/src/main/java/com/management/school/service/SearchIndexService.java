@@ -0,0 +1,216 @@
+package com.management.school.service;
+
+import com.management.school.model.Student;
+import com.management.school.model.Teacher;
+import com.management.school.repository.StudentRepository;
+import com.management.school.repository.TeacherRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a {@link SearchIndex} of the active students and one of the active
+ * teachers. Both are built in the background at startup and rebuilt after a
+ * database restore, or after a selective restore of students or teachers;
+ * in between, the student and teacher services keep them up to date as
+ * records are saved and deleted, once their transaction has committed.
+ *
+ * Until the first build has finished the search methods return null, and
+ * the services fall back to searching the database.
+ */
+@Service
+public class SearchIndexService {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    private volatile SearchIndex students;
+    private volatile SearchIndex teachers;
+
+    // Changes made while a rebuild reads the database, replayed on the new index
+    private List<Runnable> changesDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread thread = new Thread(this::rebuild, "search-index-thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @EventListener
+    public void onDatabaseRestored(DatabaseRestoredEvent event) {
+        rebuild();
+    }
+
+    @EventListener
+    public void onTableMerged(TableMergedEvent event) {
+        if ("students".equals(event.getTable()) || "teachers".equals(event.getTable())) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        synchronized (this) {
+            if (changesDuringRebuild != null) {
+                // Already rebuilding; that rebuild will see the same data
+                return;
+            }
+            changesDuringRebuild = new ArrayList<>();
+        }
+
+        long startNanos = System.nanoTime();
+        SearchIndex newStudents = new SearchIndex();
+        SearchIndex newTeachers = new SearchIndex();
+        try {
+            for (Student student : studentRepository.findByActive(true)) {
+                put(newStudents, student);
+            }
+            for (Teacher teacher : teacherRepository.findByActive(true)) {
+                put(newTeachers, teacher);
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changesDuringRebuild = null;
+            }
+            System.err.println("Failed to build search index: " + e.getMessage());
+            return;
+        }
+
+        synchronized (this) {
+            List<Runnable> changes = changesDuringRebuild;
+            changesDuringRebuild = null;
+            students = newStudents;
+            teachers = newTeachers;
+            changes.forEach(Runnable::run);
+        }
+        System.out.println("Search index built: " + newStudents.size() + " student(s), " + newTeachers.size()
+            + " teacher(s) in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+    }
+
+    // ==================== Queries ====================
+
+    /**
+     * Ids of the best matching active students, best first; null while the
+     * index is not built yet
+     */
+    public List<Long> searchStudents(String query, int limit) {
+        return students != null ? students.search(query, limit) : null;
+    }
+
+    /**
+     * Ids of the best matching active teachers, best first; null while the
+     * index is not built yet
+     */
+    public List<Long> searchTeachers(String query, int limit) {
+        return teachers != null ? teachers.search(query, limit) : null;
+    }
+
+    /**
+     * Whether the indexes have been built; until then the search methods
+     * return null
+     */
+    public boolean isBuilt() {
+        return students != null;
+    }
+
+    // ==================== Updates ====================
+
+    /**
+     * Index a saved student, or take it out if it is no longer active
+     */
+    public void studentSaved(Student student) {
+        afterCommit(() -> {
+            if (student.isActive()) {
+                put(students, student);
+            } else {
+                students.remove(student.getId());
+            }
+        });
+    }
+
+    public void studentDeleted(Long id) {
+        afterCommit(() -> students.remove(id));
+    }
+
+    /**
+     * Index a saved teacher, or take it out if it is no longer active
+     */
+    public void teacherSaved(Teacher teacher) {
+        afterCommit(() -> {
+            if (teacher.isActive()) {
+                put(teachers, teacher);
+            } else {
+                teachers.remove(teacher.getId());
+            }
+        });
+    }
+
+    public void teacherDeleted(Long id) {
+        afterCommit(() -> teachers.remove(id));
+    }
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private synchronized void apply(Runnable change) {
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(change);
+        }
+        if (students != null) {
+            change.run();
+        }
+    }
+
+    private static void put(SearchIndex index, Student student) {
+        index.put(student.getId(), student.getName(), List.of(
+            SearchIndex.Field.name(student.getName(), 3),
+            SearchIndex.Field.identifier(student.getRollNumber(), 3),
+            SearchIndex.Field.name(student.getGuardianName(), 2),
+            SearchIndex.Field.text(student.getPhone(), 2),
+            SearchIndex.Field.text(student.getGuardianPhone(), 2),
+            SearchIndex.Field.text(localPart(student.getEmail()), 1),
+            SearchIndex.Field.text(localPart(student.getGuardianEmail()), 1)
+        ));
+    }
+
+    private static void put(SearchIndex index, Teacher teacher) {
+        index.put(teacher.getId(), teacher.getName(), List.of(
+            SearchIndex.Field.name(teacher.getName(), 3),
+            SearchIndex.Field.identifier(teacher.getEmployeeId(), 3),
+            SearchIndex.Field.text(teacher.getPhone(), 2),
+            SearchIndex.Field.text(teacher.getSubject(), 1),
+            SearchIndex.Field.text(localPart(teacher.getEmail()), 1),
+            SearchIndex.Field.name(teacher.getEmergencyContactName(), 1)
+        ));
+    }
+
+    /**
+     * The part of an address before the @; the domain would match everyone
+     */
+    private static String localPart(String email) {
+        if (email == null) {
+            return null;
+        }
+        int at = email.indexOf('@');
+        return at < 0 ? email : email.substring(0, at);
+    }
+}
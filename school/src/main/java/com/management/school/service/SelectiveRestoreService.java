@@ -0,0 +1,285 @@
+package com.management.school.service;
+
+import com.management.school.core.BackupLogSink;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Brings back part of a backup - one table, optionally limited to a date
+ * range and to the students of one class - and merges it into the live
+ * database without touching anything else.
+ *
+ * Backups record where each table's statements are in the dump, so only the
+ * chunks holding the wanted table (plus the students table, when filtering
+ * by class) are decrypted and decompressed. Rows are merged with
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE}: rows that still exist are put
+ * back to their backed-up values, deleted rows are re-created, and rows
+ * added since the backup are left alone.
+ */
+@Service
+public class SelectiveRestoreService {
+
+    private static final String STUDENTS_TABLE = "students";
+    private static final String CLASS_ID_COLUMN = "class_id";
+    private static final int MERGE_BATCH_SIZE = 500;
+
+    @Autowired
+    private BackupService backupService;
+
+    @Autowired
+    private BackupLogSink log;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * What to bring back. Null or blank filters are not applied.
+     *
+     * @param table      table to restore rows of
+     * @param dateColumn date column the range applies to
+     * @param from       first day to include
+     * @param to         last day to include
+     * @param grade      only rows of students in this grade
+     * @param section    only rows of students in this section
+     */
+    public record Request(String table, String dateColumn, LocalDate from, LocalDate to,
+                          String grade, String section) {
+
+        boolean filtersByClass() {
+            return !isBlank(grade) || !isBlank(section);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder description = new StringBuilder(table);
+            if (!isBlank(dateColumn) && (from != null || to != null)) {
+                description.append(", ").append(dateColumn).append(' ')
+                           .append(from != null ? from : "...").append(" to ").append(to != null ? to : "...");
+            }
+            if (filtersByClass()) {
+                description.append(", class ").append(isBlank(grade) ? "any" : grade)
+                           .append(isBlank(section) ? "" : "-" + section);
+            }
+            return description.toString();
+        }
+    }
+
+    /**
+     * Rows taken out of a backup, still as the SQL literals of the dump.
+     */
+    public record Extract(String backupName, Request request, List<String> columns, List<List<String>> rows,
+                          long bytesRead, long totalBytes, int chunksRead, int totalChunks) {
+    }
+
+    /**
+     * Collect the rows matching the request from a snapshot.
+     */
+    public Extract extract(BackupChunkStore store, BackupManifest manifest, Request request) throws IOException {
+        if (!manifest.getRowCounts().isEmpty() && !manifest.getRowCounts().containsKey(request.table())) {
+            throw new IllegalArgumentException("Backup has no table " + request.table());
+        }
+        long startNanos = System.nanoTime();
+        Counter counter = new Counter();
+
+        // The class filter needs the backup's own students: the class a student
+        // was in on the day of the backup is what the rows were recorded under
+        Set<String> studentIds = null;
+        if (request.filtersByClass() && !STUDENTS_TABLE.equals(request.table())) {
+            studentIds = studentsInClass(store, manifest, request, counter);
+            log.info(String.format("%d students in the selected class", studentIds.size()));
+        }
+
+        SqlDumpReader reader = new SqlDumpReader();
+        List<List<String>> rows = new ArrayList<>();
+        Set<String> classStudents = studentIds;
+        try (InputStream in = openTable(store, manifest, request.table(), counter)) {
+            reader.read(in, List.of(request.table()), (table, columns, literals) -> {
+                if (matches(request, columns, literals, classStudents)) {
+                    rows.add(literals);
+                }
+            });
+        }
+
+        List<String> columns = reader.getColumns(request.table());
+        if (columns.isEmpty()) {
+            throw new IllegalStateException("Table " + request.table() + " not found in backup " + manifest.getName());
+        }
+        log.info(String.format("Matched %d row(s) of %s, reading %s of %s (%d of %d chunks) in %.1f s",
+            rows.size(), request.table(), BackupService.formatFileSize(counter.bytes),
+            BackupService.formatFileSize(manifest.getSize()), counter.chunks, manifest.getChunks().size(),
+            (System.nanoTime() - startNanos) / 1e9));
+        return new Extract(manifest.getName(), request, columns, rows, counter.bytes, manifest.getSize(),
+            counter.chunks, manifest.getChunks().size());
+    }
+
+    /**
+     * Upsert the extracted rows into the live table in one transaction.
+     *
+     * @return number of rows written
+     */
+    public int merge(Extract extract) {
+        String table = extract.request().table();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Set<String> liveColumns = new LinkedHashSet<>(jdbc.queryForList(
+            "SELECT COLUMN_NAME FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+            String.class, table));
+        if (liveColumns.isEmpty()) {
+            throw new IllegalStateException("Table " + table + " does not exist in the live database");
+        }
+
+        // A class id from a backup may name a different class here, since the ids are handed
+        // out again after a restore; merged students are written without one and relinked
+        // from their grade and section (see SchoolClassMigration)
+        boolean relinkClasses = STUDENTS_TABLE.equals(table) && liveColumns.contains(CLASS_ID_COLUMN);
+
+        // Columns dropped since the backup are left out; columns added since keep their defaults
+        List<Integer> kept = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < extract.columns().size(); i++) {
+            String column = extract.columns().get(i);
+            if (relinkClasses && column.equals(CLASS_ID_COLUMN)) {
+                continue;
+            }
+            if (liveColumns.contains(column)) {
+                kept.add(i);
+                names.add(quote(column));
+            } else {
+                log.warning("Column " + table + "." + column + " no longer exists; its backed-up values are skipped");
+            }
+        }
+        if (relinkClasses) {
+            names.add(quote(CLASS_ID_COLUMN));
+        }
+        if (extract.rows().isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder update = new StringBuilder();
+        for (String name : names) {
+            update.append(update.length() == 0 ? "" : ", ").append(name).append(" = VALUES(").append(name).append(')');
+        }
+        String head = "INSERT INTO " + quote(table) + " (" + String.join(", ", names) + ") VALUES ";
+        String tail = " ON DUPLICATE KEY UPDATE " + update;
+
+        long startNanos = System.nanoTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<List<String>> rows = extract.rows();
+            for (int from = 0; from < rows.size(); from += MERGE_BATCH_SIZE) {
+                StringBuilder sql = new StringBuilder(head);
+                for (int r = from; r < Math.min(rows.size(), from + MERGE_BATCH_SIZE); r++) {
+                    List<String> literals = rows.get(r);
+                    sql.append(r == from ? "(" : ",(");
+                    for (int k = 0; k < kept.size(); k++) {
+                        sql.append(k == 0 ? "" : ",").append(literals.get(kept.get(k)));
+                    }
+                    sql.append(relinkClasses ? ",NULL)" : ")");
+                }
+                jdbc.update(sql.append(tail).toString());
+            }
+        });
+
+        entityManagerFactory.getCache().evictAll();
+        eventPublisher.publishEvent(new TableMergedEvent(this, extract.backupName(), table));
+        log.success(String.format("Merged %d row(s) into %s from %s in %.1f s", extract.rows().size(), table,
+            extract.backupName(), (System.nanoTime() - startNanos) / 1e9));
+        return extract.rows().size();
+    }
+
+    private Set<String> studentsInClass(BackupChunkStore store, BackupManifest manifest, Request request,
+                                        Counter counter) throws IOException {
+        Set<String> ids = new HashSet<>();
+        SqlDumpReader reader = new SqlDumpReader();
+        try (InputStream in = openTable(store, manifest, STUDENTS_TABLE, counter)) {
+            reader.read(in, List.of(STUDENTS_TABLE), (table, columns, literals) -> {
+                if (inClass(request, columns, literals)) {
+                    ids.add(SqlDumpReader.decode(literals.get(columns.indexOf("id"))));
+                }
+            });
+        }
+        return ids;
+    }
+
+    private boolean matches(Request request, List<String> columns, List<String> literals, Set<String> studentIds) {
+        if (!isBlank(request.dateColumn()) && (request.from() != null || request.to() != null)) {
+            String date = value(request.dateColumn(), columns, literals);
+            // ISO dates (and datetimes) compare correctly as text
+            if (date == null
+                    || (request.from() != null && date.compareTo(request.from().toString()) < 0)
+                    || (request.to() != null && date.substring(0, Math.min(10, date.length()))
+                                                    .compareTo(request.to().toString()) > 0)) {
+                return false;
+            }
+        }
+        if (studentIds != null) {
+            return studentIds.contains(value("student_id", columns, literals));
+        }
+        return !request.filtersByClass() || inClass(request, columns, literals);
+    }
+
+    private boolean inClass(Request request, List<String> columns, List<String> literals) {
+        return (isBlank(request.grade()) || request.grade().equals(value("grade", columns, literals)))
+            && (isBlank(request.section()) || request.section().equals(value("section", columns, literals)));
+    }
+
+    private static String value(String column, List<String> columns, List<String> literals) {
+        int index = columns.indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("Column " + column + " is not in the backed-up table");
+        }
+        return SqlDumpReader.decode(literals.get(index));
+    }
+
+    /**
+     * Only the chunks holding the table when the backup recorded its range;
+     * older backups have to be read from the start.
+     */
+    private InputStream openTable(BackupChunkStore store, BackupManifest manifest, String table, Counter counter) {
+        BackupManifest.TableRange range = manifest.getTableRanges().get(table);
+        if (range == null) {
+            log.warning("Backup " + manifest.getName() + " has no table index (older backup); reading it in full");
+            counter.bytes += manifest.getSize();
+            counter.chunks += manifest.getChunks().size();
+            return store.openSnapshot(manifest);
+        }
+        counter.bytes += range.end() - range.start();
+        counter.chunks += manifest.countChunksInRange(range.start(), range.end());
+        return store.openSnapshotRange(manifest, range.start(), range.end());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String quote(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+
+    private static class Counter {
+        long bytes;
+        int chunks;
+    }
+}
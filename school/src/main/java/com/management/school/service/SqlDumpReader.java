@@ -0,0 +1,193 @@
+package com.management.school.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the rows of selected tables back out of a mysqldump stream.
+ *
+ * Column names come from the {@code CREATE TABLE} statement, and every row of
+ * an {@code INSERT INTO `t` VALUES (...),(...);} line is handed over as its
+ * SQL literals exactly as mysqldump wrote them. Keeping the literals lets the
+ * rows be written back with the same quoting and escaping; {@link #decode}
+ * turns a literal into a value for filtering.
+ */
+public class SqlDumpReader {
+
+    private static final String CREATE_PREFIX = "CREATE TABLE `";
+    private static final String INSERT_PREFIX = "INSERT INTO `";
+
+    @FunctionalInterface
+    public interface RowHandler {
+        void row(String table, List<String> columns, List<String> literals);
+    }
+
+    private final Map<String, List<String>> columns = new HashMap<>();
+
+    /**
+     * Column names of a table whose {@code CREATE TABLE} has been read, or an
+     * empty list.
+     */
+    public List<String> getColumns(String table) {
+        return columns.getOrDefault(table, Collections.emptyList());
+    }
+
+    /**
+     * Read the stream to the end, passing every row of the given tables to the
+     * handler. Rows of other tables are skipped without being split.
+     */
+    public void read(InputStream in, List<String> tables, RowHandler handler) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(CREATE_PREFIX)) {
+                String table = tableName(line, CREATE_PREFIX.length());
+                if (tables.contains(table)) {
+                    columns.put(table, readColumns(reader));
+                }
+            } else if (line.startsWith(INSERT_PREFIX)) {
+                String table = tableName(line, INSERT_PREFIX.length());
+                if (tables.contains(table)) {
+                    readInsert(line, table, handler);
+                }
+            }
+        }
+    }
+
+    private static String tableName(String line, int from) {
+        int end = line.indexOf('`', from);
+        if (end < 0) {
+            throw new IllegalArgumentException("Malformed statement in dump: "
+                + line.substring(0, Math.min(line.length(), 80)));
+        }
+        return line.substring(from, end);
+    }
+
+    /**
+     * Column definitions are the lines starting with a backquoted name; keys
+     * and constraints follow them and the statement ends with a line
+     * starting with ')'.
+     */
+    private static List<String> readColumns(BufferedReader reader) throws IOException {
+        List<String> names = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null && !line.startsWith(")")) {
+            String trimmed = line.stripLeading();
+            if (trimmed.startsWith("`")) {
+                names.add(tableName(trimmed, 1));
+            }
+        }
+        return names;
+    }
+
+    private void readInsert(String line, String table, RowHandler handler) {
+        List<String> names = getColumns(table);
+        int i = line.indexOf('`', INSERT_PREFIX.length()) + 1;
+
+        // Dumps made with --complete-insert name the columns explicitly
+        int values = line.indexOf(" VALUES ", i);
+        if (values < 0) {
+            throw new IllegalArgumentException("INSERT without VALUES for table " + table);
+        }
+        int columnList = line.indexOf('(', i);
+        if (columnList >= 0 && columnList < values) {
+            names = new ArrayList<>();
+            for (String name : line.substring(columnList + 1, line.lastIndexOf(')', values)).split(",")) {
+                names.add(name.trim().replace("`", ""));
+            }
+        }
+
+        List<String> literals = new ArrayList<>();
+        int start = -1;
+        boolean inRow = false;
+        for (i = values + 8; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\'' || c == '"') {
+                i = endOfString(line, i, c);
+            } else if (c == '(' && !inRow) {
+                inRow = true;
+                start = i + 1;
+            } else if ((c == ',' || c == ')') && inRow) {
+                literals.add(line.substring(start, i).trim());
+                start = i + 1;
+                if (c == ')') {
+                    inRow = false;
+                    handler.row(table, names, literals);
+                    literals = new ArrayList<>();
+                }
+            }
+        }
+    }
+
+    private static int endOfString(String line, int open, char quote) {
+        for (int i = open + 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == quote) {
+                if (i + 1 < line.length() && line.charAt(i + 1) == quote) {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string literal in dump");
+    }
+
+    /**
+     * Whether a dumped boolean is true. mysqldump writes BIT(1) columns as
+     * {@code _binary '\1'}, {@code b'1'} or {@code 0x01} depending on options.
+     */
+    public static boolean isTrue(String literal) {
+        String value = literal.startsWith("_binary ") ? literal.substring(8) : literal;
+        return switch (value) {
+            case "NULL", "0", "b'0'", "0x00", "'\\0'", "'\0'", "''" -> false;
+            default -> true;
+        };
+    }
+
+    /**
+     * The value of a dumped literal: null for NULL, the unescaped text of a
+     * quoted string, otherwise the literal itself (numbers, b'1', 0x...).
+     */
+    public static String decode(String literal) {
+        if (literal.equalsIgnoreCase("NULL")) {
+            return null;
+        }
+        if (literal.length() < 2 || (literal.charAt(0) != '\'' && literal.charAt(0) != '"')) {
+            return literal;
+        }
+        char quote = literal.charAt(0);
+        StringBuilder value = new StringBuilder(literal.length());
+        for (int i = 1; i < literal.length() - 1; i++) {
+            char c = literal.charAt(i);
+            if (c == '\\' && i + 1 < literal.length() - 1) {
+                char next = literal.charAt(++i);
+                value.append(switch (next) {
+                    case '0' -> '\0';
+                    case 'b' -> '\b';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    case 't' -> '\t';
+                    case 'Z' -> (char) 26;
+                    default -> next;
+                });
+            } else if (c == quote && i + 1 < literal.length() - 1 && literal.charAt(i + 1) == quote) {
+                value.append(c);
+                i++;
+            } else {
+                value.append(c);
+            }
+        }
+        return value.toString();
+    }
+}
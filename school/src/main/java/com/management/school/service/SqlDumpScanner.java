@@ -0,0 +1,271 @@
+package com.management.school.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Watches a mysqldump stream go by and counts the rows of every table
+ * without buffering or fully parsing the SQL. It also records the byte range
+ * each table occupies in the stream (from its {@code CREATE TABLE} to the end
+ * of its last INSERT), so a single table can later be read back without
+ * decompressing the rest of the backup. Every INSERT statement is further
+ * indexed as a segment with its byte range, row count and the smallest and
+ * largest primary key in it, so a single record can be found by reading one
+ * statement.
+ *
+ * Only the two statement shapes mysqldump writes at the start of a line are
+ * recognised: {@code CREATE TABLE `t`} (so empty tables are still listed) and
+ * {@code INSERT INTO `t` VALUES (...),(...);}. Inside an INSERT, every tuple
+ * opened at parenthesis depth zero outside a string literal is one row, and
+ * its first value is taken as the primary key when it is an integer (as for
+ * every table in this schema, which all start with their {@code id} column).
+ */
+public class SqlDumpScanner {
+
+    private static final byte[] INSERT_PREFIX = "INSERT INTO `".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CREATE_PREFIX = "CREATE TABLE `".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VALUES_KEYWORD = "VALUES".getBytes(StandardCharsets.US_ASCII);
+
+    private enum State { LINE_START, SKIP_LINE, TABLE_NAME, BEFORE_VALUES, VALUES, STRING }
+
+    private final Map<String, Long> rowCounts = new LinkedHashMap<>();
+    private final Map<String, BackupManifest.TableRange> ranges = new LinkedHashMap<>();
+    private final List<BackupManifest.Segment> segments = new ArrayList<>();
+
+    private State state = State.LINE_START;
+    private final byte[] prefix = new byte[CREATE_PREFIX.length];
+    private int prefixLength;
+    private boolean nameForInsert;
+    private final StringBuilder tableName = new StringBuilder();
+    private String currentTable;
+    private int valuesMatched;
+    private int depth;
+    private byte quote;
+    private boolean escaped;
+    private long position;
+    private long lineStart;
+    private boolean inCreate;
+    private byte lastByte;
+
+    // Current INSERT statement and the first value of the current row
+    private long segmentStart;
+    private long segmentRows;
+    private Long segmentMinKey;
+    private Long segmentMaxKey;
+    private boolean segmentKeyless;
+    private boolean readingKey;
+    private long key;
+    private int keyDigits;
+    private boolean keyNegative;
+
+    /**
+     * Rows seen per table, in dump order.
+     */
+    public Map<String, Long> getRowCounts() {
+        return Collections.unmodifiableMap(rowCounts);
+    }
+
+    /**
+     * Byte range of every table's statements in the stream, in dump order.
+     */
+    public Map<String, BackupManifest.TableRange> getTableRanges() {
+        return Collections.unmodifiableMap(ranges);
+    }
+
+    /**
+     * Every INSERT statement seen, in dump order.
+     */
+    public List<BackupManifest.Segment> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Wrap a stream so everything read through it is scanned.
+     */
+    public InputStream wrap(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    update((byte) b);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                for (int i = 0; i < n; i++) {
+                    update(buffer[offset + i]);
+                }
+                return n;
+            }
+        };
+    }
+
+    public void update(byte b) {
+        switch (state) {
+            case LINE_START -> lineStart(b);
+            case SKIP_LINE -> {
+                if (b == '\n') {
+                    if (inCreate && lastByte == ';') {
+                        // End of the CREATE TABLE statement
+                        extendRange(position + 1);
+                        inCreate = false;
+                    }
+                    state = State.LINE_START;
+                }
+            }
+            case TABLE_NAME -> {
+                if (b == '`') {
+                    currentTable = tableName.toString();
+                    rowCounts.putIfAbsent(currentTable, 0L);
+                    ranges.putIfAbsent(currentTable, new BackupManifest.TableRange(lineStart, lineStart));
+                    inCreate = !nameForInsert;
+                    if (nameForInsert) {
+                        segmentStart = lineStart;
+                        segmentRows = 0;
+                        segmentMinKey = null;
+                        segmentMaxKey = null;
+                        segmentKeyless = false;
+                    }
+                    state = nameForInsert ? State.BEFORE_VALUES : State.SKIP_LINE;
+                    valuesMatched = 0;
+                } else {
+                    // Table names are ASCII in this schema; anything else is kept byte-wise
+                    tableName.append((char) (b & 0xFF));
+                }
+            }
+            case BEFORE_VALUES -> {
+                valuesMatched = b == VALUES_KEYWORD[valuesMatched] ? valuesMatched + 1
+                              : (b == VALUES_KEYWORD[0] ? 1 : 0);
+                if (valuesMatched == VALUES_KEYWORD.length) {
+                    state = State.VALUES;
+                    depth = 0;
+                }
+            }
+            case VALUES -> values(b);
+            case STRING -> {
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == quote) {
+                    // A doubled quote re-enters the string on the next byte; either way
+                    // leaving here is correct because the next quote toggles back
+                    state = State.VALUES;
+                }
+            }
+        }
+        lastByte = b;
+        position++;
+    }
+
+    private void lineStart(byte b) {
+        if (b == '\n') {
+            prefixLength = 0;
+            return;
+        }
+        if (prefixLength == 0) {
+            lineStart = position;
+        }
+        prefix[prefixLength++] = b;
+        boolean insertCandidate = matches(INSERT_PREFIX);
+        boolean createCandidate = matches(CREATE_PREFIX);
+
+        if (insertCandidate && prefixLength == INSERT_PREFIX.length) {
+            startTableName(true);
+        } else if (createCandidate && prefixLength == CREATE_PREFIX.length) {
+            startTableName(false);
+        } else if (!insertCandidate && !createCandidate) {
+            prefixLength = 0;
+            state = State.SKIP_LINE;
+        }
+    }
+
+    private boolean matches(byte[] expected) {
+        if (prefixLength > expected.length) {
+            return false;
+        }
+        for (int i = 0; i < prefixLength; i++) {
+            if (prefix[i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void startTableName(boolean insert) {
+        nameForInsert = insert;
+        tableName.setLength(0);
+        prefixLength = 0;
+        state = State.TABLE_NAME;
+    }
+
+    private void readKey(byte b) {
+        if (b >= '0' && b <= '9' && keyDigits < 18) {
+            key = key * 10 + (b - '0');
+            keyDigits++;
+        } else if (b == '-' && keyDigits == 0 && !keyNegative) {
+            keyNegative = true;
+        } else {
+            readingKey = false;
+            if ((b == ',' || b == ')') && keyDigits > 0) {
+                long value = keyNegative ? -key : key;
+                segmentMinKey = segmentMinKey == null ? value : Math.min(segmentMinKey, value);
+                segmentMaxKey = segmentMaxKey == null ? value : Math.max(segmentMaxKey, value);
+            } else {
+                segmentKeyless = true;
+            }
+        }
+    }
+
+    private void extendRange(long end) {
+        ranges.computeIfPresent(currentTable, (table, range) -> new BackupManifest.TableRange(range.start(), end));
+    }
+
+    private void values(byte b) {
+        if (readingKey) {
+            readKey(b);
+        }
+        switch (b) {
+            case '\'', '"' -> {
+                quote = b;
+                escaped = false;
+                state = State.STRING;
+            }
+            case '(' -> {
+                if (depth == 0) {
+                    rowCounts.merge(currentTable, 1L, Long::sum);
+                    segmentRows++;
+                    readingKey = true;
+                    key = 0;
+                    keyDigits = 0;
+                    keyNegative = false;
+                    depth++;
+                    return;
+                }
+                depth++;
+            }
+            case ')' -> depth--;
+            case ';' -> {
+                if (depth == 0) {
+                    extendRange(position + 1);
+                    segments.add(new BackupManifest.Segment(currentTable, segmentStart, position + 1,
+                        segmentRows, segmentKeyless ? null : segmentMinKey, segmentKeyless ? null : segmentMaxKey));
+                    state = State.SKIP_LINE;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+}
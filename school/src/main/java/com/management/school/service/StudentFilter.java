@@ -0,0 +1,39 @@
+package com.management.school.service;
+
+import com.management.school.model.Student;
+import com.management.school.repository.StudentSpecifications;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+/**
+ * What to list students by; every field is optional and null means "any"
+ *
+ * @param fromYear first admission year, inclusive
+ * @param toYear last admission year, inclusive
+ * @param text part of the name, roll number or phone
+ */
+public record StudentFilter(String grade, String section, Integer fromYear, Integer toYear,
+                            Student.Gender gender, Boolean active, String text) {
+
+    /**
+     * Every active student
+     */
+    public static StudentFilter activeStudents() {
+        return new StudentFilter(null, null, null, null, null, true, null);
+    }
+
+    /**
+     * The conditions that are set, in index column order so the generated
+     * WHERE clause reads like idx_students_class_id
+     */
+    public Specification<Student> toSpecification() {
+        return Specification.where(StudentSpecifications.inClass(grade, section))
+            .and(StudentSpecifications.isActive(active))
+            .and(StudentSpecifications.admittedBetween(
+                fromYear == null ? null : LocalDate.of(fromYear, 1, 1),
+                toYear == null ? null : LocalDate.of(toYear + 1, 1, 1)))
+            .and(StudentSpecifications.hasGender(gender))
+            .and(StudentSpecifications.containsText(text));
+    }
+}
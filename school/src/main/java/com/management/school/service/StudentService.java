@@ -2,24 +2,44 @@ package com.management.school.service;
 
 import com.management.school.model.Address;
 import com.management.school.model.Student;
+import com.management.school.model.StudentSummary;
 import com.management.school.repository.AddressRepository;
 import com.management.school.repository.StudentRepository;
+import com.management.school.repository.StudentSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 @Service
 public class StudentService {
     
+    public static final int SEARCH_LIMIT = 200;
+    
     @Autowired
     private StudentRepository studentRepository;
     
     @Autowired
     private AddressRepository addressRepository;
     
+    @Autowired
+    private SearchIndexService searchIndexService;
+    
+    @Autowired
+    private SchoolClassService schoolClassService;
+    
     @Transactional
     public Student createStudent(Student student) {
         // Check for duplicate email
@@ -34,6 +54,7 @@ public class StudentService {
         
         // Ensure new students are active
         student.setActive(true);
+        student.setClassId(schoolClassService.classIdFor(student.getGrade(), student.getSection()));
         
         // Handle address separately for SQLite compatibility
         if (student.getAddress() != null) {
@@ -49,6 +70,7 @@ public class StudentService {
             savedStudent.setAddress(addressRepository.findById(savedStudent.getAddressId()).orElse(null));
         }
         
+        searchIndexService.studentSaved(savedStudent);
         return savedStudent;
     }
     
@@ -81,6 +103,7 @@ public class StudentService {
         student.setRollNumber(studentDetails.getRollNumber());
         student.setGrade(studentDetails.getGrade());
         student.setSection(studentDetails.getSection());
+        student.setClassId(schoolClassService.classIdFor(student.getGrade(), student.getSection()));
         student.setGender(studentDetails.getGender());
         student.setAdmissionDate(studentDetails.getAdmissionDate());
         student.setGuardianName(studentDetails.getGuardianName());
@@ -113,6 +136,7 @@ public class StudentService {
             updatedStudent.setAddress(addressRepository.findById(updatedStudent.getAddressId()).orElse(null));
         }
         
+        searchIndexService.studentSaved(updatedStudent);
         return updatedStudent;
     }
     
@@ -136,34 +160,140 @@ public class StudentService {
         return students;
     }
     
+    /**
+     * One page of summaries of the students matching a filter, sorted by the
+     * database
+     */
     @Transactional(readOnly = true)
-    public List<Student> getStudentsByFilter(String grade, String section, int year) {
-        String yearString = String.valueOf(year);
-        List<Student> students = studentRepository.findByGradeSectionAndAdmissionYear(grade, section, yearString);
+    public Page<StudentSummary> findStudentSummaries(StudentFilter filter, Pageable pageable) {
+        return studentRepository.findSummaries(filter.toSpecification(), pageable);
+    }
+    
+    /**
+     * Summaries of every student matching a filter, sorted by the database
+     */
+    @Transactional(readOnly = true)
+    public List<StudentSummary> findStudentSummaries(StudentFilter filter, Sort sort) {
+        return studentRepository.findSummaries(filter.toSpecification(), sort);
+    }
+    
+    /**
+     * Number of active students of each gender, by class id; counted by the
+     * database on the class key
+     */
+    @Transactional(readOnly = true)
+    public Map<Short, Map<Student.Gender, Long>> countActiveStudentsByClass() {
+        Map<Short, Map<Student.Gender, Long>> counts = new HashMap<>();
+        for (Object[] row : studentRepository.countActiveByClassAndGender()) {
+            counts.computeIfAbsent((Short) row[0], classId -> new EnumMap<>(Student.Gender.class))
+                .put((Student.Gender) row[1], (Long) row[2]);
+        }
+        return counts;
+    }
+    
+    /**
+     * Every student matching a filter, sorted by the database
+     */
+    @Transactional(readOnly = true)
+    public List<Student> findStudents(StudentFilter filter, Sort sort) {
+        List<Student> students = studentRepository.findAll(filter.toSpecification(), sort);
         loadAddressesForStudents(students);
         return students;
     }
     
+    /**
+     * Full student records for summaries, e.g. to print the listed students; in
+     * the order of the ids
+     */
     @Transactional(readOnly = true)
-    public List<Student> searchStudents(String searchTerm) {
-        List<Student> students = studentRepository.findByNameContainingAndActiveTrue(searchTerm);
+    public List<Student> getStudentsByIds(List<Long> ids) {
+        Map<Long, Student> byId = new HashMap<>();
+        studentRepository.findAllById(ids).forEach(student -> byId.put(student.getId(), student));
+        List<Student> students = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Student student = byId.get(id);
+            if (student != null) {
+                students.add(student);
+            }
+        }
         loadAddressesForStudents(students);
         return students;
     }
     
+    @Transactional(readOnly = true)
+    public List<StudentSummary> searchStudents(String searchTerm) {
+        List<Long> ids = searchIndexService.searchStudents(searchTerm, SEARCH_LIMIT);
+        if (ids == null) {
+            // Index still being built; match the name, roll number or phone instead
+            return studentRepository.findSummaries(textFilter(searchTerm), Sort.by("name"));
+        }
+        return summariesInOrder(ids, studentRepository.findSummaries(StudentSpecifications.hasIdIn(ids), Sort.unsorted()));
+    }
+    
+    /**
+     * The students among earlier search results that match a longer search
+     * term, or null if the term has to be searched again. The search index
+     * also finds names that sound alike or are misspelt, which a shorter
+     * term's results need not include, so refining only works for the
+     * database search used while the index is being built.
+     */
+    public List<StudentSummary> refineSearch(List<StudentSummary> results, String searchTerm) {
+        if (searchIndexService.isBuilt()) {
+            return null;
+        }
+        String text = searchTerm.trim().toLowerCase();
+        return results.stream()
+                .filter(row -> contains(row.name(), text) || contains(row.rollNumber(), text) || contains(row.phone(), text))
+                .toList();
+    }
+    
     @Transactional
     public void deleteStudent(Long id) {
         Student student = studentRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Student not found with id: " + id));
         student.setActive(false);
         studentRepository.save(student);
+        searchIndexService.studentDeleted(id);
+    }
+    
+    private static Specification<Student> textFilter(String searchTerm) {
+        return new StudentFilter(null, null, null, null, null, true, searchTerm).toSpecification();
+    }
+    
+    private static boolean contains(String value, String lowerCaseText) {
+        return value != null && value.toLowerCase().contains(lowerCaseText);
     }
     
-    // Helper method to load addresses for a list of students
+    // Summaries for the ids, in the order of the ids
+    private static List<StudentSummary> summariesInOrder(List<Long> ids, List<StudentSummary> rows) {
+        Map<Long, StudentSummary> byId = new HashMap<>();
+        rows.forEach(row -> byId.put(row.id(), row));
+        List<StudentSummary> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            StudentSummary row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+    
+    // Helper method to load addresses for a list of students, in one query
     private void loadAddressesForStudents(List<Student> students) {
+        Set<Long> addressIds = new HashSet<>();
+        for (Student student : students) {
+            if (student.getAddressId() != null) {
+                addressIds.add(student.getAddressId());
+            }
+        }
+        if (addressIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Address> addresses = new HashMap<>();
+        addressRepository.findAllById(addressIds).forEach(address -> addresses.put(address.getId(), address));
         for (Student student : students) {
             if (student.getAddressId() != null) {
-                student.setAddress(addressRepository.findById(student.getAddressId()).orElse(null));
+                student.setAddress(addresses.get(student.getAddressId()));
             }
         }
     }
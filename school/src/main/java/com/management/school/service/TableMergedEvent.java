@@ -0,0 +1,29 @@
+package com.management.school.service;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published after a selective restore has merged rows of one table from a
+ * backup into the live database. Unlike {@link DatabaseRestoredEvent} the
+ * other tables are unchanged, so only what depends on this table needs to
+ * be reloaded.
+ */
+public class TableMergedEvent extends ApplicationEvent {
+
+    private final String backupName;
+    private final String table;
+
+    public TableMergedEvent(Object source, String backupName, String table) {
+        super(source);
+        this.backupName = backupName;
+        this.table = table;
+    }
+
+    public String getBackupName() {
+        return backupName;
+    }
+
+    public String getTable() {
+        return table;
+    }
+}
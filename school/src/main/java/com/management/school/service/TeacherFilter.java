@@ -0,0 +1,38 @@
+package com.management.school.service;
+
+import com.management.school.model.Teacher;
+import com.management.school.repository.TeacherSpecifications;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+/**
+ * What to list teachers by; every field is optional and null means "any"
+ *
+ * @param fromYear first joining year, inclusive
+ * @param toYear last joining year, inclusive
+ * @param text part of the name, employee ID or phone
+ */
+public record TeacherFilter(String subject, Integer fromYear, Integer toYear, String gender, Boolean active,
+                            String text) {
+
+    /**
+     * Every active teacher
+     */
+    public static TeacherFilter activeTeachers() {
+        return new TeacherFilter(null, null, null, null, true, null);
+    }
+
+    /**
+     * The conditions that are set, in idx_teachers_subject column order
+     */
+    public Specification<Teacher> toSpecification() {
+        return Specification.where(TeacherSpecifications.teachesSubject(subject))
+            .and(TeacherSpecifications.isActive(active))
+            .and(TeacherSpecifications.joinedBetween(
+                fromYear == null ? null : LocalDate.of(fromYear, 1, 1),
+                toYear == null ? null : LocalDate.of(toYear + 1, 1, 1)))
+            .and(TeacherSpecifications.hasGender(gender))
+            .and(TeacherSpecifications.containsText(text));
+    }
+}
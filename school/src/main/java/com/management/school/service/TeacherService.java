@@ -2,24 +2,40 @@ package com.management.school.service;
 
 import com.management.school.model.Address;
 import com.management.school.model.Teacher;
+import com.management.school.model.TeacherRow;
 import com.management.school.repository.AddressRepository;
 import com.management.school.repository.TeacherRepository;
+import com.management.school.repository.TeacherSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 @Service
 public class TeacherService {
     
+    public static final int SEARCH_LIMIT = 200;
+    
     @Autowired
     private TeacherRepository teacherRepository;
     
     @Autowired
     private AddressRepository addressRepository;
     
+    @Autowired
+    private SearchIndexService searchIndexService;
+    
     @Transactional
     public Teacher createTeacher(Teacher teacher) {
         // Check for duplicate email
@@ -49,6 +65,7 @@ public class TeacherService {
             savedTeacher.setAddress(addressRepository.findById(savedTeacher.getAddressId()).orElse(null));
         }
         
+        searchIndexService.teacherSaved(savedTeacher);
         return savedTeacher;
     }
     
@@ -113,6 +130,7 @@ public class TeacherService {
             updatedTeacher.setAddress(addressRepository.findById(updatedTeacher.getAddressId()).orElse(null));
         }
         
+        searchIndexService.teacherSaved(updatedTeacher);
         return updatedTeacher;
     }
     
@@ -136,34 +154,114 @@ public class TeacherService {
         return teachers;
     }
     
+    /**
+     * One page of list rows for the teachers matching a filter, sorted by the
+     * database
+     */
     @Transactional(readOnly = true)
-    public List<Teacher> getTeachersByFilter(String subject, int year) {
-        String yearString = String.valueOf(year);
-        List<Teacher> teachers = teacherRepository.findBySubjectAndJoiningYear(subject, yearString);
-        loadAddressesForTeachers(teachers);
-        return teachers;
+    public Page<TeacherRow> findTeacherRows(TeacherFilter filter, Pageable pageable) {
+        return teacherRepository.findRows(filter.toSpecification(), pageable);
+    }
+    
+    /**
+     * List rows for every teacher matching a filter, sorted by the database
+     */
+    @Transactional(readOnly = true)
+    public List<TeacherRow> findTeacherRows(TeacherFilter filter, Sort sort) {
+        return teacherRepository.findRows(filter.toSpecification(), sort);
     }
     
+    /**
+     * Full teacher records for list rows, e.g. to print the listed teachers; in
+     * the order of the ids
+     */
     @Transactional(readOnly = true)
-    public List<Teacher> searchTeachers(String searchTerm) {
-        List<Teacher> teachers = teacherRepository.findByNameContainingAndActiveTrue(searchTerm);
+    public List<Teacher> getTeachersByIds(List<Long> ids) {
+        Map<Long, Teacher> byId = new HashMap<>();
+        teacherRepository.findAllById(ids).forEach(teacher -> byId.put(teacher.getId(), teacher));
+        List<Teacher> teachers = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Teacher teacher = byId.get(id);
+            if (teacher != null) {
+                teachers.add(teacher);
+            }
+        }
         loadAddressesForTeachers(teachers);
         return teachers;
     }
     
+    @Transactional(readOnly = true)
+    public List<TeacherRow> searchTeachers(String searchTerm) {
+        List<Long> ids = searchIndexService.searchTeachers(searchTerm, SEARCH_LIMIT);
+        if (ids == null) {
+            // Index still being built; match the name, employee ID or phone instead
+            return teacherRepository.findRows(textFilter(searchTerm), Sort.by("name"));
+        }
+        return rowsInOrder(ids, teacherRepository.findRows(TeacherSpecifications.hasIdIn(ids), Sort.unsorted()));
+    }
+    
+    /**
+     * The teachers among earlier search results that match a longer search
+     * term, or null if the term has to be searched again, as it does once
+     * the search index is built (see {@link StudentService#refineSearch})
+     */
+    public List<TeacherRow> refineSearch(List<TeacherRow> results, String searchTerm) {
+        if (searchIndexService.isBuilt()) {
+            return null;
+        }
+        String text = searchTerm.trim().toLowerCase();
+        return results.stream()
+                .filter(row -> contains(row.name(), text) || contains(row.employeeId(), text) || contains(row.phone(), text))
+                .toList();
+    }
+    
     @Transactional
     public void deleteTeacher(Long id) {
         Teacher teacher = teacherRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Teacher not found with id: " + id));
         teacher.setActive(false);
         teacherRepository.save(teacher);
+        searchIndexService.teacherDeleted(id);
+    }
+    
+    private static Specification<Teacher> textFilter(String searchTerm) {
+        return new TeacherFilter(null, null, null, null, true, searchTerm).toSpecification();
     }
     
-    // Helper method to load addresses for a list of teachers
+    private static boolean contains(String value, String lowerCaseText) {
+        return value != null && value.toLowerCase().contains(lowerCaseText);
+    }
+    
+    // Rows for the ids, in the order of the ids
+    private static List<TeacherRow> rowsInOrder(List<Long> ids, List<TeacherRow> rows) {
+        Map<Long, TeacherRow> byId = new HashMap<>();
+        rows.forEach(row -> byId.put(row.id(), row));
+        List<TeacherRow> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            TeacherRow row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+    
+    // Helper method to load addresses for a list of teachers, in one query
     private void loadAddressesForTeachers(List<Teacher> teachers) {
+        Set<Long> addressIds = new HashSet<>();
+        for (Teacher teacher : teachers) {
+            if (teacher.getAddressId() != null) {
+                addressIds.add(teacher.getAddressId());
+            }
+        }
+        if (addressIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Address> addresses = new HashMap<>();
+        addressRepository.findAllById(addressIds).forEach(address -> addresses.put(address.getId(), address));
         for (Teacher teacher : teachers) {
             if (teacher.getAddressId() != null) {
-                teacher.setAddress(addressRepository.findById(teacher.getAddressId()).orElse(null));
+                teacher.setAddress(addresses.get(teacher.getAddressId()));
             }
         }
     }
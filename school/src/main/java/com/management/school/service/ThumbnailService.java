@@ -0,0 +1,334 @@
+package com.management.school.service;
+
+import com.management.school.model.Document;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Downscaled JPEG renderings of documents for the UI: small thumbnails for
+ * the student table and document dialog, larger previews on demand. Images
+ * are scaled directly, PDFs have their first page rasterised.
+ *
+ * Renderings are made on a small background pool - right after an upload,
+ * or the first time one is asked for - and kept in two layers: an in-memory
+ * LRU bounded by bytes, and a disk cache under {@code app.thumbnails.dir}
+ * bounded by {@code app.thumbnails.max-cache-mb}, which evicts the least
+ * recently used files. Documents in the content store are cached by content
+ * key, so identical uploads share their thumbnails too. Renderings of
+ * encrypted documents never go to disk.
+ */
+@Service
+public class ThumbnailService {
+
+    public enum Size {
+        THUMBNAIL(96),
+        // Photo on a printed ID card, about 300 dpi
+        ID_CARD(400),
+        PREVIEW(800);
+
+        private final int maxDimension;
+
+        Size(int maxDimension) {
+            this.maxDimension = maxDimension;
+        }
+
+        public int getMaxDimension() {
+            return maxDimension;
+        }
+    }
+
+    private static final long MEMORY_CACHE_BYTES = 16L * 1024 * 1024;
+    private static final float JPEG_QUALITY = 0.85f;
+
+    @Value("${app.thumbnails.dir:${user.home}/SchoolApp/thumbnails}")
+    private String cacheDir;
+
+    @Value("${app.thumbnails.max-cache-mb:256}")
+    private long maxCacheMb;
+
+    @Value("${app.thumbnails.threads:2}")
+    private int threads;
+
+    @Autowired
+    private DocumentStorage documentStorage;
+
+    private final Map<String, byte[]> memoryCache = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryCacheBytes;
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong diskCacheBytes = new AtomicLong(-1);
+    private ExecutorService pool;
+
+    /**
+     * Render the thumbnail of a freshly uploaded document in the background,
+     * so it is ready by the time anyone looks at it.
+     */
+    public void prepare(Document document) {
+        getImage(document, Size.THUMBNAIL).exceptionally(e -> {
+            System.err.println("Failed to create thumbnail for document " + document.getId() + ": " + e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * JPEG bytes of the document at the given size. Completes immediately
+     * when the rendering is in memory, otherwise on the thumbnail pool.
+     */
+    public CompletableFuture<byte[]> getImage(Document document, Size size) {
+        String key = cacheKey(document, size);
+        byte[] cached = fromMemory(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        Path source = Paths.get(document.getFilePath());
+        String extension = document.getFileExtension();
+        // Several cells asking for the same document share one rendering
+        CompletableFuture<byte[]> created = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        pool().execute(() -> {
+            try {
+                created.complete(load(key, source, extension, size));
+            } catch (Throwable e) {
+                created.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, created);
+            }
+        });
+        return created;
+    }
+
+    private byte[] load(String key, Path source, String extension, Size size) {
+        try {
+            // Renderings of encrypted documents are only ever kept in memory
+            boolean encrypted = DocumentCipher.isEncrypted(source);
+            Path cached = getCacheDir().resolve(key + ".jpg");
+            if (!encrypted && Files.isRegularFile(cached)) {
+                byte[] bytes = Files.readAllBytes(cached);
+                // The modification time doubles as the last-use time for eviction
+                Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+                toMemory(key, bytes);
+                return bytes;
+            }
+
+            byte[] bytes = encodeJpeg(scale(render(source, extension, size), size.getMaxDimension()), JPEG_QUALITY);
+            if (!encrypted) {
+                writeToDisk(cached, bytes);
+            }
+            toMemory(key, bytes);
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private BufferedImage render(Path source, String extension, Size size) throws IOException {
+        try (InputStream in = documentStorage.open(source)) {
+            if (".pdf".equalsIgnoreCase(extension)) {
+                try (PDDocument pdf = PDDocument.load(in)) {
+                    if (pdf.getNumberOfPages() == 0) {
+                        throw new IOException("PDF has no pages: " + source.getFileName());
+                    }
+                    // Render just large enough for the requested size instead of at print resolution
+                    PDRectangle page = pdf.getPage(0).getCropBox();
+                    float dpi = size.getMaxDimension() * 72f / Math.max(page.getWidth(), page.getHeight());
+                    return new PDFRenderer(pdf).renderImageWithDPI(0, Math.max(dpi, 12f), ImageType.RGB);
+                }
+            }
+            BufferedImage image = ImageIO.read(in);
+            if (image == null) {
+                throw new IOException("Unsupported image format: " + source.getFileName());
+            }
+            return image;
+        }
+    }
+
+    /**
+     * Fit within maxDimension, halving repeatedly first so large photos
+     * scale down smoothly without an expensive filter.
+     */
+    static BufferedImage scale(BufferedImage image, int maxDimension) {
+        double factor = Math.min(1.0, (double) maxDimension / Math.max(image.getWidth(), image.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * factor));
+
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                // JPEG has no transparency; transparent PNG areas become white
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, width, height);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(imageOut);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    // ==================== Cache layers ====================
+
+    private synchronized byte[] fromMemory(String key) {
+        return memoryCache.get(key);
+    }
+
+    private synchronized void toMemory(String key, byte[] bytes) {
+        byte[] previous = memoryCache.put(key, bytes);
+        memoryCacheBytes += bytes.length - (previous != null ? previous.length : 0);
+        var eldest = memoryCache.entrySet().iterator();
+        while (memoryCacheBytes > MEMORY_CACHE_BYTES && eldest.hasNext()) {
+            memoryCacheBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    private void writeToDisk(Path target, byte[] bytes) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "thumb-", ".tmp");
+        Files.write(temp, bytes);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (diskCacheBytes.get() < 0) {
+            diskCacheBytes.compareAndSet(-1, measureDiskCache());
+        }
+        if (diskCacheBytes.addAndGet(bytes.length) > maxCacheMb * 1024 * 1024) {
+            evictFromDisk();
+        }
+    }
+
+    /**
+     * Delete least recently used thumbnails until the cache is back to 90% of its limit
+     */
+    private synchronized void evictFromDisk() throws IOException {
+        long limit = maxCacheMb * 1024 * 1024;
+        if (diskCacheBytes.get() <= limit) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(getCacheDir())) {
+            stream.filter(p -> p.toString().endsWith(".jpg")).forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(ThumbnailService::lastModified));
+
+        long total = measureDiskCache();
+        for (Path file : files) {
+            if (total <= limit * 9 / 10) {
+                break;
+            }
+            long size = Files.size(file);
+            Files.deleteIfExists(file);
+            total -= size;
+        }
+        diskCacheBytes.set(total);
+    }
+
+    private long measureDiskCache() {
+        try (Stream<Path> stream = Files.list(getCacheDir())) {
+            return stream.map(Path::toFile).mapToLong(File::length).sum();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        return file.toFile().lastModified();
+    }
+
+    private Path getCacheDir() {
+        return Paths.get(cacheDir);
+    }
+
+    /**
+     * Content key when the document is in the content store; otherwise the
+     * file's identity, which changes whenever the file is replaced
+     */
+    private static String cacheKey(Document document, Size size) {
+        String identity = document.getContentKey() != null
+            ? document.getContentKey()
+            : "doc" + document.getId() + "-" + new File(document.getFilePath()).lastModified();
+        return identity + "-" + size.getMaxDimension();
+    }
+
+    private synchronized ExecutorService pool() {
+        if (pool == null) {
+            AtomicInteger counter = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+                Thread thread = new Thread(runnable, "thumbnail-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+        return pool;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.management.school.repository;
+
+import com.management.school.model.Attendance.AttendanceStatus;
+import com.management.school.model.Document.DocumentType;
+import com.management.school.service.StudentFilter;
+import com.management.school.service.TeacherFilter;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the filter queries against an embedded H2 database and checks with
+ * EXPLAIN that each one is answered from its composite index rather than a
+ * table scan. The SQL explained is what Hibernate actually generated for the
+ * repository method, captured with a statement inspector.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.management.school.repository.QueryIndexTests$SqlCapture"
+})
+class QueryIndexTests {
+
+    /**
+     * Remembers every statement Hibernate prepares
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @BeforeEach
+    void seed() {
+        // Enough rows that a scan is clearly the expensive choice
+        // Grades 0 to 11, sections A and B: grade g is class 2g + 1 (A) and 2g + 2 (B)
+        jdbcTemplate.update("INSERT INTO school_classes (id, grade, section, display_order, academic_year)"
+            + " SELECT X, CAST((X - 1) / 2 AS VARCHAR), CASE WHEN MOD(X, 2) = 1 THEN 'A' ELSE 'B' END,"
+            + " (X - 1) / 2, '2024-25' FROM SYSTEM_RANGE(1, 24)");
+        jdbcTemplate.update("INSERT INTO students (name, email, phone, roll_number, grade, section, class_id,"
+            + " gender, admission_date, active) SELECT 'Student ' || X, 's' || X || '@example.com', '9000000000',"
+            + " 'R-' || X, CAST(MOD(X, 12) AS VARCHAR), CASE WHEN MOD(X, 2) = 0 THEN 'A' ELSE 'B' END,"
+            + " MOD(X, 12) * 2 + CASE WHEN MOD(X, 2) = 0 THEN 1 ELSE 2 END, 'MALE',"
+            + " DATEADD(DAY, MOD(X, 3650), DATE '2015-01-01'), TRUE FROM SYSTEM_RANGE(1, 2000)");
+        jdbcTemplate.update("INSERT INTO teachers (name, email, phone, employee_id, subject, qualification, gender,"
+            + " joining_date, active) SELECT 'Teacher ' || X, 't' || X || '@example.com', '9000000000',"
+            + " 'E-' || X, 'Subject ' || MOD(X, 12), 'M.Sc', 'Female',"
+            + " DATEADD(DAY, MOD(X, 3650), DATE '2010-01-01'), TRUE FROM SYSTEM_RANGE(1, 500)");
+        jdbcTemplate.update("INSERT INTO attendance (student_id, attendance_date, status)"
+            + " SELECT MOD(X, 2000) + 1, DATEADD(DAY, X / 2000, DATE '2024-06-01'),"
+            + " CASE WHEN MOD(X, 10) = 0 THEN 'ABSENT' ELSE 'PRESENT' END FROM SYSTEM_RANGE(0, 19999)");
+        jdbcTemplate.update("INSERT INTO documents (student_id, document_type, file_name, file_path, file_extension,"
+            + " uploaded_at, active) SELECT MOD(X, 2000) + 1, 'STUDENT_PHOTO', 'photo.jpg', 'photos/' || X,"
+            + " 'jpg', CURRENT_TIMESTAMP, TRUE FROM SYSTEM_RANGE(1, 2000)");
+        SqlCapture.statements.clear();
+    }
+
+    @Test
+    void studentFilterUsesClassKeyIndexIncludingAdmissionRange() {
+        studentRepository.findAll(new StudentFilter("5", "B", 2020, 2020, null, true, null).toSpecification());
+
+        LocalDate from = LocalDate.of(2020, 1, 1);
+        String indexConditions = indexConditions(explainLastSelect("5", "B", true, from, from.plusYears(1)),
+            "IDX_STUDENTS_CLASS_ID");
+        // The class is looked up by name in a subquery; its ids drive the index
+        assertTrue(indexConditions.contains("CLASS_ID IN(SELECT"), indexConditions);
+        assertTrue(indexConditions.contains("ADMISSION_DATE"), indexConditions);
+    }
+
+    @Test
+    void teacherFilterUsesSubjectIndexIncludingJoiningRange() {
+        teacherRepository.findAll(new TeacherFilter("Subject 3", 2015, 2015, null, true, null).toSpecification());
+
+        LocalDate from = LocalDate.of(2015, 1, 1);
+        String indexConditions = indexConditions(explainLastSelect("Subject 3", true, from, from.plusYears(1)),
+            "IDX_TEACHERS_SUBJECT");
+        assertTrue(indexConditions.contains("JOINING_DATE"), indexConditions);
+    }
+
+    @Test
+    void attendanceByDateAndStatusUsesDateStatusIndex() {
+        LocalDate date = LocalDate.of(2024, 6, 5);
+        attendanceRepository.findByAttendanceDateAndStatus(date, AttendanceStatus.ABSENT);
+
+        String indexConditions = indexConditions(explainLastSelect(date, AttendanceStatus.ABSENT.name()),
+            "IDX_ATTENDANCE_DATE_STATUS");
+        assertTrue(indexConditions.contains("STATUS"), indexConditions);
+    }
+
+    @Test
+    void documentLookupUsesStudentTypeIndex() {
+        documentRepository.findByStudentIdAndDocumentTypeAndActiveTrue(42L, DocumentType.STUDENT_PHOTO);
+
+        String indexConditions = indexConditions(explainLastSelect(42L, DocumentType.STUDENT_PHOTO.name()),
+            "IDX_DOCUMENTS_STUDENT_TYPE");
+        assertTrue(indexConditions.contains("DOCUMENT_TYPE"), indexConditions);
+    }
+
+    @Test
+    void pagePhotoLookupUsesStudentTypeIndex() {
+        documentRepository.findByStudentIdInAndDocumentTypeAndActiveTrue(List.of(1L, 2L, 3L),
+            DocumentType.STUDENT_PHOTO);
+
+        String indexConditions = indexConditions(
+            explainLastSelect(1L, 2L, 3L, DocumentType.STUDENT_PHOTO.name()), "IDX_DOCUMENTS_STUDENT_TYPE");
+        assertTrue(indexConditions.contains("STUDENT_ID IN("), indexConditions);
+    }
+
+    /**
+     * The plan of the last SELECT Hibernate ran, with the same parameters
+     */
+    private String explainLastSelect(Object... params) {
+        String sql = null;
+        for (String statement : SqlCapture.statements) {
+            if (statement.trim().toLowerCase().startsWith("select")) {
+                sql = statement;
+            }
+        }
+        assertTrue(sql != null, "no SELECT was captured");
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, params);
+    }
+
+    /**
+     * The conditions H2 evaluates through the given index, from the comment
+     * it writes after the table in a plan: {@code /* PUBLIC.IDX_NAME: A = ?1 AND B = ?2 *}{@code /}
+     */
+    private static String indexConditions(String plan, String indexName) {
+        String upper = plan.toUpperCase();
+        int start = upper.indexOf("PUBLIC." + indexName);
+        assertTrue(start >= 0, "expected " + indexName + " in plan:\n" + plan);
+        int end = upper.indexOf("*/", start);
+        return upper.substring(start, end);
+    }
+}
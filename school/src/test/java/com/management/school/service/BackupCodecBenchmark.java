@@ -0,0 +1,179 @@
+package com.management.school.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures every backup codec over a generated mysqldump of realistic shape
+ * (student rows followed by attendance rows as extended INSERTs),
+ * split into the same content-defined chunks the backup repository uses.
+ *
+ * Not part of the application; run it from the test classpath:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.management.school.service.BackupCodecBenchmark -Dexec.args=[sizeMB]
+ * </pre>
+ */
+public class BackupCodecBenchmark {
+
+    public static final int DEFAULT_DUMP_SIZE_MB = 32;
+
+    private static final String[] FIRST_NAMES = {
+        "Aarav", "Vivaan", "Aditya", "Arjun", "Rohan", "Rahul", "Sahil", "Imran", "Rezaul", "Farhan",
+        "Ananya", "Diya", "Priya", "Sneha", "Pooja", "Ayesha", "Fatima", "Riya", "Kavya", "Nisha"
+    };
+    private static final String[] LAST_NAMES = {
+        "Sharma", "Verma", "Gupta", "Das", "Roy", "Ahmed", "Khan", "Singh", "Mondal", "Sarkar",
+        "Ghosh", "Banerjee", "Chatterjee", "Mukherjee", "Islam", "Sheikh", "Paul", "Saha", "Dutta", "Bose"
+    };
+    private static final String[] GRADES = {"Nursery", "KG", "I", "II", "III", "IV", "V", "VI", "VII", "VIII", "IX", "X"};
+    private static final String[] STATUSES = {"PRESENT", "PRESENT", "PRESENT", "PRESENT", "PRESENT", "ABSENT", "LATE", "EXCUSED"};
+
+    public record Result(String codec, long originalBytes, long compressedBytes,
+                         double compressMBps, double decompressMBps) {
+
+        public double ratio() {
+            return compressedBytes == 0 ? 0 : (double) originalBytes / compressedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-10s ratio %5.2fx  compress %8.1f MB/s  decompress %8.1f MB/s",
+                codec, ratio(), compressMBps, decompressMBps);
+        }
+    }
+
+    /**
+     * Generate a dump of roughly {@code sizeMb} megabytes and benchmark all candidate codecs on it.
+     */
+    public List<Result> run(int sizeMb) throws IOException {
+        byte[] dump = generateDump(sizeMb * 1024L * 1024L);
+        List<byte[]> chunks = new ArrayList<>();
+        new ContentDefinedChunker().split(new ByteArrayInputStream(dump),
+            (buffer, length) -> chunks.add(Arrays.copyOf(buffer, length)));
+
+        List<Result> results = new ArrayList<>();
+        for (BackupCodec codec : BackupCodec.benchmarkCandidates()) {
+            results.add(measure(codec, chunks, dump.length));
+        }
+        return results;
+    }
+
+    private Result measure(BackupCodec codec, List<byte[]> chunks, long totalBytes) throws IOException {
+        // Warm up the JIT (and the native libraries) on a few chunks first
+        for (int i = 0; i < Math.min(8, chunks.size()); i++) {
+            byte[] chunk = chunks.get(i);
+            codec.decompress(codec.compress(chunk, chunk.length), chunk.length);
+        }
+
+        List<byte[]> compressed = new ArrayList<>(chunks.size());
+        long compressedBytes = 0;
+        long start = System.nanoTime();
+        for (byte[] chunk : chunks) {
+            byte[] packed = codec.compress(chunk, chunk.length);
+            compressed.add(packed);
+            compressedBytes += packed.length;
+        }
+        long compressNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < chunks.size(); i++) {
+            codec.decompress(compressed.get(i), chunks.get(i).length);
+        }
+        long decompressNanos = System.nanoTime() - start;
+
+        return new Result(codec.name(), totalBytes, compressedBytes,
+            megabytesPerSecond(totalBytes, compressNanos), megabytesPerSecond(totalBytes, decompressNanos));
+    }
+
+    /**
+     * Build a dump that looks like mysqldump output for this application's schema.
+     */
+    byte[] generateDump(long targetBytes) {
+        Random random = new Random(42);
+        StringBuilder sql = new StringBuilder((int) Math.min(targetBytes + 1024 * 1024, Integer.MAX_VALUE - 16));
+        sql.append("-- MySQL dump 10.13  Distrib 8.0.36, for Win64 (x86_64)\n--\n-- Host: localhost    Database: schooldb\n")
+           .append("/*!40101 SET NAMES utf8mb4 */;\n/*!40014 SET FOREIGN_KEY_CHECKS=0 */;\n\n");
+
+        int studentCount = 2500;
+        sql.append("DROP TABLE IF EXISTS `students`;\nCREATE TABLE `students` (\n")
+           .append("  `id` bigint NOT NULL AUTO_INCREMENT,\n  `active` bit(1) NOT NULL,\n  `address_id` bigint DEFAULT NULL,\n")
+           .append("  `admission_date` date NOT NULL,\n  `date_of_birth` date DEFAULT NULL,\n  `email` varchar(255) NOT NULL,\n")
+           .append("  `gender` enum('MALE','FEMALE','OTHER') NOT NULL,\n  `grade` varchar(255) NOT NULL,\n")
+           .append("  `guardian_email` varchar(255) DEFAULT NULL,\n  `guardian_name` varchar(255) DEFAULT NULL,\n")
+           .append("  `guardian_phone` varchar(255) DEFAULT NULL,\n  `name` varchar(255) NOT NULL,\n  `phone` varchar(255) NOT NULL,\n")
+           .append("  `roll_number` varchar(255) NOT NULL,\n  `section` varchar(255) NOT NULL,\n  PRIMARY KEY (`id`)\n")
+           .append(") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;\n\n");
+        appendInserts(sql, "students", studentCount, i -> {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            LocalDate dob = LocalDate.of(2008 + random.nextInt(14), 1 + random.nextInt(12), 1 + random.nextInt(28));
+            return String.format("(%d,_binary '\\1',%d,'%d-04-01','%s','%s.%s%d@example.com','%s','%s',NULL,'%s %s','9%09d','%s %s','9%09d','R%05d','%s')",
+                i, i, 2015 + random.nextInt(11), dob, first.toLowerCase(), last.toLowerCase(), i,
+                random.nextBoolean() ? "MALE" : "FEMALE", GRADES[random.nextInt(GRADES.length)],
+                FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], last, random.nextInt(1_000_000_000),
+                first, last, random.nextInt(1_000_000_000), i, random.nextBoolean() ? "A" : "B");
+        });
+
+        sql.append("DROP TABLE IF EXISTS `attendance`;\nCREATE TABLE `attendance` (\n")
+           .append("  `id` bigint NOT NULL AUTO_INCREMENT,\n  `attendance_date` date NOT NULL,\n  `marked_at` date DEFAULT NULL,\n")
+           .append("  `marked_by` varchar(255) DEFAULT NULL,\n  `remarks` varchar(255) DEFAULT NULL,\n")
+           .append("  `status` enum('PRESENT','ABSENT','LATE','EXCUSED') NOT NULL,\n  `student_id` bigint NOT NULL,\n")
+           .append("  PRIMARY KEY (`id`)\n) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;\n\n");
+        // Attendance dominates real dumps; fill the rest of the target size with it
+        LocalDate day = LocalDate.of(2020, 4, 1);
+        long id = 1;
+        while (sql.length() < targetBytes) {
+            StringBuilder statement = new StringBuilder("INSERT INTO `attendance` VALUES ");
+            for (int row = 0; row < 2000; row++, id++) {
+                if (row > 0) {
+                    statement.append(',');
+                }
+                LocalDate date = day.plusDays(id / studentCount);
+                statement.append('(').append(id).append(",'").append(date).append("','").append(date)
+                         .append("','admin',").append(random.nextInt(20) == 0 ? "'Sick leave'" : "''")
+                         .append(",'").append(STATUSES[random.nextInt(STATUSES.length)]).append("',")
+                         .append(1 + id % studentCount).append(')');
+            }
+            sql.append(statement).append(";\n");
+        }
+        sql.append("\n-- Dump completed on 2025-11-06 10:15:00\n");
+        return sql.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private interface RowGenerator {
+        String row(int id);
+    }
+
+    private void appendInserts(StringBuilder sql, String table, int rows, RowGenerator generator) {
+        for (int start = 1; start <= rows; start += 500) {
+            sql.append("INSERT INTO `").append(table).append("` VALUES ");
+            for (int id = start; id < Math.min(start + 500, rows + 1); id++) {
+                if (id > start) {
+                    sql.append(',');
+                }
+                sql.append(generator.row(id));
+            }
+            sql.append(";\n");
+        }
+        sql.append('\n');
+    }
+
+    private static double megabytesPerSecond(long bytes, long nanos) {
+        return nanos == 0 ? 0 : (bytes / (1024.0 * 1024.0)) / (nanos / 1_000_000_000.0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int sizeMb = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DUMP_SIZE_MB;
+        System.out.println("Benchmarking backup codecs on a generated " + sizeMb + " MB dump...");
+        for (Result result : new BackupCodecBenchmark().run(sizeMb)) {
+            System.out.println(result);
+        }
+    }
+}
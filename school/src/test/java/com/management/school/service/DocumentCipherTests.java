@@ -0,0 +1,154 @@
+package com.management.school.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Round trips through {@link DocumentCipher} at the segment boundaries, and
+ * checks that tampered, truncated or reordered files and a wrong master key
+ * all fail to decrypt rather than returning wrong content.
+ */
+class DocumentCipherTests {
+
+    private static final int SEGMENT = DocumentCipher.SEGMENT_SIZE;
+    private static final int TAG_LENGTH = 16;
+
+    private final DocumentCipher cipher = new DocumentCipher(key(1));
+
+    // ==================== Round trips ====================
+
+    @Test
+    void emptyFileRoundTrips() throws IOException {
+        assertRoundTrips(0);
+    }
+
+    @Test
+    void fileOfWholeSegmentsRoundTrips() throws IOException {
+        assertRoundTrips(SEGMENT);
+        assertRoundTrips(3 * SEGMENT);
+    }
+
+    @Test
+    void fileOneByteIntoANewSegmentRoundTrips() throws IOException {
+        assertRoundTrips(SEGMENT + 1);
+        assertRoundTrips(3 * SEGMENT + 1);
+    }
+
+    @Test
+    void smallWritesRoundTrip() throws IOException {
+        byte[] content = content(2 * SEGMENT + 100);
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        try (OutputStream out = cipher.encrypt(encrypted)) {
+            for (int i = 0; i < content.length; i += 1000) {
+                out.write(content, i, Math.min(1000, content.length - i));
+            }
+        }
+        assertArrayEquals(content, decrypt(cipher, encrypted.toByteArray()));
+    }
+
+    // ==================== Tampering ====================
+
+    @Test
+    void flippedCiphertextByteFails() throws IOException {
+        byte[] encrypted = encrypt(content(2 * SEGMENT + 1));
+        encrypted[headerLength() + SEGMENT / 2] ^= 1;
+
+        assertThrows(IOException.class, () -> decrypt(cipher, encrypted));
+    }
+
+    @Test
+    void flippedHeaderByteFails() throws IOException {
+        byte[] encrypted = encrypt(content(SEGMENT));
+        // The last byte of the nonce prefix, authenticated with every segment
+        encrypted[headerLength() - 1] ^= 1;
+
+        assertThrows(IOException.class, () -> decrypt(cipher, encrypted));
+    }
+
+    @Test
+    void droppedLastSegmentFails() throws IOException {
+        // Ends with a short segment
+        byte[] encrypted = encrypt(content(2 * SEGMENT + 1));
+        byte[] withoutShort = Arrays.copyOf(encrypted, encrypted.length - (1 + TAG_LENGTH));
+        assertThrows(IOException.class, () -> decrypt(cipher, withoutShort));
+
+        // Ends with a full segment
+        byte[] whole = encrypt(content(2 * SEGMENT));
+        byte[] withoutFull = Arrays.copyOf(whole, whole.length - (SEGMENT + TAG_LENGTH));
+        assertThrows(IOException.class, () -> decrypt(cipher, withoutFull));
+    }
+
+    @Test
+    void truncatedSegmentFails() throws IOException {
+        byte[] encrypted = encrypt(content(2 * SEGMENT));
+        byte[] truncated = Arrays.copyOf(encrypted, encrypted.length - 1);
+
+        assertThrows(IOException.class, () -> decrypt(cipher, truncated));
+    }
+
+    @Test
+    void swappedSegmentsFail() throws IOException {
+        byte[] encrypted = encrypt(content(3 * SEGMENT));
+        int first = headerLength();
+        int length = SEGMENT + TAG_LENGTH;
+        byte[] swapped = encrypted.clone();
+        System.arraycopy(encrypted, first, swapped, first + length, length);
+        System.arraycopy(encrypted, first + length, swapped, first, length);
+
+        assertThrows(IOException.class, () -> decrypt(cipher, swapped));
+    }
+
+    @Test
+    void wrongMasterKeyFails() throws IOException {
+        byte[] encrypted = encrypt(content(SEGMENT + 1));
+
+        assertThrows(IOException.class, () -> decrypt(new DocumentCipher(key(2)), encrypted));
+    }
+
+    // ==================== Helpers ====================
+
+    private void assertRoundTrips(int size) throws IOException {
+        byte[] content = content(size);
+        assertArrayEquals(content, decrypt(cipher, encrypt(content)), size + " bytes");
+    }
+
+    private byte[] encrypt(byte[] content) throws IOException {
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        try (OutputStream out = cipher.encrypt(encrypted)) {
+            out.write(content);
+        }
+        return encrypted.toByteArray();
+    }
+
+    private static byte[] decrypt(DocumentCipher cipher, byte[] encrypted) throws IOException {
+        return cipher.decrypt(new ByteArrayInputStream(encrypted)).readAllBytes();
+    }
+
+    /**
+     * An empty file is the header and one empty segment's tag
+     */
+    private int headerLength() throws IOException {
+        return encrypt(new byte[0]).length - TAG_LENGTH;
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+
+    private static byte[] key(int seed) {
+        byte[] key = new byte[32];
+        new Random(seed).nextBytes(key);
+        return key;
+    }
+}
@@ -0,0 +1,146 @@
+package com.management.school.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Compares storing a document with and without {@link DocumentCipher}: a
+ * plain file copy against the encrypting copy the document store makes, and
+ * a plain read against a decrypting one. Scans and photos do not compress,
+ * so the test file is random bytes.
+ *
+ * Not part of the application; run it from the test classpath:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.management.school.service.DocumentEncryptionBenchmark -Dexec.args=[sizeMB]
+ * </pre>
+ */
+public class DocumentEncryptionBenchmark {
+
+    public static final int DEFAULT_FILE_SIZE_MB = 64;
+
+    private static final int RUNS = 3;
+
+    /**
+     * Best of {@value #RUNS} runs; overhead is relative to the plain operation.
+     */
+    public record Result(String operation, long bytes, double plainMBps, double encryptedMBps) {
+
+        public double overheadPercent() {
+            return encryptedMBps == 0 ? 0 : (plainMBps / encryptedMBps - 1) * 100;
+        }
+
+        /**
+         * Extra time for a document at the 5 MB upload limit
+         */
+        public double extraMillisPerDocument() {
+            return encryptedMBps == 0 || plainMBps == 0 ? 0 : (5 / encryptedMBps - 5 / plainMBps) * 1000;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-6s plain %8.1f MB/s  encrypted %8.1f MB/s  overhead %5.1f%%  (%+.1f ms per 5 MB document)",
+                operation, plainMBps, encryptedMBps, overheadPercent(), extraMillisPerDocument());
+        }
+    }
+
+    public List<Result> run(int sizeMb) throws IOException {
+        byte[] masterKey = new byte[32];
+        new SecureRandom().nextBytes(masterKey);
+        DocumentCipher cipher = new DocumentCipher(masterKey);
+
+        Path dir = Files.createTempDirectory("document-benchmark-");
+        try {
+            Path source = dir.resolve("source.bin");
+            writeRandomFile(source, sizeMb * 1024L * 1024L);
+            Path plain = dir.resolve("plain.bin");
+            Path encrypted = dir.resolve("encrypted.bin");
+            long bytes = Files.size(source);
+
+            // Warm up the JIT and the AES intrinsics before measuring
+            for (int run = 0; run < RUNS; run++) {
+                copy(source, plain, null);
+                copy(source, encrypted, cipher);
+                read(cipher.decrypt(Files.newInputStream(encrypted)));
+            }
+
+            double copyPlain = 0;
+            double copyEncrypted = 0;
+            double readPlain = 0;
+            double readDecrypted = 0;
+            for (int run = 0; run < RUNS; run++) {
+                copyPlain = Math.max(copyPlain, megabytesPerSecond(bytes, time(() -> copy(source, plain, null))));
+                copyEncrypted = Math.max(copyEncrypted, megabytesPerSecond(bytes, time(() -> copy(source, encrypted, cipher))));
+                readPlain = Math.max(readPlain, megabytesPerSecond(bytes, time(() -> read(Files.newInputStream(plain)))));
+                readDecrypted = Math.max(readDecrypted, megabytesPerSecond(bytes,
+                    time(() -> read(cipher.decrypt(Files.newInputStream(encrypted))))));
+            }
+
+            List<Result> results = new ArrayList<>();
+            results.add(new Result("store", bytes, copyPlain, copyEncrypted));
+            results.add(new Result("read", bytes, readPlain, readDecrypted));
+            return results;
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private interface Operation {
+        void run() throws IOException;
+    }
+
+    private static long time(Operation operation) throws IOException {
+        long start = System.nanoTime();
+        operation.run();
+        return System.nanoTime() - start;
+    }
+
+    private static void copy(Path source, Path target, DocumentCipher cipher) throws IOException {
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = cipher == null ? Files.newOutputStream(target) : cipher.encrypt(Files.newOutputStream(target))) {
+            in.transferTo(out);
+        }
+    }
+
+    private static void read(InputStream stream) throws IOException {
+        try (InputStream in = stream) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static void writeRandomFile(Path file, long size) throws IOException {
+        Random random = new Random(42);
+        byte[] buffer = new byte[1024 * 1024];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += buffer.length) {
+                random.nextBytes(buffer);
+                out.write(buffer, 0, (int) Math.min(buffer.length, size - written));
+            }
+        }
+    }
+
+    private static double megabytesPerSecond(long bytes, long nanos) {
+        return nanos == 0 ? 0 : (bytes / (1024.0 * 1024.0)) / (nanos / 1_000_000_000.0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int sizeMb = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FILE_SIZE_MB;
+        System.out.println("Benchmarking document encryption on a " + sizeMb + " MB file...");
+        for (Result result : new DocumentEncryptionBenchmark().run(sizeMb)) {
+            System.out.println(result);
+        }
+    }
+}
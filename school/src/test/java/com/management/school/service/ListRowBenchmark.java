@@ -0,0 +1,194 @@
+package com.management.school.service;
+
+import com.management.school.model.Student;
+import com.management.school.model.StudentSummary;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Bytes per student of a student list loaded as managed {@link Student}
+ * entities, as plain rows of the list columns each holding its own values,
+ * and as compact {@link StudentSummary}s, which select the class id in place
+ * of the grade and section.
+ *
+ * Transfer is what the MySQL text protocol sends for the selected columns:
+ * a length byte and the text of each value. Heap is the size of every
+ * object the rows reach, walked with JOL, with every value in its own String
+ * as a result set delivers it; an object shared between rows is counted
+ * once. A managed entity also has Hibernate's loaded-state snapshot for
+ * dirty checking; it is counted as an Object[] referencing the entity's
+ * values. Hibernate's per-entity bookkeeping (entity key and entry) comes on
+ * top and is not counted.
+ *
+ * Not part of the application; run it from the test classpath:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.management.school.service.ListRowBenchmark -Dexec.args=[rows]
+ * </pre>
+ */
+public class ListRowBenchmark {
+
+    public static final int DEFAULT_ROWS = 100_000;
+
+    static {
+        // Lets JOL find the field offsets of records such as PlainRow
+        System.setProperty("jol.magicFieldOffset", "true");
+    }
+
+    private static final List<String> GRADES = List.of(
+        "Nursery", "KG", "I", "II", "III", "IV", "V", "VI", "VII", "VIII", "IX", "X");
+    private static final List<String> FIRST_NAMES = List.of(
+        "Aarav", "Priya", "Rohan", "Ananya", "Vikram", "Sneha", "Arjun", "Kavya", "Rahul", "Divya");
+    private static final List<String> LAST_NAMES = List.of(
+        "Sharma", "Patel", "Reddy", "Iyer", "Singh", "Gupta", "Nair", "Das", "Mehta", "Joshi");
+
+    // The list columns as a constructor query delivers them, nothing shared
+    private record PlainRow(Long id, String rollNumber, String name, String grade, String section,
+                            String email, String phone, Student.Gender gender, boolean active) {
+    }
+
+    public record Result(String form, int columns, double transferBytesPerRow, double heapBytesPerRow) {
+
+        @Override
+        public String toString() {
+            return String.format("%-22s %2d columns  transfer %6.1f B/row  heap %6.1f B/row",
+                form, columns, transferBytesPerRow, heapBytesPerRow);
+        }
+    }
+
+    public List<Result> run(int rows) {
+        // One holder per row keeps the entity and its snapshot together; measured alone to take it off again
+        double holder = heapBytesPerRow(rows, i -> new Object[2]);
+
+        List<Result> results = new ArrayList<>();
+        results.add(new Result("Student (managed)", 16, transferBytesPerRow(rows, ListRowBenchmark::entityColumns),
+            heapBytesPerRow(rows, i -> {
+                Student student = sample(i);
+                return new Object[] {student, entityColumns(student)};
+            }) - holder));
+        results.add(new Result("Plain row", 9, transferBytesPerRow(rows, ListRowBenchmark::rowColumns),
+            heapBytesPerRow(rows, i -> plainRow(sample(i)))));
+        results.add(new Result("StudentSummary", 8, transferBytesPerRow(rows, ListRowBenchmark::summaryColumns),
+            heapBytesPerRow(rows, i -> summary(sample(i)))));
+        return results;
+    }
+
+    /**
+     * A student as the database would return it, every string a separate instance
+     */
+    static Student sample(int i) {
+        Random random = new Random(i);
+        String first = FIRST_NAMES.get(random.nextInt(FIRST_NAMES.size()));
+        String last = LAST_NAMES.get(random.nextInt(LAST_NAMES.size()));
+
+        Student student = new Student();
+        student.setId((long) i + 1);
+        student.setName(first + " " + last);
+        student.setEmail(first.toLowerCase() + "." + last.toLowerCase() + i + "@example.com");
+        student.setPhone(phone(random));
+        student.setDateOfBirth(LocalDate.of(2008 + random.nextInt(12), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+        student.setRollNumber(String.format("R-%05d", i + 1));
+        int grade = random.nextInt(GRADES.size());
+        boolean sectionA = random.nextBoolean();
+        student.setGrade(new String(GRADES.get(grade)));
+        student.setSection(sectionA ? new String("A") : new String("B"));
+        // Two sections per grade, ids from 1 as the database assigns them
+        student.setClassId((short) (grade * 2 + (sectionA ? 1 : 2)));
+        student.setGender(random.nextBoolean() ? Student.Gender.MALE : Student.Gender.FEMALE);
+        student.setAdmissionDate(LocalDate.of(2015 + random.nextInt(10), 4, 1));
+        student.setGuardianName("Mr. " + LAST_NAMES.get(random.nextInt(LAST_NAMES.size())));
+        student.setGuardianPhone(phone(random));
+        student.setGuardianEmail("guardian" + i + "@example.com");
+        student.setAddressId((long) i + 1);
+        student.setActive(true);
+        return student;
+    }
+
+    /**
+     * The row as its constructor query delivers it, with values of its own
+     */
+    private static PlainRow plainRow(Student student) {
+        return new PlainRow(Long.valueOf(student.getId()), new String(student.getRollNumber()),
+            new String(student.getName()), new String(student.getGrade()), new String(student.getSection()),
+            new String(student.getEmail()), new String(student.getPhone()), student.getGender(), student.isActive());
+    }
+
+    /**
+     * The summary built from the same freshly delivered values
+     */
+    static StudentSummary summary(Student student) {
+        return new StudentSummary(Long.valueOf(student.getId()), new String(student.getRollNumber()),
+            new String(student.getName()), Short.valueOf(student.getClassId()), new String(student.getEmail()),
+            new String(student.getPhone()), student.getGender(), student.isActive());
+    }
+
+    private static Object[] entityColumns(Student student) {
+        return new Object[] {
+            student.getId(), student.getName(), student.getEmail(), student.getPhone(), student.getDateOfBirth(),
+            student.getRollNumber(), student.getGrade(), student.getSection(), student.getGender(),
+            student.getAdmissionDate(), student.getGuardianName(), student.getGuardianPhone(),
+            student.getGuardianEmail(), student.getAddressId(), student.getClassId(), student.isActive()
+        };
+    }
+
+    private static Object[] rowColumns(Student student) {
+        PlainRow row = plainRow(student);
+        return new Object[] {
+            row.id(), row.rollNumber(), row.name(), row.grade(), row.section(), row.email(), row.phone(),
+            row.gender(), row.active()
+        };
+    }
+
+    private static Object[] summaryColumns(Student student) {
+        return new Object[] {
+            student.getId(), student.getRollNumber(), student.getName(), student.getClassId(), student.getEmail(),
+            student.getPhone(), student.getGender(), student.isActive()
+        };
+    }
+
+    private static String phone(Random random) {
+        return "9" + String.format("%09d", random.nextInt(1_000_000_000));
+    }
+
+    private static double transferBytesPerRow(int rows, Function<Student, Object[]> columns) {
+        long bytes = 0;
+        for (int i = 0; i < rows; i++) {
+            for (Object value : columns.apply(sample(i))) {
+                bytes += 1 + (value == null ? 0 : textValue(value).getBytes(StandardCharsets.UTF_8).length);
+            }
+        }
+        return (double) bytes / rows;
+    }
+
+    private static String textValue(Object value) {
+        if (value instanceof Boolean flag) {
+            return flag ? "1" : "0";
+        }
+        return value.toString();
+    }
+
+    private static double heapBytesPerRow(int rows, IntFunction<Object> make) {
+        Object[] kept = new Object[rows];
+        for (int i = 0; i < rows; i++) {
+            kept[i] = make.apply(i);
+        }
+        long keptArray = GraphLayout.parseInstance((Object) new Object[rows]).totalSize();
+        return (double) (GraphLayout.parseInstance((Object) kept).totalSize() - keptArray) / rows;
+    }
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS;
+        System.out.println("Bytes per student over " + rows + " students:");
+        for (Result result : new ListRowBenchmark().run(rows)) {
+            System.out.println(result);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.management.school.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures how long {@link SearchIndex} takes to answer the queries typed
+ * into the student search - names, the first letters of a name, full names,
+ * misspelt surnames, roll numbers and the last digits of a phone number -
+ * over an index of a school's students, indexed with the same fields and
+ * weights as {@link SearchIndexService}.
+ *
+ * Not part of the application; run it from the test classpath:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.management.school.service.SearchIndexBenchmark -Dexec.args=[students]
+ * </pre>
+ */
+public class SearchIndexBenchmark {
+
+    public static final int DEFAULT_STUDENTS = 2400;
+
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int ROUNDS = 200;
+    private static final int LIMIT = 200;
+
+    private static final String[] FIRST_NAMES = {"Aarav", "Vivaan", "Aditya", "Vihaan", "Arjun", "Sai", "Reyansh",
+        "Krishna", "Ishaan", "Ananya", "Diya", "Priya", "Saanvi", "Aadhya", "Kavya", "Meera", "Riya", "Neha",
+        "Rohan", "Karan", "Pooja", "Sneha", "Imran", "Fatima", "Ayesha", "Rahul", "Deepak", "Sunita", "Anil", "Geeta"};
+    private static final String[] SURNAMES = {"Sharma", "Verma", "Gupta", "Singh", "Kumar", "Patel", "Reddy", "Nair",
+        "Iyer", "Das", "Bose", "Mehta", "Joshi", "Yadav", "Mishra", "Pandey", "Ansari", "Siddiqui", "Rao", "Pillai"};
+
+    /**
+     * Times over every round; the 99th percentile leaves out the odd pause
+     * for garbage collection
+     */
+    public record Result(String kind, int queries, double averageMicros, double p99Micros) {
+
+        @Override
+        public String toString() {
+            return String.format("%-12s %3d queries  average %7.1f us  99th percentile %7.1f us",
+                kind, queries, averageMicros, p99Micros);
+        }
+    }
+
+    /**
+     * Students numbered from 1, with a name, roll number, guardian name and phone
+     */
+    static SearchIndex schoolIndex(int students) {
+        SearchIndex index = new SearchIndex();
+        for (int id = 1; id <= students; id++) {
+            String name = name(id);
+            String surname = SURNAMES[(id / FIRST_NAMES.length) % SURNAMES.length];
+            index.put((long) id, name, List.of(
+                SearchIndex.Field.name(name, 3),
+                SearchIndex.Field.identifier("R-" + id, 3),
+                SearchIndex.Field.name(SURNAMES[(id * 7) % SURNAMES.length] + " " + surname, 2),
+                SearchIndex.Field.text(phone(id), 2)));
+        }
+        return index;
+    }
+
+    /**
+     * Queries by kind that each find at least one student of an index of
+     * this size
+     */
+    static Map<String, List<String>> queries(int students) {
+        Map<String, List<String>> queries = new LinkedHashMap<>();
+        for (String kind : List.of("name", "prefix", "full name", "misspelt", "roll number", "phone")) {
+            queries.put(kind, new ArrayList<>());
+        }
+        int step = Math.max(1, students / 30);
+        for (int id = 1; id <= students; id += step) {
+            String name = name(id);
+            String first = name.substring(0, name.indexOf(' '));
+            String surname = name.substring(name.indexOf(' ') + 1);
+            queries.get("name").add(first);
+            queries.get("prefix").add(first.substring(0, 3));
+            queries.get("full name").add(name);
+            // A letter doubled
+            queries.get("misspelt").add(surname.substring(0, 2) + surname.substring(1));
+            queries.get("roll number").add("R-" + id);
+            queries.get("phone").add(phone(id).substring(5));
+        }
+        return queries;
+    }
+
+    public List<Result> run(int students) {
+        SearchIndex index = schoolIndex(students);
+        Map<String, List<String>> queries = queries(students);
+
+        // Warm up the JIT before measuring
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            queries.values().forEach(kind -> kind.forEach(query -> index.search(query, LIMIT)));
+        }
+
+        List<Result> results = new ArrayList<>();
+        queries.forEach((kind, terms) -> {
+            long[] nanos = new long[ROUNDS * terms.size()];
+            int measured = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                for (String term : terms) {
+                    long start = System.nanoTime();
+                    index.search(term, LIMIT);
+                    nanos[measured++] = System.nanoTime() - start;
+                }
+            }
+            Arrays.sort(nanos);
+            results.add(new Result(kind, terms.size(), Arrays.stream(nanos).average().orElse(0) / 1e3,
+                nanos[(int) (nanos.length * 0.99)] / 1e3));
+        });
+        return results;
+    }
+
+    private static String name(int id) {
+        return FIRST_NAMES[id % FIRST_NAMES.length] + " " + SURNAMES[(id / FIRST_NAMES.length) % SURNAMES.length];
+    }
+
+    private static String phone(int id) {
+        return String.valueOf(9_000_000_000L + id * 7919L);
+    }
+
+    public static void main(String[] args) {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_STUDENTS;
+        System.out.println("Search times over " + students + " students (limit " + LIMIT + "):");
+        for (Result result : new SearchIndexBenchmark().run(students)) {
+            System.out.println(result);
+        }
+    }
+}
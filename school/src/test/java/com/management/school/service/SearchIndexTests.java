@@ -0,0 +1,170 @@
+package com.management.school.service;
+
+import com.management.school.model.Student;
+import com.management.school.repository.StudentRepository;
+import com.management.school.repository.TeacherRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks what the search index finds and in which order, that updates and
+ * removals leave nothing behind, that changes made during a rebuild reach
+ * the rebuilt index, and that a school-sized index answers every kind of
+ * query; {@link SearchIndexBenchmark} times it.
+ */
+class SearchIndexTests {
+
+    // ==================== Matching ====================
+
+    @Test
+    void namesSpeltDifferentlyMatchBySound() {
+        SearchIndex index = new SearchIndex();
+        index.put(1L, "Mohammad Khan", List.of(SearchIndex.Field.name("Mohammad Khan", 3)));
+        index.put(2L, "Lakshmi Iyer", List.of(SearchIndex.Field.name("Lakshmi Iyer", 3)));
+        index.put(3L, "Ravi Chaudhary", List.of(SearchIndex.Field.name("Ravi Chaudhary", 3)));
+
+        assertEquals(List.of(1L), index.search("Muhammed", 10));
+        assertEquals(List.of(2L), index.search("Laxmi", 10));
+        assertEquals(List.of(3L), index.search("Chowdhury", 10));
+        assertEquals(SearchIndex.phoneticKey("Mohammad"), SearchIndex.phoneticKey("Muhammed"));
+        assertEquals(SearchIndex.phoneticKey("Lakshmi"), SearchIndex.phoneticKey("Laxmi"));
+        assertEquals(SearchIndex.phoneticKey("Chaudhary"), SearchIndex.phoneticKey("Chowdhury"));
+    }
+
+    @Test
+    void misspeltNamesStillMatch() {
+        SearchIndex index = new SearchIndex();
+        index.put(1L, "Priyanka Sharma", List.of(SearchIndex.Field.name("Priyanka Sharma", 3)));
+        index.put(2L, "Rohit Verma", List.of(SearchIndex.Field.name("Rohit Verma", 3)));
+
+        // Neighbours swapped, a letter doubled, a letter missing
+        assertEquals(List.of(1L), index.search("Priyanak", 10));
+        assertEquals(List.of(1L), index.search("Sharrma", 10));
+        assertEquals(List.of(2L), index.search("Rohit Vrma", 10));
+        assertEquals(List.of(), index.search("Rohit Sharma", 10));
+    }
+
+    @Test
+    void rollNumbersAndPhonesAreFound() {
+        SearchIndex index = new SearchIndex();
+        index.put(1L, "Asha", List.of(
+            SearchIndex.Field.name("Asha", 3),
+            SearchIndex.Field.identifier("R-101", 3),
+            SearchIndex.Field.text("9876543210", 2)));
+        index.put(2L, "Bela", List.of(
+            SearchIndex.Field.name("Bela", 3),
+            SearchIndex.Field.identifier("R-102", 3),
+            SearchIndex.Field.text("9123456789", 2)));
+
+        assertEquals(List.of(1L), index.search("R-101", 10));
+        // R-102 is one typing mistake away, but ranks after the exact match
+        assertEquals(List.of(1L, 2L), index.search("r101", 10));
+        assertEquals(List.of(2L), index.search("R 102", 10));
+        assertEquals(List.of(1L), index.search("9876543210", 10));
+        // The last four or more digits are enough
+        assertEquals(List.of(1L), index.search("3210", 10));
+        assertEquals(List.of(2L), index.search("56789", 10));
+    }
+
+    @Test
+    void rankingPrefersExactThenPrefixThenSimilarMatches() {
+        // Field weight times match factor: exact 3, own name prefix 2.1,
+        // guardian exact 2, own name one letter off 1.5
+        SearchIndex index = new SearchIndex();
+        index.put(1L, "Aman Gupta", List.of(SearchIndex.Field.name("Aman Gupta", 3)));
+        index.put(2L, "Amandeep Singh", List.of(SearchIndex.Field.name("Amandeep Singh", 3)));
+        index.put(3L, "Amar Das", List.of(SearchIndex.Field.name("Amar Das", 3)));
+        // Only the guardian is called Aman, which weighs less than an own name
+        index.put(4L, "Zoya Khan", List.of(
+            SearchIndex.Field.name("Zoya Khan", 3),
+            SearchIndex.Field.name("Aman Khan", 2)));
+
+        assertEquals(List.of(1L, 2L, 4L, 3L), index.search("aman", 10));
+        assertEquals(List.of(1L, 2L), index.search("aman", 2));
+    }
+
+    @Test
+    void equalScoresAreSortedByLabel() {
+        SearchIndex index = new SearchIndex();
+        index.put(1L, "Kumar Vikram", List.of(SearchIndex.Field.name("Kumar Vikram", 3)));
+        index.put(2L, "Kumar Anil", List.of(SearchIndex.Field.name("Kumar Anil", 3)));
+
+        assertEquals(List.of(2L, 1L), index.search("kumar", 10));
+    }
+
+    // ==================== Updates ====================
+
+    @Test
+    void updatedAndRemovedEntriesLeaveNothingBehind() {
+        SearchIndex index = new SearchIndex();
+        index.put(1L, "Neha Joshi", List.of(SearchIndex.Field.name("Neha Joshi", 3)));
+        index.put(2L, "Neha Rao", List.of(SearchIndex.Field.name("Neha Rao", 3)));
+
+        index.put(1L, "Neha Mehta", List.of(SearchIndex.Field.name("Neha Mehta", 3)));
+        assertEquals(2, index.size());
+        assertEquals(List.of(), index.search("Joshi", 10));
+        assertEquals(List.of(), index.search("Joshy", 10));
+        assertEquals(List.of(1L), index.search("Mehta", 10));
+
+        index.remove(1L);
+        index.remove(99L);
+        assertEquals(1, index.size());
+        assertEquals(List.of(), index.search("Mehta", 10));
+        assertEquals(List.of(), index.search("Mehtaa", 10));
+        assertEquals(List.of(2L), index.search("Neha", 10));
+    }
+
+    @Test
+    void changesDuringRebuildReachTheRebuiltIndex() {
+        StudentRepository studentRepository = mock(StudentRepository.class);
+        SearchIndexService service = new SearchIndexService();
+        ReflectionTestUtils.setField(service, "studentRepository", studentRepository);
+        ReflectionTestUtils.setField(service, "teacherRepository", mock(TeacherRepository.class));
+
+        when(studentRepository.findByActive(true)).thenReturn(List.of(student(1L, "Kavya Nair")));
+        service.rebuild();
+        assertEquals(List.of(1L), service.searchStudents("Kavya", 10));
+
+        // Saved and deleted while the rebuild is reading the database
+        when(studentRepository.findByActive(true)).thenAnswer(invocation -> {
+            service.studentSaved(student(2L, "Kavya Pillai"));
+            service.studentDeleted(1L);
+            return List.of(student(1L, "Kavya Nair"));
+        });
+        service.rebuild();
+        assertEquals(List.of(2L), service.searchStudents("Kavya", 10));
+    }
+
+    // ==================== School-sized index ====================
+
+    /**
+     * Every kind of query the benchmark times finds someone; the timing
+     * itself is left to {@link SearchIndexBenchmark}
+     */
+    @Test
+    void schoolSizedIndexAnswersEveryKindOfQuery() {
+        SearchIndex index = SearchIndexBenchmark.schoolIndex(SearchIndexBenchmark.DEFAULT_STUDENTS);
+        assertEquals(SearchIndexBenchmark.DEFAULT_STUDENTS, index.size());
+
+        SearchIndexBenchmark.queries(SearchIndexBenchmark.DEFAULT_STUDENTS).forEach((kind, queries) -> {
+            for (String query : queries) {
+                assertFalse(index.search(query, 50).isEmpty(), kind + ": " + query);
+            }
+        });
+    }
+
+    private static Student student(Long id, String name) {
+        Student student = new Student();
+        student.setId(id);
+        student.setName(name);
+        student.setActive(true);
+        return student;
+    }
+}